@@ -89,6 +89,20 @@ public class Config {
 	public String getSmtpOrigin() {
 		return properties.getProperty("smtp-server.origin");
 	}
+
+	/**
+	 * @return number of senders that deliver queued mails concurrently
+	 */
+	public int getSmtpSenders() {
+		return Integer.parseInt(properties.getProperty("smtp-server.senders", "2"));
+	}
+
+	/**
+	 * @return time in minutes for which mails are held, so mails for the same addressee are combined
+	 */
+	public long getMailDigestInterval() {
+		return Long.parseLong(properties.getProperty("smtp-server.digest-interval", "5"));
+	}
 	
 	/**
 	 * @return the LDAP host address, for example ldaps.tudelft.nl
@@ -111,6 +125,158 @@ public class Config {
 		return Integer.parseInt(properties.getProperty("git-server.connection.pool-size", "25"));
 	}
 
+	/**
+	 * @return maximal size in megabytes of the in-memory git object cache
+	 */
+	public long getGitServerCacheSize() {
+		return Long.parseLong(properties.getProperty("git-server.cache.size", "64"));
+	}
+
+	/**
+	 * @return folder to which git objects evicted from the in-memory cache are spilled,
+	 * 		or {@code null} if there is no disk tier
+	 */
+	public File getGitServerCacheFolder() {
+		String folder = properties.getProperty("git-server.cache.folder", "");
+		return folder.isEmpty() ? null : new File(folder);
+	}
+
+	/**
+	 * @return maximal size in megabytes of the git objects spilled to the cache folder
+	 */
+	public long getGitServerCacheFolderSize() {
+		return Long.parseLong(properties.getProperty("git-server.cache.folder.size", "512"));
+	}
+
+	/**
+	 * @return number of workers that retrieve the details of new commits from the git server concurrently
+	 */
+	public int getCommitFetchWorkers() {
+		return Integer.parseInt(properties.getProperty("git-server.fetch-workers", "8"));
+	}
+
+	/**
+	 * @return number of workers that process git pushes concurrently
+	 */
+	public int getGitPushWorkers() {
+		return Integer.parseInt(properties.getProperty("git-push.workers", "4"));
+	}
+
+	/**
+	 * @return maximal number of repositories with a pending git push
+	 */
+	public int getGitPushQueueSize() {
+		return Integer.parseInt(properties.getProperty("git-push.queue-size", "1000"));
+	}
+
+	/**
+	 * @return number of dispatchers that hand builds to the build servers concurrently
+	 */
+	public int getBuildQueueDispatchers() {
+		return Integer.parseInt(properties.getProperty("build-queue.dispatchers", "2"));
+	}
+
+	/**
+	 * @return maximal time in seconds a build server at capacity is backed off
+	 */
+	public long getBuildQueueMaxBackoff() {
+		return Long.parseLong(properties.getProperty("build-queue.max-backoff", "60"));
+	}
+
+	/**
+	 * @return time in seconds after which a build that was not reported back no longer counts towards its build server
+	 */
+	public long getBuildQueueLease() {
+		return Long.parseLong(properties.getProperty("build-queue.lease", "3600"));
+	}
+
+	/**
+	 * @return number of workers that generate push warnings concurrently
+	 */
+	public int getWarningGeneratorWorkers() {
+		return Integer.parseInt(properties.getProperty("warnings.workers", "4"));
+	}
+
+	/**
+	 * @return maximal time in seconds a push warning generator may take for a commit
+	 */
+	public long getWarningGeneratorTimeout() {
+		return Long.parseLong(properties.getProperty("warnings.generator-timeout", "60"));
+	}
+
+	/**
+	 * @return number of workers that process PMD, Checkstyle and FindBugs reports concurrently
+	 */
+	public int getReportIngestionWorkers() {
+		return Integer.parseInt(properties.getProperty("warnings.report-workers", "2"));
+	}
+
+	/**
+	 * @return maximal number of PMD, Checkstyle and FindBugs reports waiting to be processed
+	 */
+	public int getReportIngestionQueueSize() {
+		return Integer.parseInt(properties.getProperty("warnings.report-queue-size", "100"));
+	}
+
+	/**
+	 * @return whether templates are checked for modifications, instead of being compiled once at startup
+	 */
+	public boolean isTemplateReloadingEnabled() {
+		return properties.getProperty("templates.reload", "false").equalsIgnoreCase("true");
+	}
+
+	/**
+	 * @return maximal size in megabytes of the cache for rendered markdown
+	 */
+	public long getMarkdownCacheSize() {
+		return Long.parseLong(properties.getProperty("markdown.cache.size", "16"));
+	}
+
+	/**
+	 * @return the session store, either {@code memory} or {@code jdbc}
+	 */
+	public String getSessionStore() {
+		return properties.getProperty("session.store", "memory");
+	}
+
+	/**
+	 * @return whether the course feed polls for new events, by default only with the {@code memory} session store
+	 * @see nl.tudelft.ewi.devhub.server.backend.CourseEventFeed
+	 */
+	public boolean isCourseFeedPollingEnabled() {
+		String polling = properties.getProperty("course-feed.polling", "");
+		return polling.isEmpty() ? "memory".equalsIgnoreCase(getSessionStore()) : Boolean.parseBoolean(polling);
+	}
+
+	/**
+	 * @return time in seconds after which an inactive session expires
+	 */
+	public int getSessionTimeout() {
+		return Integer.parseInt(properties.getProperty("session.timeout", "1800"));
+	}
+
+	/**
+	 * @return name of this node in the shared session store, or {@code null} to use the host name
+	 */
+	public String getSessionNode() {
+		String node = properties.getProperty("session.node", "");
+		return node.isEmpty() ? null : node;
+	}
+
+	/**
+	 * @return interval in seconds at which the access time of an unmodified session is written
+	 */
+	public long getSessionSaveInterval() {
+		return Long.parseLong(properties.getProperty("session.save-interval", "60"));
+	}
+
+	/**
+	 * @return interval in seconds at which expired sessions are removed from the shared session store
+	 */
+	public long getSessionScavengeInterval() {
+		return Long.parseLong(properties.getProperty("session.scavenge-interval", "600"));
+	}
+
 	/**
 	 * @return whether or not to use SSL for this LDAP connection
 	 */
@@ -144,6 +310,34 @@ public class Config {
 		return properties.getProperty("ldap.primarydomain");
 	}
 
+	/**
+	 * @return maximal number of connections to the LDAP server
+	 */
+	public int getLDAPPoolSize() {
+		return Integer.parseInt(properties.getProperty("ldap.pool-size", "8"));
+	}
+
+	/**
+	 * @return maximal time in seconds a login waits for a connection to the LDAP server
+	 */
+	public long getLDAPPoolTimeout() {
+		return Long.parseLong(properties.getProperty("ldap.pool-timeout", "10"));
+	}
+
+	/**
+	 * @return time in seconds for which successfully verified credentials are remembered
+	 */
+	public long getLDAPBindCacheTtl() {
+		return Long.parseLong(properties.getProperty("ldap.bind-cache.ttl", "300"));
+	}
+
+	/**
+	 * @return time in milliseconds after which a request is logged with its statements and git calls
+	 */
+	public long getSlowRequestThreshold() {
+		return Long.parseLong(properties.getProperty("metrics.slow-request", "1000"));
+	}
+
     /**
      * @return the storage folder used for storing files
      */
@@ -5,19 +5,24 @@ import lombok.extern.slf4j.Slf4j;
 import nl.tudelft.ewi.devhub.server.backend.AuthenticationBackend;
 import nl.tudelft.ewi.devhub.server.backend.AuthenticationBackendImpl;
 import nl.tudelft.ewi.devhub.server.backend.AuthenticationProvider;
+import nl.tudelft.ewi.devhub.server.backend.BuildQueue;
 import nl.tudelft.ewi.devhub.server.backend.LdapAuthenticationProvider;
 import nl.tudelft.ewi.devhub.server.backend.LdapBackend.LdapUserProcessor;
 import nl.tudelft.ewi.devhub.server.backend.LdapBackend.PersistingLdapUserProcessor;
+import nl.tudelft.ewi.devhub.server.backend.mail.MailBackendImpl;
 import nl.tudelft.ewi.devhub.server.backend.warnings.CommitPushWarningGenerator;
 import nl.tudelft.ewi.devhub.server.database.DbModule;
 import nl.tudelft.ewi.devhub.server.database.controllers.Users;
 import nl.tudelft.ewi.devhub.server.database.entities.Group;
 import nl.tudelft.ewi.devhub.server.database.entities.User;
+import nl.tudelft.ewi.devhub.server.web.assets.AssetManifest;
 import nl.tudelft.ewi.devhub.server.web.errors.UnauthorizedException;
 import nl.tudelft.ewi.devhub.server.web.filters.RepositoryAuthorizeFilter;
+import nl.tudelft.ewi.devhub.server.web.filters.RequestMetricsFilter;
 import nl.tudelft.ewi.devhub.server.web.filters.UserAuthorizeFilter;
 import nl.tudelft.ewi.devhub.server.web.resources.HooksResource;
 import nl.tudelft.ewi.devhub.server.web.resources.HooksResource.GitPushHandlerWorkerFactory;
+import nl.tudelft.ewi.devhub.server.web.templating.TemplateEngine;
 import nl.tudelft.ewi.devhub.server.web.templating.TranslatorFactory;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -50,11 +55,13 @@ public class DevhubModule extends ServletModule {
 
 	private final File rootFolder;
 	private final Config config;
+	private final AssetManifest assetManifest;
 	private final LifeCycle lifeCycle;
 
-	public DevhubModule(Config config, File rootFolder, LifeCycle lifeCycle) {
+	public DevhubModule(Config config, File rootFolder, AssetManifest assetManifest, LifeCycle lifeCycle) {
 		this.config = config;
 		this.rootFolder = rootFolder;
+		this.assetManifest = assetManifest;
 		this.lifeCycle = lifeCycle;
 	}
 
@@ -71,16 +78,22 @@ public class DevhubModule extends ServletModule {
 		bind(File.class).annotatedWith(Names.named("directory.templates")).toInstance(new File(rootFolder, "templates"));
 		bind(TranslatorFactory.class).toInstance(new TranslatorFactory("i18n.devhub"));
 		bind(Config.class).toInstance(config);
+		bind(AssetManifest.class).toInstance(assetManifest);
 
 		bind(AuthenticationBackend.class).to(AuthenticationBackendImpl.class);
 		bind(AuthenticationProvider.class).to(LdapAuthenticationProvider.class);
 		bind(LdapUserProcessor.class).to(PersistingLdapUserProcessor.class);
 		bindWarningGenerators();
 
+		bind(BuildQueue.class).asEagerSingleton();
+		bind(MailBackendImpl.class).asEagerSingleton();
+		bind(TemplateEngine.class).asEagerSingleton();
+
 		install(new FactoryModuleBuilder()
 			.implement(HooksResource.GitPushHandlerWorker.class, HooksResource.GitPushHandlerWorker.class)
 			.build(GitPushHandlerWorkerFactory.class));
 
+		filter("/*").through(RequestMetricsFilter.class);
 		filter("/*").through(PersistFilter.class);
 		filter(
 			"/accounts*",
@@ -88,7 +101,8 @@ public class DevhubModule extends ServletModule {
 			"/build-servers*",
 			"/projects*",
 			"/validation*",
-			"/courses*"
+			"/courses*",
+			"/metrics*"
 		).through(UserAuthorizeFilter.class);
 		filterRegex("^/courses/[^/]+/[^/]+/groups/\\d+(/.*)?").through(RepositoryAuthorizeFilter.class);
 
@@ -140,7 +154,6 @@ public class DevhubModule extends ServletModule {
 	}
 
 	@Provides
-	@RequestScoped
 	public PegDownProcessor getProcessor(@Named("pegdown.timeout") long timeout) {
 		return new PegDownProcessor(timeout);
 	}
@@ -2,6 +2,9 @@ package nl.tudelft.ewi.devhub.server;
 
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
+import nl.tudelft.ewi.devhub.server.web.assets.AssetHandler;
+import nl.tudelft.ewi.devhub.server.web.assets.AssetManifest;
+import nl.tudelft.ewi.devhub.server.web.session.SessionStore;
 
 import com.google.common.collect.ImmutableList;
 import com.google.inject.Injector;
@@ -11,13 +14,9 @@ import com.google.inject.util.Modules;
 
 import org.eclipse.jetty.server.Server;
 import org.eclipse.jetty.server.handler.ContextHandlerCollection;
-import org.eclipse.jetty.server.handler.ResourceHandler;
-import org.eclipse.jetty.server.session.HashSessionIdManager;
-import org.eclipse.jetty.server.session.HashSessionManager;
 import org.eclipse.jetty.server.session.SessionHandler;
 import org.eclipse.jetty.servlet.FilterHolder;
 import org.eclipse.jetty.servlet.ServletContextHandler;
-import org.eclipse.jetty.util.resource.Resource;
 import org.jboss.resteasy.plugins.guice.GuiceResteasyBootstrapServletContextListener;
 import org.jboss.resteasy.plugins.server.servlet.HttpServletDispatcher;
 import org.slf4j.bridge.SLF4JBridgeHandler;
@@ -44,6 +43,22 @@ public class DevhubServer {
 		return new File("config");
 	}
 
+	/**
+	 * The asset pipeline writes the fingerprinted static files to {@code target/assets}, which the
+	 * distribution contains as the assets folder. When templates are reloaded during development,
+	 * or the pipeline has not run, the static folder is served as is.
+	 */
+	private static File determineAssetsFolder(Config config, File rootFolder) {
+		File assetsFolder = new File(rootFolder, "assets");
+		if (!assetsFolder.isDirectory()) {
+			assetsFolder = new File("target/assets");
+		}
+		if (config.isTemplateReloadingEnabled() || !assetsFolder.isDirectory()) {
+			return new File(rootFolder, "static");
+		}
+		return assetsFolder;
+	}
+
 	public static void main(String[] args) throws Exception {
 		SLF4JBridgeHandler.removeHandlersForRootLogger();
 		SLF4JBridgeHandler.install();
@@ -54,34 +69,31 @@ public class DevhubServer {
 	}
 
 	private final Server server;
+	private final SessionStore sessionStore;
 	private final AtomicReference<Injector> injector = new AtomicReference<>();
 
 	/**
 	 * Constructs a new {@link DevhubServer} object.
 	 */
+	@SneakyThrows
 	public DevhubServer(Module... overrides) {
 		Config config = new Config();
 		config.reload();
 
 		File rootFolder = determineRootFolder();
+		AssetManifest assetManifest = AssetManifest.load(determineAssetsFolder(config, rootFolder));
 
-		ResourceHandler resources = new ResourceHandler();
-		resources.setBaseResource(Resource.newResource(new File(rootFolder, "static")));
-		resources.setDirectoriesListed(false);
-		resources.setCacheControl("max-age=3600");
-
-		HashSessionManager hashSessionManager = new HashSessionManager();
-		hashSessionManager.setMaxInactiveInterval(1800);
+		server = new Server(config.getHttpPort());
+		sessionStore = SessionStore.create(server, config);
 
-		DevhubHandler devhubHandler = new DevhubHandler(config, rootFolder, overrides);
-		devhubHandler.setHandler(new SessionHandler(hashSessionManager));
+		DevhubHandler devhubHandler = new DevhubHandler(config, rootFolder, assetManifest, overrides);
+		devhubHandler.setHandler(new SessionHandler(sessionStore.createSessionManager()));
 
 		ContextHandlerCollection handlers = new ContextHandlerCollection();
-		handlers.addContext("/static/", "/static").setHandler(resources);
+		handlers.addContext("/static/", "/static").setHandler(new AssetHandler(assetManifest));
 		handlers.addContext("/", "/").setHandler(devhubHandler);
 
-		server = new Server(config.getHttpPort());
-		server.setSessionIdManager(new HashSessionIdManager());
+		server.setSessionIdManager(sessionStore.getSessionIdManager());
 		server.setHandler(handlers);
 	}
 
@@ -106,15 +118,17 @@ public class DevhubServer {
 	@SneakyThrows
 	public void stopServer() {
 		server.stop();
+		sessionStore.close();
 	}
 
 	private class DevhubHandler extends ServletContextHandler {
 		
-		private DevhubHandler(final Config config, final File rootFolder, final Module[] overrides) {
+		private DevhubHandler(final Config config, final File rootFolder, final AssetManifest assetManifest,
+							  final Module[] overrides) {
 			addEventListener(new GuiceResteasyBootstrapServletContextListener() {
 				@Override
 				protected List<Module> getModules(ServletContext context) {
-					DevhubModule module = new DevhubModule(config, rootFolder, server);
+					DevhubModule module = new DevhubModule(config, rootFolder, assetManifest, server);
 					return ImmutableList.<Module> of(Modules.override(module).with(overrides));
 				}
 
@@ -0,0 +1,433 @@
+package nl.tudelft.ewi.devhub.server;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Joiner;
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.RemovalCause;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import nl.tudelft.ewi.git.web.api.CommitApi;
+import nl.tudelft.ewi.git.web.api.RepositoriesApi;
+import nl.tudelft.ewi.git.web.api.RepositoryApi;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * The {@code GitServerCache} decorates the {@link RepositoriesApi} proxies with a cache for
+ * git objects. Diffs, blames, trees and files are immutable for a commit id, and are cached
+ * under the repository, commit id, operation and path. The cache is bounded by the
+ * estimated size of the cached objects. Objects evicted from memory are optionally written
+ * to a folder on disk, from which they are read on a later miss. The folder is cleared when
+ * the cache is created, and is bounded in size: the oldest files are removed first.
+ *
+ * Only calls on a {@link CommitApi} for a full commit id are cached. Calls on branches, and
+ * calls on commits retrieved by a ref name, are passed through.
+ *
+ * @author Jan-Willem Gmelig Meyling
+ */
+@Slf4j
+public class GitServerCache {
+
+	private static final Pattern COMMIT_ID_PATTERN = Pattern.compile("^[0-9a-f]{40}$");
+
+	/**
+	 * Idempotent {@link CommitApi} methods that are cached.
+	 * {@code showFile} is not cached as it returns a stream.
+	 */
+	private static final Set<String> CACHED_METHODS =
+		ImmutableSet.of("get", "diff", "diffBlame", "blame", "showTree", "showTextFile");
+
+	private static final String DISK_SUFFIX = ".json";
+
+	/**
+	 * Estimated size of an object header, and of a reference or primitive field.
+	 */
+	private static final int OBJECT_SIZE = 16;
+	private static final int FIELD_SIZE = 8;
+
+	/**
+	 * The git models are shallow trees, deeper objects are counted as a single object.
+	 */
+	private static final int MAX_ESTIMATE_DEPTH = 8;
+
+	private static final ClassValue<List<Field>> FIELDS = new ClassValue<List<Field>>() {
+		@Override
+		protected List<Field> computeValue(Class<?> type) {
+			List<Field> fields = Lists.newArrayList();
+			for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+				for (Field field : current.getDeclaredFields()) {
+					if (!Modifier.isStatic(field.getModifiers())) {
+						field.setAccessible(true);
+						fields.add(field);
+					}
+				}
+			}
+			return fields;
+		}
+	};
+
+	private final ObjectMapper objectMapper;
+	private final Cache<CacheKey, CachedValue> cache;
+	private final File diskFolder;
+	private final long maximumDiskBytes;
+
+	/**
+	 * Files in the disk tier, oldest first.
+	 */
+	private final Deque<File> diskFiles = new ConcurrentLinkedDeque<>();
+	private final AtomicLong diskBytes = new AtomicLong();
+
+	private final AtomicLong diskHits = new AtomicLong();
+	private final AtomicLong diskWrites = new AtomicLong();
+
+	/**
+	 * Create a new {@code GitServerCache}.
+	 *
+	 * @param maximumBytes Maximal estimated size of the objects held in memory.
+	 * @param diskFolder Folder to spill evicted objects to, or {@code null} to disable the disk tier.
+	 * @param maximumDiskBytes Maximal size of the objects spilled to the folder.
+	 */
+	public GitServerCache(long maximumBytes, @Nullable File diskFolder, long maximumDiskBytes) {
+		this.objectMapper = new ObjectMapper();
+		this.diskFolder = diskFolder;
+		this.maximumDiskBytes = maximumDiskBytes;
+		this.cache = CacheBuilder.newBuilder()
+			.maximumWeight(maximumBytes)
+			.weigher((CacheKey key, CachedValue value) -> value.getWeight())
+			.removalListener(this::onRemoval)
+			.recordStats()
+			.build();
+
+		if (diskFolder != null) {
+			clearDiskFolder();
+		}
+	}
+
+	/**
+	 * Remove the files spilled by a previous run, as nothing bounds them anymore.
+	 */
+	private void clearDiskFolder() {
+		File[] files = diskFolder.listFiles((folder, name) -> name.endsWith(DISK_SUFFIX));
+		if (files != null) {
+			for (File file : files) {
+				if (!file.delete()) {
+					log.warn("Failed to remove cached git object {}", file);
+				}
+			}
+		}
+		else if (!diskFolder.mkdirs()) {
+			log.warn("Failed to create git server cache folder {}", diskFolder);
+		}
+	}
+
+	/**
+	 * Decorate a {@link RepositoriesApi} so that the {@link CommitApi CommitApis} it
+	 * provides are cached.
+	 *
+	 * @param repositoriesApi {@code RepositoriesApi} to decorate.
+	 * @return The decorated {@code RepositoriesApi}.
+	 */
+	public RepositoriesApi decorate(final RepositoriesApi repositoriesApi) {
+		return proxy(RepositoriesApi.class, (proxy, method, args) -> {
+			Object result = invoke(repositoriesApi, method, args);
+			if (result instanceof RepositoryApi && args != null && args.length == 1 && args[0] instanceof String) {
+				return decorate((RepositoryApi) result, (String) args[0]);
+			}
+			return result;
+		});
+	}
+
+	protected RepositoryApi decorate(final RepositoryApi repositoryApi, final String repositoryName) {
+		return proxy(RepositoryApi.class, (proxy, method, args) -> {
+			Object result = invoke(repositoryApi, method, args);
+			if (result instanceof CommitApi && args != null && args.length == 1 && args[0] instanceof String
+					&& COMMIT_ID_PATTERN.matcher((String) args[0]).matches()) {
+				return decorate((CommitApi) result, repositoryName, (String) args[0]);
+			}
+			return result;
+		});
+	}
+
+	protected CommitApi decorate(final CommitApi commitApi, final String repositoryName, final String commitId) {
+		return proxy(CommitApi.class, (proxy, method, args) -> {
+			if (!CACHED_METHODS.contains(method.getName())) {
+				return invoke(commitApi, method, args);
+			}
+
+			List<Object> arguments = args == null ? Collections.emptyList() : Arrays.asList(args);
+			CacheKey key = new CacheKey(repositoryName, commitId, method.getName(), arguments);
+			try {
+				return cache.get(key, () -> load(key, commitApi, method, args)).getValue();
+			}
+			catch (ExecutionException | UncheckedExecutionException | ExecutionError e) {
+				throw e.getCause();
+			}
+		});
+	}
+
+	/**
+	 * @return The current statistics for this cache.
+	 */
+	public Statistics getStatistics() {
+		CacheStats stats = cache.stats();
+		long weight = cache.asMap().values().stream()
+			.mapToLong(CachedValue::getWeight)
+			.sum();
+
+		return new Statistics(
+			cache.size(),
+			weight,
+			stats.requestCount(),
+			stats.hitRate(),
+			diskHits.get(),
+			stats.evictionCount(),
+			diskWrites.get(),
+			diskBytes.get()
+		);
+	}
+
+	private CachedValue load(CacheKey key, CommitApi commitApi, Method method, Object[] args) throws Exception {
+		JavaType type = objectMapper.getTypeFactory().constructType(method.getGenericReturnType());
+		File file = fileFor(key);
+
+		if (file != null && file.isFile()) {
+			try {
+				Object value = objectMapper.readValue(file, type);
+				diskHits.incrementAndGet();
+				return new CachedValue(value, weigh(value));
+			}
+			catch (IOException e) {
+				log.warn("Failed to read cached git object {}: {}", key, e.getMessage());
+			}
+		}
+
+		try {
+			Object value = invoke(commitApi, method, args);
+			return new CachedValue(value, weigh(value));
+		}
+		catch (Throwable e) {
+			Throwables.propagateIfPossible(e, Exception.class);
+			throw new RuntimeException(e);
+		}
+	}
+
+	private void onRemoval(RemovalNotification<CacheKey, CachedValue> notification) {
+		if (notification.getCause() != RemovalCause.SIZE || notification.getValue().getValue() == null) {
+			return;
+		}
+
+		File file = fileFor(notification.getKey());
+		if (file != null && !file.exists()) {
+			try {
+				objectMapper.writeValue(file, notification.getValue().getValue());
+				diskWrites.incrementAndGet();
+				diskBytes.addAndGet(file.length());
+				diskFiles.addLast(file);
+				trimDiskFolder();
+			}
+			catch (IOException e) {
+				log.warn("Failed to write cached git object {}: {}", notification.getKey(), e.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * Remove the oldest files from the disk tier until it fits its maximal size.
+	 */
+	private void trimDiskFolder() {
+		while (diskBytes.get() > maximumDiskBytes) {
+			File oldest = diskFiles.pollFirst();
+			if (oldest == null) {
+				return;
+			}
+
+			long length = oldest.length();
+			if (oldest.delete()) {
+				diskBytes.addAndGet(-length);
+			}
+		}
+	}
+
+	/**
+	 * Estimate the size of a value from its fields, which is much cheaper than serializing it.
+	 *
+	 * @param value Value to weigh.
+	 * @return The estimated size in bytes.
+	 */
+	static int weigh(Object value) {
+		return (int) Math.min(Math.max(estimate(value, 0), 1), Integer.MAX_VALUE);
+	}
+
+	private static long estimate(Object value, int depth) {
+		if (value == null) {
+			return 0;
+		}
+		if (value instanceof CharSequence) {
+			return OBJECT_SIZE + 2L * ((CharSequence) value).length();
+		}
+		if (depth > MAX_ESTIMATE_DEPTH || value instanceof Number || value instanceof Boolean
+				|| value instanceof Character || value instanceof Enum || value instanceof Date) {
+			return OBJECT_SIZE;
+		}
+
+		long size = OBJECT_SIZE;
+		if (value instanceof Collection) {
+			for (Object element : (Collection<?>) value) {
+				size += FIELD_SIZE + estimate(element, depth + 1);
+			}
+		}
+		else if (value instanceof Map) {
+			for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+				size += 2 * FIELD_SIZE + estimate(entry.getKey(), depth + 1) + estimate(entry.getValue(), depth + 1);
+			}
+		}
+		else if (value.getClass().isArray()) {
+			int length = Array.getLength(value);
+			if (value.getClass().getComponentType().isPrimitive()) {
+				size += (long) FIELD_SIZE * length;
+			}
+			else {
+				for (int i = 0; i < length; i++) {
+					size += FIELD_SIZE + estimate(Array.get(value, i), depth + 1);
+				}
+			}
+		}
+		else {
+			for (Field field : FIELDS.get(value.getClass())) {
+				size += FIELD_SIZE;
+				if (!field.getType().isPrimitive()) {
+					try {
+						size += estimate(field.get(value), depth + 1);
+					}
+					catch (IllegalAccessException e) {
+						// Counted as a reference only
+					}
+				}
+			}
+		}
+		return size;
+	}
+
+	private File fileFor(CacheKey key) {
+		if (diskFolder == null) {
+			return null;
+		}
+		String name = Hashing.sha1().hashString(key.toString(), StandardCharsets.UTF_8).toString();
+		return new File(diskFolder, name + DISK_SUFFIX);
+	}
+
+	private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+		try {
+			return method.invoke(target, args);
+		}
+		catch (InvocationTargetException e) {
+			throw e.getCause();
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+		return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, handler);
+	}
+
+	@Value
+	private static class CacheKey {
+
+		String repositoryName;
+
+		String commitId;
+
+		String operation;
+
+		List<Object> arguments;
+
+		@Override
+		public String toString() {
+			List<Object> parts = Lists.newArrayList(repositoryName, commitId, operation);
+			parts.addAll(arguments);
+			return Joiner.on(':').useForNull("").join(parts);
+		}
+
+	}
+
+	@Value
+	private static class CachedValue {
+
+		Object value;
+
+		int weight;
+
+	}
+
+	/**
+	 * Snapshot of the metrics for the {@link GitServerCache}.
+	 */
+	@Value
+	public static class Statistics {
+
+		/**
+		 * Number of objects held in memory.
+		 */
+		long entries;
+
+		/**
+		 * Estimated size of the objects held in memory.
+		 */
+		long weightBytes;
+
+		long requests;
+
+		/**
+		 * Ratio of requests that were served from memory.
+		 */
+		double hitRate;
+
+		/**
+		 * Number of memory misses that were served from disk.
+		 */
+		long diskHits;
+
+		long evictions;
+
+		long diskWrites;
+
+		/**
+		 * Size of the objects in the disk tier.
+		 */
+		long diskBytes;
+
+	}
+
+}
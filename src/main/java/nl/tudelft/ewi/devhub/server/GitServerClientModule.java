@@ -8,6 +8,7 @@ import com.google.inject.name.Named;
 import com.google.inject.name.Names;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
+import nl.tudelft.ewi.devhub.server.metrics.RemoteCallCounter;
 import nl.tudelft.ewi.git.web.api.BaseApi;
 import nl.tudelft.ewi.git.web.api.GroupsApi;
 import nl.tudelft.ewi.git.web.api.RepositoriesApi;
@@ -68,6 +69,9 @@ public class GitServerClientModule extends AbstractModule {
 		@Getter
 		private final BaseApi baseApi;
 
+		@Getter
+		private final GitServerCache gitServerCache;
+
 		@Inject
 		public GitServerClientInitializer(@Named("git.server.config") Config config, @Nullable LifeCycle lifeCycle) {
 			resteasyClient = new ResteasyClientBuilder()
@@ -75,6 +79,8 @@ public class GitServerClientModule extends AbstractModule {
 				.build();
 			if(lifeCycle != null) lifeCycle.addLifeCycleListener(this);
 			baseApi = resteasyClient.target(config.getGitServerHost()).proxy(BaseApi.class);
+			gitServerCache = new GitServerCache(config.getGitServerCacheSize() * 1024 * 1024,
+				config.getGitServerCacheFolder(), config.getGitServerCacheFolderSize() * 1024 * 1024);
 
 			checkApiEndpointAnnotations();
 
@@ -85,6 +91,7 @@ public class GitServerClientModule extends AbstractModule {
 
 		@Override
 		public void lifeCycleStopping(LifeCycle event) {
+			log.info("Git server cache statistics: {}", gitServerCache.getStatistics());
 			resteasyClient.close();
 		}
 
@@ -103,17 +110,23 @@ public class GitServerClientModule extends AbstractModule {
 
 	@Provides
 	public UsersApi users(GitServerClientInitializer gitServerClient) {
-		return gitServerClient.getBaseApi().users();
+		return RemoteCallCounter.decorate(UsersApi.class, gitServerClient.getBaseApi().users());
 	}
 
 	@Provides
 	public GroupsApi groups(GitServerClientInitializer gitServerClient) {
-		return gitServerClient.getBaseApi().groups();
+		return RemoteCallCounter.decorate(GroupsApi.class, gitServerClient.getBaseApi().groups());
 	}
 
 	@Provides
 	public RepositoriesApi repositories(GitServerClientInitializer gitServerClient) {
-		return gitServerClient.getBaseApi().repositories();
+		RepositoriesApi repositoriesApi = gitServerClient.getBaseApi().repositories();
+		return gitServerClient.getGitServerCache().decorate(RemoteCallCounter.decorate(RepositoriesApi.class, repositoriesApi));
+	}
+
+	@Provides
+	public GitServerCache gitServerCache(GitServerClientInitializer gitServerClient) {
+		return gitServerClient.getGitServerCache();
 	}
 
 }
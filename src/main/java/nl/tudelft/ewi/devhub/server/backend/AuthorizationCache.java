@@ -0,0 +1,113 @@
+package nl.tudelft.ewi.devhub.server.backend;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.primitives.Longs;
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+import com.google.inject.Singleton;
+import lombok.extern.slf4j.Slf4j;
+import nl.tudelft.ewi.devhub.server.database.controllers.CourseEditions;
+import nl.tudelft.ewi.devhub.server.database.controllers.Groups;
+import nl.tudelft.ewi.devhub.server.database.entities.CourseEdition;
+import nl.tudelft.ewi.devhub.server.database.entities.Group;
+import nl.tudelft.ewi.devhub.server.database.entities.User;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The {@code AuthorizationCache} caches the group memberships and assisted course editions
+ * of users as primitive arrays, so authorization checks do not initialize the lazy
+ * {@link User#getGroups() groups} and {@link User#getAssists() assists} collections.
+ * The cache is invalidated by {@link Groups} and {@link CourseEditions} when groups or
+ * course editions are written. As the invalidation happens before the transaction commits,
+ * entries also expire shortly after they are loaded.
+ *
+ * @author Jan-Willem Gmelig Meyling
+ */
+@Slf4j
+@Singleton
+public class AuthorizationCache {
+
+	private static final long MAXIMUM_SIZE = 10_000;
+	private static final long EXPIRE_AFTER_WRITE_MINUTES = 5;
+
+	private final Provider<Groups> groupsProvider;
+	private final Provider<CourseEditions> courseEditionsProvider;
+	private final LoadingCache<Long, Authorization> cache;
+
+	@Inject
+	public AuthorizationCache(Provider<Groups> groupsProvider, Provider<CourseEditions> courseEditionsProvider) {
+		this.groupsProvider = groupsProvider;
+		this.courseEditionsProvider = courseEditionsProvider;
+		this.cache = CacheBuilder.newBuilder()
+			.maximumSize(MAXIMUM_SIZE)
+			.expireAfterWrite(EXPIRE_AFTER_WRITE_MINUTES, TimeUnit.MINUTES)
+			.build(CacheLoader.from(this::load));
+	}
+
+	/**
+	 * Get the authorization data for a user. The data is loaded within the current unit of work
+	 * if it is not cached.
+	 *
+	 * @param user User to get the authorization data for.
+	 * @return The {@link Authorization} for the user.
+	 */
+	public Authorization get(User user) {
+		return cache.getUnchecked(user.getId());
+	}
+
+	/**
+	 * Invalidate the cached authorization data for all users. Group and course edition
+	 * writes are rare, and the members that were removed by a write are no longer known.
+	 */
+	public void invalidateAll() {
+		cache.invalidateAll();
+	}
+
+	protected Authorization load(Long userId) {
+		Map<Long, Long> groupNumbers = new TreeMap<>(groupsProvider.get().getGroupNumbersByCourseEdition(userId));
+		long[] assisting = Longs.toArray(courseEditionsProvider.get().listAssistingCourseEditionIds(userId));
+		Arrays.sort(assisting);
+
+		log.debug("Loaded authorization for user {}: member of {}, assisting {}", userId, groupNumbers, assisting);
+		return new Authorization(
+			Longs.toArray(groupNumbers.keySet()),
+			Longs.toArray(groupNumbers.values()),
+			assisting
+		);
+	}
+
+	/**
+	 * The group memberships and assisted course editions of a user. A user is a member of at most
+	 * one group per course edition, so memberships are stored as sorted course edition ids with
+	 * the group numbers at the same index.
+	 */
+	public static class Authorization {
+
+		private final long[] memberCourseEditionIds;
+		private final long[] memberGroupNumbers;
+		private final long[] assistingCourseEditionIds;
+
+		Authorization(long[] memberCourseEditionIds, long[] memberGroupNumbers, long[] assistingCourseEditionIds) {
+			this.memberCourseEditionIds = memberCourseEditionIds;
+			this.memberGroupNumbers = memberGroupNumbers;
+			this.assistingCourseEditionIds = assistingCourseEditionIds;
+		}
+
+		public boolean isMemberOf(Group group) {
+			int index = Arrays.binarySearch(memberCourseEditionIds, group.getCourseEdition().getId());
+			return index >= 0 && memberGroupNumbers[index] == group.getGroupNumber();
+		}
+
+		public boolean isAssisting(CourseEdition courseEdition) {
+			return Arrays.binarySearch(assistingCourseEditionIds, courseEdition.getId()) >= 0;
+		}
+
+	}
+
+}
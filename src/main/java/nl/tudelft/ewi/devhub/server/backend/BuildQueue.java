@@ -0,0 +1,546 @@
+package nl.tudelft.ewi.devhub.server.backend;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Queues;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+import com.google.inject.Singleton;
+import com.google.inject.persist.UnitOfWork;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import nl.tudelft.ewi.build.client.BuildServerBackend;
+import nl.tudelft.ewi.build.client.BuildServerBackendImpl;
+import nl.tudelft.ewi.build.jaxrs.models.BuildRequest;
+import nl.tudelft.ewi.devhub.server.Config;
+import nl.tudelft.ewi.devhub.server.database.controllers.BuildResults;
+import nl.tudelft.ewi.devhub.server.database.controllers.BuildServers;
+import nl.tudelft.ewi.devhub.server.database.entities.BuildResult;
+import nl.tudelft.ewi.devhub.server.database.entities.BuildServer;
+import nl.tudelft.ewi.devhub.server.database.entities.Commit;
+import nl.tudelft.ewi.devhub.server.database.entities.Commit.CommitId;
+import nl.tudelft.ewi.devhub.server.database.entities.RepositoryEntity;
+import nl.tudelft.ewi.git.models.RepositoryModel;
+import nl.tudelft.ewi.git.web.api.RepositoriesApi;
+import org.eclipse.jetty.util.component.AbstractLifeCycle.AbstractLifeCycleListener;
+import org.eclipse.jetty.util.component.LifeCycle;
+
+import javax.annotation.Nullable;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.LongStream;
+
+/**
+ * The {@code BuildQueue} dispatches {@link BuildRequest BuildRequests} to the registered
+ * {@link BuildServer BuildServers}. The queue is backed by the {@link BuildResult BuildResults}
+ * without a result: these are recovered when the server has started, so queued builds
+ * survive a restart. Builds that were already handed to a build server before the restart
+ * are dispatched again.
+ *
+ * A fixed number of dispatchers hand builds to the least loaded build server concurrently.
+ * A build server that refuses a build, or cannot be reached, is backed off exponentially.
+ * A build that is not reported back within the {@link Config#getBuildQueueLease() lease}
+ * no longer counts towards the load of its build server.
+ *
+ * @author Jan-Willem Gmelig Meyling
+ */
+@Slf4j
+@Singleton
+public class BuildQueue extends AbstractLifeCycleListener {
+
+	private static final long INITIAL_BACKOFF = TimeUnit.SECONDS.toNanos(1);
+	private static final long BUILD_SERVER_REFRESH_INTERVAL = TimeUnit.MINUTES.toNanos(1);
+
+	private final Config config;
+	private final Provider<UnitOfWork> workProvider;
+	private final Provider<BuildServers> buildServersProvider;
+	private final Provider<BuildResults> buildResultsProvider;
+	private final RepositoriesApi repositoriesApi;
+	private final long maxBackoff;
+	private final long leaseNanos;
+	private final AtomicBoolean started;
+
+	/**
+	 * Pending builds, in order of arrival. Guarded by {@code this}.
+	 */
+	private final Deque<PendingBuild> pending;
+
+	/**
+	 * Commits for which a build is pending. Guarded by {@code this}.
+	 */
+	private final Set<CommitId> pendingCommits;
+
+	/**
+	 * Clients for the registered build servers, by build server id. Guarded by {@code this}.
+	 */
+	private final Map<Long, BuildServerClient> clients;
+
+	/**
+	 * The leases for running builds, by commit. Guarded by {@code this}.
+	 */
+	private final Map<CommitId, Lease> running;
+
+	/**
+	 * Time at which the build servers were last retrieved, or {@code null} if they should be
+	 * retrieved again. Guarded by {@code this}.
+	 */
+	private Long buildServersRetrieved;
+
+	/**
+	 * Whether a dispatcher is retrieving the build servers. Guarded by {@code this}.
+	 */
+	private boolean refreshing;
+
+	private volatile ExecutorService executor;
+
+	@Inject
+	public BuildQueue(Config config, Provider<UnitOfWork> workProvider, Provider<BuildServers> buildServersProvider,
+	                  Provider<BuildResults> buildResultsProvider, RepositoriesApi repositoriesApi,
+	                  @Nullable LifeCycle lifeCycle) {
+		this.config = config;
+		this.workProvider = workProvider;
+		this.buildServersProvider = buildServersProvider;
+		this.buildResultsProvider = buildResultsProvider;
+		this.repositoriesApi = repositoriesApi;
+		this.maxBackoff = TimeUnit.SECONDS.toNanos(config.getBuildQueueMaxBackoff());
+		this.leaseNanos = TimeUnit.SECONDS.toNanos(config.getBuildQueueLease());
+		this.started = new AtomicBoolean(false);
+		this.pending = Queues.newArrayDeque();
+		this.pendingCommits = Sets.newHashSet();
+		this.clients = Maps.newHashMap();
+		this.running = Maps.newHashMap();
+
+		if (lifeCycle != null) {
+			lifeCycle.addLifeCycleListener(this);
+		}
+	}
+
+	@Override
+	public void lifeCycleStarted(LifeCycle event) {
+		start();
+	}
+
+	/**
+	 * Recover the queued builds from the database and start the dispatchers.
+	 * Subsequent invocations have no effect.
+	 */
+	public void start() {
+		if (!started.compareAndSet(false, true)) {
+			return;
+		}
+
+		try {
+			new RunnableInUnitOfWork(workProvider) {
+				@Override
+				protected void runInUnitOfWork() {
+					recover();
+				}
+			}.run();
+		}
+		catch (Exception e) {
+			log.warn("Failed to recover queued builds: " + e.getMessage(), e);
+		}
+
+		int dispatchers = config.getBuildQueueDispatchers();
+		executor = Executors.newFixedThreadPool(dispatchers, new ThreadFactoryBuilder()
+			.setNameFormat("build-dispatcher-%d")
+			.setDaemon(true)
+			.build());
+
+		for (int i = 0; i < dispatchers; i++) {
+			executor.submit(new Dispatcher());
+		}
+
+		log.info("Started build queue with {} dispatchers and {} queued builds", dispatchers, getQueueSize());
+	}
+
+	@Override
+	public void lifeCycleStopping(LifeCycle event) {
+		shutdown();
+	}
+
+	/**
+	 * Stop the dispatchers. Pending builds are recovered on the next start.
+	 */
+	public void shutdown() {
+		if (executor != null) {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Queue the recovered builds. Must be invoked within a unit of work.
+	 */
+	protected void recover() {
+		List<BuildResult> queued = buildResultsProvider.get().findQueued();
+		Map<String, RepositoryModel> repositoryModels = Maps.newHashMap();
+
+		for (BuildResult buildResult : queued) {
+			Commit commit = buildResult.getCommit();
+			RepositoryEntity repositoryEntity = commit.getRepository();
+			try {
+				RepositoryModel repositoryModel = repositoryModels.computeIfAbsent(repositoryEntity.getRepositoryName(),
+					repositoryName -> repositoriesApi.getRepository(repositoryName).getRepositoryModel());
+				offer(commit, repositoryEntity.getBuildInstruction().createBuildRequest(config, commit, repositoryModel));
+			}
+			catch (Exception e) {
+				log.warn("Failed to recover build for {}: {}", commit, e.getMessage());
+			}
+		}
+
+		log.info("Recovered {} of {} queued builds", getQueueSize(), queued.size());
+	}
+
+	/**
+	 * Queue a build for a commit. A build that is already pending for the commit is not
+	 * queued again.
+	 *
+	 * @param commit Commit to build.
+	 * @param buildRequest {@link BuildRequest} for the commit.
+	 */
+	public synchronized void offer(Commit commit, BuildRequest buildRequest) {
+		CommitId commitId = new CommitId(commit.getRepository().getId(), commit.getCommitId());
+		if (pendingCommits.add(commitId)) {
+			pending.offer(new PendingBuild(commitId, buildRequest));
+			notifyAll();
+		}
+		else {
+			log.debug("A build for {} is already pending", commit);
+		}
+	}
+
+	/**
+	 * Notify the queue that a build has finished, so that its build server can receive
+	 * the next build without waiting for its back off to expire.
+	 *
+	 * @param commit The built commit.
+	 */
+	public synchronized void finished(Commit commit) {
+		Lease lease = running.remove(new CommitId(commit.getRepository().getId(), commit.getCommitId()));
+		if (lease != null) {
+			lease.client.running--;
+			lease.client.resetBackoff();
+			notifyAll();
+		}
+	}
+
+	/**
+	 * Retrieve the build servers from the database on the next dispatch, for example
+	 * after a build server was added or removed.
+	 */
+	public synchronized void invalidateBuildServers() {
+		buildServersRetrieved = null;
+		notifyAll();
+	}
+
+	/**
+	 * @return Number of pending builds.
+	 */
+	public synchronized int getQueueSize() {
+		return pending.size();
+	}
+
+	/**
+	 * @return Number of builds handed to a build server that have not finished, and of which
+	 *    the lease has not expired.
+	 */
+	public synchronized int getRunningBuilds() {
+		expireLeases(System.nanoTime());
+		return running.size();
+	}
+
+	/**
+	 * Take the next pending build, and reserve the least loaded available build server for it.
+	 * The build servers are retrieved from the database without holding the lock, so that
+	 * request threads are not blocked on the query.
+	 *
+	 * @return The pending build, with a reserved build server.
+	 * @throws InterruptedException If the thread was interrupted while waiting.
+	 */
+	protected PendingBuild take() throws InterruptedException {
+		while (true) {
+			synchronized (this) {
+				long now = System.nanoTime();
+				boolean due = buildServersRetrieved == null || now - buildServersRetrieved > BUILD_SERVER_REFRESH_INTERVAL;
+				if (!due || refreshing) {
+					PendingBuild pendingBuild = reserve(now);
+					if (pendingBuild != null) {
+						return pendingBuild;
+					}
+					continue;
+				}
+				refreshing = true;
+			}
+
+			refreshBuildServers();
+		}
+	}
+
+	/**
+	 * Reserve a build server for the next pending build, or wait until a build server may
+	 * become available. Must be invoked while holding the lock.
+	 *
+	 * @param now The current time in nanoseconds.
+	 * @return The pending build, or {@code null} if no build could be reserved.
+	 * @throws InterruptedException If the thread was interrupted while waiting.
+	 */
+	private PendingBuild reserve(long now) throws InterruptedException {
+		expireLeases(now);
+
+		BuildServerClient client = clients.values().stream()
+			.filter(candidate -> candidate.isAvailable(now))
+			.min(Comparator.comparingInt(BuildServerClient::getRunning))
+			.orElse(null);
+
+		if (client != null && !pending.isEmpty()) {
+			PendingBuild pendingBuild = pending.poll();
+			pendingCommits.remove(pendingBuild.getCommitId());
+			client.running++;
+			pendingBuild.setClient(client);
+			return pendingBuild;
+		}
+
+		long wait = LongStream.concat(
+				clients.values().stream().mapToLong(candidate -> candidate.availableAt - now),
+				running.values().stream().mapToLong(lease -> lease.acquired + leaseNanos - now))
+			.filter(remaining -> remaining > 0)
+			.min()
+			.orElse(BUILD_SERVER_REFRESH_INTERVAL);
+		TimeUnit.NANOSECONDS.timedWait(this, Math.min(wait, BUILD_SERVER_REFRESH_INTERVAL));
+		return null;
+	}
+
+	/**
+	 * Release the build servers of running builds that were not reported back within the lease.
+	 * The build result stays queued, and is dispatched again after a restart.
+	 */
+	private void expireLeases(long now) {
+		Iterator<Map.Entry<CommitId, Lease>> iterator = running.entrySet().iterator();
+		while (iterator.hasNext()) {
+			Map.Entry<CommitId, Lease> entry = iterator.next();
+			Lease lease = entry.getValue();
+			if (now - lease.acquired >= leaseNanos) {
+				log.warn("Build for {} was not reported back by {} within the lease", entry.getKey(), lease.client);
+				lease.client.running--;
+				iterator.remove();
+			}
+		}
+	}
+
+	/**
+	 * Handle the outcome of a dispatch attempt.
+	 *
+	 * @param pendingBuild The dispatched build.
+	 * @param accepted Whether the build server accepted the build.
+	 */
+	protected synchronized void release(PendingBuild pendingBuild, boolean accepted) {
+		BuildServerClient client = pendingBuild.getClient();
+		if (accepted) {
+			client.resetBackoff();
+			Lease previous = running.put(pendingBuild.getCommitId(), new Lease(client, System.nanoTime()));
+			if (previous != null) {
+				previous.client.running--;
+			}
+		}
+		else {
+			client.running--;
+			client.backoff(System.nanoTime());
+			if (pendingCommits.add(pendingBuild.getCommitId())) {
+				pending.offerFirst(pendingBuild);
+			}
+		}
+		notifyAll();
+	}
+
+	/**
+	 * Retrieve the build servers from the database, and swap them in. Clients are reused for
+	 * build servers of which the connection details did not change. Must be invoked without
+	 * holding the lock, after setting {@code refreshing}.
+	 */
+	private void refreshBuildServers() {
+		List<BuildServer> buildServers = Lists.newArrayList();
+		boolean retrieved = false;
+		try {
+			new RunnableInUnitOfWork(workProvider) {
+				@Override
+				protected void runInUnitOfWork() {
+					buildServers.addAll(buildServersProvider.get().listAll());
+				}
+			}.run();
+			retrieved = true;
+		}
+		finally {
+			synchronized (this) {
+				refreshing = false;
+				buildServersRetrieved = System.nanoTime();
+				if (retrieved) {
+					swapBuildServers(buildServers);
+				}
+				notifyAll();
+			}
+		}
+	}
+
+	private void swapBuildServers(List<BuildServer> buildServers) {
+		Map<Long, BuildServerClient> previous = Maps.newHashMap(clients);
+		clients.clear();
+		for (BuildServer buildServer : buildServers) {
+			BuildServerClient client = previous.get(buildServer.getId());
+			if (client == null || !client.getBuildServer().equals(buildServer)) {
+				client = new BuildServerClient(buildServer, createBuildServerBackend(
+					buildServer.getHost(), buildServer.getName(), buildServer.getSecret()));
+			}
+			clients.put(buildServer.getId(), client);
+		}
+	}
+
+	protected BuildServerBackend createBuildServerBackend(String host, String name, String secret) {
+		return new BuildServerBackendImpl(host, name, secret);
+	}
+
+	private class Dispatcher implements Runnable {
+
+		@Override
+		public void run() {
+			while (!Thread.currentThread().isInterrupted()) {
+				PendingBuild pendingBuild;
+				try {
+					pendingBuild = take();
+				}
+				catch (InterruptedException e) {
+					log.info("Build dispatcher interrupted");
+					return;
+				}
+				catch (Exception e) {
+					log.warn("Failed to retrieve build servers: " + e.getMessage(), e);
+					continue;
+				}
+
+				BuildServerClient client = pendingBuild.getClient();
+				boolean accepted = false;
+				try {
+					accepted = client.getBackend().offerBuildRequest(pendingBuild.getBuildRequest());
+					if (accepted) {
+						log.info("Build for {} was handed to {}", pendingBuild.getCommitId(), client.getBuildServer().getName());
+					}
+					else {
+						log.info("Build server {} is at capacity, {} builds pending", client.getBuildServer().getName(),
+							getQueueSize() + 1);
+					}
+				}
+				catch (Exception e) {
+					log.warn("Failed to hand build to {}: {}", client.getBuildServer().getName(), e.getMessage());
+				}
+				finally {
+					release(pendingBuild, accepted);
+				}
+			}
+		}
+
+	}
+
+	@Data
+	protected static class PendingBuild {
+
+		private final CommitId commitId;
+
+		private final BuildRequest buildRequest;
+
+		/**
+		 * The build server that is reserved for this build.
+		 */
+		private BuildServerClient client;
+
+	}
+
+	/**
+	 * A build handed to a build server, that counts towards its load until it is reported
+	 * back or expires.
+	 */
+	@Data
+	protected static class Lease {
+
+		private final BuildServerClient client;
+
+		/**
+		 * Time at which the build was accepted, in nanoseconds.
+		 */
+		private final long acquired;
+
+	}
+
+	/**
+	 * A cached client for a {@link BuildServer}, with its load and back off state.
+	 * Guarded by the {@link BuildQueue}.
+	 */
+	protected class BuildServerClient {
+
+		private final BuildServer buildServer;
+		private final BuildServerBackend backend;
+
+		/**
+		 * Number of builds handed to this build server that have not finished.
+		 */
+		private int running;
+
+		/**
+		 * Number of successive refused or failed dispatches.
+		 */
+		private int failures;
+
+		/**
+		 * Time from which the build server is available for the next build, in nanoseconds.
+		 */
+		private long availableAt;
+
+		BuildServerClient(BuildServer buildServer, BuildServerBackend backend) {
+			this.buildServer = buildServer;
+			this.backend = backend;
+			this.availableAt = System.nanoTime();
+		}
+
+		BuildServer getBuildServer() {
+			return buildServer;
+		}
+
+		BuildServerBackend getBackend() {
+			return backend;
+		}
+
+		int getRunning() {
+			return running;
+		}
+
+		boolean isAvailable(long now) {
+			return now - availableAt >= 0;
+		}
+
+		void backoff(long now) {
+			long delay = INITIAL_BACKOFF << Math.min(failures++, 16);
+			availableAt = now + Math.min(delay, maxBackoff);
+		}
+
+		void resetBackoff() {
+			failures = 0;
+			availableAt = System.nanoTime();
+		}
+
+		@Override
+		public String toString() {
+			return Objects.toString(buildServer.getName());
+		}
+
+	}
+
+}
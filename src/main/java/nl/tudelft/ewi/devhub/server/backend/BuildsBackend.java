@@ -1,10 +1,7 @@
 package nl.tudelft.ewi.devhub.server.backend;
 
-import com.google.common.collect.Lists;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
-import nl.tudelft.ewi.build.client.BuildServerBackend;
-import nl.tudelft.ewi.build.client.BuildServerBackendImpl;
 import nl.tudelft.ewi.build.jaxrs.models.BuildRequest;
 import nl.tudelft.ewi.devhub.server.Config;
 import nl.tudelft.ewi.devhub.server.database.controllers.BuildResults;
@@ -17,22 +14,14 @@ import nl.tudelft.ewi.devhub.server.database.entities.builds.BuildInstructionEnt
 import nl.tudelft.ewi.devhub.server.web.errors.ApiError;
 
 import com.google.common.base.Preconditions;
-import com.google.common.collect.Queues;
-import com.google.inject.Provider;
 import com.google.inject.persist.Transactional;
-import com.google.inject.persist.UnitOfWork;
 import nl.tudelft.ewi.git.models.RepositoryModel;
 import nl.tudelft.ewi.git.web.api.RepositoriesApi;
 
 import javax.inject.Inject;
-import javax.inject.Singleton;
 import javax.persistence.EntityNotFoundException;
 import javax.ws.rs.NotFoundException;
 import java.util.List;
-import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * The {@link BuildsBackend} allows you to query and manipulate data from the build-server.
@@ -42,21 +31,15 @@ public class BuildsBackend {
 
 	private final RepositoriesApi repositoriesApi;
 	private final BuildServers buildServers;
-	private final Provider<BuildSubmitter> submitters;
-	private final ConcurrentLinkedQueue<BuildRequest> buildQueue;
-	private final ExecutorService executor;
-	private final AtomicBoolean running;
+	private final BuildQueue buildQueue;
 	private final BuildResults buildResults;
 	private final Config config;
 
 	@Inject
-	BuildsBackend(BuildServers buildServers, Provider<BuildSubmitter> submitters,
-				  BuildResults buildResults, RepositoriesApi repositoriesApi, Config config, ExecutorService executor) {
+	BuildsBackend(BuildServers buildServers, BuildQueue buildQueue,
+				  BuildResults buildResults, RepositoriesApi repositoriesApi, Config config) {
 		this.buildServers = buildServers;
-		this.submitters = submitters;
-		this.buildQueue = Queues.newConcurrentLinkedQueue();
-		this.executor = executor;
-		this.running = new AtomicBoolean(false);
+		this.buildQueue = buildQueue;
 		this.buildResults = buildResults;
 		this.repositoriesApi = repositoriesApi;
 		this.config = config;
@@ -92,6 +75,7 @@ public class BuildsBackend {
 		
 		try {
 			buildServers.persist(server);
+			buildQueue.invalidateBuildServers();
 		}
 		catch (Throwable e) {
 			throw new ApiError("error.could-not-add-build-server");
@@ -103,23 +87,32 @@ public class BuildsBackend {
 		try {
 			BuildServer server = buildServers.findById(serverId);
 			buildServers.delete(server);
+			buildQueue.invalidateBuildServers();
 		}
 		catch (Throwable e) {
 			throw new ApiError("error.could-not-remove-build-server");
 		}
 	}
 	
-	public void offerBuild(BuildRequest request) {
+	/**
+	 * Offer a build to the {@link BuildQueue}.
+	 *
+	 * @param commit Commit to build.
+	 * @param request {@link BuildRequest} for the commit.
+	 */
+	public void offerBuild(Commit commit, BuildRequest request) {
+		Preconditions.checkNotNull(commit);
 		Preconditions.checkNotNull(request);
-		
-		synchronized (running) {
-			buildQueue.offer(request);
-			if (running.compareAndSet(false, true)) {
-				BuildSubmitter task = submitters.get();
-				task.initialize(this);
-				executor.submit(task);
-			}
-		}
+		buildQueue.offer(commit, request);
+	}
+
+	/**
+	 * Notify the {@link BuildQueue} that the build for a commit has finished.
+	 *
+	 * @param commit The built commit.
+	 */
+	public void buildFinished(Commit commit) {
+		buildQueue.finished(commit);
 	}
 
 	/**
@@ -176,91 +169,15 @@ public class BuildsBackend {
 		if (buildInstructionEntity != null) {
 			BuildRequest buildRequest = buildInstructionEntity.createBuildRequest(config, commit, repository);
 			log.info("Submitting a build for commit: {} of repository: {}", commit, repository);
-			offerBuild(buildRequest);
+			offerBuild(commit, buildRequest);
 		}
 		else {
 			log.debug("Not building commit {} as there is no build instruction", commit);
 		}
 	}
 
-	public void shutdown() throws InterruptedException {
-		executor.shutdown();
-		executor.awaitTermination(1, TimeUnit.MINUTES);
-	}
-	
-	static class BuildSubmitter extends RunnableInUnitOfWork {
-		
-		private static final int NO_CAPACITY_DELAY = 5000;
-		
-		private final Provider<BuildServers> buildServersProvider;
-		
-		private BuildsBackend backend;
-
-		@Inject
-		BuildSubmitter(Provider<BuildServers> buildServersProvider, Provider<UnitOfWork> workProvider) {
-			super(workProvider);
-			this.buildServersProvider = buildServersProvider;
-		}
-		
-		void initialize(BuildsBackend backend) {
-			this.backend = backend;
-		}
-
-		@Override
-		@Transactional
-		protected void runInUnitOfWork() {
-			ConcurrentLinkedQueue<BuildRequest> buildQueue = backend.buildQueue;
-			AtomicBoolean running = backend.running;
-			BuildServers buildServers = buildServersProvider.get();
-			
-			try {
-				while (!buildQueue.isEmpty()) {
-					boolean delivered = false;
-					BuildRequest buildRequest = buildQueue.peek();
-
-					List<BuildServer> allBuildServers = buildServers.listAll();
-					List<BuildServer> buildServersAtCapacity = Lists.newArrayList(allBuildServers);
-
-					
-					while (!buildServersAtCapacity.isEmpty()) {
-						BuildServer buildServer = buildServersAtCapacity.remove(0);
-						String host = buildServer.getHost();
-						String name = buildServer.getName();
-						String secret = buildServer.getSecret();
-						
-						BuildServerBackend backend = createBuildServerBackend(host, name, secret);
-						if (backend.offerBuildRequest(buildRequest)) {
-							delivered = true;
-							buildQueue.poll();
-							log.info("One build request was succesfully handed to: {}", name);
-							break;
-						}
-					}
-					
-					if (!delivered) {
-						try {
-							log.info("{} of {} build servers at capacity. Queue size: {}",
-									buildServersAtCapacity.size(), allBuildServers.size(), buildQueue.size());
-							
-							Thread.sleep(NO_CAPACITY_DELAY);
-						}
-						catch (InterruptedException e) {
-							log.warn("Sleep was interrupted...");
-						}
-					}
-				}
-			}
-			finally {
-				synchronized (running) {
-					running.set(false);
-				}
-			}
-		}
-		
-		protected BuildServerBackend createBuildServerBackend(String host, String name, String secret) {
-			return new BuildServerBackendImpl(host, name, secret);
-		}
-		
+	public void shutdown() {
+		buildQueue.shutdown();
 	}
 
 }
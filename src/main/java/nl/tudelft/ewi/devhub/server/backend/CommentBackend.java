@@ -6,6 +6,7 @@ import nl.tudelft.ewi.devhub.server.database.entities.RepositoryEntity;
 import nl.tudelft.ewi.devhub.server.database.entities.User;
 import nl.tudelft.ewi.devhub.server.database.entities.comments.Comment;
 import nl.tudelft.ewi.devhub.server.database.entities.comments.CommitComment;
+import nl.tudelft.ewi.devhub.server.util.SourceIndex;
 import nl.tudelft.ewi.devhub.server.web.errors.ApiError;
 import nl.tudelft.ewi.devhub.server.web.errors.UnauthorizedException;
 
@@ -83,8 +84,11 @@ public class CommentBackend {
     	 */
         public final List<CommitComment> comments;
 
+        private final SourceIndex<CommitComment> index;
+
         public CommentChecker(RepositoryEntity repositoryEntity, Collection<String> commitIds) {
             comments = commentsDAO.getInlineCommentsFor(repositoryEntity, commitIds);
+            index = new SourceIndex<>(comments.stream().sorted().collect(Collectors.toList()), CommitComment::getSource);
         }
 
         /**
@@ -101,10 +105,7 @@ public class CommentBackend {
         public List<CommitComment> getCommentsForLine(final String sourceCommitId,
                                                       final String sourcePath,
                                                       final Integer sourceLineNumber) {
-            return comments.stream()
-                .filter((comment) -> comment.getSource().equals(sourceCommitId, sourcePath, sourceLineNumber))
-                .sorted()
-                .collect(Collectors.toList());
+            return index.get(sourceCommitId, sourcePath, sourceLineNumber);
         }
 
     }
@@ -0,0 +1,70 @@
+package nl.tudelft.ewi.devhub.server.backend;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import lombok.extern.slf4j.Slf4j;
+import nl.tudelft.ewi.devhub.server.Config;
+import nl.tudelft.ewi.devhub.server.database.controllers.Commits;
+import org.eclipse.jetty.util.component.AbstractLifeCycle.AbstractLifeCycleListener;
+import org.eclipse.jetty.util.component.LifeCycle;
+
+import javax.annotation.Nullable;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * The {@code CommitDetailsExecutor} retrieves the details of new commits from the git server
+ * for {@link Commits}. The blocking git server calls run on a dedicated pool of
+ * {@link Config#getCommitFetchWorkers()} workers, so that they do not occupy the common
+ * fork join pool. The pool is shut down when the server stops.
+ *
+ * @author Jan-Willem Gmelig Meyling
+ */
+@Slf4j
+@Singleton
+public class CommitDetailsExecutor extends AbstractLifeCycleListener {
+
+	private final ExecutorService executor;
+
+	@Inject
+	public CommitDetailsExecutor(Config config, @Nullable LifeCycle lifeCycle) {
+		int workers = config.getCommitFetchWorkers();
+		this.executor = Executors.newFixedThreadPool(workers, new ThreadFactoryBuilder()
+			.setNameFormat("commit-details-%d")
+			.setDaemon(true)
+			.build());
+
+		if (lifeCycle != null) {
+			lifeCycle.addLifeCycleListener(this);
+		}
+
+		log.info("Initialized commit details executor with {} workers", workers);
+	}
+
+	/**
+	 * Retrieve details on a worker.
+	 *
+	 * @param task Task that retrieves the details.
+	 * @param <T> Type of the details.
+	 * @return A future for the details.
+	 */
+	public <T> Future<T> submit(Callable<T> task) {
+		return executor.submit(task);
+	}
+
+	@Override
+	public void lifeCycleStopping(LifeCycle event) {
+		shutdown();
+	}
+
+	/**
+	 * Stop the workers. Retrievals that are in progress are interrupted.
+	 */
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+
+}
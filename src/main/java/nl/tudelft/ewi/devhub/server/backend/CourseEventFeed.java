@@ -1,63 +1,146 @@
 package nl.tudelft.ewi.devhub.server.backend;
 
-import com.google.common.collect.Lists;
-import com.google.common.collect.Ordering;
-import com.google.inject.persist.Transactional;
-import nl.tudelft.ewi.devhub.server.database.controllers.CommitComments;
-import nl.tudelft.ewi.devhub.server.database.controllers.Commits;
-import nl.tudelft.ewi.devhub.server.database.controllers.Deliveries;
-import nl.tudelft.ewi.devhub.server.database.controllers.Groups;
-import nl.tudelft.ewi.devhub.server.database.controllers.IssueComments;
-import nl.tudelft.ewi.devhub.server.database.controllers.PullRequests;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableSetMultimap;
+import com.google.common.collect.SetMultimap;
+import com.google.common.collect.TreeMultimap;
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+import com.google.inject.Singleton;
+import nl.tudelft.ewi.devhub.server.Config;
+import nl.tudelft.ewi.devhub.server.database.controllers.CourseEvents;
 import nl.tudelft.ewi.devhub.server.database.entities.CourseEdition;
-import nl.tudelft.ewi.devhub.server.database.entities.Event;
-import nl.tudelft.ewi.devhub.server.database.entities.Group;
-import nl.tudelft.ewi.devhub.server.database.entities.GroupRepository;
+import nl.tudelft.ewi.devhub.server.database.entities.CourseEvent;
 
-import javax.inject.Inject;
+import javax.ws.rs.NotFoundException;
+import java.util.Collection;
 import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.SortedSet;
+import java.util.function.Consumer;
 
 /**
+ * The {@code CourseEventFeed} reads the activity stream of a course edition from the
+ * {@link CourseEvent CourseEvents}. Clients poll for the events after the newest event
+ * they have seen.
+ *
+ * Event ids are taken from a sequence when the events are persisted, but the events only
+ * become visible when their transaction commits. A long transaction may therefore commit an
+ * event with a lower id than an event that is already visible. To prevent clients from
+ * skipping such an event, the feed keeps track of the events of transactions that have not
+ * completed, and new events are only returned below the oldest of those events.
+ *
+ * The transactions are tracked in memory, so the horizon only covers the events that are
+ * persisted by this node. Other nodes take their ids from their own block of the sequence,
+ * which would let clients skip events. Polling is therefore only enabled when
+ * {@link Config#isCourseFeedPollingEnabled()} asserts that a single node serves Devhub.
+ *
  * @author Jan-Willem Gmelig Meyling
  */
+@Singleton
 public class CourseEventFeed {
 
-    @Inject
-    PullRequests pullRequests;
+    private final Provider<CourseEvents> courseEventsProvider;
+    private final boolean pollingEnabled;
 
-    @Inject
-    Commits commits;
+    /**
+     * Ids of the events that are persisted in a transaction that has not completed yet,
+     * indexed by course edition id.
+     */
+    private final TreeMultimap<Long, Long> pending;
 
-    @Inject
-    Deliveries deliveries;
+    /**
+     * Highest event id that was persisted since startup, or {@code -1} if it is not known yet.
+     */
+    private long persisted = -1;
 
     @Inject
-    IssueComments issueComments;
+    public CourseEventFeed(Config config, Provider<CourseEvents> courseEventsProvider) {
+        this.courseEventsProvider = courseEventsProvider;
+        this.pollingEnabled = config.isCourseFeedPollingEnabled();
+        this.pending = TreeMultimap.create();
+    }
 
-    @Inject
-    CommitComments commitComments;
+    /**
+     * Get a page of events for a course edition.
+     * @param courseEdition Course edition to get the events for.
+     * @param beforeId Id of the last event on the previous page, or {@code null} for the first page.
+     * @param limit The maximal number of events.
+     * @return The events, newest first.
+     */
+    public List<CourseEvent> getEventsFor(CourseEdition courseEdition, Long beforeId, int limit) {
+        CourseEvents courseEvents = courseEventsProvider.get();
+        CourseEvent before = beforeId == null ? null : courseEvents.find(courseEdition, beforeId)
+            .orElseThrow(NotFoundException::new);
+        return courseEvents.getEvents(courseEdition, before, limit);
+    }
 
-    @Inject
-    Groups groups;
-
-    @Transactional
-    public List<? extends Event> getEventsFor(CourseEdition courseEdition, int limit) {
-        List<Group> groups = courseEdition.getGroups();
-        List<GroupRepository> groupRepositories = Lists.transform(groups, Group::getRepository);
-
-        return CourseEventFeed.<Event>concatAll(
-            pullRequests.findLastPullRequests(groupRepositories, limit),
-            commits.getMostRecentCommits(groupRepositories, limit),
-            commitComments.getMostRecentCommitComments(groupRepositories, limit),
-            issueComments.getMostRecentIssueComments(groupRepositories, limit),
-            deliveries.getMostRecentDeliveries(groups, limit)
-        ).sorted(Ordering.natural().reversed()).limit(limit).collect(Collectors.toList());
+    /**
+     * @return whether clients may poll for new events with {@link #getEventsAfter(CourseEdition, long, int)}.
+     */
+    public boolean isPollingEnabled() {
+        return pollingEnabled;
     }
 
-    public static <T> Stream<? extends T> concatAll(Stream<? extends T>... streams) {
-        return Stream.of(streams).reduce(Stream::concat).get();
+    /**
+     * Get the events after a given event. Events of transactions that have not completed,
+     * and all newer events, are left out until those transactions complete.
+     * @param courseEdition Course edition to get the events for.
+     * @param afterId Id of the newest event the client has seen.
+     * @param limit The maximal number of events.
+     * @return The new events, newest first.
+     * @throws IllegalStateException If polling is not enabled.
+     */
+    public List<CourseEvent> getEventsAfter(CourseEdition courseEdition, long afterId, int limit) {
+        Preconditions.checkState(pollingEnabled, "Polling the course feed requires a single node");
+        CourseEvents courseEvents = courseEventsProvider.get();
+        long horizon = getHorizon(courseEdition.getId(), courseEvents);
+        return courseEvents.getEventsAfter(courseEdition, afterId, horizon, limit);
+    }
+
+    /**
+     * Persist events. Their ids are held back from readers until {@link #release(SetMultimap)}
+     * is called when their transaction completes.
+     * @param events Events to persist.
+     * @param persister Function that persists an event and assigns its id.
+     * @return The ids of the persisted events, indexed by course edition id.
+     */
+    public synchronized SetMultimap<Long, Long> persist(Collection<CourseEvent> events, Consumer<CourseEvent> persister) {
+        ImmutableSetMultimap.Builder<Long, Long> ids = ImmutableSetMultimap.builder();
+        for (CourseEvent event : events) {
+            persister.accept(event);
+            ids.put(event.getCourseEdition().getId(), event.getId());
+            persisted = Math.max(persisted, event.getId());
+        }
+
+        SetMultimap<Long, Long> result = ids.build();
+        pending.putAll(result);
+        return result;
+    }
+
+    /**
+     * Release the ids of events after their transaction committed or rolled back.
+     * @param ids Ids returned by {@link #persist(Collection, Consumer)}.
+     */
+    public synchronized void release(SetMultimap<Long, Long> ids) {
+        ids.forEach(pending::remove);
+    }
+
+    /**
+     * Determine the id below which all events of a course edition are committed or
+     * rolled back. Ids are handed out in increasing order, so events that are persisted
+     * after this call get a higher id than the horizon.
+     */
+    private synchronized long getHorizon(long courseEditionId, CourseEvents courseEvents) {
+        SortedSet<Long> pendingIds = pending.get(courseEditionId);
+        if (!pendingIds.isEmpty()) {
+            return pendingIds.first();
+        }
+
+        if (persisted < 0) {
+            // Nothing was persisted since startup, so every existing event is committed
+            persisted = courseEvents.getMaximumId();
+        }
+        return persisted + 1;
     }
 
 }
@@ -0,0 +1,95 @@
+package nl.tudelft.ewi.devhub.server.backend;
+
+import nl.tudelft.ewi.devhub.server.Config;
+
+import com.google.common.base.Charsets;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The {@code CredentialCache} remembers recently verified credentials for a short time, so
+ * users that log in repeatedly do not require a round trip to the directory or a BCrypt
+ * verification of their stored password. Passwords are never kept: only a SHA-256 hash of the
+ * password with a random salt per entry is stored.
+ *
+ * @author Jan-Willem Gmelig Meyling
+ */
+@Singleton
+public class CredentialCache {
+
+	private static final int SALT_LENGTH = 16;
+	private static final long MAXIMUM_SIZE = 10_000;
+
+	private final SecureRandom random;
+	private final Cache<String, SaltedHash> cache;
+
+	@Inject
+	public CredentialCache(Config config) {
+		this.random = new SecureRandom();
+		this.cache = CacheBuilder.newBuilder()
+			.maximumSize(MAXIMUM_SIZE)
+			.expireAfterWrite(config.getLDAPBindCacheTtl(), TimeUnit.SECONDS)
+			.build();
+	}
+
+	/**
+	 * Check whether the credentials were verified recently.
+	 *
+	 * @param username The supplied username.
+	 * @param password The supplied password.
+	 * @return true if the credentials match a recently verified password.
+	 */
+	public boolean matches(String username, String password) {
+		SaltedHash saltedHash = cache.getIfPresent(username.toLowerCase());
+		return saltedHash != null && MessageDigest.isEqual(saltedHash.hash, hash(saltedHash.salt, password));
+	}
+
+	/**
+	 * Remember credentials that were verified successfully.
+	 *
+	 * @param username The supplied username.
+	 * @param password The verified password.
+	 */
+	public void put(String username, String password) {
+		byte[] salt = new byte[SALT_LENGTH];
+		random.nextBytes(salt);
+		cache.put(username.toLowerCase(), new SaltedHash(salt, hash(salt, password)));
+	}
+
+	/**
+	 * Forget the credentials of a user, for example after an unsuccessful login.
+	 *
+	 * @param username The supplied username.
+	 */
+	public void invalidate(String username) {
+		cache.invalidate(username.toLowerCase());
+	}
+
+	private static byte[] hash(byte[] salt, String password) {
+		return Hashing.sha256().newHasher()
+			.putBytes(salt)
+			.putString(password, Charsets.UTF_8)
+			.hash()
+			.asBytes();
+	}
+
+	private static class SaltedHash {
+
+		private final byte[] salt;
+		private final byte[] hash;
+
+		SaltedHash(byte[] salt, byte[] hash) {
+			this.salt = salt;
+			this.hash = hash;
+		}
+
+	}
+
+}
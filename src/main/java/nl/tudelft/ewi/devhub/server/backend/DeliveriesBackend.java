@@ -3,6 +3,7 @@ package nl.tudelft.ewi.devhub.server.backend;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import lombok.extern.slf4j.Slf4j;
+import nl.tudelft.ewi.devhub.server.backend.StorageBackend.StoredFile;
 import nl.tudelft.ewi.devhub.server.database.controllers.Deliveries;
 import nl.tudelft.ewi.devhub.server.database.entities.Assignment;
 import nl.tudelft.ewi.devhub.server.database.entities.Delivery;
@@ -154,17 +155,18 @@ public class DeliveriesBackend {
 			InputStream in, List<DeliveryAttachment> attachments,
 			String folderName) throws ApiError {
 		try {
-            String path = storageBackend.store(folderName, fileName, in);
+            StoredFile storedFile = storageBackend.store(folderName, fileName, in);
             DeliveryAttachment attachment = new DeliveryAttachment();
             attachment.setDelivery(delivery);
-            attachment.setPath(path);
+            attachment.setPath(storedFile.getPath());
+            attachment.setContentHash(storedFile.getContentHash());
             attachments.add(attachment);
 
             try {
                 deliveriesDAO.merge(delivery);
             }
             catch (Exception e) {
-                storageBackend.removeSilently(path, fileName);
+                storageBackend.removeSilently(folderName, fileName, storedFile.getContentHash());
                 throw new ApiError(ERROR_COULD_NOT_DELIVER, e);
             }
         }
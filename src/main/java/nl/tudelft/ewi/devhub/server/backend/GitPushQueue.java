@@ -0,0 +1,237 @@
+package nl.tudelft.ewi.devhub.server.backend;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import nl.tudelft.ewi.devhub.server.Config;
+import nl.tudelft.ewi.devhub.server.web.models.GitPush;
+import nl.tudelft.ewi.devhub.server.web.resources.HooksResource.GitPushHandlerWorkerFactory;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The {@code GitPushQueue} processes git pushes with a fixed number of workers.
+ * The queue is bounded by the number of distinct repositories with a pending push.
+ * Pushes to a repository that already has a pending push are coalesced into a single
+ * {@link nl.tudelft.ewi.devhub.server.web.resources.HooksResource.GitPushHandler#handle(GitPush) handle}
+ * run, and pushes to the same repository are never processed concurrently.
+ *
+ * @author Jan-Willem Gmelig Meyling
+ */
+@Slf4j
+@Singleton
+public class GitPushQueue {
+
+	private final GitPushHandlerWorkerFactory gitPushHandlerWorkerFactory;
+	private final int capacity;
+
+	/**
+	 * Pending pushes by repository name, in order of arrival. Guarded by {@code this}.
+	 */
+	private final LinkedHashMap<String, PendingPush> pending;
+
+	/**
+	 * Repositories for which a push is being processed. Guarded by {@code this}.
+	 */
+	private final Set<String> processing;
+
+	private final AtomicLong received = new AtomicLong();
+	private final AtomicLong coalesced = new AtomicLong();
+	private final AtomicLong rejected = new AtomicLong();
+	private final AtomicLong processed = new AtomicLong();
+	private final AtomicLong totalWaitingTime = new AtomicLong();
+	private final AtomicLong totalProcessingTime = new AtomicLong();
+
+	@Inject
+	public GitPushQueue(Config config, GitPushHandlerWorkerFactory gitPushHandlerWorkerFactory) {
+		this.gitPushHandlerWorkerFactory = gitPushHandlerWorkerFactory;
+		this.capacity = config.getGitPushQueueSize();
+		this.pending = Maps.newLinkedHashMap();
+		this.processing = Sets.newHashSet();
+
+		int workers = config.getGitPushWorkers();
+		ExecutorService executor = Executors.newFixedThreadPool(workers, new ThreadFactoryBuilder()
+			.setNameFormat("git-push-worker-%d")
+			.setDaemon(true)
+			.build());
+
+		for (int i = 0; i < workers; i++) {
+			executor.submit(new Worker());
+		}
+
+		log.info("Initialized git push queue with {} workers and capacity {}", workers, capacity);
+	}
+
+	/**
+	 * Offer a push to the queue.
+	 *
+	 * @param gitPush {@link GitPush} to process.
+	 * @return {@code false} if the queue is at capacity and the push was rejected.
+	 */
+	public synchronized boolean offer(GitPush gitPush) {
+		received.incrementAndGet();
+		String repositoryName = gitPush.getRepository();
+		PendingPush pendingPush = pending.get(repositoryName);
+
+		if (pendingPush != null) {
+			pendingPush.setGitPush(gitPush);
+			coalesced.incrementAndGet();
+			log.debug("Coalesced git push for {}", repositoryName);
+			return true;
+		}
+
+		if (pending.size() >= capacity) {
+			rejected.incrementAndGet();
+			log.warn("Rejected git push for {}, queue is at capacity {}", repositoryName, capacity);
+			return false;
+		}
+
+		pending.put(repositoryName, new PendingPush(gitPush, System.nanoTime()));
+		notifyAll();
+		return true;
+	}
+
+	/**
+	 * @return The current statistics for this queue.
+	 */
+	public synchronized Statistics getStatistics() {
+		long processedCount = processed.get();
+		return new Statistics(
+			pending.size(),
+			processing.size(),
+			received.get(),
+			coalesced.get(),
+			rejected.get(),
+			processedCount,
+			processedCount == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalWaitingTime.get() / processedCount),
+			processedCount == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalProcessingTime.get() / processedCount)
+		);
+	}
+
+	/**
+	 * Take the oldest pending push for a repository that is not being processed,
+	 * and mark its repository as being processed.
+	 *
+	 * @return The pending push.
+	 * @throws InterruptedException If the thread was interrupted while waiting.
+	 */
+	protected synchronized PendingPush take() throws InterruptedException {
+		while (true) {
+			Iterator<PendingPush> iterator = pending.values().iterator();
+			while (iterator.hasNext()) {
+				PendingPush pendingPush = iterator.next();
+				if (processing.add(pendingPush.getGitPush().getRepository())) {
+					iterator.remove();
+					return pendingPush;
+				}
+			}
+			wait();
+		}
+	}
+
+	protected synchronized void release(PendingPush pendingPush) {
+		processing.remove(pendingPush.getGitPush().getRepository());
+		notifyAll();
+	}
+
+	private class Worker implements Runnable {
+
+		@Override
+		public void run() {
+			while (!Thread.currentThread().isInterrupted()) {
+				PendingPush pendingPush;
+				try {
+					pendingPush = take();
+				}
+				catch (InterruptedException e) {
+					log.info("Git push worker interrupted");
+					return;
+				}
+
+				long start = System.nanoTime();
+				try {
+					gitPushHandlerWorkerFactory.create(pendingPush.getGitPush()).run();
+				}
+				catch (Throwable e) {
+					log.warn("Failed to process git push " + pendingPush.getGitPush(), e);
+				}
+				finally {
+					long end = System.nanoTime();
+					processed.incrementAndGet();
+					totalWaitingTime.addAndGet(start - pendingPush.getEnqueued());
+					totalProcessingTime.addAndGet(end - start);
+					release(pendingPush);
+
+					log.info("Processed git push for {} in {} ms after waiting {} ms. {}",
+						pendingPush.getGitPush().getRepository(),
+						TimeUnit.NANOSECONDS.toMillis(end - start),
+						TimeUnit.NANOSECONDS.toMillis(start - pendingPush.getEnqueued()),
+						getStatistics());
+				}
+			}
+		}
+
+	}
+
+	@Data
+	@AllArgsConstructor
+	protected static class PendingPush {
+
+		/**
+		 * The most recent push for the repository.
+		 */
+		private GitPush gitPush;
+
+		/**
+		 * Time of the first push for the repository, in nanoseconds.
+		 */
+		private final long enqueued;
+
+	}
+
+	/**
+	 * Snapshot of the back-pressure metrics for the {@link GitPushQueue}.
+	 */
+	@Value
+	public static class Statistics {
+
+		/**
+		 * Number of repositories with a pending push.
+		 */
+		int queueDepth;
+
+		/**
+		 * Number of repositories for which a push is being processed.
+		 */
+		int inProgress;
+
+		long received;
+
+		long coalesced;
+
+		long rejected;
+
+		long processed;
+
+		/**
+		 * Average time between the arrival of a push and the start of its processing.
+		 */
+		long averageWaitingTimeMillis;
+
+		long averageProcessingTimeMillis;
+
+	}
+
+}
@@ -0,0 +1,169 @@
+package nl.tudelft.ewi.devhub.server.backend;
+
+import nl.tudelft.ewi.devhub.server.database.controllers.Deliveries;
+import nl.tudelft.ewi.devhub.server.database.controllers.Deliveries.StudentGrade;
+import nl.tudelft.ewi.devhub.server.database.entities.Assignment;
+import nl.tudelft.ewi.devhub.server.database.entities.CourseEdition;
+import nl.tudelft.ewi.devhub.server.database.entities.rubrics.Characteristic;
+import nl.tudelft.ewi.devhub.server.database.entities.rubrics.Mastery;
+import nl.tudelft.ewi.devhub.server.database.entities.rubrics.Task;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Table;
+import com.google.inject.Inject;
+import com.google.inject.persist.Transactional;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+
+import javax.ws.rs.core.StreamingOutput;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * The {@code GradeExporter} writes the grades and rubrics for assignments as CSV. The exports
+ * are written directly to the response while the rows are read from the database, so an export
+ * does not have to fit in memory.
+ *
+ * @author Jan-Willem Gmelig Meyling
+ */
+public class GradeExporter {
+
+	private final Deliveries deliveries;
+
+	@Inject
+	public GradeExporter(Deliveries deliveries) {
+		this.deliveries = deliveries;
+	}
+
+	/**
+	 * @param assignment Assignment to export.
+	 * @return A {@code StreamingOutput} that writes the grades for the most recent delivery of every student.
+	 */
+	public StreamingOutput streamGrades(Assignment assignment) {
+		return output -> write(output, csvPrinter -> {
+			printGradesHeader(csvPrinter);
+			printGrades(csvPrinter, assignment);
+		});
+	}
+
+	/**
+	 * @param courseEdition Course edition to export.
+	 * @return A {@code StreamingOutput} that writes the grades for all assignments in the course edition.
+	 */
+	public StreamingOutput streamGrades(CourseEdition courseEdition) {
+		return output -> write(output, csvPrinter -> {
+			printGradesHeader(csvPrinter);
+			for (Assignment assignment : courseEdition.getAssignments()) {
+				printGrades(csvPrinter, assignment);
+			}
+		});
+	}
+
+	/**
+	 * @param assignment Assignment to export.
+	 * @return A {@code StreamingOutput} that writes the rubrics for the most recent delivery of every group.
+	 */
+	public StreamingOutput streamRubrics(Assignment assignment) {
+		return output -> write(output, csvPrinter -> printRubrics(csvPrinter, assignment));
+	}
+
+	private static void printGradesHeader(CSVPrinter csvPrinter) throws IOException {
+		csvPrinter.printRecord("Assignment", "NetId", "StudentNo", "Name", "Group", "State", "Grade", "Points");
+	}
+
+	@Transactional
+	protected void printGrades(CSVPrinter csvPrinter, Assignment assignment) throws IOException {
+		Map<Long, Double> rubricPoints = deliveries.getRubricPoints(assignment);
+		double achievablePoints = assignment.getNumberOfAchievablePoints();
+
+		try (Stream<StudentGrade> grades = deliveries.streamLastGradesByStudent(assignment)) {
+			for (StudentGrade grade : (Iterable<StudentGrade>) grades::iterator) {
+				double points = rubricPoints.getOrDefault(grade.getDeliveryId(), 0d);
+
+				csvPrinter.printRecord(
+					assignment.getName(),
+					grade.getNetId(),
+					grade.getStudentNumber(),
+					grade.getName(),
+					grade.getGroup().getGroupName(),
+					grade.getState(),
+					grade.getGrade() != null ? grade.getGrade() : "",
+					Math.max(0, Math.min(points, achievablePoints))
+				);
+			}
+		}
+	}
+
+	@Transactional
+	protected void printRubrics(CSVPrinter csvPrinter, Assignment assignment) throws IOException {
+		List<Long> groupNumbers = deliveries.getDeliveredGroupNumbers(assignment);
+		Table<Long, Long, Double> rubricPoints = deliveries.getLastRubricPoints(assignment);
+
+		int numLevels = assignment.getTasks().stream()
+			.map(Task::getCharacteristics).flatMap(Collection::stream)
+			.map(Characteristic::getLevels).mapToInt(Collection::size)
+			.max().orElse(0);
+
+		// Skip initial columns, list all groups
+		for (int i = 0; i < 2 + numLevels; i++) {
+			csvPrinter.print("");
+		}
+
+		// Print group numbers
+		for (Long groupNumber : groupNumbers) {
+			csvPrinter.print("Group " + groupNumber);
+		}
+		csvPrinter.println();
+
+		for (Task task : assignment.getTasks()) {
+			// Print exercise
+			csvPrinter.print(task.getDescription());
+			csvPrinter.print("");
+			csvPrinter.println();
+
+			for (Characteristic characteristic : task.getCharacteristics()) {
+				csvPrinter.print(characteristic.getDescription());
+				csvPrinter.print(characteristic.getWeight());
+
+				for (Mastery mastery : characteristic.getLevels()) {
+					csvPrinter.print(mastery.getDescription());
+				}
+
+				for (int i = 0; i < numLevels - characteristic.getLevels().size(); i++) {
+					csvPrinter.print("");
+				}
+
+				for (Long groupNumber : groupNumbers) {
+					Double points = rubricPoints.get(characteristic.getId(), groupNumber);
+					csvPrinter.print(points != null ? points : "");
+				}
+
+				csvPrinter.println();
+			}
+			csvPrinter.println();
+		}
+	}
+
+	private static void write(OutputStream output, CSVWriter csvWriter) throws IOException {
+		Writer writer = new BufferedWriter(new OutputStreamWriter(output, Charsets.UTF_8));
+		CSVPrinter csvPrinter = new CSVPrinter(writer, CSVFormat.RFC4180);
+		csvWriter.write(csvPrinter);
+		csvPrinter.flush();
+	}
+
+	@FunctionalInterface
+	private interface CSVWriter {
+
+		void write(CSVPrinter csvPrinter) throws IOException;
+
+	}
+
+}
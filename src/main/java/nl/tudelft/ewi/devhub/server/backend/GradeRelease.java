@@ -0,0 +1,321 @@
+package nl.tudelft.ewi.devhub.server.backend;
+
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import nl.tudelft.ewi.devhub.server.backend.mail.MailBackend;
+import nl.tudelft.ewi.devhub.server.backend.mail.MailBackend.Mail;
+import nl.tudelft.ewi.devhub.server.backend.mail.ReviewMailer;
+import nl.tudelft.ewi.devhub.server.database.controllers.Assignments;
+import nl.tudelft.ewi.devhub.server.database.controllers.Deliveries;
+import nl.tudelft.ewi.devhub.server.database.controllers.Users;
+import nl.tudelft.ewi.devhub.server.database.entities.Assignment;
+import nl.tudelft.ewi.devhub.server.database.entities.Assignment.AssignmentId;
+import nl.tudelft.ewi.devhub.server.database.entities.Delivery;
+import nl.tudelft.ewi.devhub.server.database.entities.Delivery.Review;
+import nl.tudelft.ewi.devhub.server.database.entities.Delivery.State;
+import nl.tudelft.ewi.devhub.server.database.entities.User;
+import nl.tudelft.ewi.devhub.server.database.entities.rubrics.GradingStrategy;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+import com.google.inject.Singleton;
+import com.google.inject.persist.Transactional;
+import com.google.inject.persist.UnitOfWork;
+
+import javax.persistence.EntityManager;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * The {@code GradeRelease} releases the grades for an assignment in the background. The most
+ * recent deliveries are graded in chunks, and every chunk is committed in its own transaction
+ * together with the review mails for that chunk. Only one release runs per assignment at a time.
+ *
+ * The progress of a release is only kept in memory. When the server restarts during a release,
+ * the remaining chunks are not released and the progress is lost. Releasing the grades again
+ * is safe: committed chunks keep the highest grade, and their review mails are not sent again
+ * because their reviews are no longer in the submitted state.
+ *
+ * @author Jan-Willem Gmelig Meyling
+ */
+@Slf4j
+@Singleton
+public class GradeRelease {
+
+	static final int CHUNK_SIZE = 50;
+
+	private final Provider<UnitOfWork> workProvider;
+	private final Provider<EntityManager> entityManagerProvider;
+	private final Provider<Assignments> assignmentsProvider;
+	private final Provider<Deliveries> deliveriesProvider;
+	private final Provider<Users> usersProvider;
+	private final Provider<ReviewMailer> reviewMailerProvider;
+	private final Provider<MailBackend> mailBackendProvider;
+	private final ConcurrentMap<AssignmentId, Job> jobs;
+	private final ExecutorService executor;
+
+	@Inject
+	public GradeRelease(Provider<UnitOfWork> workProvider, Provider<EntityManager> entityManagerProvider,
+	                    Provider<Assignments> assignmentsProvider, Provider<Deliveries> deliveriesProvider,
+	                    Provider<Users> usersProvider, Provider<ReviewMailer> reviewMailerProvider,
+	                    Provider<MailBackend> mailBackendProvider) {
+		this(workProvider, entityManagerProvider, assignmentsProvider, deliveriesProvider, usersProvider,
+			reviewMailerProvider, mailBackendProvider, Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+				.setNameFormat("grade-release-%d")
+				.setDaemon(true)
+				.build()));
+	}
+
+	GradeRelease(Provider<UnitOfWork> workProvider, Provider<EntityManager> entityManagerProvider,
+	             Provider<Assignments> assignmentsProvider, Provider<Deliveries> deliveriesProvider,
+	             Provider<Users> usersProvider, Provider<ReviewMailer> reviewMailerProvider,
+	             Provider<MailBackend> mailBackendProvider, ExecutorService executor) {
+		this.workProvider = workProvider;
+		this.entityManagerProvider = entityManagerProvider;
+		this.assignmentsProvider = assignmentsProvider;
+		this.deliveriesProvider = deliveriesProvider;
+		this.usersProvider = usersProvider;
+		this.reviewMailerProvider = reviewMailerProvider;
+		this.mailBackendProvider = mailBackendProvider;
+		this.jobs = Maps.newConcurrentMap();
+		this.executor = executor;
+	}
+
+	/**
+	 * Release the grades for an assignment. If a release for the assignment is already
+	 * in progress, no new release is started.
+	 *
+	 * @param assignment Assignment to release the grades for.
+	 * @param releasedBy User that releases the grades, used as reviewer for deliveries without review.
+	 * @param locales Locales for the review mails.
+	 * @return The progress of the release.
+	 */
+	public Progress release(Assignment assignment, User releasedBy, List<Locale> locales) {
+		AssignmentId assignmentId = getAssignmentId(assignment);
+		Job job = new Job(assignmentId, releasedBy.getId(), ImmutableList.copyOf(locales));
+		Job current = jobs.compute(assignmentId, (key, existing) ->
+			existing != null && !existing.isFinished() ? existing : job);
+
+		if (current == job) {
+			log.info("{} releases the grades for {}", releasedBy, assignment);
+			executor.submit(job);
+		}
+
+		return current.getProgress();
+	}
+
+	/**
+	 * @param assignment Assignment to get the progress for.
+	 * @return The progress of the most recent release for the assignment.
+	 */
+	public Optional<Progress> getProgress(Assignment assignment) {
+		return Optional.ofNullable(jobs.get(getAssignmentId(assignment)))
+			.map(Job::getProgress);
+	}
+
+	private static AssignmentId getAssignmentId(Assignment assignment) {
+		return new AssignmentId(assignment.getCourseEdition().getId(), assignment.getAssignmentId());
+	}
+
+	/**
+	 * Grade a chunk of deliveries and queue the review mails.
+	 *
+	 * @param job The release.
+	 * @param deliveryIds Ids of the deliveries to grade.
+	 */
+	@Transactional
+	protected void releaseChunk(Job job, List<Long> deliveryIds) {
+		Deliveries deliveries = deliveriesProvider.get();
+		ReviewMailer reviewMailer = reviewMailerProvider.get();
+		Assignment assignment = assignmentsProvider.get().find(job.assignmentId);
+		User releasedBy = usersProvider.get().find(job.releasedBy);
+		GradingStrategy gradingStrategy = assignment.getGradingStrategy();
+
+		List<Delivery> chunk = deliveries.listForGrading(deliveryIds);
+		Map<Long, Review> previousReviews = getPreviousReviews(deliveries, assignment, chunk);
+		List<Mail> mails = Lists.newArrayList();
+
+		for (Delivery delivery : chunk) {
+			if (delivery.getMasteries().isEmpty()) {
+				log.info("Skipping {} as it has no masteries", delivery);
+				job.skipped.incrementAndGet();
+				continue;
+			}
+
+			Review review = getOrCreateReview(delivery, previousReviews, releasedBy);
+			State previousState = review.getState();
+
+			double grade = gradingStrategy.createGrade(delivery);
+			if (review.getGrade() != null) {
+				grade = Math.max(grade, review.getGrade());
+			}
+
+			review.setGrade(grade);
+			review.setState(gradingStrategy.createState(delivery));
+			log.debug("Updated review {} for {}", review, delivery);
+
+			if (previousState == null || previousState.equals(State.SUBMITTED)) {
+				mails.addAll(reviewMailer.createReviewMails(delivery, job.locales));
+			}
+			job.released.incrementAndGet();
+		}
+
+		mailBackendProvider.get().sendMails(mails);
+		job.processed.addAndGet(deliveryIds.size());
+	}
+
+	/**
+	 * Find a {@code Review} on an older delivery for the deliveries in a chunk that have
+	 * no review.
+	 *
+	 * @deprecated Only used for SQT where a review may be created on an older submission,
+	 *  while the latest solution is a resubmission.
+	 */
+	@Deprecated
+	private static Map<Long, Review> getPreviousReviews(Deliveries deliveries, Assignment assignment, List<Delivery> chunk) {
+		List<Long> groupNumbers = chunk.stream()
+			.filter(delivery -> delivery.getReview() == null)
+			.map(delivery -> delivery.getGroup().getGroupNumber())
+			.collect(Collectors.toList());
+
+		Map<Long, Review> reviews = Maps.newHashMap();
+		for (Delivery delivery : deliveries.getDeliveries(assignment, groupNumbers)) {
+			if (delivery.getReview() != null) {
+				reviews.putIfAbsent(delivery.getGroup().getGroupNumber(), delivery.getReview());
+			}
+		}
+		return reviews;
+	}
+
+	private static Review getOrCreateReview(Delivery delivery, Map<Long, Review> previousReviews, User releasedBy) {
+		if (delivery.getReview() != null) {
+			return delivery.getReview();
+		}
+
+		Review review = new Review();
+		Review previous = previousReviews.get(delivery.getGroup().getGroupNumber());
+		if (previous != null) {
+			review.setGrade(previous.getGrade());
+			review.setReviewTime(previous.getReviewTime());
+			review.setState(previous.getState());
+			review.setReviewUser(previous.getReviewUser());
+			review.setCommentary(previous.getCommentary());
+		}
+		else {
+			review.setReviewUser(releasedBy);
+			review.setCommentary("");
+			review.setReviewTime(new Date());
+		}
+
+		delivery.setReview(review);
+		return review;
+	}
+
+	/**
+	 * A grade release for an assignment.
+	 */
+	class Job implements Runnable {
+
+		private final AssignmentId assignmentId;
+		private final long releasedBy;
+		private final List<Locale> locales;
+		private final Date queued = new Date();
+
+		private final AtomicInteger processed = new AtomicInteger();
+		private final AtomicInteger released = new AtomicInteger();
+		private final AtomicInteger skipped = new AtomicInteger();
+
+		private volatile ReleaseState state = ReleaseState.QUEUED;
+		private volatile int total;
+		private volatile Date finished;
+
+		private Job(AssignmentId assignmentId, long releasedBy, List<Locale> locales) {
+			this.assignmentId = assignmentId;
+			this.releasedBy = releasedBy;
+			this.locales = locales;
+		}
+
+		@Override
+		public void run() {
+			UnitOfWork work = workProvider.get();
+			try {
+				work.begin();
+				state = ReleaseState.RUNNING;
+				Assignment assignment = assignmentsProvider.get().find(assignmentId);
+				List<Long> deliveryIds = deliveriesProvider.get().getLastDeliveryIds(assignment);
+				total = deliveryIds.size();
+
+				for (List<Long> chunk : Lists.partition(deliveryIds, CHUNK_SIZE)) {
+					releaseChunk(this, chunk);
+					// Keep the persistence context small between chunks
+					entityManagerProvider.get().clear();
+				}
+
+				state = ReleaseState.FINISHED;
+				log.info("Released {} grades for {}, skipped {}", released.get(), assignmentId, skipped.get());
+			}
+			catch (Throwable e) {
+				state = ReleaseState.FAILED;
+				log.error("Failed to release the grades for " + assignmentId + ": " + e.getMessage(), e);
+			}
+			finally {
+				finished = new Date();
+				work.end();
+			}
+		}
+
+		private boolean isFinished() {
+			return state == ReleaseState.FINISHED || state == ReleaseState.FAILED;
+		}
+
+		private Progress getProgress() {
+			return new Progress(state, total, processed.get(), released.get(), skipped.get(), queued, finished);
+		}
+
+	}
+
+	public enum ReleaseState {
+		QUEUED, RUNNING, FINISHED, FAILED
+	}
+
+	/**
+	 * Snapshot of the progress of a grade release.
+	 */
+	@Value
+	public static class Progress {
+
+		ReleaseState state;
+
+		/**
+		 * Number of deliveries to grade, known once the release is running.
+		 */
+		int total;
+
+		int processed;
+
+		int released;
+
+		/**
+		 * Number of deliveries that were skipped because they have no masteries.
+		 */
+		int skipped;
+
+		Date queued;
+
+		Date finished;
+
+	}
+
+}
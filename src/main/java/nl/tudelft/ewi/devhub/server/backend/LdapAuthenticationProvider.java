@@ -1,10 +1,12 @@
 package nl.tudelft.ewi.devhub.server.backend;
 
 import lombok.Data;
+import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
 import nl.tudelft.ewi.devhub.server.Config;
 import nl.tudelft.ewi.devhub.server.database.controllers.Users;
 import nl.tudelft.ewi.devhub.server.database.entities.User;
+import nl.tudelft.ewi.devhub.server.util.LatencyRecorder;
 
 import com.google.common.collect.Lists;
 import com.google.inject.Provider;
@@ -30,7 +32,6 @@ import org.apache.directory.api.ldap.model.message.SearchRequestImpl;
 import org.apache.directory.api.ldap.model.message.SearchScope;
 import org.apache.directory.api.ldap.model.name.Dn;
 import org.apache.directory.ldap.client.api.LdapConnection;
-import org.apache.directory.ldap.client.api.LdapNetworkConnection;
 
 import javax.inject.Inject;
 import java.io.IOException;
@@ -38,18 +39,37 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
-
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The {@code LdapAuthenticationProvider} verifies credentials against the database first, and
+ * against the LDAP server otherwise. Logins use connections from the {@link LdapConnectionPool},
+ * and the bound connection is reused to fetch the details of new users. Recently verified
+ * credentials are remembered in the {@link CredentialCache}.
+ */
 @Slf4j
 @Singleton
 public class LdapAuthenticationProvider implements AuthenticationProvider {
 	
 	private final Config config;
 	private final BasicAuthenticationProvider basicAuthenticationProvider;
+	private final LdapConnectionPool connectionPool;
+	private final CredentialCache credentialCache;
+	private final LatencyRecorder latencies;
+
+	private final AtomicLong cacheHits = new AtomicLong();
+	private final AtomicLong databaseLogins = new AtomicLong();
+	private final AtomicLong ldapBinds = new AtomicLong();
+	private final AtomicLong failures = new AtomicLong();
 	
 	@Inject
-	public LdapAuthenticationProvider(Config config, BasicAuthenticationProvider basicAuthenticationProvider) {
+	public LdapAuthenticationProvider(Config config, BasicAuthenticationProvider basicAuthenticationProvider,
+									  LdapConnectionPool connectionPool, CredentialCache credentialCache) {
 		this.config = config;
 		this.basicAuthenticationProvider = basicAuthenticationProvider;
+		this.connectionPool = connectionPool;
+		this.credentialCache = credentialCache;
+		this.latencies = new LatencyRecorder();
 	}
 
 	@Override
@@ -57,12 +77,40 @@ public class LdapAuthenticationProvider implements AuthenticationProvider {
 			throws AuthenticationProviderUnavailable,
 			InvalidCredentialsException {
 
+		long start = System.nanoTime();
+		try {
+			if (credentialCache.matches(username, password)) {
+				cacheHits.incrementAndGet();
+				return new AbstractAuthenticationSession();
+			}
+
+			AuthenticationSession session = authenticateUncached(username, password);
+			credentialCache.put(username, password);
+			return session;
+		}
+		catch (InvalidCredentialsException | AuthenticationProviderUnavailable e) {
+			failures.incrementAndGet();
+			credentialCache.invalidate(username);
+			throw e;
+		}
+		finally {
+			latencies.record(System.nanoTime() - start);
+		}
+	}
+
+	private AuthenticationSession authenticateUncached(final String username, final String password)
+			throws AuthenticationProviderUnavailable,
+			InvalidCredentialsException {
+
 		try {
 			// Try to login from cache, on failure login using ldap
-			return basicAuthenticationProvider.authenticate(username, password);
+			AuthenticationSession session = basicAuthenticationProvider.authenticate(username, password);
+			databaseLogins.incrementAndGet();
+			return session;
 		}
 		catch (InvalidCredentialsException e) {
 			final LdapConnection connection = connect(username, password);
+			ldapBinds.incrementAndGet();
 
 			return new AuthenticationSession() {
 
@@ -94,7 +142,7 @@ public class LdapAuthenticationProvider implements AuthenticationProvider {
 
 				@Override
 				public void close() throws IOException {
-					connection.close();
+					connectionPool.release(connection);
 				}
 
 			};
@@ -102,7 +150,9 @@ public class LdapAuthenticationProvider implements AuthenticationProvider {
 	}
 	
 	/**
-	 * Try to establish a {@link LdapConnection}
+	 * Bind a pooled {@link LdapConnection} with the credentials of the user. A pooled connection
+	 * may have been closed by the server while it was idle, so a failed bind on a reused
+	 * connection is retried once on a new connection.
 	 * 
 	 * @param netId
 	 *            Username for the user
@@ -117,12 +167,28 @@ public class LdapAuthenticationProvider implements AuthenticationProvider {
 	private LdapConnection connect(String netId, String password)
 			throws InvalidCredentialsException,
 			AuthenticationProviderUnavailable {
-		
-		LdapConnection conn = null;
-		
+
+		try {
+			return bind(connectionPool.borrow(), netId, password);
+		}
+		catch (LdapException e) {
+			log.debug("Retrying bind for {} on a new connection: {}", netId, e.getMessage());
+		}
+
+		try {
+			return bind(connectionPool.borrow(), netId, password);
+		}
+		catch (LdapException e) {
+			throw new AuthenticationProviderUnavailable(e);
+		}
+	}
+
+	private LdapConnection bind(LdapConnection conn, String netId, String password)
+			throws InvalidCredentialsException,
+			AuthenticationProviderUnavailable,
+			LdapException {
+
 		try {
-			conn = new LdapNetworkConnection(config.getLDAPHost(),
-					config.getLDAPPort(), config.isLDAPSSL());
 			BindRequest request = new BindRequestImpl();
 			request.setSimple(true);
 
@@ -144,26 +210,32 @@ public class LdapAuthenticationProvider implements AuthenticationProvider {
 			case SUCCESS:
 				return conn;
 			case INVALID_CREDENTIALS:
-				conn.close();
+				connectionPool.release(conn);
 				throw new InvalidCredentialsException();
 			default:
-				conn.close();
+				connectionPool.invalidate(conn);
 				throw new AuthenticationProviderUnavailable(ldapResult.getDiagnosticMessage());
 			}
 		}
-		catch (LdapException | IOException e) {
-			
-			if(conn != null && conn.isConnected()) {
-				try {
-					conn.close();
-				} catch(IOException e1) {
-					log.info(e.getMessage(), e1);
-				}
-			}
-			
-			throw new AuthenticationProviderUnavailable(e);
+		catch (LdapException | RuntimeException e) {
+			connectionPool.invalidate(conn);
+			throw e;
 		}
 	}
+
+	/**
+	 * @return The current login statistics.
+	 */
+	public Statistics getStatistics() {
+		return new Statistics(
+			cacheHits.get(),
+			databaseLogins.get(),
+			ldapBinds.get(),
+			failures.get(),
+			latencies.snapshot(),
+			connectionPool.getStatistics()
+		);
+	}
 	
 	private String getValue(Entry entry, String key) throws LdapInvalidAttributeValueException {
 		Attribute value = entry.get(key);
@@ -221,6 +293,38 @@ public class LdapAuthenticationProvider implements AuthenticationProvider {
 		}
 	}
 
+	/**
+	 * Snapshot of the login metrics for the {@link LdapAuthenticationProvider}.
+	 */
+	@Value
+	public static class Statistics {
+
+		/**
+		 * Number of logins verified by the {@link CredentialCache}.
+		 */
+		long cacheHits;
+
+		/**
+		 * Number of logins verified against the password in the database.
+		 */
+		long databaseLogins;
+
+		/**
+		 * Number of logins verified by a bind to the LDAP server.
+		 */
+		long ldapBinds;
+
+		long failures;
+
+		/**
+		 * Time taken to verify credentials.
+		 */
+		LatencyRecorder.Percentiles latencies;
+
+		LdapConnectionPool.Statistics connectionPool;
+
+	}
+
 	@Data
 	private static class LdapEntry {
 		private final String name;
@@ -91,12 +91,9 @@ public class LdapBackend implements AuthenticationBackend {
 		log.debug("Authenticating: {}", netId);
 		Preconditions.checkArgument(!Strings.isNullOrEmpty(password));
 
-		LdapConnection connection = null;
-		try {
-			connection = connect(netId, password);
+		try (LdapConnection connection = connect(netId, password)) {
 			if (connection != null) {
-				connection.close();
-				ensureUserPresent(netId, password);
+				ensureUserPresent(netId, connection);
 				return true;
 			}
 		}
@@ -106,7 +103,7 @@ public class LdapBackend implements AuthenticationBackend {
 		return false;
 	}
 
-	private void ensureUserPresent(String netId, String password) throws LdapException, IOException {
+	private void ensureUserPresent(String netId, LdapConnection connection) throws LdapException {
 		Users database = usersProvider.get();
 
 		try {
@@ -114,29 +111,31 @@ public class LdapBackend implements AuthenticationBackend {
 		}
 		catch (EntityNotFoundException e) {
 			log.trace("Persisting user: {} since he/she is not yet present in the database", netId);
-			User user = fetch(netId, password);
+			User user = fetch(netId, connection);
 			database.persist(user);
 		}
 	}
 
-	private User fetch(String netId, String password) throws LdapException, IOException {
+	/**
+	 * Fetch a user on the connection that was bound to authenticate the user, instead of
+	 * opening and binding a second connection.
+	 */
+	private User fetch(String netId, LdapConnection conn) throws LdapException {
 		log.debug("Fetching user from LDAP: {}", netId);
 
-		try (LdapConnection conn = connect(netId, password)) {
-			List<LdapEntry> results = search(netId, conn);
-			if (results.isEmpty()) {
-				throw new LdapException("Could not find user with netID: " + netId);
-			}
+		List<LdapEntry> results = search(netId, conn);
+		if (results.isEmpty()) {
+			throw new LdapException("Could not find user with netID: " + netId);
+		}
 
-			LdapEntry entry = results.get(0);
+		LdapEntry entry = results.get(0);
 
-			User user = new User();
-			user.setNetId(entry.getNetId());
-			user.setName(entry.getName());
-			user.setEmail(entry.getEmail());
+		User user = new User();
+		user.setNetId(entry.getNetId());
+		user.setName(entry.getName());
+		user.setEmail(entry.getEmail());
 
-			return user;
-		}
+		return user;
 	}
 
 	private String getValue(Entry entry, String key) throws LdapInvalidAttributeValueException {
@@ -0,0 +1,147 @@
+package nl.tudelft.ewi.devhub.server.backend;
+
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import nl.tudelft.ewi.devhub.server.Config;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+import org.apache.directory.api.ldap.model.exception.LdapException;
+import org.apache.directory.ldap.client.api.LdapConnection;
+import org.apache.directory.ldap.client.api.LdapNetworkConnection;
+
+import java.io.IOException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The {@code LdapConnectionPool} keeps a bounded number of connections to the LDAP server open,
+ * so logins do not pay for a TLS handshake each. DevHub has no service account, so a borrowed
+ * connection is always bound with the credentials of the user that logs in before it is used.
+ * A bind replaces the identity of an earlier bind on the same connection.
+ *
+ * @author Jan-Willem Gmelig Meyling
+ */
+@Slf4j
+@Singleton
+public class LdapConnectionPool {
+
+	private final Config config;
+	private final Semaphore permits;
+	private final BlockingQueue<LdapConnection> idle;
+	private final long timeout;
+
+	private final AtomicLong created = new AtomicLong();
+	private final AtomicLong reused = new AtomicLong();
+	private final AtomicLong discarded = new AtomicLong();
+
+	@Inject
+	public LdapConnectionPool(Config config) {
+		this.config = config;
+		this.permits = new Semaphore(config.getLDAPPoolSize(), true);
+		this.idle = new LinkedBlockingQueue<>();
+		this.timeout = config.getLDAPPoolTimeout();
+	}
+
+	/**
+	 * Borrow a connection from the pool. Every borrowed connection must be returned
+	 * with {@link #release(LdapConnection)} or {@link #invalidate(LdapConnection)}.
+	 *
+	 * @return An idle connection, or a new connection if there is no idle connection.
+	 * @throws LdapException If all connections are in use for longer than the pool timeout.
+	 */
+	public LdapConnection borrow() throws LdapException {
+		try {
+			if (!permits.tryAcquire(timeout, TimeUnit.SECONDS)) {
+				throw new LdapException("Timed out waiting for an LDAP connection");
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new LdapException(e);
+		}
+
+		LdapConnection connection;
+		while ((connection = idle.poll()) != null) {
+			if (connection.isConnected()) {
+				reused.incrementAndGet();
+				return connection;
+			}
+			close(connection);
+		}
+
+		created.incrementAndGet();
+		return new LdapNetworkConnection(config.getLDAPHost(), config.getLDAPPort(), config.isLDAPSSL());
+	}
+
+	/**
+	 * Return a connection to the pool.
+	 *
+	 * @param connection The borrowed connection.
+	 */
+	public void release(LdapConnection connection) {
+		if (connection.isConnected()) {
+			idle.offer(connection);
+		}
+		else {
+			close(connection);
+		}
+		permits.release();
+	}
+
+	/**
+	 * Close a connection that failed, instead of returning it to the pool.
+	 *
+	 * @param connection The borrowed connection.
+	 */
+	public void invalidate(LdapConnection connection) {
+		close(connection);
+		permits.release();
+	}
+
+	private void close(LdapConnection connection) {
+		discarded.incrementAndGet();
+		try {
+			connection.close();
+		}
+		catch (IOException e) {
+			log.debug(e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * @return The current statistics for this pool.
+	 */
+	public Statistics getStatistics() {
+		return new Statistics(
+			config.getLDAPPoolSize() - permits.availablePermits(),
+			idle.size(),
+			created.get(),
+			reused.get(),
+			discarded.get()
+		);
+	}
+
+	/**
+	 * Snapshot of the metrics for the {@link LdapConnectionPool}.
+	 */
+	@Value
+	public static class Statistics {
+
+		int active;
+
+		int idle;
+
+		long created;
+
+		long reused;
+
+		long discarded;
+
+	}
+
+}
@@ -1,9 +1,13 @@
 package nl.tudelft.ewi.devhub.server.backend;
 
+import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
 import nl.tudelft.ewi.devhub.server.Config;
 
+import com.google.common.io.BaseEncoding;
+import com.google.common.io.ByteStreams;
 import com.google.inject.Inject;
+import com.google.inject.Singleton;
 
 import org.apache.commons.io.FileUtils;
 
@@ -11,21 +15,47 @@ import javax.ws.rs.NotFoundException;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * The {@code StorageBackend} is used for uploading to and downloading from Devhub
+ * The {@code StorageBackend} is used for uploading to and downloading from Devhub.
+ *
+ * Files are stored content addressed: the SHA-256 hash of every upload is computed while it is
+ * written, and every stored file is hard linked from {@code .blobs/}. An upload with the same
+ * contents as an earlier upload, such as the same report in a resubmission, becomes another
+ * link to the existing file instead of a copy.
  *
  * @author Jan-Willem Gmelig Meyling
  */
 @Slf4j
+@Singleton
 public class StorageBackend {
 
+    private static final String BLOBS_FOLDER = ".blobs";
+    private static final String UPLOADS_FOLDER = ".uploads";
+    private static final String HASH_ALGORITHM = "SHA-256";
+
     private final File rootFolder;
+    private final Path blobsFolder;
+    private final Path uploadsFolder;
+    private final Object linkLock = new Object();
+
+    private final AtomicLong stored = new AtomicLong();
+    private final AtomicLong deduplicated = new AtomicLong();
 
     @Inject
     public StorageBackend(Config config) {
         rootFolder = config.getStorageFolder();
         rootFolder.mkdirs();
+        blobsFolder = rootFolder.toPath().resolve(BLOBS_FOLDER);
+        uploadsFolder = rootFolder.toPath().resolve(UPLOADS_FOLDER);
     }
 
     /**
@@ -33,15 +63,70 @@ public class StorageBackend {
      * @param path relative folder path of file
      * @param fileName filename for file
      * @param in InputStream providing the file contents
+     * @return the stored file
      * @throws IOException if an I/O error occurs
      */
-    public String store(String path, String fileName, InputStream in) throws IOException {
-        File folder = new File(rootFolder, path);
-        folder.mkdirs();
-        File file = new File(folder, fileName);
-        FileUtils.copyInputStreamToFile(in, file);
-        log.info("Created file {}/{}", path, fileName);
-        return path.concat(File.separator).concat(fileName);
+    public StoredFile store(String path, String fileName, InputStream in) throws IOException {
+        Path target = new File(new File(rootFolder, path), fileName).toPath();
+        Files.createDirectories(target.getParent());
+        Files.createDirectories(uploadsFolder);
+
+        Path upload = Files.createTempFile(uploadsFolder, "upload", ".tmp");
+        try {
+            MessageDigest messageDigest = createMessageDigest();
+            long size;
+            try (DigestInputStream digestInputStream = new DigestInputStream(in, messageDigest)) {
+                size = Files.copy(digestInputStream, upload, StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            String contentHash = BaseEncoding.base16().lowerCase().encode(messageDigest.digest());
+            link(upload, target, contentHash);
+            stored.incrementAndGet();
+            log.info("Created file {}/{} ({} bytes, {})", path, fileName, size, contentHash);
+            return new StoredFile(path.concat(File.separator).concat(fileName), contentHash, size);
+        }
+        finally {
+            Files.deleteIfExists(upload);
+        }
+    }
+
+    /**
+     * Move an upload to its target, or link the target to an existing blob with the same contents.
+     */
+    private void link(Path upload, Path target, String contentHash) throws IOException {
+        Path blob = getBlob(contentHash);
+
+        synchronized (linkLock) {
+            // The hash of a file that is overwritten is not known here, so it has to be computed
+            removeBlobIfLastLink(target, null);
+            Files.deleteIfExists(target);
+
+            if (Files.exists(blob)) {
+                try {
+                    Files.createLink(target, blob);
+                    deduplicated.incrementAndGet();
+                    return;
+                }
+                catch (UnsupportedOperationException | FileSystemException e) {
+                    log.debug("Could not link {} to {}, storing a copy instead", target, blob, e);
+                }
+            }
+
+            Files.move(upload, target, StandardCopyOption.ATOMIC_MOVE);
+
+            try {
+                Files.createDirectories(blob.getParent());
+                Files.deleteIfExists(blob);
+                Files.createLink(blob, target);
+            }
+            catch (UnsupportedOperationException | FileSystemException e) {
+                log.debug("Could not link {} to {}, file will not be deduplicated", blob, target, e);
+            }
+        }
+    }
+
+    private Path getBlob(String contentHash) {
+        return blobsFolder.resolve(contentHash.substring(0, 2)).resolve(contentHash);
     }
 
     /**
@@ -51,22 +136,81 @@ public class StorageBackend {
      * @throws IOException if an I/O error occurs
      */
     public void remove(String path, String fileName) throws IOException {
+        remove(path, fileName, null);
+    }
+
+    /**
+     * Remove a file in the StorageBackend
+     * @param path relative folder path of file
+     * @param fileName filename for file
+     * @param contentHash hash of the file contents as returned by {@link #store}, or
+     *                    {@code null} if it is unknown and has to be computed
+     * @throws IOException if an I/O error occurs
+     */
+    public void remove(String path, String fileName, String contentHash) throws IOException {
         File folder = new File(rootFolder, path);
         if(folder.exists()) {
             File file = new File(folder, fileName);
-            FileUtils.forceDelete(file);
+            synchronized (linkLock) {
+                removeBlobIfLastLink(file.toPath(), contentHash);
+                FileUtils.forceDelete(file);
+            }
             log.info("Deleted file {}/{}", path, fileName);
         }
     }
 
+    /**
+     * Remove the blob for a file if the file is the last other link to it.
+     */
+    private void removeBlobIfLastLink(Path file, String contentHash) throws IOException {
+        try {
+            if (Files.exists(file) && ((Number) Files.getAttribute(file, "unix:nlink")).intValue() == 2) {
+                Path blob = getBlob(contentHash != null ? contentHash : hash(file));
+                if (Files.exists(blob) && Files.isSameFile(blob, file)) {
+                    Files.delete(blob);
+                }
+            }
+        }
+        catch (UnsupportedOperationException | IllegalArgumentException e) {
+            log.debug("Cannot count links for {}", file, e);
+        }
+    }
+
+    private static String hash(Path file) throws IOException {
+        MessageDigest messageDigest = createMessageDigest();
+        try (DigestInputStream in = new DigestInputStream(Files.newInputStream(file), messageDigest)) {
+            ByteStreams.copy(in, ByteStreams.nullOutputStream());
+        }
+        return BaseEncoding.base16().lowerCase().encode(messageDigest.digest());
+    }
+
+    private static MessageDigest createMessageDigest() {
+        try {
+            return MessageDigest.getInstance(HASH_ALGORITHM);
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
     /**
      * Remove a file in the StorageBackend
      * @param path relative folder path of file
      * @param fileName filename for file
      */
     public void removeSilently(String path, String fileName) {
+        removeSilently(path, fileName, null);
+    }
+
+    /**
+     * Remove a file in the StorageBackend
+     * @param path relative folder path of file
+     * @param fileName filename for file
+     * @param contentHash hash of the file contents, or {@code null} if it is unknown
+     */
+    public void removeSilently(String path, String fileName, String contentHash) {
         try {
-            remove(path, fileName);
+            remove(path, fileName, contentHash);
         }
         catch (IOException e) {
             log.warn(e.getMessage(), e);
@@ -92,4 +236,46 @@ public class StorageBackend {
         return file;
     }
 
+    /**
+     * @return The current statistics for this storage.
+     */
+    public Statistics getStatistics() {
+        return new Statistics(stored.get(), deduplicated.get());
+    }
+
+    /**
+     * A file that was stored in the {@link StorageBackend}.
+     */
+    @Value
+    public static class StoredFile {
+
+        /**
+         * Path of the file relative to the storage folder.
+         */
+        String path;
+
+        /**
+         * Hex encoded SHA-256 hash of the contents.
+         */
+        String contentHash;
+
+        long size;
+
+    }
+
+    /**
+     * Snapshot of the metrics for the {@link StorageBackend}.
+     */
+    @Value
+    public static class Statistics {
+
+        long stored;
+
+        /**
+         * Number of stored files that were linked to an existing file with the same contents.
+         */
+        long deduplicated;
+
+    }
+
 }
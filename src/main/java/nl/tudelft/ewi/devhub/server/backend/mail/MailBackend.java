@@ -5,12 +5,23 @@ import lombok.ToString;
 
 import com.google.inject.ImplementedBy;
 
+import java.util.Collection;
+
 @ImplementedBy(MailBackendImpl.class)
 public interface MailBackend {
 
 	int getQueueSize();
 
 	void sendMail(Mail mail);
+
+	/**
+	 * Send several mails at once.
+	 *
+	 * @param mails Mails to send.
+	 */
+	default void sendMails(Collection<Mail> mails) {
+		mails.forEach(this::sendMail);
+	}
 	
 	@Data
 	@ToString(exclude = { "content" })
@@ -1,13 +1,25 @@
 package nl.tudelft.ewi.devhub.server.backend.mail;
 
+import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
 import nl.tudelft.ewi.devhub.server.Config;
+import nl.tudelft.ewi.devhub.server.database.controllers.QueuedMails;
+import nl.tudelft.ewi.devhub.server.database.entities.QueuedMail;
+import nl.tudelft.ewi.devhub.server.web.templating.Translator;
+import nl.tudelft.ewi.devhub.server.web.templating.TranslatorFactory;
 
 import com.google.common.base.Strings;
-import com.google.common.collect.Queues;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.inject.Inject;
+import com.google.inject.Provider;
 import com.google.inject.Singleton;
+import com.google.inject.persist.UnitOfWork;
 
+import org.eclipse.jetty.util.component.AbstractLifeCycle.AbstractLifeCycleListener;
+import org.eclipse.jetty.util.component.LifeCycle;
+
+import javax.annotation.Nullable;
 import javax.mail.Address;
 import javax.mail.Message.RecipientType;
 import javax.mail.MessagingException;
@@ -16,112 +28,348 @@ import javax.mail.Transport;
 import javax.mail.internet.InternetAddress;
 import javax.mail.internet.MimeMessage;
 import java.io.UnsupportedEncodingException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
 import java.util.Properties;
-import java.util.Queue;
-import java.util.concurrent.ExecutorService;
+import java.util.UUID;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 
+/**
+ * The {@code MailBackendImpl} queues mails in the {@link QueuedMail outbox} within the
+ * transaction that triggers them, so mails survive a restart and are not sent for rolled back
+ * changes. A fixed number of senders deliver the outbox. Every sender keeps a single SMTP
+ * connection open while it delivers a round of mails. Mails for the same addressee that are
+ * queued within the digest interval are combined into a single digest.
+ *
+ * @author Jan-Willem Gmelig Meyling
+ */
 @Slf4j
 @Singleton
-public class MailBackendImpl implements MailBackend {
+public class MailBackendImpl extends AbstractLifeCycleListener implements MailBackend {
+
+	private static final long POLL_INTERVAL = TimeUnit.SECONDS.toMillis(10);
+	private static final long LEASE_DURATION = TimeUnit.MINUTES.toMillis(5);
+	private static final long RETRY_INTERVAL = TimeUnit.MINUTES.toMillis(1);
+	private static final int MAX_ATTEMPTS = 10;
+	private static final int ADDRESSEES_PER_ROUND = 50;
 
-	private static final int MAIL_QUEUE_SIZE = 1000;
+	private static final String DIGEST_SUBJECT = "mail.digest.subject";
+	private static final String DIGEST_SEPARATOR = "\n\n----------------------------------------\n\n";
 
 	private final Config config;
-	private final Queue<Mail> mailQueue;
-	private final ExecutorService executor;
-	private final AtomicBoolean sending;
+	private final Provider<UnitOfWork> workProvider;
+	private final Provider<QueuedMails> queuedMailsProvider;
+	private final Translator translator;
+	private final Session session;
+	private final long digestInterval;
+	private final AtomicBoolean started;
+
+	private final AtomicLong queued = new AtomicLong();
+	private final AtomicLong messages = new AtomicLong();
+	private final AtomicLong digests = new AtomicLong();
+	private final AtomicLong delivered = new AtomicLong();
+	private final AtomicLong failures = new AtomicLong();
+	private final AtomicLong dropped = new AtomicLong();
+
+	private volatile ScheduledExecutorService executor;
 
 	@Inject
-	public MailBackendImpl(final Config config) {
+	public MailBackendImpl(final Config config, Provider<UnitOfWork> workProvider,
+	                       Provider<QueuedMails> queuedMailsProvider, TranslatorFactory translatorFactory,
+	                       @Nullable LifeCycle lifeCycle) {
 		this.config = config;
-		this.mailQueue = Queues.newArrayBlockingQueue(MAIL_QUEUE_SIZE);
-		this.executor = Executors.newSingleThreadExecutor();
-		this.sending = new AtomicBoolean(false);
+		this.workProvider = workProvider;
+		this.queuedMailsProvider = queuedMailsProvider;
+		this.translator = translatorFactory.create(Collections.emptyList());
+		this.session = createSession(config);
+		this.digestInterval = TimeUnit.MINUTES.toMillis(config.getMailDigestInterval());
+		this.started = new AtomicBoolean(false);
+
+		if (lifeCycle != null) {
+			lifeCycle.addLifeCycleListener(this);
+		}
+	}
+
+	private static Session createSession(Config config) {
+		Properties properties = new Properties();
+		properties.setProperty("mail.smtp.host", config.getSmtpHost());
+
+		String user = config.getSmtpUser();
+		if (!Strings.isNullOrEmpty(user)) {
+			properties.setProperty("mail.user", user);
+			properties.setProperty("mail.password", config.getSmtpPass());
+		}
+
+		return Session.getInstance(properties);
 	}
 
 	@Override
-	public void sendMail(Mail mail) {
-		if (Strings.isNullOrEmpty(mail.getAddressee())) {
-			log.warn("Not sending mail: {}, since addressee has no email address set", mail);
+	public void lifeCycleStarted(LifeCycle event) {
+		start();
+	}
+
+	/**
+	 * Start the senders. Subsequent invocations have no effect.
+	 */
+	public void start() {
+		if (!started.compareAndSet(false, true)) {
 			return;
 		}
 
-		synchronized (mailQueue) {
-			mailQueue.offer(mail);
-			if (sending.compareAndSet(false, true)) {
-				executor.submit(new Mailer());
+		int senders = config.getSmtpSenders();
+		executor = Executors.newScheduledThreadPool(senders, new ThreadFactoryBuilder()
+			.setNameFormat("mail-sender-%d")
+			.setDaemon(true)
+			.build());
+
+		for (int i = 0; i < senders; i++) {
+			executor.scheduleWithFixedDelay(new Sender(), 0, POLL_INTERVAL, TimeUnit.MILLISECONDS);
+		}
+
+		log.info("Started {} mail senders with a digest interval of {} minutes", senders,
+			config.getMailDigestInterval());
+	}
+
+	@Override
+	public void lifeCycleStopping(LifeCycle event) {
+		shutdown();
+	}
+
+	/**
+	 * Stop the senders. Queued mails are delivered after the next start.
+	 */
+	public void shutdown() {
+		if (executor != null) {
+			executor.shutdownNow();
+		}
+	}
+
+	@Override
+	public void sendMail(Mail mail) {
+		sendMails(Collections.singletonList(mail));
+	}
+
+	@Override
+	public void sendMails(Collection<Mail> mails) {
+		Date now = new Date();
+		Date sendAfter = new Date(now.getTime() + digestInterval);
+		List<QueuedMail> queuedMails = Lists.newArrayListWithCapacity(mails.size());
+
+		for (Mail mail : mails) {
+			if (Strings.isNullOrEmpty(mail.getAddressee())) {
+				log.warn("Not sending mail: {}, since addressee has no email address set", mail);
+				continue;
 			}
+
+			QueuedMail queuedMail = new QueuedMail();
+			queuedMail.setAddressee(mail.getAddressee());
+			queuedMail.setSubject(mail.getSubject());
+			queuedMail.setContent(mail.getContent());
+			queuedMail.setCreated(now);
+			queuedMail.setSendAfter(sendAfter);
+			queuedMails.add(queuedMail);
+			log.debug("Queued mail: {}", mail);
 		}
+
+		queuedMailsProvider.get().queue(queuedMails);
+		queued.addAndGet(queuedMails.size());
 	}
 
 	@Override
 	public int getQueueSize() {
-		synchronized (mailQueue) {
-			return mailQueue.size();
+		return (int) queuedMailsProvider.get().countQueued();
+	}
+
+	/**
+	 * @return The current statistics for the senders.
+	 */
+	public Statistics getStatistics() {
+		return new Statistics(
+			queued.get(),
+			messages.get(),
+			digests.get(),
+			delivered.get(),
+			failures.get(),
+			dropped.get()
+		);
+	}
+
+	/**
+	 * Create the message for the mails of an addressee. A single mail is sent as is, multiple
+	 * mails are combined into a digest.
+	 */
+	protected MimeMessage createMessage(String addressee, List<QueuedMail> mails)
+		throws MessagingException, UnsupportedEncodingException {
+
+		MimeMessage message = new MimeMessage(session);
+		message.addFrom(new Address[]{new InternetAddress(config.getSmtpOrigin())});
+		message.setRecipient(RecipientType.TO, new InternetAddress(addressee));
+
+		if (mails.size() == 1) {
+			QueuedMail mail = mails.get(0);
+			message.setSubject(mail.getSubject());
+			message.setText(mail.getContent());
 		}
+		else {
+			message.setSubject(translator.translate(DIGEST_SUBJECT, mails.size()));
+			message.setText(mails.stream()
+				.map(mail -> mail.getSubject() + "\n\n" + mail.getContent())
+				.collect(Collectors.joining(DIGEST_SEPARATOR)));
+		}
+
+		return message;
 	}
 
-	private class Mailer implements Runnable {
+	/**
+	 * A {@code Sender} delivers rounds of due mails. Every round runs in its own
+	 * {@link UnitOfWork}, and delivers its messages over a single SMTP connection.
+	 */
+	private class Sender implements Runnable {
+
+		private final String owner = UUID.randomUUID().toString();
+		private Transport transport;
 
 		@Override
 		public void run() {
-			while (true) {
-				Mail mail;
-				synchronized (mailQueue) {
-					mail = mailQueue.poll();
-					if (mail == null) {
-						sending.set(false);
-						return;
-					}
+			try {
+				while (round() == ADDRESSEES_PER_ROUND) {
+					log.debug("More mails are due, starting another round");
 				}
+			}
+			catch (Throwable e) {
+				log.error(e.getMessage(), e);
+			}
+			finally {
+				disconnect();
+			}
+		}
 
-				try {
-					MimeMessage message = createMail(mail);
+		/**
+		 * Deliver the mails of the addressees with due mails.
+		 *
+		 * @return The number of addressees.
+		 */
+		private int round() {
+			UnitOfWork work = workProvider.get();
+			try {
+				work.begin();
+				QueuedMails queuedMails = queuedMailsProvider.get();
+				Date now = new Date();
+				List<String> addressees = queuedMails.listDueAddressees(now, ADDRESSEES_PER_ROUND);
 
-					try {
-						sendMail(mail, message);
-					}
-					catch (MessagingException e) {
-						log.error(e.getMessage(), e);
+				for (String addressee : addressees) {
+					List<QueuedMail> mails = queuedMails.claim(addressee, owner, now,
+						new Date(now.getTime() + LEASE_DURATION));
+					if (!mails.isEmpty()) {
+						deliver(queuedMails, addressee, mails);
 					}
 				}
-				catch (Throwable e) {
-					log.error(e.getMessage(), e);
-				}
+
+				return addressees.size();
+			}
+			finally {
+				work.end();
 			}
 		}
 
-		private MimeMessage createMail(Mail mail) throws MessagingException, UnsupportedEncodingException {
-			String user = config.getSmtpUser();
-			String pass = config.getSmtpPass();
-			String host = config.getSmtpHost();
-			String origin = config.getSmtpOrigin();
-
-			Properties properties = System.getProperties();
-			properties.setProperty("mail.smtp.host", host);
-			if (!Strings.isNullOrEmpty(user)) {
-				properties.setProperty("mail.user", user);
-				properties.setProperty("mail.password", pass);
+		private void deliver(QueuedMails queuedMails, String addressee, List<QueuedMail> mails) {
+			try {
+				MimeMessage message = createMessage(addressee, mails);
+				log.info("Sending {} mails to {}", mails.size(), addressee);
+				send(message);
+				queuedMails.delivered(mails);
+
+				messages.incrementAndGet();
+				delivered.addAndGet(mails.size());
+				if (mails.size() > 1) {
+					digests.incrementAndGet();
+				}
+			}
+			catch (MessagingException | UnsupportedEncodingException e) {
+				log.warn(String.format("Failed to send %d mails to %s", mails.size(), addressee), e);
+				failures.incrementAndGet();
+				disconnect();
+				retry(queuedMails, mails);
 			}
+		}
 
-			Session session = Session.getDefaultInstance(properties);
+		private void retry(QueuedMails queuedMails, List<QueuedMail> mails) {
+			List<QueuedMail> exhausted = mails.stream()
+				.filter(mail -> mail.getAttempts() + 1 >= MAX_ATTEMPTS)
+				.collect(Collectors.toList());
+			List<QueuedMail> remaining = mails.stream()
+				.filter(mail -> mail.getAttempts() + 1 < MAX_ATTEMPTS)
+				.collect(Collectors.toList());
 
-			MimeMessage message = new MimeMessage(session);
-			message.addFrom(new Address[]{new InternetAddress(origin)});
-			message.setSubject(mail.getSubject());
-			message.setText(mail.getContent());
-			message.setRecipient(RecipientType.TO, new InternetAddress(mail.getAddressee()));
+			exhausted.forEach(mail -> log.error("Giving up on mail after {} attempts: {}", MAX_ATTEMPTS, mail));
+			queuedMails.delivered(exhausted);
+			dropped.addAndGet(exhausted.size());
+
+			int attempts = remaining.stream().mapToInt(QueuedMail::getAttempts).max().orElse(0);
+			long backoff = RETRY_INTERVAL << Math.min(attempts, 6);
+			queuedMails.failed(remaining, new Date(System.currentTimeMillis() + backoff));
+		}
 
-			return message;
+		private void send(MimeMessage message) throws MessagingException {
+			if (transport == null || !transport.isConnected()) {
+				transport = session.getTransport("smtp");
+				transport.connect();
+			}
+			message.saveChanges();
+			transport.sendMessage(message, message.getAllRecipients());
 		}
 
-		private void sendMail(Mail mail, MimeMessage message) throws MessagingException {
-			log.info("Sending mail: " + mail);
-			Transport.send(message);
+		private void disconnect() {
+			if (transport != null) {
+				try {
+					transport.close();
+				}
+				catch (MessagingException e) {
+					log.debug(e.getMessage(), e);
+				}
+				transport = null;
+			}
 		}
 
 	}
 
+	/**
+	 * Snapshot of the metrics for the {@link MailBackendImpl}.
+	 */
+	@Value
+	public static class Statistics {
+
+		long queued;
+
+		/**
+		 * Number of messages sent to the SMTP server.
+		 */
+		long messages;
+
+		/**
+		 * Number of messages that combined multiple mails.
+		 */
+		long digests;
+
+		/**
+		 * Number of queued mails that were delivered.
+		 */
+		long delivered;
+
+		long failures;
+
+		/**
+		 * Number of mails that were dropped after the maximal number of attempts.
+		 */
+		long dropped;
+
+	}
+
 }
@@ -3,7 +3,6 @@ package nl.tudelft.ewi.devhub.server.backend.mail;
 import lombok.SneakyThrows;
 import nl.tudelft.ewi.devhub.server.Config;
 import nl.tudelft.ewi.devhub.server.database.entities.Assignment;
-import nl.tudelft.ewi.devhub.server.database.entities.CourseEdition;
 import nl.tudelft.ewi.devhub.server.database.entities.Delivery;
 import nl.tudelft.ewi.devhub.server.database.entities.Group;
 import nl.tudelft.ewi.devhub.server.web.templating.Translator;
@@ -11,12 +10,14 @@ import nl.tudelft.ewi.devhub.server.web.templating.TranslatorFactory;
 
 import com.google.common.base.Preconditions;
 import com.google.inject.Inject;
+import com.google.inject.Provider;
 
 import javax.servlet.http.HttpServletRequest;
 import java.net.URI;
 import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
+import java.util.stream.Collectors;
 
 /**
  * @author Jan-Willem Gmelig Meyling
@@ -29,28 +30,39 @@ public class ReviewMailer {
     private final Config config;
     private final MailBackend backend;
     private final TranslatorFactory factory;
-    private final HttpServletRequest request;
+    private final Provider<HttpServletRequest> requestProvider;
 
     @Inject
     ReviewMailer(MailBackend backend,
                  TranslatorFactory factory,
                  Config config,
-                 HttpServletRequest request) {
+                 Provider<HttpServletRequest> requestProvider) {
         this.backend = backend;
         this.factory = factory;
         this.config = config;
-        this.request = request;
+        this.requestProvider = requestProvider;
     }
 
     /**
      * Send a notification for new messages
      * @param delivery Delivery to send
      */
-    @SneakyThrows
     public void sendReviewMail(Delivery delivery) {
+        List<Locale> locales = Collections.list(requestProvider.get().getLocales());
+        backend.sendMails(createReviewMails(delivery, locales));
+    }
+
+    /**
+     * Create the review notifications for the members of the group of a delivery. Does not
+     * depend on the current request, so it can be used outside of a request.
+     * @param delivery Delivery to notify about
+     * @param locales Locales for the notifications
+     * @return The mails for the group members
+     */
+    @SneakyThrows
+    public List<MailBackend.Mail> createReviewMails(Delivery delivery, List<Locale> locales) {
         Assignment assignment = delivery.getAssignment();
         Group group = delivery.getGroup();
-        CourseEdition course = group.getCourse();
         Delivery.Review review = delivery.getReview();
 
         Preconditions.checkNotNull(assignment);
@@ -58,17 +70,17 @@ public class ReviewMailer {
         Preconditions.checkNotNull(review);
 
         String link = new URI(config.getHttpUrl()).resolve(group.getURI()).resolve("assignments").toString();
-        List<Locale> locales = Collections.list(request.getLocales());
         Translator translator = factory.create(locales);
 
-        group.getMembers()
+        return group.getMembers()
                 .stream()
-                .forEach(addressee -> {
+                .map(addressee -> {
                     String userName = addressee.getName();
                     String subject = translator.translate(COMMENT_SUBJECT, assignment.getName());
                     String content = translator.translate(COMMENT_CONTENT, userName, assignment.getName(), delivery.getState().toString(), link);
-                    backend.sendMail(new MailBackend.Mail(addressee.getEmail(), subject, content));
-                });
+                    return new MailBackend.Mail(addressee.getEmail(), subject, content);
+                })
+                .collect(Collectors.toList());
     }
 
 }
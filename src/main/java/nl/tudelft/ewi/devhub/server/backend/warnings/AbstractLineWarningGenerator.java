@@ -1,5 +1,6 @@
 package nl.tudelft.ewi.devhub.server.backend.warnings;
 
+import com.google.common.collect.Maps;
 import lombok.extern.slf4j.Slf4j;
 import nl.tudelft.ewi.devhub.server.database.controllers.Commits;
 import nl.tudelft.ewi.devhub.server.database.embeddables.Source;
@@ -14,11 +15,16 @@ import nl.tudelft.ewi.git.web.api.RepositoriesApi;
 import nl.tudelft.ewi.git.web.api.RepositoryApi;
 
 import javax.ws.rs.NotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Stream;
 
+import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toSet;
 
 /**
@@ -53,6 +59,22 @@ implements CommitWarningGenerator<T, A> {
             .collect(toSet());
     }
 
+    /**
+     * Generate the warnings for a single file of a report. This is used to process a streamed
+     * report file by file, so that only the violations of a single file are held in memory.
+     *
+     * @param commit Commit to generate warnings for
+     * @param file File representation
+     * @return The generated warnings for the file
+     * @see #readFiles(InputStream)
+     */
+    @Transactional
+    public Set<T> generateWarningsForFile(final Commit commit, final F file) {
+        return new ScopedWarningGenerator(commit)
+            .mapWarningsForFile(file)
+            .collect(toSet());
+    }
+
     /**
      * The {@code ScopedWarningGenerator} is used by the
      * {@link AbstractLineWarningGenerator#generateWarnings(Commit, Object)} method
@@ -101,8 +123,9 @@ implements CommitWarningGenerator<T, A> {
                 return Stream.empty();
             }
 
-            BlameSourceScope blameSourceGenerator = new BlameSourceScope(blameModel);
-            return getViolations(file).map(blameSourceGenerator::map);
+            List<V> violations = getViolations(file).collect(toList());
+            BlameSourceScope blameSourceGenerator = new BlameSourceScope(blameModel, violations);
+            return violations.stream().map(blameSourceGenerator::map);
         }
 
         /**
@@ -122,14 +145,23 @@ implements CommitWarningGenerator<T, A> {
         protected class BlameSourceScope {
 
             private final BlameModel blameModel;
+            private final Map<String, Commit> sourceCommits;
 
             /**
              * For warnings to be generated, a {@link BlameModel} should be fetched from
              * the git server. The {@code BlameSourceScope} adds the {@code BlameModel} to
-             * the scope for the used lambda expressions.
+             * the scope for the used lambda expressions. The source commits for the
+             * given violations are ensured to exist at once.
+             *
+             * @param blameModel {@code BlameModel} for the file
+             * @param violations the violations in the file
              */
-            public BlameSourceScope(BlameModel blameModel) {
+            public BlameSourceScope(BlameModel blameModel, Collection<V> violations) {
                 this.blameModel = blameModel;
+                this.sourceCommits = Maps.newHashMap(commits.ensureExistsAll(repositoryEntity,
+                    violations.stream()
+                        .map(violation -> blameModel.getBlameBlock(getLineNumber(violation)).getFromCommitId())
+                        .collect(toSet())));
             }
 
             /**
@@ -157,7 +189,8 @@ implements CommitWarningGenerator<T, A> {
 
                 BlameModel.BlameBlock block = blameModel.getBlameBlock(sourceLineNumber);
                 String sourceCommitId = block.getFromCommitId();
-                Commit sourceCommit = commits.ensureExists(repositoryEntity, sourceCommitId);
+                Commit sourceCommit = sourceCommits.computeIfAbsent(sourceCommitId,
+                    commitId -> commits.ensureExists(repositoryEntity, commitId));
 
                 Source source = new Source();
                 source.setSourceCommit(sourceCommit);
@@ -206,6 +239,16 @@ implements CommitWarningGenerator<T, A> {
      */
     protected abstract Stream<F> getFiles(A attachment);
 
+    /**
+     * Read the files from the XML report without binding the entire report. The files are
+     * read lazily while the returned stream is traversed.
+     *
+     * @param report Stream of the XML report, which is closed when the returned stream is closed
+     * @return A lazy {@code Stream} of files
+     * @throws IOException If the report could not be read
+     */
+    public abstract Stream<F> readFiles(InputStream report) throws IOException;
+
     /**
      * Return the file path for the file in the stream
      * @param value Stream entity
@@ -16,6 +16,8 @@ import com.fasterxml.jackson.dataformat.xml.annotation.JacksonXmlRootElement;
 import com.google.inject.Inject;
 import nl.tudelft.ewi.git.web.api.RepositoriesApi;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 import java.util.stream.Stream;
 
@@ -102,6 +104,11 @@ public class CheckstyleWarningGenerator extends AbstractLineWarningGenerator<Che
         return emptyIfNull(report.getFiles()).stream();
     }
 
+    @Override
+    public Stream<CheckStyleFile> readFiles(final InputStream report) throws IOException {
+        return new XmlReportReader<>(report, "file", CheckStyleFile.class).stream();
+    }
+
     @Override
     protected String filePathFor(CheckStyleFile value, Commit commit) {
         return getRelativePath(value.getName());
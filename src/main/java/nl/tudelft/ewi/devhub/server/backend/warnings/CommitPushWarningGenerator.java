@@ -1,7 +1,11 @@
 package nl.tudelft.ewi.devhub.server.backend.warnings;
 
+import nl.tudelft.ewi.devhub.server.database.entities.Commit;
 import nl.tudelft.ewi.devhub.server.database.entities.warnings.CommitWarning;
 import nl.tudelft.ewi.devhub.server.web.models.GitPush;
+import nl.tudelft.ewi.git.web.api.CommitApi;
+
+import java.util.Set;
 
 /**
  * A {@code CommitPushWarningGenerator} is a {@link CommitWarningGenerator} that hooks onto a
@@ -11,4 +15,21 @@ import nl.tudelft.ewi.devhub.server.web.models.GitPush;
  * @author Jan-Willem Gmelig Meyling
  */
 public interface CommitPushWarningGenerator<T extends CommitWarning> extends CommitWarningGenerator<T, GitPush> {
+
+    /**
+     * Generate warnings for a commit, using a {@link CommitApi} that is shared with the
+     * other generators for the same commit. Generators that read the diff or tree of the
+     * commit should use the given {@code CommitApi}, so these are retrieved only once
+     * through the {@link nl.tudelft.ewi.devhub.server.GitServerCache GitServerCache}.
+     *
+     * @param commit Commit to generate warnings for.
+     * @param attachment The {@link GitPush}.
+     * @param commitApi Shared {@code CommitApi} for the commit.
+     * @return The generated warnings.
+     * @see CommitPushWarningStage
+     */
+    default Set<T> generateWarnings(Commit commit, GitPush attachment, CommitApi commitApi) {
+        return generateWarnings(commit, attachment);
+    }
+
 }
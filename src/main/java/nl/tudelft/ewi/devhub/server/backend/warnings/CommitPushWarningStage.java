@@ -0,0 +1,266 @@
+package nl.tudelft.ewi.devhub.server.backend.warnings;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+import com.google.inject.Singleton;
+import com.google.inject.persist.UnitOfWork;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import nl.tudelft.ewi.devhub.server.Config;
+import nl.tudelft.ewi.devhub.server.database.controllers.Commits;
+import nl.tudelft.ewi.devhub.server.database.controllers.Warnings;
+import nl.tudelft.ewi.devhub.server.database.entities.Commit;
+import nl.tudelft.ewi.devhub.server.database.entities.RepositoryEntity;
+import nl.tudelft.ewi.devhub.server.database.entities.warnings.CommitWarning;
+import nl.tudelft.ewi.devhub.server.web.models.GitPush;
+import nl.tudelft.ewi.git.web.api.CommitApi;
+import nl.tudelft.ewi.git.web.api.RepositoriesApi;
+import nl.tudelft.ewi.git.web.api.RepositoryApi;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The {@code CommitPushWarningStage} runs the {@link CommitPushWarningGenerator CommitPushWarningGenerators}
+ * for the commits in a {@link GitPush}. Every generator runs in parallel, in its own
+ * {@link UnitOfWork} and transaction, so a slow or failing generator does not hold back or
+ * roll back the warnings of the other generators. The generators for a commit share a
+ * {@link CommitApi}. Nothing is prefetched on the push thread: the generators retrieve the
+ * {@code DiffModel} and tree listings lazily, through the
+ * {@link nl.tudelft.ewi.devhub.server.GitServerCache GitServerCache}, which retrieves each
+ * of them once even when the generators ask for them concurrently.
+ *
+ * @author Jan-Willem Gmelig Meyling
+ */
+@Slf4j
+@Singleton
+public class CommitPushWarningStage {
+
+    private final Provider<UnitOfWork> workProvider;
+    private final Provider<Set<CommitPushWarningGenerator>> generatorsProvider;
+    private final Provider<Commits> commitsProvider;
+    private final Provider<Warnings> warningsProvider;
+    private final RepositoriesApi repositoriesApi;
+    private final ExecutorService executor;
+    private final long timeoutNanos;
+    private final ConcurrentMap<String, GeneratorTimer> timers;
+
+    @Inject
+    public CommitPushWarningStage(Config config,
+                                  Provider<UnitOfWork> workProvider,
+                                  Provider<Set<CommitPushWarningGenerator>> generatorsProvider,
+                                  Provider<Commits> commitsProvider,
+                                  Provider<Warnings> warningsProvider,
+                                  RepositoriesApi repositoriesApi) {
+        this.workProvider = workProvider;
+        this.generatorsProvider = generatorsProvider;
+        this.commitsProvider = commitsProvider;
+        this.warningsProvider = warningsProvider;
+        this.repositoriesApi = repositoriesApi;
+        this.timeoutNanos = TimeUnit.SECONDS.toNanos(config.getWarningGeneratorTimeout());
+        this.timers = Maps.newConcurrentMap();
+        this.executor = Executors.newFixedThreadPool(config.getWarningGeneratorWorkers(), new ThreadFactoryBuilder()
+            .setNameFormat("warning-generator-%d")
+            .setDaemon(true)
+            .build());
+    }
+
+    /**
+     * Generate and persist the push warnings for a collection of commits. The commits
+     * should be committed to the database, as the generators run in separate transactions.
+     * This method blocks until every generator has finished or timed out.
+     *
+     * @param repositoryEntity Repository of the commits.
+     * @param commits Commits to generate warnings for.
+     * @param gitPush The {@link GitPush}.
+     */
+    public void generateWarnings(RepositoryEntity repositoryEntity, Collection<Commit> commits, GitPush gitPush) {
+        if (commits.isEmpty()) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        RepositoryApi repositoryApi = repositoriesApi.getRepository(repositoryEntity.getRepositoryName());
+        List<GeneratorTask> tasks = Lists.newArrayList();
+
+        for (Commit commit : commits) {
+            CommitApi commitApi = repositoryApi.getCommit(commit.getCommitId());
+            for (CommitPushWarningGenerator<?> generator : generatorsProvider.get()) {
+                GeneratorTask task = new GeneratorTask(generator, repositoryEntity, commit.getCommitId(), commitApi, gitPush);
+                task.future = executor.submit(task::run);
+                tasks.add(task);
+            }
+        }
+
+        tasks.forEach(this::await);
+        log.info("Generated push warnings for {} commits in {} in {} ms", commits.size(), repositoryEntity,
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    /**
+     * @return Timing statistics per {@link CommitPushWarningGenerator} class.
+     */
+    public Map<String, GeneratorTiming> getTimings() {
+        Map<String, GeneratorTiming> timings = Maps.newTreeMap();
+        timers.forEach((name, timer) -> timings.put(name, timer.snapshot()));
+        return timings;
+    }
+
+    /**
+     * Wait for a task to complete. The timeout for a task starts when the task starts
+     * running, so tasks waiting for a worker are not cancelled prematurely.
+     *
+     * @param task Task to wait for.
+     */
+    protected void await(GeneratorTask task) {
+        while (true) {
+            try {
+                long started = task.started;
+                long remaining = started == 0L ? timeoutNanos : started + timeoutNanos - System.nanoTime();
+                task.future.get(Math.max(remaining, 0L), TimeUnit.NANOSECONDS);
+                return;
+            }
+            catch (TimeoutException e) {
+                long started = task.started;
+                if (started != 0L && System.nanoTime() - started >= timeoutNanos) {
+                    task.future.cancel(true);
+                    timerFor(task.generator).timeouts.incrementAndGet();
+                    log.warn("{} timed out for {} after {} ms", task.generator, task.commitId,
+                        TimeUnit.NANOSECONDS.toMillis(timeoutNanos));
+                    return;
+                }
+            }
+            catch (CancellationException | ExecutionException e) {
+                log.warn("Failed to generate warnings with {} for {}", task.generator, task.commitId);
+                return;
+            }
+            catch (InterruptedException e) {
+                task.future.cancel(true);
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private GeneratorTimer timerFor(CommitPushWarningGenerator<?> generator) {
+        return timers.computeIfAbsent(generator.getClass().getSimpleName(), name -> new GeneratorTimer());
+    }
+
+    /**
+     * Runs a single generator for a single commit in its own {@link UnitOfWork}.
+     */
+    protected class GeneratorTask {
+
+        private final CommitPushWarningGenerator<?> generator;
+        private final RepositoryEntity repositoryEntity;
+        private final String commitId;
+        private final CommitApi commitApi;
+        private final GitPush gitPush;
+
+        /**
+         * Start time of the task in nanoseconds, or {@code 0} if it has not started yet.
+         */
+        private volatile long started;
+        private volatile Future<?> future;
+
+        GeneratorTask(CommitPushWarningGenerator<?> generator, RepositoryEntity repositoryEntity,
+                      String commitId, CommitApi commitApi, GitPush gitPush) {
+            this.generator = generator;
+            this.repositoryEntity = repositoryEntity;
+            this.commitId = commitId;
+            this.commitApi = commitApi;
+            this.gitPush = gitPush;
+        }
+
+        void run() {
+            started = System.nanoTime();
+            UnitOfWork work = workProvider.get();
+            GeneratorTimer timer = timerFor(generator);
+
+            try {
+                work.begin();
+                Commit commit = commitsProvider.get().retrieve(repositoryEntity, commitId)
+                    .orElseThrow(() -> new IllegalStateException("Commit " + commitId + " does not exist"));
+
+                Set<? extends CommitWarning> warnings = generator.generateWarnings(commit, gitPush, commitApi);
+                if (Thread.currentThread().isInterrupted()) {
+                    return;
+                }
+
+                Set<? extends CommitWarning> persisted = warningsProvider.get().persist(commit.getRepository(), warnings);
+                log.debug("Persisted {} of {} warnings from {} for {}", persisted.size(), warnings.size(),
+                    generator, commit);
+            }
+            catch (Exception e) {
+                timer.failures.incrementAndGet();
+                log.warn("Failed to generate warnings with {} for {}", generator, commitId);
+                log.warn(e.getMessage(), e);
+            }
+            finally {
+                work.end();
+                timer.record(System.nanoTime() - started);
+            }
+        }
+
+    }
+
+    private static class GeneratorTimer {
+
+        private final AtomicLong invocations = new AtomicLong();
+        private final AtomicLong failures = new AtomicLong();
+        private final AtomicLong timeouts = new AtomicLong();
+        private final AtomicLong totalTime = new AtomicLong();
+        private final AtomicLong maxTime = new AtomicLong();
+
+        void record(long nanos) {
+            invocations.incrementAndGet();
+            totalTime.addAndGet(nanos);
+            maxTime.accumulateAndGet(nanos, Math::max);
+        }
+
+        GeneratorTiming snapshot() {
+            long count = invocations.get();
+            return new GeneratorTiming(
+                count,
+                failures.get(),
+                timeouts.get(),
+                count == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalTime.get() / count),
+                TimeUnit.NANOSECONDS.toMillis(maxTime.get())
+            );
+        }
+
+    }
+
+    /**
+     * Snapshot of the timing statistics for a {@link CommitPushWarningGenerator}.
+     */
+    @Value
+    public static class GeneratorTiming {
+
+        long invocations;
+
+        long failures;
+
+        long timeouts;
+
+        long averageTimeMillis;
+
+        long maxTimeMillis;
+
+    }
+
+}
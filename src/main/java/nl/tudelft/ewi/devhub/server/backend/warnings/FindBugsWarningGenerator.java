@@ -14,12 +14,19 @@ import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.dataformat.xml.annotation.JacksonXmlElementWrapper;
 import com.fasterxml.jackson.dataformat.xml.annotation.JacksonXmlProperty;
 import com.fasterxml.jackson.dataformat.xml.annotation.JacksonXmlRootElement;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Lists;
+import com.google.common.collect.PeekingIterator;
 import com.google.inject.Inject;
 import nl.tudelft.ewi.git.web.api.CommitApi;
 import nl.tudelft.ewi.git.web.api.RepositoriesApi;
 
 import javax.ws.rs.NotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
+import java.util.Objects;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -134,6 +141,37 @@ public class FindBugsWarningGenerator extends AbstractLineWarningGenerator<FindB
         return attachment.getFiles();
     }
 
+    /**
+     * FindBugs does not group the bug instances by file. FindBugs sorts the bug instances
+     * by class, so consecutive bug instances for the same source path are grouped into a file.
+     * A source path that is not sorted consecutively results in multiple files for the same
+     * path, which only costs an additional blame.
+     */
+    @Override
+    public Stream<FindBugsFile> readFiles(final InputStream report) throws IOException {
+        final XmlReportReader<BugInstance> reader = new XmlReportReader<>(report, "BugInstance", BugInstance.class);
+        final PeekingIterator<BugInstance> bugInstances = Iterators.peekingIterator(Iterators.filter(reader,
+            bugInstance -> bugInstance.getSourceLine() != null));
+
+        return XmlReportReader.stream(new AbstractIterator<FindBugsFile>() {
+
+            @Override
+            protected FindBugsFile computeNext() {
+                if (!bugInstances.hasNext()) {
+                    return endOfData();
+                }
+
+                List<BugInstance> warnings = Lists.newArrayList(bugInstances.next());
+                String sourcePath = warnings.get(0).getSourcePath();
+                while (bugInstances.hasNext() && Objects.equals(sourcePath, bugInstances.peek().getSourcePath())) {
+                    warnings.add(bugInstances.next());
+                }
+                return new FindBugsFile(warnings);
+            }
+
+        }).onClose(reader::close);
+    }
+
     private final static String[] CODE_BASES = { "src/test/java/", "src/main/java/" };
 
     @Override
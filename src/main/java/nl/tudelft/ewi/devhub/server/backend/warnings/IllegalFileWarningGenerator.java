@@ -4,17 +4,19 @@ import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import nl.tudelft.ewi.devhub.server.database.entities.Commit;
 import nl.tudelft.ewi.devhub.server.database.entities.warnings.IllegalFileWarning;
+import nl.tudelft.ewi.devhub.server.util.CommitTree;
 import nl.tudelft.ewi.devhub.server.web.models.GitPush;
 import nl.tudelft.ewi.git.models.EntryType;
 
 import com.google.common.collect.Sets;
 import com.google.inject.Inject;
+import nl.tudelft.ewi.git.web.api.CommitApi;
 import nl.tudelft.ewi.git.web.api.RepositoriesApi;
-import nl.tudelft.ewi.git.web.api.RepositoryApi;
 
-import java.util.Collection;
 import java.util.Map;
 import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 /**
@@ -30,65 +32,66 @@ implements CommitPushWarningGenerator<IllegalFileWarning> {
     private static final String[] DEFAULT_EXTENSIONS = {".iml",".class", ".bin", ".project", ".DS_Store"};
     private static final String[] DEFAULT_FOLDERS = { ".idea/", ".metadata/", ".settings/",
         ".project/", ".classpath/", "target/", "bin/", ".metadata/"};
+    private static final Pattern NO_MATCH = Pattern.compile("(?!)");
     public static final String ROOT_PATH = "";
 
-    private Commit commit;
-    private String[] illegalExtensions;
-    private String[] illegalFolders;
-
     @Inject
     public IllegalFileWarningGenerator(RepositoriesApi repositoriesApi) {
         super(repositoriesApi);
     }
 
     @Override
-    @SneakyThrows
     public Set<IllegalFileWarning> generateWarnings(Commit commit, GitPush attachment) {
-        log.debug("Start generating warnings for {} in {}", commit, this);
-
-        this.commit = commit;
-        this.illegalExtensions = commit.getRepository().getCommaSeparatedValues(DEFAULT_EXTENSIONS_PROPERTY_KEY, DEFAULT_EXTENSIONS);
-        this.illegalFolders = commit.getRepository().getCommaSeparatedValues(DEFAULT_FOLDERS_PROPERTY_KEY, DEFAULT_FOLDERS);
-
-        Set<IllegalFileWarning> warnings = Sets.newHashSet();
-        walkCommitStructure(ROOT_PATH, warnings);
-        log.debug("Finished generating warnings for {} in {}", commit, this);
-        return warnings;
+        return generateWarnings(commit, attachment, getGitCommit(commit));
     }
 
+    @Override
     @SneakyThrows
-    public void walkCommitStructure(String path, Collection<? super IllegalFileWarning> warnings){
+    public Set<IllegalFileWarning> generateWarnings(Commit commit, GitPush attachment, CommitApi commitApi) {
+        log.debug("Start generating warnings for {} in {}", commit, this);
 
-        if(folderViolation(path)){
-            IllegalFileWarning warning = new IllegalFileWarning();
-            warning.setFileName(path);
-            warning.setCommit(commit);
-            warnings.add(warning);
-        }
+        Pattern illegalExtensions = suffixPattern(commit.getRepository()
+            .getCommaSeparatedValues(DEFAULT_EXTENSIONS_PROPERTY_KEY, DEFAULT_EXTENSIONS));
+        Pattern illegalFolders = suffixPattern(commit.getRepository()
+            .getCommaSeparatedValues(DEFAULT_FOLDERS_PROPERTY_KEY, DEFAULT_FOLDERS));
+
+        Set<IllegalFileWarning> warnings = Sets.newHashSet();
+        CommitTree tree = CommitTree.list(commitApi, ROOT_PATH);
 
-        Map<String,EntryType> directory = getGitCommit(commit).showTree(path);
-        directory.entrySet().stream()
-                .filter(entry -> entry.getValue().equals(EntryType.FOLDER))
-                .forEach(entry-> walkCommitStructure(path+entry.getKey(), warnings));
+        for (String folder : tree.getFolders()) {
+            if (illegalFolders.matcher(folder).find()) {
+                warnings.add(createWarning(commit, folder));
+            }
 
-        directory.entrySet().stream()
+            tree.getEntries(folder).entrySet().stream()
                 .filter(entry -> !entry.getValue().equals(EntryType.FOLDER))
                 .map(Map.Entry::getKey)
-                .filter(this::fileViolation)
-                .map(file -> {
-                    IllegalFileWarning warning = new IllegalFileWarning();
-                    warning.setCommit(commit);
-                    warning.setFileName(file);
-                    return warning;
-                })
+                .filter(file -> illegalExtensions.matcher(file).find())
+                .map(file -> createWarning(commit, file))
                 .forEach(warnings::add);
+        }
+
+        log.debug("Finished generating warnings for {} in {}", commit, this);
+        return warnings;
     }
 
-    private boolean fileViolation(String path){
-       return Stream.of(illegalExtensions).filter(path::endsWith).findAny().isPresent();
+    private static IllegalFileWarning createWarning(Commit commit, String fileName) {
+        IllegalFileWarning warning = new IllegalFileWarning();
+        warning.setCommit(commit);
+        warning.setFileName(fileName);
+        return warning;
     }
 
-    private boolean folderViolation(String path){
-        return Stream.of(illegalFolders).filter(path::endsWith).findAny().isPresent();
+    /**
+     * Compile the suffixes into a single pattern that matches a path ending with any of them.
+     */
+    private static Pattern suffixPattern(String[] suffixes) {
+        if (suffixes.length == 0) {
+            return NO_MATCH;
+        }
+        return Pattern.compile(Stream.of(suffixes)
+            .map(Pattern::quote)
+            .collect(Collectors.joining("|", "(?:", ")$")));
     }
+
 }
@@ -11,6 +11,7 @@ import com.google.inject.Inject;
 import nl.tudelft.ewi.git.models.AbstractDiffModel.DiffContext;
 import nl.tudelft.ewi.git.models.AbstractDiffModel.DiffFile;
 import nl.tudelft.ewi.git.models.AbstractDiffModel.DiffLine;
+import nl.tudelft.ewi.git.web.api.CommitApi;
 import nl.tudelft.ewi.git.web.api.RepositoriesApi;
 
 import java.util.Collections;
@@ -39,8 +40,13 @@ implements CommitPushWarningGenerator<LargeCommitWarning> {
 
     @Override
     public Set<LargeCommitWarning> generateWarnings(Commit commit, GitPush attachment) {
+        return generateWarnings(commit, attachment, getGitCommit(commit));
+    }
+
+    @Override
+    public Set<LargeCommitWarning> generateWarnings(Commit commit, GitPush attachment, CommitApi commitApi) {
         log.debug("Start generating warnings for {} in {}", commit, this);
-        List<DiffFile<DiffContext<DiffLine>>> diffs = getGitCommit(commit).diff().getDiffs();
+        List<DiffFile<DiffContext<DiffLine>>> diffs = commitApi.diff().getDiffs();
         String[] extensions = commit.getRepository().getCommaSeparatedValues(COUNTED_EXTENSIONS_PROPERTY, DEFAULT_EXTENSIONS);
 
         if(!commit.isMerge() && (tooManyFiles(diffs, commit) || tooManyLineChanges(diffs, commit, extensions))) {
@@ -11,8 +11,8 @@ import nl.tudelft.ewi.git.models.AbstractDiffModel.DiffLine;
 import nl.tudelft.ewi.git.models.EntryType;
 
 import com.google.inject.Inject;
+import nl.tudelft.ewi.git.web.api.CommitApi;
 import nl.tudelft.ewi.git.web.api.RepositoriesApi;
-import nl.tudelft.ewi.git.web.api.RepositoryApi;
 
 import java.util.List;
 import java.util.Set;
@@ -30,6 +30,7 @@ implements CommitPushWarningGenerator<LargeFileWarning> {
     static final String MAX_FILE_SIZE_PROPERTY = "warnings.max-file-size";
 
     private Commit commit;
+    private CommitApi commitApi;
     int maxFileSize;
 
     @Inject
@@ -38,12 +39,17 @@ implements CommitPushWarningGenerator<LargeFileWarning> {
     }
 
     @Override
-    @SneakyThrows
     public Set<LargeFileWarning> generateWarnings(Commit commit, GitPush attachment) {
+        return generateWarnings(commit, attachment, getGitCommit(commit));
+    }
+
+    @Override
+    @SneakyThrows
+    public Set<LargeFileWarning> generateWarnings(Commit commit, GitPush attachment, CommitApi commitApi) {
         log.debug("Started generating warnings for {} in {}", commit, this);
-        final List<DiffFile<DiffContext<DiffLine>>> diffs = getGitCommit(commit).diff().getDiffs();
-        RepositoryApi repositoryApi = getRepository(commit);
+        final List<DiffFile<DiffContext<DiffLine>>> diffs = commitApi.diff().getDiffs();
         this.commit = commit;
+        this.commitApi = commitApi;
         this.maxFileSize = commit.getRepository().getIntegerProperty(MAX_FILE_SIZE_PROPERTY, MAX_FILE_SIZE);
 
         Set<LargeFileWarning> warnings = diffs.stream()
@@ -61,14 +67,13 @@ implements CommitPushWarningGenerator<LargeFileWarning> {
     protected boolean filterTextFiles(DiffFile file) {
         String folderPath = folderForPath(file.getNewPath());
         String fileName = fileNameForPath(file.getNewPath());
-        return getGitCommit(commit).showTree(folderPath)
+        return commitApi.showTree(folderPath)
                 .get(fileName).equals(EntryType.TEXT);
     }
 
     @SneakyThrows
     protected boolean filterLargeFiles(DiffFile file) {
-        String contents = getGitCommit(commit)
-            .showTextFile(file.getNewPath());
+        String contents = commitApi.showTextFile(file.getNewPath());
         return contents.split("\n").length > maxFileSize;
     }
 
@@ -17,6 +17,8 @@ import com.fasterxml.jackson.dataformat.xml.annotation.JacksonXmlText;
 import com.google.inject.Inject;
 import nl.tudelft.ewi.git.web.api.RepositoriesApi;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 import java.util.stream.Stream;
 
@@ -83,6 +85,11 @@ public class PMDWarningGenerator extends AbstractLineWarningGenerator<PMDReport,
 		return emptyIfNull(pmdReport.getFiles()).stream();
 	}
 
+	@Override
+	public Stream<PMDFile> readFiles(final InputStream report) throws IOException {
+		return new XmlReportReader<>(report, "file", PMDFile.class).stream();
+	}
+
 	@Override
 	protected String filePathFor(final PMDFile value, final Commit commit) {
 		return getRelativePath(value.getName());
@@ -0,0 +1,244 @@
+package nl.tudelft.ewi.devhub.server.backend.warnings;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.inject.Inject;
+import com.google.inject.Injector;
+import com.google.inject.Provider;
+import com.google.inject.Singleton;
+import com.google.inject.persist.UnitOfWork;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import nl.tudelft.ewi.devhub.server.Config;
+import nl.tudelft.ewi.devhub.server.database.controllers.Commits;
+import nl.tudelft.ewi.devhub.server.database.controllers.RepositoriesController;
+import nl.tudelft.ewi.devhub.server.database.controllers.Warnings;
+import nl.tudelft.ewi.devhub.server.database.entities.Commit;
+import nl.tudelft.ewi.devhub.server.database.entities.RepositoryEntity;
+import nl.tudelft.ewi.devhub.server.database.entities.warnings.LineWarning;
+
+import javax.persistence.EntityManager;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * The {@code ReportIngestionQueue} processes the PMD, Checkstyle and FindBugs reports of the
+ * build servers in the background. A report is spooled to a temporary file, so the request
+ * returns as soon as the report is received. A worker then streams the report file by file
+ * through the {@link AbstractLineWarningGenerator} and persists the warnings per file, so at
+ * most the violations of a single file are held in memory.
+ *
+ * Only the type of the generator is queued. The generator is obtained from the
+ * {@link Injector} in the {@link UnitOfWork} of the worker, so that it does not use the
+ * {@code EntityManager} of the request that received the report.
+ *
+ * @author Jan-Willem Gmelig Meyling
+ */
+@Slf4j
+@Singleton
+public class ReportIngestionQueue {
+
+    private final Injector injector;
+    private final Provider<UnitOfWork> workProvider;
+    private final Provider<EntityManager> entityManagerProvider;
+    private final Provider<RepositoriesController> repositoriesControllerProvider;
+    private final Provider<Commits> commitsProvider;
+    private final Provider<Warnings> warningsProvider;
+    private final ThreadPoolExecutor executor;
+
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong files = new AtomicLong();
+    private final AtomicLong persistedWarnings = new AtomicLong();
+    private final AtomicLong totalProcessingTime = new AtomicLong();
+
+    @Inject
+    public ReportIngestionQueue(Config config,
+                                Injector injector,
+                                Provider<UnitOfWork> workProvider,
+                                Provider<EntityManager> entityManagerProvider,
+                                Provider<RepositoriesController> repositoriesControllerProvider,
+                                Provider<Commits> commitsProvider,
+                                Provider<Warnings> warningsProvider) {
+        this.injector = injector;
+        this.workProvider = workProvider;
+        this.entityManagerProvider = entityManagerProvider;
+        this.repositoriesControllerProvider = repositoriesControllerProvider;
+        this.commitsProvider = commitsProvider;
+        this.warningsProvider = warningsProvider;
+
+        int workers = config.getReportIngestionWorkers();
+        int capacity = config.getReportIngestionQueueSize();
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(capacity), new ThreadFactoryBuilder()
+                .setNameFormat("report-ingestion-%d")
+                .setDaemon(true)
+                .build());
+
+        log.info("Initialized report ingestion queue with {} workers and capacity {}", workers, capacity);
+    }
+
+    /**
+     * Spool a report to a temporary file and queue it for processing.
+     *
+     * @param generatorType Type of the generator for the report.
+     * @param repositoryName Name of the repository for the report.
+     * @param commitId Commit for the report.
+     * @param report Stream of the XML report.
+     * @param <F> The type of file objects.
+     * @param <T> The type of warning that will be generated.
+     * @return {@code false} if the queue is at capacity and the report was rejected.
+     * @throws IOException If the report could not be spooled.
+     */
+    public <F, T extends LineWarning> boolean offer(Class<? extends AbstractLineWarningGenerator<?, F, ?, T>> generatorType,
+                                                    String repositoryName, String commitId,
+                                                    InputStream report) throws IOException {
+        received.incrementAndGet();
+        Path file = Files.createTempFile("devhub-report-", ".xml");
+
+        try {
+            Files.copy(report, file, StandardCopyOption.REPLACE_EXISTING);
+            executor.execute(() -> process(generatorType, repositoryName, commitId, file));
+            return true;
+        }
+        catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            log.warn("Rejected report for {} at {}, queue is at capacity", commitId, repositoryName);
+            Files.deleteIfExists(file);
+            return false;
+        }
+        catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+    }
+
+    /**
+     * @return The current statistics for this queue.
+     */
+    public Statistics getStatistics() {
+        long processedCount = processed.get();
+        return new Statistics(
+            executor.getQueue().size(),
+            executor.getActiveCount(),
+            received.get(),
+            rejected.get(),
+            processedCount,
+            failed.get(),
+            files.get(),
+            persistedWarnings.get(),
+            processedCount == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalProcessingTime.get() / processedCount)
+        );
+    }
+
+    /**
+     * Process a spooled report in its own {@link UnitOfWork}. Every file is persisted in its
+     * own transaction, after which the persistence context is cleared.
+     */
+    protected <F, T extends LineWarning> void process(Class<? extends AbstractLineWarningGenerator<?, F, ?, T>> generatorType,
+                                                      String repositoryName, String commitId, Path file) {
+        long start = System.nanoTime();
+        UnitOfWork work = workProvider.get();
+        int fileCount = 0, generatedCount = 0, persistedCount = 0;
+
+        try {
+            work.begin();
+            AbstractLineWarningGenerator<?, F, ?, T> generator = injector.getInstance(generatorType);
+            EntityManager entityManager = entityManagerProvider.get();
+            Commits commits = commitsProvider.get();
+            Warnings warnings = warningsProvider.get();
+            RepositoryEntity repositoryEntity = repositoriesControllerProvider.get().find(repositoryName);
+            commits.ensureExists(repositoryEntity, commitId);
+
+            try (InputStream inputStream = new BufferedInputStream(Files.newInputStream(file));
+                 Stream<F> reportFiles = generator.readFiles(inputStream)) {
+                Iterator<F> iterator = reportFiles.iterator();
+                while (iterator.hasNext()) {
+                    F reportFile = iterator.next();
+                    Commit commit = commits.retrieve(repositoryEntity, commitId)
+                        .orElseThrow(() -> new IllegalStateException("Commit " + commitId + " does not exist"));
+
+                    Set<T> generated = generator.generateWarningsForFile(commit, reportFile);
+                    Set<T> persisted = warnings.persist(commit.getRepository(), generated);
+                    entityManager.clear();
+
+                    fileCount++;
+                    generatedCount += generated.size();
+                    persistedCount += persisted.size();
+                    files.incrementAndGet();
+                    persistedWarnings.addAndGet(persisted.size());
+                }
+            }
+
+            log.info("Persisted {} of {} warnings in {} files from {} for {} at {} in {} ms",
+                persistedCount, generatedCount, fileCount, generatorType.getSimpleName(),
+                commitId, repositoryName, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+        catch (Exception e) {
+            failed.incrementAndGet();
+            log.warn(String.format("Failed to process report from %s for %s at %s after %d files",
+                generatorType.getSimpleName(), commitId, repositoryName, fileCount), e);
+        }
+        finally {
+            work.end();
+            processed.incrementAndGet();
+            totalProcessingTime.addAndGet(System.nanoTime() - start);
+
+            try {
+                Files.deleteIfExists(file);
+            }
+            catch (IOException e) {
+                log.warn("Failed to delete spooled report {}", file);
+            }
+        }
+    }
+
+    /**
+     * Snapshot of the metrics for the {@link ReportIngestionQueue}.
+     */
+    @Value
+    public static class Statistics {
+
+        /**
+         * Number of spooled reports waiting for a worker.
+         */
+        int queueDepth;
+
+        /**
+         * Number of reports being processed.
+         */
+        int inProgress;
+
+        long received;
+
+        long rejected;
+
+        long processed;
+
+        long failed;
+
+        /**
+         * Number of report files for which warnings were generated.
+         */
+        long files;
+
+        long persistedWarnings;
+
+        long averageProcessingTimeMillis;
+
+    }
+
+}
@@ -0,0 +1,107 @@
+package nl.tudelft.ewi.devhub.server.backend.warnings;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+import com.google.common.collect.AbstractIterator;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * The {@code XmlReportReader} reads the child elements of the root element of an XML report
+ * one at a time. Only the children with the given element name are bound, with the same
+ * Jackson XML annotations as the report models. The other children are skipped without
+ * being bound, so at most one element is held in memory.
+ *
+ * @param <E> Type to bind the elements to.
+ * @author Jan-Willem Gmelig Meyling
+ */
+public class XmlReportReader<E> extends AbstractIterator<E> implements Closeable {
+
+    private static final XmlMapper XML_MAPPER = (XmlMapper) new XmlMapper()
+        .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private final JsonParser parser;
+    private final String elementName;
+    private final Class<E> elementType;
+
+    /**
+     * Start reading a report.
+     *
+     * @param inputStream Stream of the report. The stream is closed when the reader is closed.
+     * @param elementName Local name of the child elements to read.
+     * @param elementType Type to bind the child elements to.
+     * @throws IOException If the report has no root element.
+     */
+    public XmlReportReader(InputStream inputStream, String elementName, Class<E> elementType) throws IOException {
+        this.parser = XML_MAPPER.getFactory().createParser(inputStream);
+        this.elementName = elementName;
+        this.elementType = elementType;
+
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new JsonParseException("Expected a root element", parser.getCurrentLocation());
+        }
+    }
+
+    @Override
+    protected E computeNext() {
+        try {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null && token != JsonToken.END_OBJECT) {
+                if (token != JsonToken.FIELD_NAME) {
+                    continue;
+                }
+
+                String name = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if (elementName.equals(name) && value == JsonToken.START_OBJECT) {
+                    return XML_MAPPER.readValue(parser, elementType);
+                }
+                parser.skipChildren();
+            }
+            return endOfData();
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return A sequential {@code Stream} of the elements, which closes this reader when it is closed.
+     */
+    public Stream<E> stream() {
+        return stream(this).onClose(this::close);
+    }
+
+    @Override
+    public void close() {
+        try {
+            parser.close();
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Wrap an iterator in a lazy sequential {@code Stream}.
+     *
+     * @param iterator Iterator to wrap.
+     * @param <P> Type of the elements.
+     * @return A {@code Stream} that consumes the iterator as it is traversed.
+     */
+    static <P> Stream<P> stream(Iterator<P> iterator) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false);
+    }
+
+}
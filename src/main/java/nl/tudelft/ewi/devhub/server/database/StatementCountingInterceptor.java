@@ -0,0 +1,32 @@
+package nl.tudelft.ewi.devhub.server.database;
+
+import nl.tudelft.ewi.devhub.server.metrics.RequestMetrics;
+import org.hibernate.EmptyInterceptor;
+import org.hibernate.type.Type;
+
+import java.io.Serializable;
+
+/**
+ * Hibernate {@link org.hibernate.Interceptor} that records every prepared statement and every
+ * loaded entity in the {@link RequestMetrics} of the current request. The interceptor is
+ * registered in {@code META-INF/persistence.xml} and is shared by all sessions.
+ *
+ * @author Jan-Willem Gmelig Meyling
+ */
+public class StatementCountingInterceptor extends EmptyInterceptor {
+
+	private static final long serialVersionUID = 1L;
+
+	@Override
+	public String onPrepareStatement(String sql) {
+		RequestMetrics.statement(sql);
+		return sql;
+	}
+
+	@Override
+	public boolean onLoad(Object entity, Serializable id, Object[] state, String[] propertyNames, Type[] types) {
+		RequestMetrics.entityLoad(entity.getClass().getSimpleName());
+		return false;
+	}
+
+}
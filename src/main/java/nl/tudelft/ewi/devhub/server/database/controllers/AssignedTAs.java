@@ -11,15 +11,10 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.List;
-import java.util.Map;
 import java.util.Random;
-import java.util.stream.Collectors;
 
 import static com.google.common.collect.Lists.partition;
-import static com.mysema.query.group.GroupBy.groupBy;
-import static com.mysema.query.group.GroupBy.list;
 import static java.util.Collections.shuffle;
-import static java.util.Comparator.comparing;
 import static nl.tudelft.ewi.devhub.server.database.entities.QAssignedTA.assignedTA;
 import static nl.tudelft.ewi.devhub.server.database.entities.QDelivery.delivery;
 
@@ -28,26 +23,18 @@ import static nl.tudelft.ewi.devhub.server.database.entities.QDelivery.delivery;
  */
 public class AssignedTAs extends Controller<AssignedTA> {
 
+    private final Deliveries deliveries;
+
     @Inject
-    public AssignedTAs(EntityManager em) {
+    public AssignedTAs(EntityManager em, Deliveries deliveries) {
         super(em);
+        this.deliveries = deliveries;
     }
 
     @Transactional
     public List<Delivery> getLastDeliveries(Assignment assignment, User user) {
-        Map<Group, List<Delivery>> deliveriesMap = query().from(delivery)
-                .where(delivery.assignment.eq(assignment)
-                        .and(delivery.group.groupNumber.in(getLastDeliveriesSubQuery(assignment, user))))
-                .orderBy(delivery.timestamp.desc())
-                .transform(groupBy(delivery.group).as(list(delivery)));
-
-        Comparator<Delivery> byState = comparing(Delivery::getState);
-        Comparator<Delivery> bySubmissionDate = Comparator.<Delivery>naturalOrder();
-
-        return deliveriesMap.values().stream().map((deliveries) ->
-                deliveries.stream().max(bySubmissionDate).get())
-                .sorted(byState.thenComparing(bySubmissionDate))
-                .collect(Collectors.toList());
+        return deliveries.getLastDeliveries(assignment, delivery.assignment.eq(assignment)
+                .and(delivery.group.groupNumber.in(getLastDeliveriesSubQuery(assignment, user))));
     }
 
     private static ListSubQuery<Long> getLastDeliveriesSubQuery(Assignment assignment, User user) {
@@ -26,6 +26,11 @@ public class Assignments extends Controller<Assignment> {
             "Could not find assignment " + assignmentId + " for " + course.getCode());
     }
 
+    public Assignment find(Assignment.AssignmentId assignmentId) {
+        return ensureNotNull(entityManager.find(Assignment.class, assignmentId),
+            "Could not find assignment " + assignmentId);
+    }
+
     public boolean exists(CourseEdition course, Long assignmentId) {
         return query().from(QAssignment.assignment)
             .where(QAssignment.assignment.courseEdition.eq(course)
@@ -12,9 +12,11 @@ import javax.inject.Inject;
 import javax.persistence.EntityManager;
 import javax.persistence.EntityNotFoundException;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 
 import static nl.tudelft.ewi.devhub.server.database.entities.QBuildResult.buildResult;
+import static nl.tudelft.ewi.devhub.server.database.entities.QRepositoryEntity.repositoryEntity;
 
 public class BuildResults extends Controller<BuildResult> {
 
@@ -59,6 +61,22 @@ public class BuildResults extends Controller<BuildResult> {
 				.map(buildResult.commit.commitId, buildResult);
 	}
 
+	/**
+	 * Find the builds that are queued or running, in order of push. These are the builds
+	 * without a result, for repositories that have a build instruction.
+	 *
+	 * @return The queued build results.
+	 */
+	@Transactional
+	public List<BuildResult> findQueued() {
+		return query().from(buildResult)
+				.join(buildResult.commit.repository, repositoryEntity)
+				.where(buildResult.success.isNull()
+						.and(repositoryEntity.buildInstruction.isNotNull()))
+				.orderBy(buildResult.commit.pushTime.asc())
+				.list(buildResult);
+	}
+
 	@Transactional
 	public boolean exists(Commit commit) {
 		return exists(commit.getRepository(), commit.getCommitId());
@@ -1,5 +1,6 @@
 package nl.tudelft.ewi.devhub.server.database.controllers;
 
+import nl.tudelft.ewi.devhub.server.database.entities.CourseEvent;
 import nl.tudelft.ewi.devhub.server.database.entities.Group;
 import nl.tudelft.ewi.devhub.server.database.entities.RepositoryEntity;
 import nl.tudelft.ewi.devhub.server.database.entities.comments.CommitComment;
@@ -9,9 +10,9 @@ import com.google.inject.persist.Transactional;
 
 import javax.persistence.EntityManager;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Stream;
 
 import static nl.tudelft.ewi.devhub.server.database.entities.comments.QCommitComment.commitComment;
 
@@ -20,11 +21,33 @@ import static nl.tudelft.ewi.devhub.server.database.entities.comments.QCommitCom
  */
 public class CommitComments extends Controller<CommitComment> {
 
+	private final CommitCounters commitCounters;
+	private final CourseEvents courseEvents;
+
 	@Inject
-	public CommitComments(final EntityManager entityManager) {
+	public CommitComments(final EntityManager entityManager, final CommitCounters commitCounters,
+	                      final CourseEvents courseEvents) {
         super(entityManager);
+		this.commitCounters = commitCounters;
+		this.courseEvents = courseEvents;
 	}
 
+    /**
+     * Persist a comment, increment the comment counter of its commit and append it to the
+     * activity stream of its course.
+     * @param comment Comment to persist
+     * @return The persisted comment
+     */
+    @Override
+    @Transactional
+    public <V extends CommitComment> V persist(V comment) {
+        V persisted = super.persist(comment);
+        commitCounters.incrementComments(comment.getCommit(), 1);
+        CourseEvents.getCourseEdition(comment.getRepository()).ifPresent(courseEdition ->
+            courseEvents.append(Collections.singleton(CourseEvent.of(courseEdition, comment))));
+        return persisted;
+    }
+
     /**
      * Retrieve commit scoped comments
      * @param repositoryEntity repositoryEntity
@@ -85,18 +108,17 @@ public class CommitComments extends Controller<CommitComment> {
     }
 
     /**
-     * Get the most recent commit comments.
-     * @param repositoryEntities The repository entities to include.
-     * @param limit The maximal number of results.
-     * @return The list of most recent commit comments.
+     * Get the id of the most recent comment in a repository. Comments are never changed, so
+     * the id changes whenever a comment is placed in the repository.
+     * @param repositoryEntity Repository to check for
+     * @return The id of the most recent comment, or {@code 0} if there are no comments
      */
     @Transactional
-    public Stream<CommitComment> getMostRecentCommitComments(List<? extends RepositoryEntity> repositoryEntities, long limit) {
-        return toStream(query().from(commitComment)
-            .where(commitComment.commit.repository.in(repositoryEntities))
-            .orderBy(commitComment.timestamp.desc())
-            .limit(limit)
-            .iterate(commitComment));
+    public long getLatestCommentId(RepositoryEntity repositoryEntity) {
+        Long latest = query().from(commitComment)
+            .where(commitComment.commit.repository.eq(repositoryEntity))
+            .uniqueResult(commitComment.commentId.max());
+        return latest == null ? 0 : latest;
     }
 
 }
@@ -0,0 +1,163 @@
+package nl.tudelft.ewi.devhub.server.database.controllers;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
+import com.google.inject.Inject;
+import com.google.inject.persist.Transactional;
+import com.mysema.query.jpa.impl.JPAUpdateClause;
+import com.mysema.query.types.Projections;
+import com.mysema.query.types.path.NumberPath;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import nl.tudelft.ewi.devhub.server.database.entities.BuildResult;
+import nl.tudelft.ewi.devhub.server.database.entities.Commit;
+import nl.tudelft.ewi.devhub.server.database.entities.CommitCounter;
+import nl.tudelft.ewi.devhub.server.database.entities.RepositoryEntity;
+
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import java.util.Collection;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static nl.tudelft.ewi.devhub.server.database.entities.QBuildResult.buildResult;
+import static nl.tudelft.ewi.devhub.server.database.entities.QCommit.commit;
+import static nl.tudelft.ewi.devhub.server.database.entities.QCommitCounter.commitCounter;
+
+/**
+ * Data access object for the denormalized {@link CommitCounter CommitCounters}.
+ *
+ * @author Jan-Willem Gmelig Meyling
+ */
+@Slf4j
+public class CommitCounters extends Controller<CommitCounter> {
+
+	@Inject
+	public CommitCounters(final EntityManager entityManager) {
+		super(entityManager);
+	}
+
+	/**
+	 * Summarize a page of commits with a single query.
+	 *
+	 * @param repositoryEntity Repository of the commits.
+	 * @param commitIds Commit ids of the commits.
+	 * @return The {@link CommitSummary CommitSummaries} indexed by commit id. Commits
+	 * 		that are not in the database are absent.
+	 */
+	@Transactional
+	public Map<String, CommitSummary> getSummaries(RepositoryEntity repositoryEntity, Collection<String> commitIds) {
+		Preconditions.checkNotNull(repositoryEntity);
+		Preconditions.checkNotNull(commitIds);
+
+		if (commitIds.isEmpty()) {
+			return ImmutableMap.of();
+		}
+
+		return query().from(commitCounter)
+			.join(commitCounter.commit, commit)
+			.leftJoin(commit.buildResult, buildResult)
+			.where(commit.repository.eq(repositoryEntity)
+				.and(commit.commitId.in(commitIds)))
+			.map(commit.commitId, Projections.constructor(CommitSummary.class,
+				commit.commitId, buildResult, buildResult.log.length(), commitCounter.warnings, commitCounter.comments));
+	}
+
+	/**
+	 * Lock the counters of a set of commits until the end of the transaction. This serializes
+	 * concurrent transactions that check and insert warnings for the same commits. The rows are
+	 * locked in commit id order to prevent deadlocks.
+	 *
+	 * @param repositoryEntity Repository of the commits.
+	 * @param commits Commits to lock the counters for.
+	 */
+	@Transactional
+	public void lock(RepositoryEntity repositoryEntity, Collection<Commit> commits) {
+		Preconditions.checkNotNull(repositoryEntity);
+		Preconditions.checkNotNull(commits);
+
+		if (commits.isEmpty()) {
+			return;
+		}
+
+		query().from(commitCounter)
+			.where(commitCounter.commitId.repository.eq(repositoryEntity.getId())
+				.and(commitCounter.commitId.commitId.in(commits.stream()
+					.map(Commit::getCommitId)
+					.collect(Collectors.toList()))))
+			.orderBy(commitCounter.commitId.commitId.asc())
+			.setLockMode(LockModeType.PESSIMISTIC_WRITE)
+			.list(commitCounter);
+	}
+
+	/**
+	 * Atomically increment the number of warnings for a commit.
+	 *
+	 * @param commit Commit to increment for.
+	 * @param delta Number of warnings that were added.
+	 */
+	@Transactional
+	public void incrementWarnings(Commit commit, int delta) {
+		increment(commit, commitCounter.warnings, delta);
+	}
+
+	/**
+	 * Atomically increment the number of comments for a commit.
+	 *
+	 * @param commit Commit to increment for.
+	 * @param delta Number of comments that were added.
+	 */
+	@Transactional
+	public void incrementComments(Commit commit, int delta) {
+		increment(commit, commitCounter.comments, delta);
+	}
+
+	protected void increment(Commit commit, NumberPath<Integer> counter, int delta) {
+		Preconditions.checkNotNull(commit);
+
+		if (delta == 0) {
+			return;
+		}
+
+		long updated = new JPAUpdateClause(entityManager, commitCounter)
+			.where(commitCounter.commitId.repository.eq(commit.getRepository().getId())
+				.and(commitCounter.commitId.commitId.eq(commit.getCommitId())))
+			.set(counter, counter.add(delta))
+			.execute();
+
+		if (updated == 0) {
+			log.warn("No counters found for {}", commit);
+		}
+	}
+
+	/**
+	 * The build result, number of warnings and number of comments for a commit,
+	 * as displayed in the commit list of a branch.
+	 */
+	@Value
+	public static class CommitSummary {
+
+		String commitId;
+
+		BuildResult buildResult;
+
+		/**
+		 * Length of the build log, which changes when the commit is built again.
+		 */
+		int buildLogLength;
+
+		int warnings;
+
+		int comments;
+
+		public CommitSummary(String commitId, BuildResult buildResult, Integer buildLogLength, Integer warnings, Integer comments) {
+			this.commitId = commitId;
+			this.buildResult = buildResult;
+			this.buildLogLength = buildLogLength == null ? 0 : buildLogLength;
+			this.warnings = warnings == null ? 0 : warnings;
+			this.comments = comments == null ? 0 : comments;
+		}
+
+	}
+
+}
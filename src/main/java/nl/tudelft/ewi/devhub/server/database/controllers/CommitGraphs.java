@@ -0,0 +1,201 @@
+package nl.tudelft.ewi.devhub.server.database.controllers;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.inject.Inject;
+import com.google.inject.persist.Transactional;
+import com.mysema.query.BooleanBuilder;
+import com.mysema.query.Tuple;
+import com.mysema.query.types.Predicate;
+import lombok.extern.slf4j.Slf4j;
+import nl.tudelft.ewi.devhub.server.database.entities.Commit;
+import nl.tudelft.ewi.devhub.server.database.entities.CommitGraphNode;
+import nl.tudelft.ewi.devhub.server.database.entities.QCommit;
+import nl.tudelft.ewi.devhub.server.database.entities.RepositoryEntity;
+import nl.tudelft.ewi.devhub.server.util.CommitGraph;
+import nl.tudelft.ewi.devhub.server.util.CommitIterator;
+
+import javax.persistence.EntityManager;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static nl.tudelft.ewi.devhub.server.database.entities.QBuildResult.buildResult;
+import static nl.tudelft.ewi.devhub.server.database.entities.QCommit.commit;
+import static nl.tudelft.ewi.devhub.server.database.entities.QCommitGraphNode.commitGraphNode;
+
+/**
+ * Data access object for the {@link CommitGraphNode CommitGraphNodes}. Ancestry walks load the
+ * part of the commit graph they need with a single query, and walk it in memory.
+ *
+ * @author Jan-Willem Gmelig Meyling
+ */
+@Slf4j
+public class CommitGraphs extends Controller<CommitGraphNode> {
+
+	/**
+	 * The number of generations below every head that is loaded for an ancestry walk.
+	 */
+	private static final int SEARCH_DEPTH = 250;
+
+	@Inject
+	public CommitGraphs(final EntityManager entityManager) {
+		super(entityManager);
+	}
+
+	/**
+	 * Get the generations of a set of commits.
+	 *
+	 * @param repositoryEntity Repository of the commits.
+	 * @param commitIds Commit ids of the commits.
+	 * @return The generations indexed by commit id. Commits without graph node are absent.
+	 */
+	@Transactional
+	public Map<String, Integer> getGenerations(RepositoryEntity repositoryEntity, Collection<String> commitIds) {
+		Preconditions.checkNotNull(repositoryEntity);
+		Preconditions.checkNotNull(commitIds);
+
+		if (commitIds.isEmpty()) {
+			return ImmutableMap.of();
+		}
+
+		return query().from(commitGraphNode)
+			.where(commitGraphNode.commitId.repository.eq(repositoryEntity.getId())
+				.and(commitGraphNode.commitId.commitId.in(commitIds)))
+			.map(commitGraphNode.commitId.commitId, commitGraphNode.generation);
+	}
+
+	/**
+	 * Find the nearest commits without build result for a set of branch heads. The graph
+	 * below the heads is loaded with a single query and walked in breadth first order.
+	 * Heads that were created before the commit graph was indexed are walked with a
+	 * {@link CommitIterator} instead.
+	 *
+	 * @param repositoryEntity Repository of the commits.
+	 * @param heads The branch heads.
+	 * @param perHead The maximal number of commits to find for a single head.
+	 * @param limit The maximal number of commits to find.
+	 * @return The commits, in the order in which they were found.
+	 */
+	@Transactional
+	public Set<Commit> findUnbuiltAncestors(RepositoryEntity repositoryEntity, Collection<Commit> heads, int perHead, int limit) {
+		Preconditions.checkNotNull(repositoryEntity);
+		Preconditions.checkNotNull(heads);
+
+		Map<String, Integer> generations = getGenerations(repositoryEntity, heads.stream()
+			.map(Commit::getCommitId)
+			.collect(Collectors.toSet()));
+
+		CommitGraph graph = generations.isEmpty() ? null : loadGraph(repositoryEntity, generations.values());
+
+		Set<String> found = Sets.newLinkedHashSet();
+		Set<Commit> unindexed = Sets.newLinkedHashSet();
+		for (Commit head : heads) {
+			if (found.size() + unindexed.size() >= limit) {
+				break;
+			}
+
+			if (graph != null && graph.contains(head.getCommitId())) {
+				found.addAll(graph.findUnbuiltAncestors(head.getCommitId(), perHead));
+			}
+			else {
+				log.debug("No commit graph for {}, walking its parents", head);
+				CommitIterator.stream(head, Commit::hasNoBuildResult)
+					.limit(perHead)
+					.forEach(unindexed::add);
+			}
+		}
+
+		Set<Commit> result = Sets.newLinkedHashSet(retrieveCommits(repositoryEntity, found));
+		result.addAll(unindexed);
+		return result.stream()
+			.limit(limit)
+			.collect(Collectors.toCollection(Sets::newLinkedHashSet));
+	}
+
+	/**
+	 * Load the commits within {@link #SEARCH_DEPTH} generations below any of the heads, with
+	 * their parents and whether they have a build result. A window is loaded per head, so a
+	 * stale branch head does not pull in the generations between it and the other heads.
+	 */
+	protected CommitGraph loadGraph(RepositoryEntity repositoryEntity, Collection<Integer> headGenerations) {
+		QCommit parent = new QCommit("parent");
+		List<Tuple> rows = query().from(commitGraphNode)
+			.join(commitGraphNode.commit, commit)
+			.leftJoin(commit.parents, parent)
+			.leftJoin(commit.buildResult, buildResult)
+			.where(commitGraphNode.commitId.repository.eq(repositoryEntity.getId())
+				.and(inWindows(headGenerations)))
+			.list(commit.commitId, commitGraphNode.firstParent, parent.commitId, buildResult.commitId.commitId);
+
+		Map<String, List<String>> parents = Maps.newHashMap();
+		Set<String> built = Sets.newHashSet();
+
+		for (Tuple row : rows) {
+			String commitId = row.get(commit.commitId);
+			String firstParent = row.get(commitGraphNode.firstParent);
+			String parentId = row.get(parent.commitId);
+			List<String> parentIds = parents.computeIfAbsent(commitId, key -> Lists.newArrayList());
+
+			if (parentId != null) {
+				// Keep the first parent in front, the join table does not keep the order of the parents
+				if (parentId.equals(firstParent)) {
+					parentIds.add(0, parentId);
+				}
+				else {
+					parentIds.add(parentId);
+				}
+			}
+
+			if (row.get(buildResult.commitId.commitId) != null) {
+				built.add(commitId);
+			}
+		}
+
+		log.debug("Loaded commit graph of {} commits for {}", parents.size(), repositoryEntity);
+		return new CommitGraph(parents, built);
+	}
+
+	/**
+	 * Predicate for the generations within the search depth of the heads. Overlapping windows,
+	 * such as those of branches that share most of their history, are merged.
+	 */
+	private static Predicate inWindows(Collection<Integer> headGenerations) {
+		List<Integer> sorted = headGenerations.stream()
+			.sorted()
+			.distinct()
+			.collect(Collectors.toList());
+
+		BooleanBuilder windows = new BooleanBuilder();
+		int lower = sorted.get(0) - SEARCH_DEPTH;
+		int upper = sorted.get(0);
+		for (int generation : sorted.subList(1, sorted.size())) {
+			if (generation - SEARCH_DEPTH > upper) {
+				windows.or(commitGraphNode.generation.between(lower, upper));
+				lower = generation - SEARCH_DEPTH;
+			}
+			upper = generation;
+		}
+		return windows.or(commitGraphNode.generation.between(lower, upper));
+	}
+
+	private List<Commit> retrieveCommits(RepositoryEntity repositoryEntity, Collection<String> commitIds) {
+		if (commitIds.isEmpty()) {
+			return Lists.newArrayList();
+		}
+
+		Map<String, Commit> commits = query().from(commit)
+			.where(commit.repository.eq(repositoryEntity).and(commit.commitId.in(commitIds)))
+			.map(commit.commitId, commit);
+
+		return commitIds.stream()
+			.map(commits::get)
+			.collect(Collectors.toList());
+	}
+
+}
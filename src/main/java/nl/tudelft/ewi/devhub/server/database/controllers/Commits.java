@@ -1,22 +1,37 @@
 package nl.tudelft.ewi.devhub.server.database.controllers;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.Futures;
 import com.google.inject.Inject;
 import com.google.inject.persist.Transactional;
 import lombok.SneakyThrows;
+import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
+import nl.tudelft.ewi.devhub.server.backend.CommitDetailsExecutor;
 import nl.tudelft.ewi.devhub.server.database.entities.Commit;
 import nl.tudelft.ewi.devhub.server.database.entities.Commit.CommitId;
+import nl.tudelft.ewi.devhub.server.database.entities.CommitCounter;
+import nl.tudelft.ewi.devhub.server.database.entities.CommitGraphNode;
+import nl.tudelft.ewi.devhub.server.database.entities.CourseEvent;
 import nl.tudelft.ewi.devhub.server.database.entities.RepositoryEntity;
 import nl.tudelft.ewi.git.models.CommitModel;
 import nl.tudelft.ewi.git.models.DiffModel;
 import nl.tudelft.ewi.git.web.api.RepositoriesApi;
 
 import javax.persistence.EntityManager;
+import java.util.ArrayDeque;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
+import java.util.Deque;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -25,12 +40,26 @@ import static nl.tudelft.ewi.devhub.server.database.entities.QCommit.commit;
 @Slf4j
 public class Commits extends Controller<Commit> {
 
+	/**
+	 * The maximal number of commits that is looked up in the database or
+	 * retrieved from the git server at once.
+	 */
+	private static final int BATCH_SIZE = 50;
+
 	private final RepositoriesApi repositories;
+	private final CommitDetailsExecutor commitDetailsExecutor;
+	private final CommitGraphs commitGraphs;
+	private final CourseEvents courseEvents;
 
 	@Inject
-	public Commits(final EntityManager entityManager, final RepositoriesApi repositories) {
+	public Commits(final EntityManager entityManager, final RepositoriesApi repositories,
+	               final CommitDetailsExecutor commitDetailsExecutor, final CommitGraphs commitGraphs,
+	               final CourseEvents courseEvents) {
 		super(entityManager);
 		this.repositories = repositories;
+		this.commitDetailsExecutor = commitDetailsExecutor;
+		this.commitGraphs = commitGraphs;
+		this.courseEvents = courseEvents;
 	}
 	
 	@Transactional
@@ -52,21 +81,178 @@ public class Commits extends Controller<Commit> {
 	 * @param repositoryEntity Repository to search commits for.
 	 * @param commitId Commit id of the commit.
 	 * @return The created commit entity.
+	 * @see Commits#ensureExistsAll(RepositoryEntity, Collection)
 	 */
 	@Transactional
 	public Commit ensureExists(RepositoryEntity repositoryEntity, String commitId) {
-		return retrieve(repositoryEntity, commitId).orElseGet(() -> {
-			final Commit commit = new Commit();
-			commit.setCommitId(commitId);
-			commit.setRepository(repositoryEntity);
-			commit.setComments(Lists.newArrayList());
-			commit.setPushTime(new Date());
+		return retrieve(repositoryEntity, commitId).orElseGet(() ->
+			ensureExistsAll(repositoryEntity, Collections.singleton(commitId)).get(commitId));
+	}
 
-			enhanceCommitSafely(commit);
+	/**
+	 * Ensure that a collection of commits exists in the database. The ancestry of the missing
+	 * commits is walked iteratively: the existence of commits is checked in bounded batches,
+	 * the details for the missing commits are retrieved from the git server in bounded batches,
+	 * and all created commits and their parent relations are inserted with a single flush.
+	 * The {@link CommitGraphNode CommitGraphNodes} and {@link CourseEvent CourseEvents} for the
+	 * created commits are inserted as well.
+	 *
+	 * @param repositoryEntity Repository to search commits for.
+	 * @param commitIds Commit ids of the commits.
+	 * @return The commit entities indexed by commit id, in the iteration order of {@code commitIds}.
+	 */
+	@Transactional
+	public Map<String, Commit> ensureExistsAll(RepositoryEntity repositoryEntity, Collection<String> commitIds) {
+		final Map<String, Commit> resolved = Maps.newHashMap();
+		final Map<String, String[]> created = Maps.newLinkedHashMap();
+		final Deque<String> pending = new ArrayDeque<>(commitIds);
+
+		while (!pending.isEmpty()) {
+			final Set<String> batch = Sets.newLinkedHashSet();
+			while (!pending.isEmpty() && batch.size() < BATCH_SIZE) {
+				String commitId = pending.poll();
+				if (!resolved.containsKey(commitId)) {
+					batch.add(commitId);
+				}
+			}
+
+			if (batch.isEmpty()) {
+				continue;
+			}
+
+			retrieveCommits(repositoryEntity, batch)
+				.forEach(existing -> resolved.put(existing.getCommitId(), existing));
+
+			List<String> missing = batch.stream()
+				.filter(commitId -> !resolved.containsKey(commitId))
+				.collect(Collectors.toList());
+
+			retrieveDetails(repositoryEntity.getRepositoryName(), missing).entrySet().stream()
+				.map(entry -> createCommit(repositoryEntity, entry.getKey(), entry.getValue()))
+				.forEach(entry -> {
+					Commit commit = entry.getKey();
+					String[] parentIds = entry.getValue();
+					resolved.put(commit.getCommitId(), commit);
+					created.put(commit.getCommitId(), parentIds);
+					Collections.addAll(pending, parentIds);
+				});
+		}
 
-			//HERE IT IS SAVED
-			return persist(commit);
+		final Map<String, Integer> generations = getGenerations(repositoryEntity, created);
+
+		created.forEach((commitId, parentIds) -> {
+			Commit commit = resolved.get(commitId);
+			commit.setParents(Stream.of(parentIds)
+				.map(resolved::get)
+				.collect(Collectors.toList()));
+			entityManager.persist(commit);
+			entityManager.persist(CommitCounter.newCommitCounter(commit));
+			entityManager.persist(CommitGraphNode.newCommitGraphNode(commit,
+				generations.get(commitId), parentIds.length > 0 ? parentIds[0] : null));
 		});
+
+		if (!created.isEmpty()) {
+			CourseEvents.getCourseEdition(repositoryEntity).ifPresent(courseEdition ->
+				courseEvents.append(created.keySet().stream()
+					.map(commitId -> CourseEvent.of(courseEdition, resolved.get(commitId)))
+					.collect(Collectors.toList())));
+			entityManager.flush();
+			log.info("Persisted {} new commits for {}", created.size(), repositoryEntity);
+		}
+
+		final Map<String, Commit> result = Maps.newLinkedHashMap();
+		commitIds.forEach(commitId -> result.put(commitId, resolved.get(commitId)));
+		return result;
+	}
+
+	/**
+	 * Compute the generations of the created commits. The generations of existing parents are
+	 * retrieved with a single query. Parents that were created before the commit graph was
+	 * indexed count as generation zero.
+	 *
+	 * @param repositoryEntity Repository of the commits.
+	 * @param created The parent commit ids of the created commits.
+	 * @return The generations of the created commits and their existing parents.
+	 */
+	protected Map<String, Integer> getGenerations(RepositoryEntity repositoryEntity, Map<String, String[]> created) {
+		final Map<String, Integer> generations = Maps.newHashMap(commitGraphs.getGenerations(repositoryEntity,
+			created.values().stream()
+				.flatMap(Stream::of)
+				.filter(parentId -> !created.containsKey(parentId))
+				.collect(Collectors.toSet())));
+
+		// Parents are discovered after their children, so resolve the parents first with an explicit stack
+		final Deque<String> stack = new ArrayDeque<>();
+		for (String commitId : created.keySet()) {
+			stack.push(commitId);
+			while (!stack.isEmpty()) {
+				String current = stack.peek();
+				if (generations.containsKey(current)) {
+					stack.pop();
+					continue;
+				}
+
+				int generation = 1;
+				boolean resolved = true;
+				for (String parentId : created.get(current)) {
+					Integer parentGeneration = generations.get(parentId);
+					if (parentGeneration != null) {
+						generation = Math.max(generation, parentGeneration + 1);
+					}
+					else if (created.containsKey(parentId)) {
+						stack.push(parentId);
+						resolved = false;
+					}
+				}
+
+				if (resolved) {
+					generations.put(current, generation);
+					stack.pop();
+				}
+			}
+		}
+
+		return generations;
+	}
+
+	/**
+	 * Retrieve the details for a batch of commits from the git server. The calls are made
+	 * concurrently on a dedicated, bounded pool, outside of the persistence context: only
+	 * the repository name and commit ids are passed to the pool.
+	 *
+	 * @param repositoryName Name of the repository.
+	 * @param commitIds Commit ids of the commits.
+	 * @return The details indexed by commit id, in the iteration order of {@code commitIds}.
+	 *    The details are {@code null} for commits that could not be retrieved.
+	 */
+	protected Map<String, CommitDetails> retrieveDetails(String repositoryName, List<String> commitIds) {
+		final Map<String, Future<CommitDetails>> futures = Maps.newLinkedHashMap();
+		commitIds.forEach(commitId -> futures.put(commitId,
+			commitDetailsExecutor.submit(() -> retrieveDetailsSafely(repositoryName, commitId))));
+
+		final Map<String, CommitDetails> details = Maps.newLinkedHashMap();
+		futures.forEach((commitId, future) -> details.put(commitId, Futures.getUnchecked(future)));
+		return details;
+	}
+
+	/**
+	 * Create a new commit entity, and enhance it with the details from the git server.
+	 *
+	 * @param repositoryEntity Repository for the commit.
+	 * @param commitId Commit id of the commit.
+	 * @param details The details of the commit, or {@code null} if they could not be retrieved.
+	 * @return The created commit and the commit ids of its parents.
+	 */
+	protected Map.Entry<Commit, String[]> createCommit(RepositoryEntity repositoryEntity, String commitId,
+	                                                   CommitDetails details) {
+		final Commit commit = new Commit();
+		commit.setCommitId(commitId);
+		commit.setRepository(repositoryEntity);
+		commit.setComments(Lists.newArrayList());
+		commit.setPushTime(new Date());
+
+		String[] parentIds = details == null ? null : details.applyTo(commit);
+		return Maps.immutableEntry(commit, parentIds == null ? new String[0] : parentIds);
 	}
 
 	/**
@@ -75,37 +261,43 @@ public class Commits extends Controller<Commit> {
 	 * @param commit Commit object to modify.
 	 */
 	public void enhanceCommitSafely(Commit commit) {
+		CommitDetails details = retrieveDetailsSafely(commit.getRepository().getRepositoryName(), commit.getCommitId());
+		if (details != null) {
+			commit.setParents(Lists.newArrayList(
+				ensureExistsAll(commit.getRepository(), Arrays.asList(details.applyTo(commit))).values()
+			));
+		}
+	}
+
+	/**
+	 * Retrieve the details of a commit from the git server, such as commit time, author information
+	 * and line changes.
+	 *
+	 * @param repositoryName Name of the repository.
+	 * @param commitId Commit id of the commit.
+	 * @return The details of the commit, or {@code null} if the details could not be retrieved.
+	 */
+	protected CommitDetails retrieveDetailsSafely(String repositoryName, String commitId) {
 		try {
-			log.info("Enhance {} {}", commit.getRepository().getRepositoryName(), commit.getCommitId());
-			RepositoryEntity repositoryEntity = commit.getRepository();
-			String commitId = commit.getCommitId();
-			final CommitModel gitCommit = retrieveCommit(repositoryEntity, commitId);
-			final DiffModel diffModel = retrieveDiffModel(repositoryEntity, commitId);
-			commit.setLinesAdded(diffModel.getLinesAdded());
-			commit.setLinesRemoved(diffModel.getLinesRemoved());
-			commit.setCommitTime(new Date(gitCommit.getTime() * 1000));
-			commit.setAuthor(gitCommit.getAuthor());
-			commit.setParents(
-				Stream.of(gitCommit.getParents()).sequential()
-					.map(c -> ensureExists(repositoryEntity, c))
-					.collect(Collectors.toList())
-			);
+			log.info("Enhance {} {}", repositoryName, commitId);
+			return new CommitDetails(retrieveCommit(repositoryName, commitId), retrieveDiffModel(repositoryName, commitId));
 		}
 		catch (Exception e) {
 			log.warn("Failed to retrieve commit details: " + e.getMessage(), e);
+			return null;
 		}
 	}
 
 	@SneakyThrows
-	protected CommitModel retrieveCommit(RepositoryEntity repositoryEntity, String commitId) {
-		return repositories.getRepository(repositoryEntity.getRepositoryName())
+	protected CommitModel retrieveCommit(String repositoryName, String commitId) {
+		return repositories.getRepository(repositoryName)
 			.getCommit(commitId)
 			.get();
 	}
 
 	@SneakyThrows
-	protected DiffModel retrieveDiffModel(RepositoryEntity repositoryEntity, String commitId) {
-		return repositories.getRepository(repositoryEntity.getRepositoryName())
+	protected DiffModel retrieveDiffModel(String repositoryName, String commitId) {
+		return repositories.getRepository(repositoryName)
 				.getCommit(commitId)
 				.diff();
 	}
@@ -125,17 +317,29 @@ public class Commits extends Controller<Commit> {
 	}
 
 	/**
-	 * List the most recent commits.
-	 * @param repositoryEntities The repository entities to include.
-	 * @param limit The maximal number of results.
-     * @return A list of commits.
-     */
-	@Transactional
-	public Stream<Commit> getMostRecentCommits(List<? extends RepositoryEntity> repositoryEntities, long limit) {
-		return toStream(query().from(commit)
-			.where(commit.repository.in(repositoryEntities))
-			.orderBy(commit.pushTime.desc())
-			.limit(limit)
-			.iterate(commit));
+	 * The details of a commit as retrieved from the git server.
+	 */
+	@Value
+	protected static class CommitDetails {
+
+		CommitModel commit;
+
+		DiffModel diff;
+
+		/**
+		 * Copy the details to a commit entity.
+		 *
+		 * @param entity Commit entity to modify.
+		 * @return The commit ids of the parents.
+		 */
+		String[] applyTo(Commit entity) {
+			entity.setLinesAdded(diff.getLinesAdded());
+			entity.setLinesRemoved(diff.getLinesRemoved());
+			entity.setCommitTime(new Date(commit.getTime() * 1000));
+			entity.setAuthor(commit.getAuthor());
+			return commit.getParents();
+		}
+
 	}
+
 }
@@ -13,6 +13,7 @@ import org.hibernate.engine.spi.SessionImplementor;
 import javax.inject.Inject;
 import javax.persistence.EntityManager;
 import javax.persistence.EntityNotFoundException;
+import javax.transaction.Synchronization;
 import java.util.Spliterator;
 import java.util.Spliterators;
 import java.util.stream.Stream;
@@ -81,6 +82,26 @@ public class Controller<T> {
 	}
 
 
+	/**
+	 * Run an action once the current transaction has committed or rolled back, so that
+	 * other transactions observe the changes of this transaction when the action runs.
+	 * @param action Action to run.
+	 */
+	protected void afterCompletion(Runnable action) {
+		entityManager.unwrap(Session.class).getTransaction().registerSynchronization(new Synchronization() {
+
+			@Override
+			public void beforeCompletion() {
+			}
+
+			@Override
+			public void afterCompletion(int status) {
+				action.run();
+			}
+
+		});
+	}
+
 	@Transactional
 	public void attach(T entity) {
 		// Method from http://stackoverflow.com/a/3683370/2104280
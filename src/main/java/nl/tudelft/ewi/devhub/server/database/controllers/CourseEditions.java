@@ -6,6 +6,7 @@ import com.mysema.query.jpa.JPASubQuery;
 import com.mysema.query.jpa.impl.JPAQuery;
 import com.mysema.query.types.OrderSpecifier;
 import com.mysema.query.types.query.ListSubQuery;
+import nl.tudelft.ewi.devhub.server.backend.AuthorizationCache;
 import nl.tudelft.ewi.devhub.server.database.entities.Course;
 import nl.tudelft.ewi.devhub.server.database.entities.CourseEdition;
 import nl.tudelft.ewi.devhub.server.database.entities.User;
@@ -21,9 +22,36 @@ import static nl.tudelft.ewi.devhub.server.database.entities.QGroup.group;
 
 public class CourseEditions extends Controller<CourseEdition> {
 
+	private final AuthorizationCache authorizationCache;
+
 	@Inject
-	public CourseEditions(EntityManager entityManager) {
+	public CourseEditions(EntityManager entityManager, AuthorizationCache authorizationCache) {
 		super(entityManager);
+		this.authorizationCache = authorizationCache;
+	}
+
+	@Override
+	@Transactional
+	public <V extends CourseEdition> V persist(V entity) {
+		V result = super.persist(entity);
+		afterCompletion(authorizationCache::invalidateAll);
+		return result;
+	}
+
+	@Override
+	@Transactional
+	public CourseEdition merge(CourseEdition entity) {
+		CourseEdition result = super.merge(entity);
+		afterCompletion(authorizationCache::invalidateAll);
+		return result;
+	}
+
+	@Override
+	@Transactional
+	public CourseEdition delete(CourseEdition entity) {
+		CourseEdition result = super.delete(entity);
+		afterCompletion(authorizationCache::invalidateAll);
+		return result;
 	}
 
 	@Transactional
@@ -63,6 +91,18 @@ public class CourseEditions extends Controller<CourseEdition> {
 		return user.getAssists();
     }
 
+	/**
+	 * @param userId Id of the user.
+	 * @return The ids of the course editions the user is assisting.
+	 * @see AuthorizationCache
+	 */
+	@Transactional
+	public List<Long> listAssistingCourseEditionIds(long userId) {
+		return query().from(courseEdition)
+			.where(courseEdition.assistants.any().id.eq(userId))
+			.list(courseEdition.id);
+	}
+
 	private JPAQuery activeCoursesBaseQuery() {
 		Date now = new Date();
 		return query().from(courseEdition)
@@ -0,0 +1,156 @@
+package nl.tudelft.ewi.devhub.server.database.controllers;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.SetMultimap;
+import com.google.inject.Inject;
+import com.google.inject.persist.Transactional;
+import com.mysema.query.jpa.impl.JPAQuery;
+import com.mysema.query.types.Predicate;
+import lombok.extern.slf4j.Slf4j;
+import nl.tudelft.ewi.devhub.server.backend.CourseEventFeed;
+import nl.tudelft.ewi.devhub.server.database.entities.CourseEdition;
+import nl.tudelft.ewi.devhub.server.database.entities.CourseEvent;
+import nl.tudelft.ewi.devhub.server.database.entities.GroupRepository;
+import nl.tudelft.ewi.devhub.server.database.entities.RepositoryEntity;
+
+import javax.persistence.EntityManager;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import static nl.tudelft.ewi.devhub.server.database.entities.QCourseEvent.courseEvent;
+
+/**
+ * Data access object for the {@link CourseEvent CourseEvents}. Events are read in pages with
+ * keyset pagination on {@code (timestamp, id)}, which is served by an index on the course
+ * edition and timestamp.
+ *
+ * @author Jan-Willem Gmelig Meyling
+ */
+@Slf4j
+public class CourseEvents extends Controller<CourseEvent> {
+
+	private final CourseEventFeed courseEventFeed;
+
+	@Inject
+	public CourseEvents(final EntityManager entityManager, final CourseEventFeed courseEventFeed) {
+		super(entityManager);
+		this.courseEventFeed = courseEventFeed;
+	}
+
+	/**
+	 * Append events to the activity stream. The events are flushed with the entities they refer to,
+	 * and become available to the {@link CourseEventFeed} when the transaction completes.
+	 *
+	 * @param events Events to append.
+	 */
+	@Transactional
+	public void append(Collection<CourseEvent> events) {
+		Preconditions.checkNotNull(events);
+		SetMultimap<Long, Long> ids = courseEventFeed.persist(events, entityManager::persist);
+
+		try {
+			afterCompletion(() -> courseEventFeed.release(ids));
+		}
+		catch (RuntimeException e) {
+			courseEventFeed.release(ids);
+			throw e;
+		}
+	}
+
+	/**
+	 * @param repositoryEntity A repository.
+	 * @return The course edition of the repository, or nothing for a private repository.
+	 */
+	public static Optional<CourseEdition> getCourseEdition(RepositoryEntity repositoryEntity) {
+		if (repositoryEntity instanceof GroupRepository) {
+			return Optional.of(((GroupRepository) repositoryEntity).getGroup().getCourseEdition());
+		}
+		return Optional.empty();
+	}
+
+	/**
+	 * List the most recent events for a course edition.
+	 *
+	 * @param courseEdition Course edition to list the events for.
+	 * @param before The last event of the previous page, or {@code null} for the first page.
+	 * @param limit The maximal number of results.
+	 * @return The events, newest first.
+	 */
+	@Transactional
+	public List<CourseEvent> getEvents(CourseEdition courseEdition, CourseEvent before, long limit) {
+		Preconditions.checkNotNull(courseEdition);
+
+		Predicate predicate = courseEvent.courseEdition.eq(courseEdition);
+		if (before != null) {
+			predicate = courseEvent.courseEdition.eq(courseEdition)
+				.and(courseEvent.timestamp.lt(before.getTimestamp())
+					.or(courseEvent.timestamp.eq(before.getTimestamp())
+						.and(courseEvent.id.lt(before.getId()))));
+		}
+
+		return fetchEvents(predicate)
+			.orderBy(courseEvent.timestamp.desc(), courseEvent.id.desc())
+			.limit(limit)
+			.list(courseEvent);
+	}
+
+	/**
+	 * List the events that were appended after an event.
+	 *
+	 * @param courseEdition Course edition to list the events for.
+	 * @param afterId Id of the last event that was seen.
+	 * @param beforeId Id below which the events are listed.
+	 * @param limit The maximal number of results.
+	 * @return The events, newest first.
+	 */
+	@Transactional
+	public List<CourseEvent> getEventsAfter(CourseEdition courseEdition, long afterId, long beforeId, long limit) {
+		Preconditions.checkNotNull(courseEdition);
+
+		return fetchEvents(courseEvent.courseEdition.eq(courseEdition)
+				.and(courseEvent.id.gt(afterId))
+				.and(courseEvent.id.lt(beforeId)))
+			.orderBy(courseEvent.id.desc())
+			.limit(limit)
+			.list(courseEvent);
+	}
+
+	/**
+	 * @return The highest event id, or zero if there are no events.
+	 */
+	@Transactional
+	public long getMaximumId() {
+		Long maximum = query().from(courseEvent)
+			.uniqueResult(courseEvent.id.max());
+		return maximum == null ? 0 : maximum;
+	}
+
+	/**
+	 * @param courseEdition Course edition of the event.
+	 * @param id Id of the event.
+	 * @return The event, if it exists in the course edition.
+	 */
+	@Transactional
+	public Optional<CourseEvent> find(CourseEdition courseEdition, long id) {
+		return Optional.ofNullable(query().from(courseEvent)
+			.where(courseEvent.courseEdition.eq(courseEdition)
+				.and(courseEvent.id.eq(id)))
+			.singleResult(courseEvent));
+	}
+
+	/**
+	 * Fetch the events together with the entities they refer to, so that a page of events
+	 * is loaded with a single query.
+	 */
+	private JPAQuery fetchEvents(Predicate predicate) {
+		return query().from(courseEvent)
+			.leftJoin(courseEvent.commit).fetch()
+			.leftJoin(courseEvent.commitComment).fetch()
+			.leftJoin(courseEvent.pullRequest).fetch()
+			.leftJoin(courseEvent.issueComment).fetch()
+			.leftJoin(courseEvent.delivery).fetch()
+			.where(predicate);
+	}
+
+}
@@ -1,15 +1,28 @@
 package nl.tudelft.ewi.devhub.server.database.controllers;
 
+import com.google.common.collect.HashBasedTable;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Table;
+import lombok.Value;
 import nl.tudelft.ewi.devhub.server.database.entities.Assignment;
+import nl.tudelft.ewi.devhub.server.database.entities.CourseEvent;
 import nl.tudelft.ewi.devhub.server.database.entities.Delivery;
 import nl.tudelft.ewi.devhub.server.database.entities.Group;
+import nl.tudelft.ewi.devhub.server.database.entities.QDelivery;
+import nl.tudelft.ewi.devhub.server.database.entities.QGroup;
+import nl.tudelft.ewi.devhub.server.database.entities.QUser;
 
 import com.google.inject.Inject;
 import com.google.inject.persist.Transactional;
+import com.mysema.query.jpa.JPASubQuery;
+import com.mysema.query.types.Predicate;
+import com.mysema.query.types.Projections;
+import com.mysema.query.types.expr.BooleanExpression;
 import nl.tudelft.ewi.devhub.server.database.entities.User;
 
 import javax.persistence.EntityManager;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
@@ -20,20 +33,35 @@ import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static com.google.common.collect.Maps.immutableEntry;
-import static com.mysema.query.group.GroupBy.groupBy;
-import static com.mysema.query.group.GroupBy.list;
 import static java.util.Comparator.comparing;
 import static nl.tudelft.ewi.devhub.server.database.entities.Delivery.State;
 import static nl.tudelft.ewi.devhub.server.database.entities.QDelivery.delivery;
+import static nl.tudelft.ewi.devhub.server.database.entities.rubrics.QMastery.mastery;
 
 /**
  * Created by jgmeligmeyling on 04/03/15.
  */
 public class Deliveries extends Controller<Delivery> {
 
+    private final CourseEvents courseEvents;
+
     @Inject
-    public Deliveries(EntityManager em) {
+    public Deliveries(EntityManager em, CourseEvents courseEvents) {
         super(em);
+        this.courseEvents = courseEvents;
+    }
+
+    /**
+     * Persist a delivery, and append it to the activity stream of its course.
+     * @param entity Delivery to persist
+     * @return The persisted delivery
+     */
+    @Override
+    @Transactional
+    public <V extends Delivery> V persist(V entity) {
+        V persisted = super.persist(entity);
+        courseEvents.append(Collections.singleton(CourseEvent.of(entity.getGroup().getCourseEdition(), entity)));
+        return persisted;
     }
 
     /**
@@ -99,26 +127,56 @@ public class Deliveries extends Controller<Delivery> {
     }
 
     /**
-     * Get the most recent delivery for every group in this assignment
+     * Get the most recent delivery for every group in this assignment.
+     * The most recent deliveries are selected in the database, and are fetched together with
+     * their group and rubrics in a single query.
      * @param assignment current assignment
-     * @return a list of deliveries
+     * @return a list of deliveries, ordered by state and submission date
      */
     @Transactional
     public List<Delivery> getLastDeliveries(Assignment assignment) {
-        Map<Group, List<Delivery>> deliveriesMap = query().from(delivery)
-			.where(delivery.assignment.eq(assignment))
-			.orderBy(delivery.timestamp.desc())
-            .transform(groupBy(delivery.group).as(list(delivery)));
+        return getLastDeliveries(assignment, delivery.assignment.eq(assignment));
+    }
 
+    /**
+     * Get the most recent deliveries matching a predicate.
+     * @param assignment current assignment
+     * @param predicate predicate for the deliveries
+     * @return a list of deliveries, ordered by state and submission date
+     */
+    @Transactional
+    protected List<Delivery> getLastDeliveries(Assignment assignment, Predicate predicate) {
         Comparator<Delivery> byState = comparing(Delivery::getState);
         Comparator<Delivery> bySubmissionDate = Comparator.<Delivery> naturalOrder();
 
-        return deliveriesMap.values().stream().map((deliveries) ->
-                deliveries.stream().max(bySubmissionDate).get())
+        return query().from(delivery)
+            .innerJoin(delivery.group).fetch()
+            .leftJoin(delivery.rubrics).fetch()
+            .where(predicate, isLastDelivery(assignment))
+            .distinct()
+            .list(delivery).stream()
             .sorted(byState.thenComparing(bySubmissionDate))
             .collect(Collectors.toList());
     }
 
+    /**
+     * Predicate that holds for the most recent delivery of each group for an assignment.
+     * Deliveries with the same timestamp are ordered by their id. The lookup of newer
+     * deliveries is covered by the {@code assignment_deliveries_group_created} index.
+     * @param assignment current assignment
+     * @return the predicate
+     */
+    public static BooleanExpression isLastDelivery(Assignment assignment) {
+        QDelivery newer = new QDelivery("newer");
+        return new JPASubQuery().from(newer)
+            .where(newer.assignment.eq(assignment)
+                .and(newer.group.groupNumber.eq(delivery.group.groupNumber))
+                .and(newer.timestamp.gt(delivery.timestamp)
+                    .or(newer.timestamp.eq(delivery.timestamp)
+                        .and(newer.deliveryId.gt(delivery.deliveryId)))))
+            .notExists();
+    }
+
     public static <R> BinaryOperator<R> mergeUsingMax(Comparator<? super R> comparator) {
         return (a,b) -> comparator.compare(a, b) >= 0 ? a : b;
     }
@@ -141,6 +199,137 @@ public class Deliveries extends Controller<Delivery> {
             ));
     }
 
+    /**
+     * Get the ids of the most recent delivery for every group in this assignment.
+     * @param assignment current assignment
+     * @return the delivery ids, ordered by group number
+     */
+    @Transactional
+    public List<Long> getLastDeliveryIds(Assignment assignment) {
+        return query().from(delivery)
+            .where(delivery.assignment.eq(assignment), isLastDelivery(assignment))
+            .orderBy(delivery.group.groupNumber.asc())
+            .list(delivery.deliveryId);
+    }
+
+    /**
+     * Get deliveries for grading. The group, its members and the rubrics are fetched in the
+     * same query.
+     * @param deliveryIds ids of the deliveries
+     * @return the deliveries
+     */
+    @Transactional
+    public List<Delivery> listForGrading(Collection<Long> deliveryIds) {
+        if (deliveryIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        QGroup group = new QGroup("deliveryGroup");
+        return query().from(delivery)
+            .innerJoin(delivery.group, group).fetch()
+            .leftJoin(group.members).fetch()
+            .leftJoin(delivery.rubrics).fetch()
+            .where(delivery.deliveryId.in(deliveryIds))
+            .distinct()
+            .list(delivery);
+    }
+
+    /**
+     * Get all deliveries for several groups
+     * @param assignment assignment to look for
+     * @param groupNumbers numbers of the groups to look for
+     * @return list of deliveries, most recent first
+     */
+    @Transactional
+    public List<Delivery> getDeliveries(Assignment assignment, Collection<Long> groupNumbers) {
+        if (groupNumbers.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        return query().from(delivery)
+            .where(delivery.assignment.eq(assignment)
+                .and(delivery.group.groupNumber.in(groupNumbers)))
+            .orderBy(delivery.timestamp.desc())
+            .list(delivery);
+    }
+
+    /**
+     * Stream the most recent delivery of every student for an assignment. Only the columns
+     * needed for a grade export are selected, so the persistence context does not grow with
+     * the number of rows. The stream must be closed after use.
+     * @param assignment current assignment
+     * @return a stream of grades, ordered by student
+     */
+    @Transactional
+    public Stream<StudentGrade> streamLastGradesByStudent(Assignment assignment) {
+        QUser student = new QUser("student");
+        QGroup group = new QGroup("deliveryGroup");
+
+        Stream<StudentGrade> grades = toStream(query().from(delivery)
+            .innerJoin(delivery.students, student)
+            .innerJoin(delivery.group, group)
+            .where(delivery.assignment.eq(assignment))
+            .orderBy(student.id.asc(), delivery.timestamp.desc(), delivery.deliveryId.desc())
+            .iterate(Projections.constructor(StudentGrade.class,
+                student.id, student.netId, student.studentNumber, student.name, group,
+                delivery.deliveryId, delivery.review.state, delivery.review.grade)));
+
+        // Rows are ordered by student and recency, so keep the first row of every student
+        long[] previousStudent = { -1 };
+        return grades.filter(grade -> {
+            boolean first = grade.getStudentId() != previousStudent[0];
+            previousStudent[0] = grade.getStudentId();
+            return first;
+        });
+    }
+
+    /**
+     * Calculate the rubric points for every delivery of an assignment, before they are
+     * limited to the achievable number of points.
+     * @param assignment current assignment
+     * @return a map from delivery id to the weighted sum of the mastery points
+     */
+    @Transactional
+    public Map<Long, Double> getRubricPoints(Assignment assignment) {
+        return query().from(delivery)
+            .innerJoin(delivery.rubrics, mastery)
+            .where(delivery.assignment.eq(assignment))
+            .groupBy(delivery.deliveryId)
+            .map(delivery.deliveryId, mastery.points.multiply(mastery.characteristic.weight).sum());
+    }
+
+    /**
+     * Get the group numbers of the groups that delivered for this assignment.
+     * @param assignment current assignment
+     * @return the group numbers in ascending order
+     */
+    @Transactional
+    public List<Long> getDeliveredGroupNumbers(Assignment assignment) {
+        return query().from(delivery)
+            .where(delivery.assignment.eq(assignment), isLastDelivery(assignment))
+            .orderBy(delivery.group.groupNumber.asc())
+            .list(delivery.group.groupNumber);
+    }
+
+    /**
+     * Get the mastery points for the most recent delivery of every group for this assignment.
+     * @param assignment current assignment
+     * @return a table from characteristic id and group number to the points of the mastery
+     */
+    @Transactional
+    public Table<Long, Long, Double> getLastRubricPoints(Assignment assignment) {
+        Table<Long, Long, Double> points = HashBasedTable.create();
+        query().from(delivery)
+            .innerJoin(delivery.rubrics, mastery)
+            .where(delivery.assignment.eq(assignment), isLastDelivery(assignment))
+            .list(mastery.characteristic.id, delivery.group.groupNumber, mastery.points)
+            .forEach(tuple -> points.put(
+                tuple.get(mastery.characteristic.id),
+                tuple.get(delivery.group.groupNumber),
+                tuple.get(mastery.points)));
+        return points;
+    }
+
     /**
      * Find delivery by id
      * @param deliveryId id for delivery
@@ -156,24 +345,31 @@ public class Deliveries extends Controller<Delivery> {
     }
 
     /**
-     * Return the most recent deliveries.
-     * @param groups Groups to search deliveries for.
-     * @param limit Maximal number of results.
-     * @return A list of deliveries.
+     * The grade of a student for an assignment.
      */
-    @Transactional
-    public Stream<Delivery> getMostRecentDeliveries(List<Group> groups, long limit) {
-        Map<Group, List<Delivery>> deliveriesMap = query().from(delivery)
-            .where(delivery.group.in(groups))
-            .orderBy(delivery.timestamp.desc())
-            .limit(limit)
-            .transform(groupBy(delivery.group).as(list(delivery)));
+    @Value
+    public static class StudentGrade {
 
-        Comparator<Delivery> byState = comparing(Delivery::getState);
-        Comparator<Delivery> bySubmissionDate = Comparator.<Delivery> naturalOrder();
+        Long studentId;
+
+        String netId;
+
+        String studentNumber;
+
+        String name;
+
+        Group group;
+
+        Long deliveryId;
+
+        State state;
+
+        Double grade;
+
+        public State getState() {
+            return state == null ? State.SUBMITTED : state;
+        }
 
-        return deliveriesMap.values().stream().map((deliveries) ->
-            deliveries.stream().max(bySubmissionDate).get())
-            .sorted(byState.thenComparing(bySubmissionDate));
     }
+
 }
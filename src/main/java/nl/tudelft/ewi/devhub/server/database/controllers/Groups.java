@@ -1,5 +1,6 @@
 package nl.tudelft.ewi.devhub.server.database.controllers;
 
+import nl.tudelft.ewi.devhub.server.backend.AuthorizationCache;
 import nl.tudelft.ewi.devhub.server.database.entities.CourseEdition;
 import nl.tudelft.ewi.devhub.server.database.entities.Group;
 import nl.tudelft.ewi.devhub.server.database.entities.User;
@@ -10,6 +11,7 @@ import com.google.inject.persist.Transactional;
 import javax.inject.Inject;
 import javax.persistence.EntityManager;
 import java.util.List;
+import java.util.Map;
 
 import static nl.tudelft.ewi.devhub.server.database.entities.QGroup.group;
 
@@ -17,9 +19,36 @@ import static nl.tudelft.ewi.devhub.server.database.entities.QGroup.group;
 
 public class Groups extends Controller<Group> {
 
+	private final AuthorizationCache authorizationCache;
+
 	@Inject
-	public Groups(EntityManager entityManager) {
+	public Groups(EntityManager entityManager, AuthorizationCache authorizationCache) {
 		super(entityManager);
+		this.authorizationCache = authorizationCache;
+	}
+
+	@Override
+	@Transactional
+	public <V extends Group> V persist(V entity) {
+		V result = super.persist(entity);
+		afterCompletion(authorizationCache::invalidateAll);
+		return result;
+	}
+
+	@Override
+	@Transactional
+	public Group merge(Group entity) {
+		Group result = super.merge(entity);
+		afterCompletion(authorizationCache::invalidateAll);
+		return result;
+	}
+
+	@Override
+	@Transactional
+	public Group delete(Group entity) {
+		Group result = super.delete(entity);
+		afterCompletion(authorizationCache::invalidateAll);
+		return result;
 	}
 
 	@Transactional
@@ -50,6 +79,18 @@ public class Groups extends Controller<Group> {
 			.list(group);
 	}
 
+	/**
+	 * @param userId Id of the user.
+	 * @return The group numbers of the groups the user is a member of, indexed by course edition id.
+	 * @see AuthorizationCache
+	 */
+	@Transactional
+	public Map<Long, Long> getGroupNumbersByCourseEdition(long userId) {
+		return query().from(group)
+			.where(group.members.any().id.eq(userId))
+			.map(group.courseEdition.id, group.groupNumber);
+	}
+
 	@Transactional
 	public Group find(CourseEdition course, long groupNumber) {
 		Preconditions.checkNotNull(course);
@@ -5,33 +5,33 @@ import javax.persistence.EntityManager;
 import com.google.inject.Inject;
 
 import com.google.inject.persist.Transactional;
-import nl.tudelft.ewi.devhub.server.database.entities.RepositoryEntity;
+import nl.tudelft.ewi.devhub.server.database.entities.CourseEvent;
 import nl.tudelft.ewi.devhub.server.database.entities.comments.IssueComment;
 
-import java.util.List;
-import java.util.stream.Stream;
-
-import static nl.tudelft.ewi.devhub.server.database.entities.comments.QIssueComment.issueComment;
+import java.util.Collections;
 
 public class IssueComments extends Controller<IssueComment> {
 
+	private final CourseEvents courseEvents;
+
 	@Inject
-	public IssueComments(EntityManager entityManager) {
+	public IssueComments(EntityManager entityManager, CourseEvents courseEvents) {
 		super(entityManager);
+		this.courseEvents = courseEvents;
 	}
 
 	/**
-	 * Get the most recent issue comments.
-	 * @param repositoryEntities The repository entities to include.
-	 * @param limit The maximal number of results.
-	 * @return The list of most recent pull request comments.
+	 * Persist a comment, and append it to the activity stream of its course.
+	 * @param comment Comment to persist
+	 * @return The persisted comment
 	 */
+	@Override
 	@Transactional
-	public Stream<? extends IssueComment> getMostRecentIssueComments(List<? extends RepositoryEntity> repositoryEntities, int limit) {
-		return toStream(query().from(issueComment)
-			.where(issueComment.issue.repository.in(repositoryEntities))
-			.orderBy(issueComment.timestamp.desc())
-			.limit(limit)
-			.iterate(issueComment));
+	public <V extends IssueComment> V persist(V comment) {
+		V persisted = super.persist(comment);
+		CourseEvents.getCourseEdition(comment.getRepository()).ifPresent(courseEdition ->
+			courseEvents.append(Collections.singleton(CourseEvent.of(courseEdition, comment))));
+		return persisted;
 	}
+
 }
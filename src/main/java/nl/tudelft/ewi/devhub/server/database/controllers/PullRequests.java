@@ -1,5 +1,6 @@
 package nl.tudelft.ewi.devhub.server.database.controllers;
 
+import nl.tudelft.ewi.devhub.server.database.entities.CourseEvent;
 import nl.tudelft.ewi.devhub.server.database.entities.RepositoryEntity;
 import nl.tudelft.ewi.devhub.server.database.entities.issues.PullRequest;
 
@@ -7,9 +8,9 @@ import com.google.inject.Inject;
 import com.google.inject.persist.Transactional;
 
 import javax.persistence.EntityManager;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Stream;
 
 import static nl.tudelft.ewi.devhub.server.database.entities.issues.QPullRequest.pullRequest;
 
@@ -18,9 +19,26 @@ import static nl.tudelft.ewi.devhub.server.database.entities.issues.QPullRequest
  */
 public class PullRequests extends Controller<PullRequest> {
 
+	private final CourseEvents courseEvents;
+
 	@Inject
-	public PullRequests(final EntityManager entityManager) {
+	public PullRequests(final EntityManager entityManager, final CourseEvents courseEvents) {
 		super(entityManager);
+		this.courseEvents = courseEvents;
+	}
+
+	/**
+	 * Persist a pull request, and append it to the activity stream of its course.
+	 * @param entity Pull request to persist
+	 * @return The persisted pull request
+	 */
+	@Override
+	@Transactional
+	public <V extends PullRequest> V persist(V entity) {
+		V persisted = super.persist(entity);
+		CourseEvents.getCourseEdition(entity.getRepository()).ifPresent(courseEdition ->
+			courseEvents.append(Collections.singleton(CourseEvent.of(courseEdition, entity))));
+		return persisted;
 	}
 
 	/**
@@ -95,19 +113,4 @@ public class PullRequests extends Controller<PullRequest> {
 			.exists();
 	}
 
-	/**
-	 * Find the most recent pull requests for the given repositories.
-	 * @param repositoryEntities The repositories to query.
-	 * @param limit The maximal number of results.
-     * @return A list of pull requests.
-     */
-	@Transactional
-	public Stream<PullRequest> findLastPullRequests(final List<? extends RepositoryEntity> repositoryEntities, long limit) {
-		return toStream(query().from(pullRequest)
-			.where(pullRequest.repository.in(repositoryEntities))
-			.orderBy(pullRequest.timestamp.desc())
-			.limit(limit)
-			.iterate(pullRequest));
-	}
-
 }
@@ -0,0 +1,147 @@
+package nl.tudelft.ewi.devhub.server.database.controllers;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.inject.Inject;
+import com.google.inject.persist.Transactional;
+import com.mysema.query.jpa.impl.JPADeleteClause;
+import com.mysema.query.jpa.impl.JPAUpdateClause;
+import com.mysema.query.types.expr.BooleanExpression;
+import nl.tudelft.ewi.devhub.server.database.entities.QueuedMail;
+
+import javax.persistence.EntityManager;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static nl.tudelft.ewi.devhub.server.database.entities.QQueuedMail.queuedMail;
+
+/**
+ * Data access object for the {@link QueuedMail mail outbox}. Senders claim the mails of an
+ * addressee with a lease, so that several senders, possibly on different nodes, can process
+ * the outbox concurrently without sending a mail twice.
+ *
+ * @author Jan-Willem Gmelig Meyling
+ */
+public class QueuedMails extends Controller<QueuedMail> {
+
+	@Inject
+	public QueuedMails(final EntityManager entityManager) {
+		super(entityManager);
+	}
+
+	/**
+	 * Add mails to the outbox, flushing once for all mails.
+	 *
+	 * @param mails Mails to queue.
+	 */
+	@Transactional
+	public void queue(Collection<QueuedMail> mails) {
+		mails.forEach(entityManager::persist);
+		entityManager.flush();
+	}
+
+	/**
+	 * List addressees with at least one mail that is due and not claimed.
+	 *
+	 * @param now Current time.
+	 * @param limit Maximal number of addressees.
+	 * @return The addressees.
+	 */
+	@Transactional
+	public List<String> listDueAddressees(Date now, int limit) {
+		return query().from(queuedMail)
+			.where(queuedMail.sendAfter.loe(now).and(isUnclaimed(now)))
+			.distinct()
+			.limit(limit)
+			.list(queuedMail.addressee);
+	}
+
+	/**
+	 * Claim all unclaimed mails for an addressee, including mails that are not yet due,
+	 * so they are combined into a single digest.
+	 *
+	 * @param addressee Addressee to claim the mails for.
+	 * @param owner Unique identifier of the sender.
+	 * @param now Current time.
+	 * @param leaseUntil Time until which the claim holds.
+	 * @return The claimed mails, oldest first. Empty if another sender claimed the mails first.
+	 */
+	@Transactional
+	public List<QueuedMail> claim(String addressee, String owner, Date now, Date leaseUntil) {
+		Preconditions.checkNotNull(addressee);
+		Preconditions.checkNotNull(owner);
+
+		long claimed = new JPAUpdateClause(entityManager, queuedMail)
+			.where(queuedMail.addressee.eq(addressee).and(isUnclaimed(now)))
+			.set(queuedMail.leaseOwner, owner)
+			.set(queuedMail.leaseUntil, leaseUntil)
+			.execute();
+
+		if (claimed == 0) {
+			return ImmutableList.of();
+		}
+
+		return query().from(queuedMail)
+			.where(queuedMail.addressee.eq(addressee).and(queuedMail.leaseOwner.eq(owner)))
+			.orderBy(queuedMail.created.asc(), queuedMail.id.asc())
+			.list(queuedMail);
+	}
+
+	/**
+	 * Remove mails that were delivered to the SMTP server.
+	 *
+	 * @param mails Delivered mails.
+	 */
+	@Transactional
+	public void delivered(Collection<QueuedMail> mails) {
+		if (mails.isEmpty()) {
+			return;
+		}
+
+		new JPADeleteClause(entityManager, queuedMail)
+			.where(queuedMail.id.in(ids(mails)))
+			.execute();
+	}
+
+	/**
+	 * Release the claim on mails that could not be delivered, and retry them later.
+	 *
+	 * @param mails Failed mails.
+	 * @param retryAt Time at which to retry the mails.
+	 */
+	@Transactional
+	public void failed(Collection<QueuedMail> mails, Date retryAt) {
+		if (mails.isEmpty()) {
+			return;
+		}
+
+		new JPAUpdateClause(entityManager, queuedMail)
+			.where(queuedMail.id.in(ids(mails)))
+			.set(queuedMail.attempts, queuedMail.attempts.add(1))
+			.set(queuedMail.sendAfter, retryAt)
+			.setNull(queuedMail.leaseOwner)
+			.setNull(queuedMail.leaseUntil)
+			.execute();
+	}
+
+	/**
+	 * @return Number of mails in the outbox.
+	 */
+	@Transactional
+	public long countQueued() {
+		return query().from(queuedMail).count();
+	}
+
+	private static BooleanExpression isUnclaimed(Date now) {
+		return queuedMail.leaseUntil.isNull().or(queuedMail.leaseUntil.lt(now));
+	}
+
+	private static List<Long> ids(Collection<QueuedMail> mails) {
+		return mails.stream()
+			.map(QueuedMail::getId)
+			.collect(Collectors.toList());
+	}
+
+}
@@ -4,11 +4,13 @@ import nl.tudelft.ewi.devhub.server.database.entities.QUser;
 import nl.tudelft.ewi.devhub.server.database.entities.User;
 
 import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.inject.persist.Transactional;
 
 import javax.inject.Inject;
 import javax.persistence.EntityManager;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -58,6 +60,20 @@ public class Users extends Controller<User> {
 			.list(QUser.user);
 	}
 
+	@Transactional
+	public List<User> listByIds(Collection<Long> ids) {
+		Preconditions.checkNotNull(ids);
+
+		if (ids.isEmpty()) {
+			return Lists.newArrayList();
+		}
+
+		return query().from(QUser.user)
+			.where(QUser.user.id.in(ids))
+			.orderBy(QUser.user.netId.toLowerCase().asc())
+			.list(QUser.user);
+	}
+
 	@Transactional
 	public Map<String, User> mapByNetIds(Set<String> netIds) {
 		Preconditions.checkNotNull(netIds);
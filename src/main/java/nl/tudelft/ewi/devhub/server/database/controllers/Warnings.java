@@ -6,20 +6,25 @@ import nl.tudelft.ewi.devhub.server.database.entities.RepositoryEntity;
 import nl.tudelft.ewi.devhub.server.database.entities.warnings.CommitWarning;
 import nl.tudelft.ewi.devhub.server.database.entities.warnings.LineWarning;
 import nl.tudelft.ewi.devhub.server.database.entities.warnings.Warning;
+import nl.tudelft.ewi.devhub.server.database.entities.warnings.WarningScope;
 
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Sets;
 import com.google.inject.Inject;
 import com.google.inject.persist.Transactional;
-import com.mysema.query.jpa.JPASubQuery;
-import com.mysema.query.types.query.ListSubQuery;
+import com.mysema.query.types.expr.Wildcard;
+import lombok.extern.slf4j.Slf4j;
 
 import javax.persistence.EntityManager;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import static java.util.stream.Collectors.counting;
+import static java.util.stream.Collectors.groupingBy;
 import static java.util.stream.Collectors.toSet;
 import static nl.tudelft.ewi.devhub.server.database.entities.warnings.QCommitWarning.commitWarning;
 import static nl.tudelft.ewi.devhub.server.database.entities.warnings.QLineWarning.lineWarning;
@@ -28,11 +33,15 @@ import static nl.tudelft.ewi.devhub.server.database.entities.warnings.QLineWarni
  * Data access object for Warnings
  * @author Jan-Willem Gmelig Meyling
  */
+@Slf4j
 public class Warnings extends Controller<Warning> {
 
+    private final CommitCounters commitCounters;
+
     @Inject
-    public Warnings(EntityManager entityManager) {
+    public Warnings(EntityManager entityManager, CommitCounters commitCounters) {
         super(entityManager);
+        this.commitCounters = commitCounters;
     }
 
     /**
@@ -45,17 +54,9 @@ public class Warnings extends Controller<Warning> {
         return query().from(commitWarning)
             .where(commitWarning.repository.eq(repositoryEntity)
                 .and(commitWarning.commit.commitId.in(commitIds))
-                    .and(commitWarning.notIn(getLineWarningsNotIntroducedInCommit(repositoryEntity, commitIds))))
+                    .and(commitWarning.scope.in(WarningScope.COMMIT, WarningScope.LINE_INTRODUCED)))
             .groupBy(commitWarning.commit.commitId)
-            .map(commitWarning.commit.commitId, commitWarning.id.count());
-    }
-
-    protected ListSubQuery<LineWarning> getLineWarningsNotIntroducedInCommit(final RepositoryEntity repositoryEntity, final Collection<String> commitIds) {
-        return new JPASubQuery().from(lineWarning)
-            .where(lineWarning.repository.eq(repositoryEntity)
-                .and(lineWarning.commit.commitId.in(commitIds)
-                    .and(lineWarning.source.sourceCommit.commitId.ne(lineWarning.commit.commitId))))
-            .list(lineWarning);
+            .map(commitWarning.commit.commitId, Wildcard.count);
     }
 
     /**
@@ -85,17 +86,10 @@ public class Warnings extends Controller<Warning> {
         return query().from(commitWarning)
                 .where(commitWarning.repository.eq(repositoryEntity)
                         .and(commitWarning.commit.commitId.in(commitIds))
-                        .and(commitWarning.notIn(getLineWarningsForQuery(repositoryEntity, commitIds))))
+                        .and(commitWarning.scope.eq(WarningScope.COMMIT)))
                 .list(commitWarning);
     }
 
-    protected ListSubQuery<LineWarning> getLineWarningsForQuery(final RepositoryEntity repositoryEntity, final Collection<String> commitIds) {
-        return new JPASubQuery().from(lineWarning)
-            .where(lineWarning.repository.eq(repositoryEntity)
-                    .and(lineWarning.commit.commitId.in(commitIds)))
-            .list(lineWarning);
-    }
-
     /**
      * Get the {@link LineWarning LineWarnings} for the given commit ids.
      *
@@ -127,7 +121,11 @@ public class Warnings extends Controller<Warning> {
     }
 
     /**
-     * Persist a Set of {@link CommitWarning CommitWarnings}, but filter out the existing warnings
+     * Persist a Set of {@link CommitWarning CommitWarnings}, but filter out the existing warnings.
+     * The counters of the commits are locked first, so that concurrent persists for the same
+     * commits are serialized and cannot both insert the same warning. The new warnings are
+     * inserted in JDBC batches with a single flush.
+     *
      * @param repositoryEntity Group to persist warnings for
      * @param warnings Set of warnings
      * @param <V> Type of warning to be persisted
@@ -138,12 +136,28 @@ public class Warnings extends Controller<Warning> {
         Preconditions.checkNotNull(repositoryEntity);
         Preconditions.checkNotNull(warnings);
 
+        if (warnings.isEmpty()) {
+            return Collections.emptySet();
+        }
+
         final Set<Commit> commits = getCommitsForWarnings(warnings);
-        final List<CommitWarning> existingWarnings = getAllCommitWarningsFor(repositoryEntity, commits);
-        return warnings.stream()
+        commitCounters.lock(repositoryEntity, commits);
+
+        final Set<CommitWarning> existingWarnings = Sets.newHashSet(getAllCommitWarningsFor(repositoryEntity, commits));
+        final Set<V> persistedWarnings = warnings.stream()
             .filter(warning -> !existingWarnings.contains(warning))
-            .map(this::persist)
             .collect(toSet());
+
+        persistedWarnings.forEach(entityManager::persist);
+        entityManager.flush();
+        log.debug("Persisted {} of {} warnings for {}", persistedWarnings.size(), warnings.size(), repositoryEntity);
+
+        persistedWarnings.stream()
+            .filter(warning -> warning.getScope() != WarningScope.LINE_INHERITED)
+            .collect(groupingBy(CommitWarning::getCommit, counting()))
+            .forEach((commit, count) -> commitCounters.incrementWarnings(commit, count.intValue()));
+
+        return persistedWarnings;
     }
 
     /**
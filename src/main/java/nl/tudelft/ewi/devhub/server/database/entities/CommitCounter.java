@@ -0,0 +1,65 @@
+package nl.tudelft.ewi.devhub.server.database.entities;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import nl.tudelft.ewi.devhub.server.database.entities.Commit.CommitId;
+
+import javax.persistence.Column;
+import javax.persistence.EmbeddedId;
+import javax.persistence.Entity;
+import javax.persistence.FetchType;
+import javax.persistence.JoinColumn;
+import javax.persistence.JoinColumns;
+import javax.persistence.MapsId;
+import javax.persistence.OneToOne;
+import javax.persistence.Table;
+
+/**
+ * Denormalized counters for a {@link Commit}, so that the commit list of a branch can
+ * show the number of warnings and comments without counting them for every commit.
+ * The counters are created with the commit, and only changed through the atomic
+ * increments in {@link nl.tudelft.ewi.devhub.server.database.controllers.CommitCounters}.
+ *
+ * @author Jan-Willem Gmelig Meyling
+ */
+@Data
+@Entity
+@Table(name = "commit_counters")
+@ToString(exclude = "commit")
+@EqualsAndHashCode(of = "commitId")
+public class CommitCounter {
+
+	public static CommitCounter newCommitCounter(final Commit commit) {
+		CommitCounter counter = new CommitCounter();
+		counter.setCommit(commit);
+		return counter;
+	}
+
+	/*
+	 * See BuildResult: @Id on the @OneToOne does not work due to HHH-3993.
+	 */
+	@EmbeddedId
+	private CommitId commitId;
+
+	@MapsId
+	@JoinColumns(value = {
+		@JoinColumn(name = "commit_id", referencedColumnName = "commit_id"),
+		@JoinColumn(name = "repository_id", referencedColumnName = "repository_id")
+	})
+	@OneToOne(optional = false, fetch = FetchType.LAZY)
+	private Commit commit;
+
+	/**
+	 * Number of warnings introduced in the commit.
+	 */
+	@Column(name = "warnings", nullable = false, updatable = false)
+	private int warnings;
+
+	/**
+	 * Number of comments on the commit, including inline comments.
+	 */
+	@Column(name = "comments", nullable = false, updatable = false)
+	private int comments;
+
+}
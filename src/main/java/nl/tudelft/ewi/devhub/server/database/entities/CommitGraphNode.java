@@ -0,0 +1,68 @@
+package nl.tudelft.ewi.devhub.server.database.entities;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import nl.tudelft.ewi.devhub.server.database.entities.Commit.CommitId;
+
+import javax.persistence.Column;
+import javax.persistence.EmbeddedId;
+import javax.persistence.Entity;
+import javax.persistence.FetchType;
+import javax.persistence.JoinColumn;
+import javax.persistence.JoinColumns;
+import javax.persistence.MapsId;
+import javax.persistence.OneToOne;
+import javax.persistence.Table;
+
+/**
+ * Position of a {@link Commit} in the commit graph of its repository. The node is created
+ * with the commit, and is used to walk the ancestry of commits without loading the parents
+ * of every commit separately. See {@link nl.tudelft.ewi.devhub.server.database.controllers.CommitGraphs}.
+ *
+ * @author Jan-Willem Gmelig Meyling
+ */
+@Data
+@Entity
+@Table(name = "commit_graph")
+@ToString(exclude = "commit")
+@EqualsAndHashCode(of = "commitId")
+public class CommitGraphNode {
+
+	public static CommitGraphNode newCommitGraphNode(final Commit commit, final int generation, final String firstParent) {
+		CommitGraphNode node = new CommitGraphNode();
+		node.setCommit(commit);
+		node.setGeneration(generation);
+		node.setFirstParent(firstParent);
+		return node;
+	}
+
+	/*
+	 * See BuildResult: @Id on the @OneToOne does not work due to HHH-3993.
+	 */
+	@EmbeddedId
+	private CommitId commitId;
+
+	@MapsId
+	@JoinColumns(value = {
+		@JoinColumn(name = "commit_id", referencedColumnName = "commit_id"),
+		@JoinColumn(name = "repository_id", referencedColumnName = "repository_id")
+	})
+	@OneToOne(optional = false, fetch = FetchType.LAZY)
+	private Commit commit;
+
+	/**
+	 * One more than the highest generation of the parents, or one for a root commit. A commit
+	 * can only be an ancestor of commits with a higher generation.
+	 */
+	@Column(name = "generation", nullable = false, updatable = false)
+	private int generation;
+
+	/**
+	 * Commit id of the first parent, or {@code null} for a root commit. The order of the parents
+	 * is not kept in the {@code commit_parent} table.
+	 */
+	@Column(name = "first_parent_id", updatable = false)
+	private String firstParent;
+
+}
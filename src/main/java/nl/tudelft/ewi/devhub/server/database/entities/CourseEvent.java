@@ -0,0 +1,154 @@
+package nl.tudelft.ewi.devhub.server.database.entities;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import nl.tudelft.ewi.devhub.server.database.entities.comments.CommitComment;
+import nl.tudelft.ewi.devhub.server.database.entities.comments.IssueComment;
+import nl.tudelft.ewi.devhub.server.database.entities.issues.PullRequest;
+
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.FetchType;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+import javax.persistence.JoinColumn;
+import javax.persistence.JoinColumns;
+import javax.persistence.ManyToOne;
+import javax.persistence.Table;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
+import java.util.Date;
+
+/**
+ * An entry in the activity stream of a {@link CourseEdition}. Entries are appended when a
+ * commit, comment, pull request or delivery is persisted, and are never updated. Exactly one
+ * of the references is set, depending on the {@link Type}.
+ *
+ * @author Jan-Willem Gmelig Meyling
+ */
+@Data
+@Entity
+@Table(name = "course_event")
+@ToString(of = {"id", "type", "timestamp"})
+@EqualsAndHashCode(of = "id")
+public class CourseEvent {
+
+	public enum Type {
+		COMMIT, COMMIT_COMMENT, PULL_REQUEST, ISSUE_COMMENT, DELIVERY
+	}
+
+	public static CourseEvent of(final CourseEdition courseEdition, final Commit commit) {
+		CourseEvent event = newCourseEvent(courseEdition, Type.COMMIT, commit.getPushTime());
+		event.setCommit(commit);
+		return event;
+	}
+
+	public static CourseEvent of(final CourseEdition courseEdition, final CommitComment commitComment) {
+		CourseEvent event = newCourseEvent(courseEdition, Type.COMMIT_COMMENT, commitComment.getTimestamp());
+		event.setCommitComment(commitComment);
+		return event;
+	}
+
+	public static CourseEvent of(final CourseEdition courseEdition, final PullRequest pullRequest) {
+		CourseEvent event = newCourseEvent(courseEdition, Type.PULL_REQUEST, pullRequest.getTimestamp());
+		event.setPullRequest(pullRequest);
+		return event;
+	}
+
+	public static CourseEvent of(final CourseEdition courseEdition, final IssueComment issueComment) {
+		CourseEvent event = newCourseEvent(courseEdition, Type.ISSUE_COMMENT, issueComment.getTimestamp());
+		event.setIssueComment(issueComment);
+		return event;
+	}
+
+	public static CourseEvent of(final CourseEdition courseEdition, final Delivery delivery) {
+		CourseEvent event = newCourseEvent(courseEdition, Type.DELIVERY, delivery.getTimestamp());
+		event.setDelivery(delivery);
+		return event;
+	}
+
+	private static CourseEvent newCourseEvent(final CourseEdition courseEdition, final Type type, final Date timestamp) {
+		CourseEvent event = new CourseEvent();
+		event.setCourseEdition(courseEdition);
+		event.setType(type);
+		event.setTimestamp(timestamp != null ? timestamp : new Date());
+		return event;
+	}
+
+	@Id
+	@Column(name = "id")
+	@GeneratedValue(generator = "course_event_seq")
+	@GenericGenerator(name = "course_event_seq", strategy = "org.hibernate.id.enhanced.SequenceStyleGenerator",
+		parameters = {
+			// Events for new commits are inserted in bulk, and identity columns disable JDBC batching
+			@Parameter(name = "sequence_name", value = "course_event_seq"),
+			@Parameter(name = "increment_size", value = "50"),
+			@Parameter(name = "optimizer", value = "pooled")
+		})
+	private long id;
+
+	@ManyToOne(optional = false, fetch = FetchType.LAZY)
+	@JoinColumn(name = "course_edition_id", nullable = false, updatable = false)
+	private CourseEdition courseEdition;
+
+	@Column(name = "timestamp", nullable = false, updatable = false)
+	@Temporal(TemporalType.TIMESTAMP)
+	private Date timestamp;
+
+	@Enumerated(EnumType.STRING)
+	@Column(name = "type", nullable = false, updatable = false)
+	private Type type;
+
+	@ManyToOne(fetch = FetchType.LAZY)
+	@JoinColumns({
+		@JoinColumn(name = "repository_id", referencedColumnName = "repository_id", updatable = false),
+		@JoinColumn(name = "commit_id", referencedColumnName = "commit_id", updatable = false)
+	})
+	private Commit commit;
+
+	@ManyToOne(fetch = FetchType.LAZY)
+	@JoinColumn(name = "commit_comment_id", updatable = false)
+	private CommitComment commitComment;
+
+	@ManyToOne(fetch = FetchType.LAZY)
+	@JoinColumns({
+		@JoinColumn(name = "issue_repository_id", referencedColumnName = "repository_id", updatable = false),
+		@JoinColumn(name = "issue_id", referencedColumnName = "issue_id", updatable = false)
+	})
+	private PullRequest pullRequest;
+
+	@ManyToOne(fetch = FetchType.LAZY)
+	@JoinColumn(name = "issue_comment_id", updatable = false)
+	private IssueComment issueComment;
+
+	@ManyToOne(fetch = FetchType.LAZY)
+	@JoinColumn(name = "delivery_id", updatable = false)
+	private Delivery delivery;
+
+	/**
+	 * @return The commit, comment, pull request or delivery this entry refers to.
+	 */
+	public Event getEvent() {
+		switch (type) {
+			case COMMIT:
+				return getCommit();
+			case COMMIT_COMMENT:
+				return getCommitComment();
+			case PULL_REQUEST:
+				return getPullRequest();
+			case ISSUE_COMMENT:
+				return getIssueComment();
+			case DELIVERY:
+				return getDelivery();
+			default:
+				throw new IllegalStateException("Unknown event type " + type);
+		}
+	}
+
+}
@@ -33,6 +33,13 @@ public class DeliveryAttachment implements Base {
     @JoinColumn(name = "delivery_id")
     private Delivery delivery;
 
+    /**
+     * Hex encoded SHA-256 hash of the contents, or {@code null} for attachments
+     * that were stored before hashes were recorded.
+     */
+    @Column(name = "content_hash")
+    private String contentHash;
+
     /**
      * @return the File name for this attachment
      */
@@ -0,0 +1,77 @@
+package nl.tudelft.ewi.devhub.server.database.entities;
+
+import lombok.Data;
+import lombok.ToString;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
+import javax.validation.constraints.NotNull;
+import java.util.Date;
+
+/**
+ * A mail in the outbox. Mails are queued in the transaction that triggers them, and removed
+ * once they have been delivered to the SMTP server.
+ *
+ * @author Jan-Willem Gmelig Meyling
+ */
+@Data
+@Entity
+@Table(name = "queued_mail")
+@ToString(exclude = { "content" })
+public class QueuedMail {
+
+	@Id
+	@Column(name = "id")
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private long id;
+
+	@NotNull
+	@Column(name = "addressee")
+	private String addressee;
+
+	@NotNull
+	@Column(name = "subject")
+	private String subject;
+
+	@NotNull
+	@Column(name = "content")
+	private String content;
+
+	@NotNull
+	@Column(name = "created")
+	@Temporal(TemporalType.TIMESTAMP)
+	private Date created;
+
+	/**
+	 * Time before which the mail is not sent, so that mails for the same addressee
+	 * can be combined into a digest.
+	 */
+	@NotNull
+	@Column(name = "send_after")
+	@Temporal(TemporalType.TIMESTAMP)
+	private Date sendAfter;
+
+	@Column(name = "attempts")
+	private int attempts;
+
+	/**
+	 * Sender that claimed the mail, or {@code null} if it is not claimed.
+	 */
+	@Column(name = "lease_owner")
+	private String leaseOwner;
+
+	/**
+	 * Time until which the claim of the sender holds. Claims of a sender that
+	 * stopped while sending expire, so the mail is sent by another sender.
+	 */
+	@Column(name = "lease_until")
+	@Temporal(TemporalType.TIMESTAMP)
+	private Date leaseUntil;
+
+}
@@ -1,7 +1,9 @@
 package nl.tudelft.ewi.devhub.server.database.entities.warnings;
 
+import lombok.AccessLevel;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
+import lombok.Setter;
 import lombok.ToString;
 import nl.tudelft.ewi.devhub.server.database.entities.Commit;
 
@@ -11,9 +13,13 @@ import org.hibernate.annotations.JoinColumnOrFormula;
 import org.hibernate.annotations.JoinColumnsOrFormulas;
 import org.hibernate.annotations.JoinFormula;
 
+import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
+import javax.persistence.PrePersist;
 import javax.validation.constraints.NotNull;
 
 /**
@@ -26,7 +32,7 @@ import javax.validation.constraints.NotNull;
 @Data
 @Entity
 @ToString(callSuper = true)
-@EqualsAndHashCode(callSuper = true)
+@EqualsAndHashCode(callSuper = true, exclude = "scope")
 public abstract class CommitWarning extends Warning {
 
     @NotNull
@@ -38,9 +44,27 @@ public abstract class CommitWarning extends Warning {
     })
     private Commit commit;
 
+    @JsonIgnore
+    @Setter(AccessLevel.NONE)
+    @Enumerated(EnumType.STRING)
+    @Column(name = "scope", updatable = false)
+    private WarningScope scope;
+
     public void setCommit(final Commit commit) {
         this.commit = commit;
         setRepository(commit.getRepository());
     }
 
+    @PrePersist
+    protected void prePersist() {
+        this.scope = determineScope();
+    }
+
+    /**
+     * @return the {@link WarningScope} for this warning
+     */
+    protected WarningScope determineScope() {
+        return WarningScope.COMMIT;
+    }
+
 }
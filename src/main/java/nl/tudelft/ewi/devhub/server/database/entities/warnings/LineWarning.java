@@ -25,4 +25,10 @@ public abstract class LineWarning extends CommitWarning {
     @Embedded
     private Source source;
 
+    @Override
+    protected WarningScope determineScope() {
+        return source.getSourceCommit().equals(getCommit()) ?
+            WarningScope.LINE_INTRODUCED : WarningScope.LINE_INHERITED;
+    }
+
 }
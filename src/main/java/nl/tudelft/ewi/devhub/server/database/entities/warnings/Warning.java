@@ -7,12 +7,13 @@ import nl.tudelft.ewi.devhub.server.web.templating.Translator;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.Column;
 import javax.persistence.DiscriminatorColumn;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
-import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.Inheritance;
 import javax.persistence.InheritanceType;
@@ -36,7 +37,14 @@ public abstract class Warning {
     @Id
     @Column(name = "id")
     @JsonIgnore
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "group_warning_seq")
+    @GenericGenerator(name = "group_warning_seq", strategy = "org.hibernate.id.enhanced.SequenceStyleGenerator",
+        parameters = {
+            // Warnings are inserted in bulk, and identity columns disable JDBC batching
+            @Parameter(name = "sequence_name", value = "group_warning_seq"),
+            @Parameter(name = "increment_size", value = "50"),
+            @Parameter(name = "optimizer", value = "pooled")
+        })
     private long id;
 
     @ManyToOne
@@ -0,0 +1,27 @@
+package nl.tudelft.ewi.devhub.server.database.entities.warnings;
+
+/**
+ * The {@code WarningScope} distinguishes warnings for a commit from warnings for a line
+ * in a commit. It is stored with every {@link CommitWarning}, so that warnings can be
+ * filtered on scope from an index, instead of with a subquery over the {@link LineWarning LineWarnings}.
+ *
+ * @author Jan-Willem Gmelig Meyling
+ */
+public enum WarningScope {
+
+    /**
+     * A warning for the commit as a whole.
+     */
+    COMMIT,
+
+    /**
+     * A {@link LineWarning} for a line that was introduced in the commit of the warning.
+     */
+    LINE_INTRODUCED,
+
+    /**
+     * A {@link LineWarning} for a line that was introduced in an earlier commit.
+     */
+    LINE_INHERITED
+
+}
@@ -0,0 +1,66 @@
+package nl.tudelft.ewi.devhub.server.metrics;
+
+import javax.ws.rs.HttpMethod;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+/**
+ * Decorates a JAX-RS client proxy so that every HTTP call it makes is recorded in the
+ * {@link RequestMetrics} of the current request. Sub-resource locators, such as
+ * {@link nl.tudelft.ewi.git.web.api.RepositoriesApi#getRepository(String)}, do not make a call
+ * themselves, but the resources they return are decorated as well.
+ *
+ * @author Jan-Willem Gmelig Meyling
+ */
+public class RemoteCallCounter {
+
+	private RemoteCallCounter() {
+	}
+
+	/**
+	 * Decorate a client proxy.
+	 *
+	 * @param type Interface of the client proxy.
+	 * @param target The client proxy.
+	 * @param <T> Type of the client proxy.
+	 * @return The decorated client proxy.
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> T decorate(Class<T> type, T target) {
+		return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, (proxy, method, args) -> {
+			if (isHttpCall(method)) {
+				RequestMetrics.remoteCall(type.getSimpleName() + "." + method.getName());
+			}
+
+			Object result;
+			try {
+				result = method.invoke(target, args);
+			}
+			catch (InvocationTargetException e) {
+				throw e.getCause();
+			}
+
+			if (result != null && isSubResourceLocator(method)) {
+				return decorate((Class<Object>) method.getReturnType(), result);
+			}
+			return result;
+		});
+	}
+
+	private static boolean isHttpCall(Method method) {
+		for (Annotation annotation : method.getAnnotations()) {
+			if (annotation.annotationType().isAnnotationPresent(HttpMethod.class)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static boolean isSubResourceLocator(Method method) {
+		return method.getReturnType().isInterface() && !isHttpCall(method)
+			&& method.getDeclaringClass() != Object.class;
+	}
+
+}
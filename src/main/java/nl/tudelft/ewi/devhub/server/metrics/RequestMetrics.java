@@ -0,0 +1,172 @@
+package nl.tudelft.ewi.devhub.server.metrics;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import lombok.Value;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Counts the SQL statements, entity loads and git server calls made while handling a single
+ * request. The counters are bound to the thread that handles the request, and are updated by the
+ * {@link nl.tudelft.ewi.devhub.server.database.StatementCountingInterceptor} and the
+ * {@link RemoteCallCounter}. Work on other threads is not counted.
+ *
+ * @author Jan-Willem Gmelig Meyling
+ */
+public class RequestMetrics {
+
+	private static final ThreadLocal<RequestMetrics> CURRENT = new ThreadLocal<>();
+
+	/**
+	 * Statements are grouped by their SQL to find repeated statements. The number of distinct
+	 * statements that is tracked is bounded, so a request that generates unique SQL does not
+	 * grow the map indefinitely.
+	 */
+	private static final int MAX_DISTINCT_STATEMENTS = 256;
+
+	/**
+	 * The number of entries shown in each breakdown.
+	 */
+	private static final int BREAKDOWN_SIZE = 5;
+
+	private final String name;
+	private final long start;
+
+	private int statements;
+	private int entityLoads;
+	private int remoteCalls;
+
+	private final Map<String, Integer> statementCounts;
+	private final Map<String, Integer> entityLoadCounts;
+	private final Map<String, Integer> remoteCallCounts;
+
+	private RequestMetrics(String name) {
+		this.name = name;
+		this.start = System.nanoTime();
+		this.statementCounts = Maps.newHashMap();
+		this.entityLoadCounts = Maps.newHashMap();
+		this.remoteCallCounts = Maps.newHashMap();
+	}
+
+	/**
+	 * Start counting for the current thread.
+	 *
+	 * @param name Name of the request, for example its method and path.
+	 * @return The metrics for the request.
+	 */
+	public static RequestMetrics start(String name) {
+		RequestMetrics metrics = new RequestMetrics(name);
+		CURRENT.set(metrics);
+		return metrics;
+	}
+
+	/**
+	 * Stop counting for the current thread.
+	 *
+	 * @return The summary of the request, or {@code null} if no request was started.
+	 */
+	public static Summary stop() {
+		RequestMetrics metrics = CURRENT.get();
+		CURRENT.remove();
+		return metrics == null ? null : metrics.summarize();
+	}
+
+	/**
+	 * Record an SQL statement on the current thread.
+	 *
+	 * @param sql The SQL of the statement.
+	 */
+	public static void statement(String sql) {
+		RequestMetrics metrics = CURRENT.get();
+		if (metrics != null) {
+			metrics.statements++;
+			if (metrics.statementCounts.size() < MAX_DISTINCT_STATEMENTS || metrics.statementCounts.containsKey(sql)) {
+				metrics.statementCounts.merge(sql, 1, Integer::sum);
+			}
+		}
+	}
+
+	/**
+	 * Record that an entity was loaded from the database on the current thread.
+	 *
+	 * @param entityName Name of the entity.
+	 */
+	public static void entityLoad(String entityName) {
+		RequestMetrics metrics = CURRENT.get();
+		if (metrics != null) {
+			metrics.entityLoads++;
+			metrics.entityLoadCounts.merge(entityName, 1, Integer::sum);
+		}
+	}
+
+	/**
+	 * Record a call to a remote service on the current thread.
+	 *
+	 * @param operation Name of the operation.
+	 */
+	public static void remoteCall(String operation) {
+		RequestMetrics metrics = CURRENT.get();
+		if (metrics != null) {
+			metrics.remoteCalls++;
+			metrics.remoteCallCounts.merge(operation, 1, Integer::sum);
+		}
+	}
+
+	/**
+	 * @return A snapshot of the counters.
+	 */
+	public Summary summarize() {
+		return new Summary(
+			name,
+			TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+			statements,
+			entityLoads,
+			remoteCalls,
+			top(Maps.filterValues(statementCounts, count -> count > 1)),
+			top(entityLoadCounts),
+			top(remoteCallCounts)
+		);
+	}
+
+	private static Map<String, Integer> top(Map<String, Integer> counts) {
+		if (counts.isEmpty()) {
+			return ImmutableMap.of();
+		}
+
+		return counts.entrySet().stream()
+			.sorted(Map.Entry.<String, Integer> comparingByValue(Comparator.reverseOrder()))
+			.limit(BREAKDOWN_SIZE)
+			.collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (a, b) -> a, LinkedHashMap::new));
+	}
+
+	/**
+	 * The counters of a completed request, with the most frequent statements, entity types and
+	 * git calls. Statements that were executed more than once usually point to an N+1 query.
+	 */
+	@Value
+	public static class Summary {
+
+		String name;
+
+		long durationMillis;
+
+		int statements;
+
+		int entityLoads;
+
+		int remoteCalls;
+
+		Map<String, Integer> repeatedStatements;
+
+		Map<String, Integer> entityLoadsByType;
+
+		Map<String, Integer> remoteCallsByOperation;
+
+	}
+
+}
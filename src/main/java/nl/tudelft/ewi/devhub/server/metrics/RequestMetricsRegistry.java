@@ -0,0 +1,204 @@
+package nl.tudelft.ewi.devhub.server.metrics;
+
+import com.google.common.collect.Lists;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import nl.tudelft.ewi.devhub.server.Config;
+import nl.tudelft.ewi.devhub.server.metrics.RequestMetrics.Summary;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Collects the {@link Summary summaries} of completed requests. Keeps totals over all requests
+ * and the most recent requests, and logs requests that take longer than
+ * {@link Config#getSlowRequestThreshold()} with a breakdown of their statements and git calls.
+ *
+ * @author Jan-Willem Gmelig Meyling
+ */
+@Slf4j
+@Singleton
+public class RequestMetricsRegistry {
+
+	private static final int RECENT_REQUESTS = 100;
+
+	private static final int SLOW_REQUESTS = 20;
+
+	private final long slowRequestThreshold;
+
+	/**
+	 * The most recent requests, newest last. Guarded by {@code this}.
+	 */
+	private final Deque<Recorded> recent;
+
+	/**
+	 * The most recent slow requests, newest last. Guarded by {@code this}.
+	 */
+	private final Deque<Summary> slow;
+
+	/**
+	 * Number of requests that have started, but are not recorded yet. Guarded by {@code this}.
+	 */
+	private int inProgress;
+
+	private long requests;
+	private long slowRequests;
+	private long statements;
+	private long entityLoads;
+	private long remoteCalls;
+	private int maxStatements;
+
+	@Inject
+	public RequestMetricsRegistry(Config config) {
+		this.slowRequestThreshold = config.getSlowRequestThreshold();
+		this.recent = new ArrayDeque<>(RECENT_REQUESTS);
+		this.slow = new ArrayDeque<>(SLOW_REQUESTS);
+	}
+
+	/**
+	 * Register a request that has started. It is in progress until it is {@link #record(Summary) recorded}.
+	 */
+	public synchronized void started() {
+		inProgress++;
+	}
+
+	/**
+	 * Record a completed request.
+	 *
+	 * @param summary The summary of the request.
+	 */
+	public void record(Summary summary) {
+		boolean isSlow = summary.getDurationMillis() >= slowRequestThreshold;
+
+		synchronized (this) {
+			inProgress--;
+			notifyAll();
+			requests++;
+			statements += summary.getStatements();
+			entityLoads += summary.getEntityLoads();
+			remoteCalls += summary.getRemoteCalls();
+			maxStatements = Math.max(maxStatements, summary.getStatements());
+
+			add(recent, new Recorded(requests, summary), RECENT_REQUESTS);
+			if (isSlow) {
+				slowRequests++;
+				add(slow, summary, SLOW_REQUESTS);
+			}
+		}
+
+		if (isSlow) {
+			log.warn("Slow request {} took {} ms with {} statements, {} entity loads and {} git calls. " +
+					"Repeated statements: {}, entity loads: {}, git calls: {}",
+				summary.getName(), summary.getDurationMillis(), summary.getStatements(), summary.getEntityLoads(),
+				summary.getRemoteCalls(), summary.getRepeatedStatements(), summary.getEntityLoadsByType(),
+				summary.getRemoteCallsByOperation());
+		}
+	}
+
+	private static <T> void add(Deque<T> deque, T value, int capacity) {
+		if (deque.size() == capacity) {
+			deque.removeFirst();
+		}
+		deque.addLast(value);
+	}
+
+	/**
+	 * @return The number of recorded requests, which can be passed to {@link #getRecordedSince(long)}.
+	 */
+	public synchronized long getMarker() {
+		return requests;
+	}
+
+	/**
+	 * @param marker A value previously returned by {@link #getMarker()}.
+	 * @return The requests recorded after the marker, as far as they are still retained.
+	 */
+	public synchronized List<Summary> getRecordedSince(long marker) {
+		return recent.stream()
+			.filter(recorded -> recorded.getSequence() > marker)
+			.map(Recorded::getSummary)
+			.collect(Collectors.toList());
+	}
+
+	/**
+	 * Wait until all started requests are recorded.
+	 *
+	 * @param timeout The maximal time to wait.
+	 * @param unit The unit of the timeout.
+	 * @return False if requests were still in progress when the timeout elapsed.
+	 * @throws InterruptedException If the thread was interrupted while waiting.
+	 */
+	public synchronized boolean awaitIdle(long timeout, TimeUnit unit) throws InterruptedException {
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		while (inProgress > 0) {
+			long remaining = deadline - System.nanoTime();
+			if (remaining <= 0) {
+				return false;
+			}
+			TimeUnit.NANOSECONDS.timedWait(this, remaining);
+		}
+		return true;
+	}
+
+	/**
+	 * @return The most recent slow requests, newest first.
+	 */
+	public synchronized List<Summary> getSlowRequests() {
+		return Lists.reverse(Lists.newArrayList(slow));
+	}
+
+	/**
+	 * @return The current statistics for all requests.
+	 */
+	public synchronized Statistics getStatistics() {
+		return new Statistics(
+			requests,
+			slowRequests,
+			requests == 0 ? 0 : (double) statements / requests,
+			requests == 0 ? 0 : (double) entityLoads / requests,
+			requests == 0 ? 0 : (double) remoteCalls / requests,
+			maxStatements
+		);
+	}
+
+	@Value
+	private static class Recorded {
+
+		long sequence;
+
+		Summary summary;
+
+	}
+
+	/**
+	 * Snapshot of the per-request metrics for the {@link RequestMetricsRegistry}.
+	 */
+	@Value
+	public static class Statistics {
+
+		long requests;
+
+		/**
+		 * Number of requests that took longer than the configured threshold.
+		 */
+		long slowRequests;
+
+		double averageStatements;
+
+		double averageEntityLoads;
+
+		double averageRemoteCalls;
+
+		/**
+		 * Highest number of statements made by a single request.
+		 */
+		int maxStatements;
+
+	}
+
+}
@@ -0,0 +1,101 @@
+package nl.tudelft.ewi.devhub.server.util;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * In memory commit graph. Commits are numbered, and the parents of every commit are kept
+ * in primitive arrays, so that the graph can be walked without object lookups.
+ *
+ * @author Jan-Willem Gmelig Meyling
+ */
+public class CommitGraph {
+
+	private final String[] commitIds;
+	private final Map<String, Integer> index;
+	private final int[][] parents;
+	private final BitSet built;
+
+	/**
+	 * Create a commit graph.
+	 *
+	 * @param parents The parent commit ids for every commit, first parent first. Parents that are
+	 * 		not a key in the map are not part of the graph.
+	 * @param built Commit ids of the commits that have a build result.
+	 */
+	public CommitGraph(Map<String, ? extends List<String>> parents, Set<String> built) {
+		int size = parents.size();
+		this.commitIds = new String[size];
+		this.index = Maps.newHashMapWithExpectedSize(size);
+		this.parents = new int[size][];
+		this.built = new BitSet(size);
+
+		for (String commitId : parents.keySet()) {
+			int node = index.size();
+			commitIds[node] = commitId;
+			index.put(commitId, node);
+		}
+
+		parents.forEach((commitId, parentIds) -> {
+			int node = index.get(commitId);
+			this.parents[node] = parentIds.stream()
+				.map(index::get)
+				.filter(parent -> parent != null)
+				.mapToInt(Integer::intValue)
+				.toArray();
+			if (built.contains(commitId)) {
+				this.built.set(node);
+			}
+		});
+	}
+
+	/**
+	 * Find the nearest commits without build result, in breadth first order. Commits with a
+	 * build result are not passed, like the {@link CommitIterator} with {@code Commit::hasNoBuildResult}.
+	 *
+	 * @param head Commit id to start from.
+	 * @param limit Maximal number of commits to find.
+	 * @return The commit ids, starting with {@code head} if it has no build result.
+	 */
+	public List<String> findUnbuiltAncestors(String head, int limit) {
+		List<String> result = Lists.newArrayList();
+		Integer start = index.get(head);
+		if (start == null || built.get(start)) {
+			return result;
+		}
+
+		BitSet visited = new BitSet(commitIds.length);
+		int[] queue = new int[commitIds.length];
+		int read = 0;
+		int write = 0;
+		queue[write++] = start;
+		visited.set(start);
+
+		while (read < write && result.size() < limit) {
+			int node = queue[read++];
+			result.add(commitIds[node]);
+			for (int parent : parents[node]) {
+				if (!built.get(parent) && !visited.get(parent)) {
+					visited.set(parent);
+					queue[write++] = parent;
+				}
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * @param commitId Commit id to look up.
+	 * @return True if the commit is part of this graph.
+	 */
+	public boolean contains(String commitId) {
+		return index.containsKey(commitId);
+	}
+
+}
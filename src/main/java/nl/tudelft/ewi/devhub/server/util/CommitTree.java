@@ -0,0 +1,89 @@
+package nl.tudelft.ewi.devhub.server.util;
+
+import nl.tudelft.ewi.git.models.EntryType;
+import nl.tudelft.ewi.git.web.api.CommitApi;
+
+import com.google.common.collect.ImmutableMap;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * In memory listing of all folders under a path in a commit. Every folder is listed once, after
+ * which the tree can be traversed as often as needed without calling the git server again. The
+ * git server has no recursive listing, so listing the tree still takes one call per folder.
+ *
+ * Folders are identified by their path relative to the base path, where the base path itself
+ * is the empty path. Folder names end with {@link FlattenFolderTree#PATH_SEPARATOR}.
+ *
+ * @author Jan-Willem Gmelig Meyling
+ */
+public class CommitTree {
+
+    private final String basePath;
+    private final Map<String, Map<String, EntryType>> folders;
+
+    private CommitTree(String basePath, Map<String, Map<String, EntryType>> folders) {
+        this.basePath = basePath;
+        this.folders = folders;
+    }
+
+    /**
+     * List all folders under a path in a commit.
+     * @param commitApi Commit to list.
+     * @param basePath Path to start listing from.
+     * @return The listed tree.
+     */
+    public static CommitTree list(CommitApi commitApi, String basePath) {
+        Map<String, Map<String, EntryType>> folders = new LinkedHashMap<>();
+        Deque<String> pending = new ArrayDeque<>();
+        pending.add(CommitApi.EMPTY_PATH);
+
+        while (!pending.isEmpty()) {
+            String folder = pending.poll();
+            Map<String, EntryType> entries = commitApi.showTree(resolve(basePath, folder));
+            entries = entries == null ? Collections.emptyMap() : ImmutableMap.copyOf(entries);
+            folders.put(folder, entries);
+
+            entries.forEach((name, type) -> {
+                if (EntryType.FOLDER.equals(type)) {
+                    pending.add(folder + name);
+                }
+            });
+        }
+
+        return new CommitTree(basePath, folders);
+    }
+
+    /**
+     * @return The relative paths of all folders in this tree, parents before their children.
+     */
+    public Set<String> getFolders() {
+        return Collections.unmodifiableSet(folders.keySet());
+    }
+
+    /**
+     * @param folder Relative path of the folder.
+     * @return The entries in the folder, or an empty map if the folder is not in this tree.
+     */
+    public Map<String, EntryType> getEntries(String folder) {
+        return folders.getOrDefault(folder, Collections.emptyMap());
+    }
+
+    /**
+     * @param folder Relative path of a folder.
+     * @return The path of the folder in the commit.
+     */
+    public String getPath(String folder) {
+        return resolve(basePath, folder);
+    }
+
+    private static String resolve(String basePath, String folder) {
+        return folder.isEmpty() ? basePath : basePath.isEmpty() ? folder : basePath + FlattenFolderTree.PATH_SEPARATOR + folder;
+    }
+
+}
@@ -31,19 +31,19 @@ public class FlattenFolderTree {
 
     /**
      * This method flattens folder structures that contain only single folders, such as {@code src/main/java}.
+     * The tree under the base path is listed once, and flattened in memory.
      * @param basePath Requested path to get the tree structure for.
      * @return The flattened tree map.
      */
     public Map<String, EntryType> resolveEntries(final String basePath) {
-        return resolveEntries(basePath, CommitApi.EMPTY_PATH);
+        return resolveEntries(CommitTree.list(commitApi, basePath), CommitApi.EMPTY_PATH);
     }
 
-    private Map<String, EntryType> resolveEntries(final String basePath, final String suffix) {
-        final String path = suffix.isEmpty() ? basePath : basePath.isEmpty() ? suffix : basePath + PATH_SEPARATOR + suffix;
-        return commitApi.showTree(path).entrySet().stream()
+    private Map<String, EntryType> resolveEntries(final CommitTree tree, final String suffix) {
+        return tree.getEntries(suffix).entrySet().stream()
             .map(entry -> {
                 if (entry.getValue().equals(EntryType.FOLDER)){
-                    Map<String, EntryType> subEntries = resolveEntries(basePath, suffix + entry.getKey());
+                    Map<String, EntryType> subEntries = resolveEntries(tree, suffix + entry.getKey());
                     if (subEntries.size() == 1 && subEntries.values().stream().findFirst().get().equals(EntryType.FOLDER)) {
                         return new HashMap.SimpleEntry<>(
                             entry.getKey() + subEntries.keySet().stream().findFirst().get(),
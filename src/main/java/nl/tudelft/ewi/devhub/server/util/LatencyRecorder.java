@@ -0,0 +1,87 @@
+package nl.tudelft.ewi.devhub.server.util;
+
+import lombok.Value;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The {@code LatencyRecorder} keeps the most recent latency samples in a ring buffer, from which
+ * percentiles are computed on request. Recording a sample does not allocate.
+ */
+public class LatencyRecorder {
+
+	private static final int DEFAULT_SAMPLES = 1024;
+
+	private final long[] samples;
+	private long count;
+
+	public LatencyRecorder() {
+		this(DEFAULT_SAMPLES);
+	}
+
+	public LatencyRecorder(int samples) {
+		this.samples = new long[samples];
+	}
+
+	/**
+	 * Record a latency sample.
+	 *
+	 * @param nanos Latency in nanoseconds.
+	 */
+	public synchronized void record(long nanos) {
+		samples[(int) (count++ % samples.length)] = nanos;
+	}
+
+	/**
+	 * @return The percentiles over the most recent samples.
+	 */
+	public Percentiles snapshot() {
+		long total;
+		long[] sorted;
+
+		synchronized (this) {
+			total = count;
+			sorted = Arrays.copyOf(samples, (int) Math.min(count, samples.length));
+		}
+
+		Arrays.sort(sorted);
+		return new Percentiles(
+			total,
+			percentile(sorted, 0.50),
+			percentile(sorted, 0.90),
+			percentile(sorted, 0.99),
+			percentile(sorted, 1.00)
+		);
+	}
+
+	private static long percentile(long[] sorted, double percentile) {
+		if (sorted.length == 0) {
+			return 0;
+		}
+		int index = (int) Math.ceil(percentile * sorted.length) - 1;
+		return TimeUnit.NANOSECONDS.toMillis(sorted[Math.max(index, 0)]);
+	}
+
+	/**
+	 * Snapshot of the latency percentiles of a {@link LatencyRecorder}.
+	 */
+	@Value
+	public static class Percentiles {
+
+		/**
+		 * Number of samples recorded in total. Percentiles are computed over the most recent samples only.
+		 */
+		long count;
+
+		long p50Millis;
+
+		long p90Millis;
+
+		long p99Millis;
+
+		long maxMillis;
+
+	}
+
+}
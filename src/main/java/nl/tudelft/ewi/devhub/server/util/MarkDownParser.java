@@ -1,5 +1,11 @@
 package nl.tudelft.ewi.devhub.server.util;
 
+import com.google.common.base.Charsets;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
 import com.google.common.html.HtmlEscapers;
 import com.vdurmont.emoji.EmojiParser;
 import freemarker.core.Environment;
@@ -8,6 +14,7 @@ import freemarker.template.TemplateDirectiveModel;
 import freemarker.template.TemplateException;
 import freemarker.template.TemplateModel;
 import lombok.NonNull;
+import nl.tudelft.ewi.devhub.server.Config;
 import org.parboiled.errors.ParserRuntimeException;
 import org.pegdown.PegDownProcessor;
 
@@ -17,18 +24,31 @@ import java.util.Map;
 import java.util.Optional;
 
 import javax.inject.Inject;
+import javax.inject.Provider;
+import javax.inject.Singleton;
 import javax.validation.constraints.NotNull;
 
 /**
  * Created by Douwe Koopmans on 1-6-16.
+ *
+ * The rendered HTML is cached by a hash of the markdown source, so the comments on a page are
+ * only parsed on the first view. {@link PegDownProcessor PegDownProcessors} are not thread safe,
+ * so every thread uses its own processor.
  */
+@Singleton
 public final class MarkDownParser implements TemplateDirectiveModel {
 
-    private final PegDownProcessor pegDownProcessor;
+    private final ThreadLocal<PegDownProcessor> pegDownProcessor;
+    private final Cache<HashCode, String> cache;
 
     @Inject
-    public MarkDownParser(PegDownProcessor pegDownProcessor) {
-        this.pegDownProcessor = pegDownProcessor;
+    public MarkDownParser(Provider<PegDownProcessor> pegDownProcessorProvider, Config config) {
+        this.pegDownProcessor = ThreadLocal.withInitial(pegDownProcessorProvider::get);
+        this.cache = CacheBuilder.newBuilder()
+            .maximumWeight(config.getMarkdownCacheSize() * 1024L * 1024L)
+            .weigher((HashCode key, String html) -> html.length() * 2)
+            .recordStats()
+            .build();
     }
 
     /**
@@ -39,14 +59,31 @@ public final class MarkDownParser implements TemplateDirectiveModel {
      * @throws NullPointerException when the given markdown string input is null
      */
     public @NotNull String markdownToHtml(@NonNull final String md) throws NullPointerException {
+        HashCode key = Hashing.sha256().hashString(md, Charsets.UTF_8);
+        String html = cache.getIfPresent(key);
+        if (html != null) {
+            return html;
+        }
+
         String escapedMd = HtmlEscapers.htmlEscaper().escape(md);
         escapedMd = EmojiParser.parseToUnicode(escapedMd);
         try {
-            return pegDownProcessor.markdownToHtml(escapedMd);
+            html = pegDownProcessor.get().markdownToHtml(escapedMd);
         }
         catch (ParserRuntimeException ex) {
+            // Not cached, the parser may finish in time on a next attempt
             return escapedMd;
         }
+
+        cache.put(key, html);
+        return html;
+    }
+
+    /**
+     * @return Hit and miss statistics for the rendered HTML cache.
+     */
+    public CacheStats getStatistics() {
+        return cache.stats();
     }
 
     @Override
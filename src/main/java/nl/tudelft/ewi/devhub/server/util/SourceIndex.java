@@ -0,0 +1,70 @@
+package nl.tudelft.ewi.devhub.server.util;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import nl.tudelft.ewi.devhub.server.database.embeddables.Source;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * The {@code SourceIndex} indexes values that reference a {@link Source} line, such as
+ * warnings and comments, on the source commit id, file path and line number. Lookups do not
+ * allocate, so the index can be queried for every line of a rendered file.
+ *
+ * @param <T> Type of the indexed values
+ * @author Jan-Willem Gmelig Meyling
+ */
+public class SourceIndex<T> {
+
+	private final Map<String, Map<String, Map<Integer, List<T>>>> index;
+
+	/**
+	 * Create a new {@code SourceIndex}. Values for the same line retain the order of
+	 * the given collection.
+	 *
+	 * @param values Values to index
+	 * @param sourceFunction Function to retrieve the source of a value
+	 */
+	public SourceIndex(final Collection<? extends T> values, final Function<? super T, Source> sourceFunction) {
+		this.index = Maps.newHashMap();
+
+		for (T value : values) {
+			Source source = sourceFunction.apply(value);
+			index.computeIfAbsent(source.getSourceCommit().getCommitId(), commitId -> Maps.newHashMap())
+				.computeIfAbsent(source.getSourceFilePath(), filePath -> Maps.newHashMap())
+				.computeIfAbsent(source.getSourceLineNumber(), lineNumber -> Lists.newArrayList())
+				.add(value);
+		}
+
+		index.values().forEach(files -> files.values().forEach(lines ->
+			lines.replaceAll((lineNumber, lineValues) -> Collections.unmodifiableList(lineValues))));
+	}
+
+	/**
+	 * Get the values for a line.
+	 *
+	 * @param commitId The source commit id
+	 * @param filePath The source file path
+	 * @param lineNumber The source line number
+	 * @return An unmodifiable list of values for the line
+	 */
+	public List<T> get(final String commitId, final String filePath, final Integer lineNumber) {
+		Map<String, Map<Integer, List<T>>> files = index.get(commitId);
+		if (files == null) {
+			return Collections.emptyList();
+		}
+
+		Map<Integer, List<T>> lines = files.get(filePath);
+		if (lines == null) {
+			return Collections.emptyList();
+		}
+
+		List<T> values = lines.get(lineNumber);
+		return values == null ? Collections.emptyList() : values;
+	}
+
+}
@@ -0,0 +1,145 @@
+package nl.tudelft.ewi.devhub.server.web.assets;
+
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.HttpMethod;
+import org.eclipse.jetty.http.MimeTypes;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Serves the static files from the folder of an {@link AssetManifest}. Fingerprinted files are
+ * served as immutable. When the client accepts it, a precompressed variant of the file is served.
+ *
+ * @author Jan-Willem Gmelig Meyling
+ */
+public class AssetHandler extends AbstractHandler {
+
+	private static final String IMMUTABLE = "public, max-age=31536000, immutable";
+
+	private static final String REVALIDATE = "max-age=3600";
+
+	/**
+	 * Precompressed variants in order of preference, with the file suffix of each variant.
+	 */
+	private static final String[][] ENCODINGS = {
+		{ "br", ".br" },
+		{ "gzip", ".gz" }
+	};
+
+	private final AssetManifest manifest;
+	private final Path root;
+	private final MimeTypes mimeTypes;
+
+	public AssetHandler(AssetManifest manifest) {
+		this.manifest = manifest;
+		this.root = manifest.getDirectory().toPath().toAbsolutePath().normalize();
+		this.mimeTypes = new MimeTypes();
+	}
+
+	@Override
+	public void handle(String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response)
+		throws IOException {
+
+		if (!HttpMethod.GET.is(request.getMethod()) && !HttpMethod.HEAD.is(request.getMethod())) {
+			return;
+		}
+
+		String path = target.startsWith("/") ? target.substring(1) : target;
+		Path file = root.resolve(path).normalize();
+		if (path.isEmpty() || !file.startsWith(root) || !Files.isRegularFile(file)) {
+			return;
+		}
+
+		baseRequest.setHandled(true);
+		long lastModified = Files.getLastModifiedTime(file).toMillis();
+		response.setHeader(HttpHeader.CACHE_CONTROL.asString(), manifest.isFingerprinted(path) ? IMMUTABLE : REVALIDATE);
+		response.setDateHeader(HttpHeader.LAST_MODIFIED.asString(), lastModified);
+		if (hasEncodedVariant(file)) {
+			// Also on a 304, so that caches keep the variants apart
+			response.setHeader(HttpHeader.VARY.asString(), HttpHeader.ACCEPT_ENCODING.asString());
+		}
+
+		long ifModifiedSince = request.getDateHeader(HttpHeader.IF_MODIFIED_SINCE.asString());
+		if (ifModifiedSince != -1 && lastModified / 1000 <= ifModifiedSince / 1000) {
+			response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+			return;
+		}
+
+		String contentType = mimeTypes.getMimeByExtension(path);
+		if (contentType != null) {
+			response.setContentType(contentType);
+		}
+
+		Path body = file;
+		String acceptEncoding = request.getHeader(HttpHeader.ACCEPT_ENCODING.asString());
+		for (String[] encoding : ENCODINGS) {
+			Path variant = getVariant(file, encoding);
+			if (Files.isRegularFile(variant) && accepts(acceptEncoding, encoding[0])) {
+				response.setHeader(HttpHeader.CONTENT_ENCODING.asString(), encoding[0]);
+				body = variant;
+				break;
+			}
+		}
+
+		response.setContentLengthLong(Files.size(body));
+		if (HttpMethod.GET.is(request.getMethod())) {
+			Files.copy(body, response.getOutputStream());
+		}
+	}
+
+	private static boolean hasEncodedVariant(Path file) {
+		for (String[] encoding : ENCODINGS) {
+			if (Files.isRegularFile(getVariant(file, encoding))) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static Path getVariant(Path file, String[] encoding) {
+		return file.resolveSibling(file.getFileName() + encoding[1]);
+	}
+
+	/**
+	 * @param acceptEncoding Value of the {@code Accept-Encoding} header, may be {@code null}.
+	 * @param encoding A content coding.
+	 * @return True if the client accepts the content coding.
+	 */
+	static boolean accepts(String acceptEncoding, String encoding) {
+		if (acceptEncoding == null) {
+			return false;
+		}
+
+		for (String coding : acceptEncoding.split(",")) {
+			String[] parameters = coding.trim().split(";");
+			if (!parameters[0].trim().equalsIgnoreCase(encoding)) {
+				continue;
+			}
+
+			for (int i = 1; i < parameters.length; i++) {
+				String parameter = parameters[i].trim();
+				if (parameter.startsWith("q=") && isZero(parameter.substring(2))) {
+					return false;
+				}
+			}
+			return true;
+		}
+		return false;
+	}
+
+	private static boolean isZero(String quality) {
+		try {
+			return Double.parseDouble(quality) == 0;
+		}
+		catch (NumberFormatException e) {
+			return false;
+		}
+	}
+
+}
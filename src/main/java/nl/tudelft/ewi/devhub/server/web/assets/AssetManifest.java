@@ -0,0 +1,88 @@
+package nl.tudelft.ewi.devhub.server.web.assets;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * The manifest that is written by the {@link AssetPipeline}. Templates resolve the urls of static
+ * files through the manifest, so that they link to the fingerprinted files. Fingerprinted files
+ * never change, and can be cached by clients indefinitely.
+ *
+ * Without a manifest, for example during development, files are linked by their own name.
+ *
+ * @author Jan-Willem Gmelig Meyling
+ */
+@Slf4j
+public class AssetManifest {
+
+	public static final String MANIFEST = "manifest.properties";
+
+	public static final String URL_PREFIX = "/static/";
+
+	/**
+	 * The folder from which the static files are served.
+	 */
+	@Getter
+	private final File directory;
+
+	private final Map<String, String> fingerprints;
+
+	private final Set<String> fingerprinted;
+
+	public AssetManifest(File directory, Map<String, String> fingerprints) {
+		this.directory = directory;
+		this.fingerprints = ImmutableMap.copyOf(fingerprints);
+		this.fingerprinted = ImmutableSet.copyOf(fingerprints.values());
+	}
+
+	/**
+	 * Load the manifest from a folder.
+	 *
+	 * @param directory The folder from which the static files are served.
+	 * @return The manifest, which is empty if the folder has no manifest.
+	 * @throws IOException If the manifest could not be read.
+	 */
+	public static AssetManifest load(File directory) throws IOException {
+		File file = new File(directory, MANIFEST);
+		if (!file.isFile()) {
+			log.info("No asset manifest in {}, static files are served by their own name", directory);
+			return new AssetManifest(directory, ImmutableMap.of());
+		}
+
+		Properties properties = new Properties();
+		try (InputStream in = Files.newInputStream(file.toPath())) {
+			properties.load(in);
+		}
+		return new AssetManifest(directory, Maps.fromProperties(properties));
+	}
+
+	/**
+	 * Used from the templates as {@code ${assets.url("css/devhub.css")}}.
+	 *
+	 * @param path Path of the file in the static folder.
+	 * @return The url of the fingerprinted file, or of the file itself if it is not in the manifest.
+	 */
+	public String url(String path) {
+		return URL_PREFIX + fingerprints.getOrDefault(path, path);
+	}
+
+	/**
+	 * @param path Path of a file in the folder.
+	 * @return True if the name of the file contains the hash of its contents.
+	 */
+	public boolean isFingerprinted(String path) {
+		return fingerprinted.contains(path);
+	}
+
+}
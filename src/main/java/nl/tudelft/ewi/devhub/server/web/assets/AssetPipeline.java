@@ -0,0 +1,167 @@
+package nl.tudelft.ewi.devhub.server.web.assets;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.hash.Hashing;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Build step that prepares the static files for production. Every file is copied to the output
+ * folder under its own name and under a name that contains a hash of its contents. Text files
+ * also get a gzip compressed variant. The {@link AssetManifest manifest} maps the original
+ * names to the fingerprinted names.
+ *
+ * Files keep their original name as well, because stylesheets refer to fonts and images with
+ * relative urls.
+ *
+ * @author Jan-Willem Gmelig Meyling
+ */
+@Slf4j
+public class AssetPipeline {
+
+	/**
+	 * Sources that are compiled into other assets, and should not be served themselves.
+	 */
+	private static final Set<String> EXCLUDED_FOLDERS = ImmutableSet.of("less");
+
+	private static final Set<String> COMPRESSIBLE_EXTENSIONS = ImmutableSet.of(
+		"css", "js", "json", "map", "html", "txt", "xml", "svg", "ttf", "otf", "eot", "ico");
+
+	private static final int FINGERPRINT_LENGTH = 12;
+
+	private final File source;
+	private final File target;
+
+	public AssetPipeline(File source, File target) {
+		this.source = source;
+		this.target = target;
+	}
+
+	/**
+	 * Run the pipeline from the build.
+	 *
+	 * @param args The folder with the static files and the output folder.
+	 * @throws IOException If the assets could not be written.
+	 */
+	public static void main(String[] args) throws IOException {
+		Preconditions.checkArgument(args.length == 2, "Usage: AssetPipeline <source> <target>");
+		new AssetPipeline(new File(args[0]), new File(args[1])).run();
+	}
+
+	/**
+	 * Fingerprint and compress all files in the source folder.
+	 *
+	 * @return The manifest.
+	 * @throws IOException If the assets could not be written.
+	 */
+	public Properties run() throws IOException {
+		clean();
+
+		Path root = source.toPath();
+		List<Path> files;
+		try (Stream<Path> paths = Files.walk(root)) {
+			files = paths.filter(Files::isRegularFile)
+				.filter(path -> !EXCLUDED_FOLDERS.contains(root.relativize(path).getName(0).toString()))
+				.collect(Collectors.toList());
+		}
+
+		Properties manifest = new Properties();
+		for (Path file : files) {
+			String name = root.relativize(file).toString().replace(File.separatorChar, '/');
+			String fingerprinted = fingerprint(name, Hashing.sha256().hashBytes(Files.readAllBytes(file)).toString());
+
+			write(file, name);
+			write(file, fingerprinted);
+			manifest.setProperty(name, fingerprinted);
+		}
+
+		Files.createDirectories(target.toPath());
+		try (OutputStream out = Files.newOutputStream(target.toPath().resolve(AssetManifest.MANIFEST))) {
+			manifest.store(out, "Generated by " + AssetPipeline.class.getSimpleName());
+		}
+
+		log.info("Wrote {} assets to {}", manifest.size(), target);
+		return manifest;
+	}
+
+	/**
+	 * Remove the output of a previous run, so assets of older versions of a file are not deployed.
+	 */
+	private void clean() throws IOException {
+		if (!target.exists()) {
+			return;
+		}
+
+		List<Path> previous;
+		try (Stream<Path> paths = Files.walk(target.toPath())) {
+			previous = paths.sorted(Comparator.reverseOrder())
+				.collect(Collectors.toList());
+		}
+
+		for (Path path : previous) {
+			Files.delete(path);
+		}
+	}
+
+	private void write(Path file, String name) throws IOException {
+		Path destination = target.toPath().resolve(name);
+		Files.createDirectories(destination.getParent());
+		Files.copy(file, destination, StandardCopyOption.REPLACE_EXISTING);
+
+		String extension = name.substring(name.lastIndexOf('.') + 1).toLowerCase();
+		if (COMPRESSIBLE_EXTENSIONS.contains(extension)) {
+			compress(destination);
+		}
+	}
+
+	/**
+	 * Write a gzip compressed variant next to a file, unless compression does not make it smaller.
+	 */
+	private static void compress(Path file) throws IOException {
+		Path compressed = file.resolveSibling(file.getFileName() + ".gz");
+		try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(compressed)) {
+			{
+				def.setLevel(Deflater.BEST_COMPRESSION);
+			}
+		}) {
+			Files.copy(file, out);
+		}
+
+		if (Files.size(compressed) >= Files.size(file)) {
+			Files.delete(compressed);
+		}
+	}
+
+	/**
+	 * Insert the hash before the extension of a file name.
+	 *
+	 * @param name Name of the file.
+	 * @param hash Hash of the contents.
+	 * @return The fingerprinted name.
+	 */
+	static String fingerprint(String name, String hash) {
+		String fingerprint = hash.substring(0, FINGERPRINT_LENGTH);
+		int slash = name.lastIndexOf('/');
+		int dot = name.lastIndexOf('.');
+		if (dot <= slash + 1) {
+			return name + "." + fingerprint;
+		}
+		return name.substring(0, dot) + "." + fingerprint + name.substring(dot);
+	}
+
+}
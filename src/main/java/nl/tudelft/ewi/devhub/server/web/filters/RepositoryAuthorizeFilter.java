@@ -1,6 +1,8 @@
 package nl.tudelft.ewi.devhub.server.web.filters;
 
 import lombok.extern.slf4j.Slf4j;
+import nl.tudelft.ewi.devhub.server.backend.AuthorizationCache;
+import nl.tudelft.ewi.devhub.server.backend.AuthorizationCache.Authorization;
 import nl.tudelft.ewi.devhub.server.database.controllers.CourseEditions;
 import nl.tudelft.ewi.devhub.server.database.controllers.Groups;
 import nl.tudelft.ewi.devhub.server.database.entities.CourseEdition;
@@ -47,6 +49,7 @@ public class RepositoryAuthorizeFilter implements Filter {
 	private final Provider<Groups> groupsProvider;
 	private final Provider<CourseEditions> coursesProvider;
 	private final Provider<User> currentUserProvider;
+	private final AuthorizationCache authorizationCache;
 	private final Pattern pattern;
 	
 	@Inject
@@ -54,8 +57,10 @@ public class RepositoryAuthorizeFilter implements Filter {
 			final @Named("current.user") Provider<User> currentUserProvider,
 			final Provider<TemplateEngine> templateEngine,
 			final Provider<Groups> groupsProvider,
-			final Provider<CourseEditions> coursesProvider) {
+			final Provider<CourseEditions> coursesProvider,
+			final AuthorizationCache authorizationCache) {
 		this.currentUserProvider = currentUserProvider;
+		this.authorizationCache = authorizationCache;
 		this.templateEngine = templateEngine;
 		this.coursesProvider = coursesProvider;
 		this.groupsProvider = groupsProvider;
@@ -99,8 +104,11 @@ public class RepositoryAuthorizeFilter implements Filter {
 		if(matcher.matches()) {
 			CourseEdition course = coursesProvider.get().find(matcher.group(1), matcher.group(2));
 			Group group = groupsProvider.get().find(course, Long.parseLong(matcher.group(3)));
-			if (!user.isAdmin() && !user.isAssisting(course) && !user.isMemberOf(group)) {
-				throw new UnauthorizedException();
+			if (!user.isAdmin()) {
+				Authorization authorization = authorizationCache.get(user);
+				if (!authorization.isAssisting(course) && !authorization.isMemberOf(group)) {
+					throw new UnauthorizedException();
+				}
 			}
 
 			setAttribute(request, Group.class, Names.named("current.group"), group);
@@ -0,0 +1,63 @@
+package nl.tudelft.ewi.devhub.server.web.filters;
+
+import nl.tudelft.ewi.devhub.server.metrics.RequestMetrics;
+import nl.tudelft.ewi.devhub.server.metrics.RequestMetrics.Summary;
+import nl.tudelft.ewi.devhub.server.metrics.RequestMetricsRegistry;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+
+/**
+ * Counts the statements, entity loads and git calls of every request, and records them in
+ * the {@link RequestMetricsRegistry}.
+ *
+ * @author Jan-Willem Gmelig Meyling
+ */
+@Singleton
+public class RequestMetricsFilter implements Filter {
+
+	private final RequestMetricsRegistry requestMetricsRegistry;
+
+	@Inject
+	public RequestMetricsFilter(final RequestMetricsRegistry requestMetricsRegistry) {
+		this.requestMetricsRegistry = requestMetricsRegistry;
+	}
+
+	@Override
+	public void init(FilterConfig filterConfig) throws ServletException {
+	}
+
+	@Override
+	public void doFilter(ServletRequest request, ServletResponse response,
+			FilterChain chain) throws IOException, ServletException {
+		if (!(request instanceof HttpServletRequest)) {
+			chain.doFilter(request, response);
+			return;
+		}
+
+		HttpServletRequest httpServletRequest = (HttpServletRequest) request;
+		requestMetricsRegistry.started();
+		RequestMetrics.start(httpServletRequest.getMethod() + " " + httpServletRequest.getRequestURI());
+		try {
+			chain.doFilter(request, response);
+		}
+		finally {
+			Summary summary = RequestMetrics.stop();
+			requestMetricsRegistry.record(summary);
+		}
+	}
+
+	@Override
+	public void destroy() {
+	}
+
+}
@@ -4,17 +4,13 @@ import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
 import nl.tudelft.ewi.devhub.server.backend.AssignmentStats;
 import nl.tudelft.ewi.devhub.server.backend.DeliveriesBackend;
-import nl.tudelft.ewi.devhub.server.backend.mail.ReviewMailer;
+import nl.tudelft.ewi.devhub.server.backend.GradeExporter;
+import nl.tudelft.ewi.devhub.server.backend.GradeRelease;
 import nl.tudelft.ewi.devhub.server.database.controllers.AssignedTAs;
 import nl.tudelft.ewi.devhub.server.database.controllers.Assignments;
 import nl.tudelft.ewi.devhub.server.database.controllers.CourseEditions;
 import nl.tudelft.ewi.devhub.server.database.controllers.Deliveries;
 import nl.tudelft.ewi.devhub.server.database.entities.*;
-import nl.tudelft.ewi.devhub.server.database.entities.Delivery.Review;
-import nl.tudelft.ewi.devhub.server.database.entities.Delivery.State;
-import nl.tudelft.ewi.devhub.server.database.entities.rubrics.Characteristic;
-import nl.tudelft.ewi.devhub.server.database.entities.rubrics.GradingStrategy;
-import nl.tudelft.ewi.devhub.server.database.entities.rubrics.Mastery;
 import nl.tudelft.ewi.devhub.server.database.entities.rubrics.Task;
 import nl.tudelft.ewi.devhub.server.web.errors.UnauthorizedException;
 import nl.tudelft.ewi.devhub.server.web.templating.TemplateEngine;
@@ -26,8 +22,6 @@ import com.google.inject.Inject;
 import com.google.inject.name.Named;
 import com.google.inject.persist.Transactional;
 
-import org.apache.commons.csv.CSVFormat;
-import org.apache.commons.csv.CSVPrinter;
 import org.jboss.resteasy.spi.NotImplementedYetException;
 
 import javax.servlet.http.HttpServletRequest;
@@ -38,6 +32,7 @@ import javax.validation.Valid;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.FormParam;
 import javax.ws.rs.GET;
+import javax.ws.rs.NotFoundException;
 import javax.ws.rs.POST;
 import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
@@ -52,7 +47,6 @@ import java.io.IOException;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.*;
-import java.util.Map.Entry;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.stream.Collectors;
 
@@ -87,7 +81,7 @@ public class AssignmentsResource extends Resource {
     private Deliveries deliveriesDAO;
 
     @Inject
-    private ReviewMailer reviewMailer;
+    private GradeRelease gradeRelease;
 
     @Inject
     @Named("current.user")
@@ -96,6 +90,9 @@ public class AssignmentsResource extends Resource {
     @Inject
     private AssignedTAs assignedTAs;
 
+    @Inject
+    private GradeExporter gradeExporter;
+
 	@Context
 	HttpServletRequest request;
 
@@ -296,7 +293,7 @@ public class AssignmentsResource extends Resource {
 
         List<Delivery> currentUserDeliveries = assignedTAs.getLastDeliveries(assignment, currentUser);
         List<Delivery> allLastDeliveries = deliveriesDAO.getLastDeliveries(assignment);
-        List<Delivery> filteredDeliveries = deliveriesDAO.getLastDeliveries(assignment);
+        List<Delivery> filteredDeliveries = Lists.newArrayList(allLastDeliveries);
         filteredDeliveries.removeAll(currentUserDeliveries);
 
         AssignmentStats userStats = deliveriesBackend.getAssignmentStats(currentUserDeliveries);
@@ -321,6 +318,30 @@ public class AssignmentsResource extends Resource {
 
     private final static String TEXT_CSV = "text/csv";
 
+    /**
+     * Download the grades for all assignments in this course edition
+     * @param courseCode the course to download the grades for
+     * @param editionCode the course to download the grades for
+     * @return a CSV file with the most recent deliveries for every assignment
+     */
+    @GET
+    @Transactional
+    @Produces(TEXT_CSV)
+    @Path("download")
+    public Response downloadCourseEditionResults(@PathParam("courseCode") String courseCode,
+                                                 @PathParam("editionCode") String editionCode) {
+
+        CourseEdition course = courses.find(courseCode, editionCode);
+
+        if(!(currentUser.isAdmin() || currentUser.isAssisting(course))) {
+            throw new UnauthorizedException();
+        }
+
+        return Response.ok(gradeExporter.streamGrades(course))
+            .header("Content-Disposition", " attachment; filename=\"" + course.getCourse().getCode() + "_" + course.getCode() + "_grades.csv\"")
+            .build();
+    }
+
     /**
      * Download the grades for this assignment
      * @param courseCode the course to create an assignment for
@@ -332,9 +353,9 @@ public class AssignmentsResource extends Resource {
     @Transactional
     @Produces(TEXT_CSV)
     @Path("{assignmentId : \\d+}/deliveries/download")
-    public String downloadAssignmentResults(@PathParam("courseCode") String courseCode,
-											@PathParam("editionCode") String editionCode,
-                                            @PathParam("assignmentId") Long assignmentId) throws IOException {
+    public Response downloadAssignmentResults(@PathParam("courseCode") String courseCode,
+											  @PathParam("editionCode") String editionCode,
+                                              @PathParam("assignmentId") Long assignmentId) {
 
         CourseEdition course = courses.find(courseCode, editionCode);
         Assignment assignment = assignmentsDAO.find(course, assignmentId);
@@ -343,29 +364,9 @@ public class AssignmentsResource extends Resource {
             throw new UnauthorizedException();
         }
 
-        StringBuilder sb = new StringBuilder();
-        CSVPrinter csvPrinter = new CSVPrinter(sb, CSVFormat.RFC4180);
-        csvPrinter.printRecord("Assignment", "NetId", "StudentNo", "Name", "Group", "State", "Grade", "Points");
-
-        for (Entry<User, Delivery> entry : deliveriesDAO.getLastDeliveriesByUser(assignment).entrySet()) {
-            Delivery delivery = entry.getValue();
-            Review review = delivery.getReview();
-            User user = entry.getKey();
-
-            csvPrinter.printRecord(
-                assignment.getName(),
-                user.getNetId(),
-                user.getStudentNumber(),
-                user.getName(),
-                delivery.getGroup().getGroupName(),
-                review != null ? review.getState() : State.SUBMITTED,
-                review != null ? review.getGrade() : "",
-                delivery.getAchievedNumberOfPoints()
-            );
-        }
-
-		response.addHeader("Content-Disposition", " attachment; filename=\"assignment_" + assignmentId.toString()+ "_grades.csv\"");
-        return sb.toString();
+        return Response.ok(gradeExporter.streamGrades(assignment))
+            .header("Content-Disposition", " attachment; filename=\"assignment_" + assignmentId.toString()+ "_grades.csv\"")
+            .build();
     }
 
 	/**
@@ -379,9 +380,9 @@ public class AssignmentsResource extends Resource {
 	@Transactional
 	@Produces(TEXT_CSV)
 	@Path("{assignmentId : \\d+}/deliveries/download-rubrics")
-	public String downloadRubrics(@PathParam("courseCode") String courseCode,
-								  @PathParam("editionCode") String editionCode,
-								  @PathParam("assignmentId") Long assignmentId) throws IOException {
+	public Response downloadRubrics(@PathParam("courseCode") String courseCode,
+									@PathParam("editionCode") String editionCode,
+									@PathParam("assignmentId") Long assignmentId) {
 
 		CourseEdition course = courses.find(courseCode, editionCode);
 		Assignment assignment = assignmentsDAO.find(course, assignmentId);
@@ -389,64 +390,10 @@ public class AssignmentsResource extends Resource {
 		if(!(currentUser.isAdmin() || currentUser.isAssisting(course))) {
 			throw new UnauthorizedException();
 		}
-		StringBuilder sb = new StringBuilder();
-
-		int numLevels = assignment.getTasks().stream()
-			.map(Task::getCharacteristics).flatMap(Collection::stream)
-			.map(Characteristic::getLevels).mapToInt(Collection::size)
-			.max().orElse(0);
 
-		List<Delivery> deliveries = Lists.newArrayList(deliveriesDAO.getLastDeliveries(assignment));
-		Collections.sort(deliveries, Delivery.DELIVERIES_BY_GROUP_NUMBER);
-
-        CSVPrinter csvPrinter = new CSVPrinter(sb, CSVFormat.RFC4180);
-		// Skip initial columns, list all groups
-        for (int i = 0; i < 2 + numLevels; i++) {
-            csvPrinter.print("");
-        }
-
-        // Print group numbers
-        for (Delivery delivery : deliveries) {
-            csvPrinter.print("Group " + delivery.getGroup().getGroupNumber());
-        }
-        csvPrinter.println();
-
-        for (Task task : assignment.getTasks()) {
-            // Print exercise
-            csvPrinter.print(task.getDescription());
-            csvPrinter.print("");
-            csvPrinter.println();
-
-            for (Characteristic characteristic : task.getCharacteristics()) {
-                csvPrinter.print(characteristic.getDescription());
-                csvPrinter.print(characteristic.getWeight());
-
-                for (Mastery mastery : characteristic.getLevels()) {
-                    csvPrinter.print(mastery.getDescription());
-                }
-
-                for (int i = 0; i < numLevels - characteristic.getLevels().size(); i++) {
-                    csvPrinter.print("");
-                }
-
-                for (Delivery delivery : deliveries) {
-                    if (delivery.getRubrics().containsKey(characteristic)) {
-                        csvPrinter.print(
-                            delivery.getRubrics().get(characteristic).getPoints()
-                        );
-                    }
-                    else {
-                        csvPrinter.print("");
-                    }
-                }
-
-                csvPrinter.println();
-            }
-            csvPrinter.println();
-        }
-
-		response.addHeader("Content-Disposition", " attachment; filename=\"assignment_" + assignmentId.toString()+ "_rubrics.csv\"");
-		return sb.toString();
+		return Response.ok(gradeExporter.streamRubrics(assignment))
+			.header("Content-Disposition", " attachment; filename=\"assignment_" + assignmentId.toString()+ "_rubrics.csv\"")
+			.build();
 	}
 
     /**
@@ -507,7 +454,7 @@ public class AssignmentsResource extends Resource {
         //a little bit ugly, form params don't work nicely with checkboxes.
         boolean gradesReleased = CHECKBOX_CHECKED_VALUE.equals(release);
         if (gradesReleased && !assignment.isGradesReleased() && !assignment.getTasks().isEmpty()) {
-            releaseGrades(assignment);
+            gradeRelease.release(assignment, currentUser, Collections.list(request.getLocales()));
         }
         assignment.setGradesReleased(gradesReleased);
 
@@ -541,11 +488,20 @@ public class AssignmentsResource extends Resource {
         return redirect(course.getURI());
     }
 
+    /**
+     * Start releasing the grades for an assignment in the background.
+     * @param courseCode the course to release the grades for
+     * @param editionCode the course to release the grades for
+     * @param assignmentId the assignment id
+     * @return the progress of the release
+     */
     @POST
+    @Transactional
+    @Produces(MediaType.APPLICATION_JSON)
     @Path("{assignmentId : \\d+}/release-grades")
-    public void releaseGrades(@PathParam("courseCode") String courseCode,
-                              @PathParam("editionCode") String editionCode,
-                              @PathParam("assignmentId") long assignmentId) {
+    public Response releaseGrades(@PathParam("courseCode") String courseCode,
+                                  @PathParam("editionCode") String editionCode,
+                                  @PathParam("assignmentId") long assignmentId) {
 
         CourseEdition course = courses.find(courseCode, editionCode);
 
@@ -554,69 +510,36 @@ public class AssignmentsResource extends Resource {
         }
 
         Assignment assignment = assignmentsDAO.find(course, assignmentId);
-        releaseGrades(assignment);
+        List<Locale> locales = Collections.list(request.getLocales());
+        GradeRelease.Progress progress = gradeRelease.release(assignment, currentUser, locales);
+        return Response.accepted(progress)
+            .location(assignment.getURI().resolve("release-grades"))
+            .build();
     }
 
     /**
-     * Release the grades for a course.
-     * @param assignment Assignment to release grades for.
+     * Get the progress of the most recent grade release for an assignment.
+     * @param courseCode the course to release the grades for
+     * @param editionCode the course to release the grades for
+     * @param assignmentId the assignment id
+     * @return the progress of the release
      */
+    @GET
     @Transactional
-    protected void releaseGrades(Assignment assignment) {
-        List<Delivery> deliveries = deliveriesDAO.getLastDeliveries(assignment);
-        GradingStrategy gradingStrategy = assignment.getGradingStrategy();
-
-        deliveries.forEach(delivery -> {
-            if (delivery.getMasteries().isEmpty()) {
-                log.info("Skipping {} as it has no masteries", delivery);
-                return;
-            }
-            Review review = getOrCreateReview(assignment, delivery);
-            State previousState = review.getState();
-
-            double grade = gradingStrategy.createGrade(delivery);
-            if (review.getGrade() != null) {
-                grade = Math.max(grade, review.getGrade());
-            }
-
-            review.setGrade(grade);
-            review.setState(gradingStrategy.createState(delivery));
-            log.info("Updated review {} for {}", review, delivery);
+    @Produces(MediaType.APPLICATION_JSON)
+    @Path("{assignmentId : \\d+}/release-grades")
+    public GradeRelease.Progress getReleaseGradesProgress(@PathParam("courseCode") String courseCode,
+                                                          @PathParam("editionCode") String editionCode,
+                                                          @PathParam("assignmentId") long assignmentId) {
 
-            if (previousState == null || previousState.equals(State.SUBMITTED)) {
-                reviewMailer.sendReviewMail(delivery);
-            }
+        CourseEdition course = courses.find(courseCode, editionCode);
 
-            deliveriesDAO.merge(delivery);
-        });
-    }
+        if(!(currentUser.isAdmin() || currentUser.isAssisting(course))) {
+            throw new UnauthorizedException();
+        }
 
-    /**
-     * Get the {@code Review} from the {@link Assignment}, or try to find a {@code Review}
-     * in one of the other {@link Delivery Deliveries}.
-     * @param assignment Assignment for which this is a delivery.
-     * @param delivery Delivery to find a review for.
-     * @return Review instance.
-     * @deprecated Only used for SQT where a review may be created on an older submission,
-     *  while the latest solution is a resubmission.
-     */
-    @Deprecated
-    private Review getOrCreateReview(Assignment assignment, Delivery delivery) {
-        return Optional.ofNullable(delivery.getReview())
-            .orElseGet(() -> {
-                Review r = deliveriesDAO.getDeliveries(assignment, delivery.getGroup()).stream()
-                    .map(Delivery::getReview)
-                    .filter(Objects::nonNull)
-                    .findAny().orElseGet(() -> {
-                        Review review = new Review();
-                        review.setReviewUser(currentUser);
-                        review.setCommentary("");
-                        review.setReviewTime(new Date());
-                        return review;
-                    });
-                delivery.setReview(r);
-                return r;
-            });
+        Assignment assignment = assignmentsDAO.find(course, assignmentId);
+        return gradeRelease.getProgress(assignment).orElseThrow(NotFoundException::new);
     }
 
     /**
@@ -49,18 +49,21 @@ public class CourseAssistantsResource extends Resource {
     private final User currentUser;
     private final Users users;
     private final CoursesBackend coursesBackend;
+    private final SessionUsers sessionUsers;
 
     @Inject
     public CourseAssistantsResource(TemplateEngine templateEngine,
                                     CourseEditions courses,
                                     Users users,
                                     @Named("current.user") User currentUser,
-                                    final CoursesBackend coursesBackend) {
+                                    final CoursesBackend coursesBackend,
+                                    final SessionUsers sessionUsers) {
         this.templateEngine = templateEngine;
         this.courses = courses;
         this.currentUser = currentUser;
         this.users = users;
         this.coursesBackend = coursesBackend;
+        this.sessionUsers = sessionUsers;
     }
 
     @GET
@@ -103,7 +106,7 @@ public class CourseAssistantsResource extends Resource {
             session.removeAttribute("courses.course.assistants");
         }
 
-        Collection<User> members = (Collection<User>) session.getAttribute("courses.course.assistants");
+        Collection<User> members = sessionUsers.get(session, "courses.course.assistants");
         if(members == null)
             members = course.getAssistants();
 
@@ -121,7 +124,6 @@ public class CourseAssistantsResource extends Resource {
         return display(templateEngine.process("course-assistants-edit.ftl", locales, parameters));
     }
 
-    @SuppressWarnings("unchecked")
     private Response showCourseAssistantsPageStep2(@Context HttpServletRequest request,
                                                    @PathParam("courseCode") String courseCode,
                                                    @PathParam("editionCode") String editionCode,
@@ -129,7 +131,7 @@ public class CourseAssistantsResource extends Resource {
 
         HttpSession session = request.getSession();
         CourseEdition course = courses.find(courseCode, editionCode);
-        Collection<User> members = (Collection<User>) session.getAttribute("courses.course.assistants");
+        Collection<User> members = sessionUsers.get(session, "courses.course.assistants");
 
         Map<String, Object> parameters = Maps.newHashMap();
         parameters.put("user", currentUser);
@@ -144,7 +146,6 @@ public class CourseAssistantsResource extends Resource {
     }
 
     @POST
-    @SuppressWarnings("unchecked")
     public Response processProjectSetup(@Context HttpServletRequest request,
                                         @PathParam("courseCode") String courseCode,
 										@PathParam("editionCode") String editionCode,
@@ -160,11 +161,11 @@ public class CourseAssistantsResource extends Resource {
 
         if (step == 1) {
             Collection<User> courseAssistants = getCourseAssistants(request);
-            session.setAttribute("courses.course.assistants", courseAssistants);
+            sessionUsers.put(session, "courses.course.assistants", courseAssistants);
             return redirect(course.getURI().resolve("assistants?step=2"));
         }
 
-        Collection<User> courseAssistants = (Collection<User>) session.getAttribute("courses.course.assistants");
+        Collection<User> courseAssistants = sessionUsers.get(session, "courses.course.assistants");
         coursesBackend.setAssistants(course, courseAssistants);
 
         session.removeAttribute("courses.course.assistants");
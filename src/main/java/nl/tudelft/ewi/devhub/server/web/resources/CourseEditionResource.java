@@ -11,6 +11,7 @@ import nl.tudelft.ewi.devhub.server.database.controllers.CourseEditions;
 import nl.tudelft.ewi.devhub.server.database.controllers.Groups;
 import nl.tudelft.ewi.devhub.server.database.entities.Course;
 import nl.tudelft.ewi.devhub.server.database.entities.CourseEdition;
+import nl.tudelft.ewi.devhub.server.database.entities.CourseEvent;
 import nl.tudelft.ewi.devhub.server.database.entities.Group;
 import nl.tudelft.ewi.devhub.server.database.entities.User;
 import nl.tudelft.ewi.devhub.server.web.errors.UnauthorizedException;
@@ -28,12 +29,14 @@ import javax.validation.ConstraintViolationException;
 import javax.ws.rs.DefaultValue;
 import javax.ws.rs.FormParam;
 import javax.ws.rs.GET;
+import javax.ws.rs.NotFoundException;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import java.io.IOException;
@@ -57,6 +60,12 @@ import static com.google.common.base.Strings.isNullOrEmpty;
 @Produces(MediaType.TEXT_HTML + Resource.UTF8_CHARSET)
 public class CourseEditionResource extends Resource {
 
+	private static final int MAX_NEW_EVENTS = 100;
+	/**
+	 * Number of seconds after which the event feed should poll for new events again.
+	 */
+	private static final int POLL_INTERVAL = 10;
+
 	@Inject
 	private CourseEditions courseEditions;
 
@@ -202,6 +211,7 @@ public class CourseEditionResource extends Resource {
 	 * @param courseCode the course code for the course
 	 * @param editionCode the course code for the course edition
 	 * @param limit The maximal number of events to retrieve
+	 * @param before The id of the last event on the previous page
 	 * @return a Response containing the generated page
 	 * @throws IOException if an I/O error occurs
      */
@@ -209,7 +219,8 @@ public class CourseEditionResource extends Resource {
 	@Path("feed")
 	public Response getEventFeed(@PathParam("courseCode") String courseCode,
 	                             @PathParam("editionCode") String editionCode,
-	                             @QueryParam("limit") @DefaultValue("100") int limit) throws IOException {
+	                             @QueryParam("limit") @DefaultValue("100") int limit,
+	                             @QueryParam("before") Long before) throws IOException {
 
 
 		CourseEdition courseEdition = courseEditions.find(courseCode, editionCode);
@@ -218,15 +229,62 @@ public class CourseEditionResource extends Resource {
 			throw new UnauthorizedException();
 		}
 
+		List<CourseEvent> events = courseEventFeed.getEventsFor(courseEdition, before, limit);
+
 		Map<String, Object> parameters = Maps.newHashMap();
 		parameters.put("user", currentUser);
 		parameters.put("course", courseEdition);
-		parameters.put("events", courseEventFeed.getEventsFor(courseEdition, limit));
+		parameters.put("events", events);
+		parameters.put("limit", limit);
+		parameters.put("firstPage", before == null);
+		parameters.put("polling", courseEventFeed.isPollingEnabled());
 
 		List<Locale> locales = Collections.list(request.getLocales());
 		return display(templateEngine.process("courses/course-feed.ftl", locales, parameters));
 	}
 
+	/**
+	 * Get the new events in the event feed for the course. The response returns immediately,
+	 * and its {@code Retry-After} header tells the client when to poll again.
+	 * @param courseCode the course code for the course
+	 * @param editionCode the course code for the course edition
+	 * @param after The id of the newest event the client has seen
+	 * @return a Response containing the rendered new events, or no content if there are none
+	 * @throws IOException if an I/O error occurs
+	 * @throws NotFoundException if polling for new events is not enabled
+	 */
+	@GET
+	@Path("feed/events")
+	public Response getNewEvents(@PathParam("courseCode") String courseCode,
+	                             @PathParam("editionCode") String editionCode,
+	                             @QueryParam("after") @DefaultValue("0") long after) throws IOException {
+
+		CourseEdition courseEdition = courseEditions.find(courseCode, editionCode);
+
+		if(!currentUser.isAdmin() && !currentUser.isAssisting(courseEdition)) {
+			throw new UnauthorizedException();
+		}
+
+		if (!courseEventFeed.isPollingEnabled()) {
+			throw new NotFoundException();
+		}
+
+		List<CourseEvent> events = courseEventFeed.getEventsAfter(courseEdition, after, MAX_NEW_EVENTS);
+		if (events.isEmpty()) {
+			return Response.noContent()
+				.header(HttpHeaders.RETRY_AFTER, POLL_INTERVAL)
+				.build();
+		}
+
+		Map<String, Object> parameters = Maps.newHashMap();
+		parameters.put("events", events);
+
+		List<Locale> locales = Collections.list(request.getLocales());
+		return Response.ok(templateEngine.process("courses/course-feed-events.ftl", locales, parameters))
+			.header(HttpHeaders.RETRY_AFTER, POLL_INTERVAL)
+			.build();
+	}
+
 	@GET
 	@Path("teaching-assistants.json")
 	@Produces(MediaType.APPLICATION_JSON)
@@ -64,6 +64,9 @@ public class CourseEnrollResource extends Resource {
     @Inject
     private Users users;
 
+    @Inject
+    private SessionUsers sessionUsers;
+
     @GET
     @Transactional
     public Response showProjectSetupPage(@Context HttpServletRequest request,
@@ -99,7 +102,7 @@ public class CourseEnrollResource extends Resource {
             session.removeAttribute("projects.setup.members");
         }
 
-        Collection<User> members = (Collection<User>) session.getAttribute("projects.setup.members");
+        Collection<User> members = sessionUsers.get(session, "projects.setup.members");
 
         int maxGroupSize = getMaxGroupSize(course);
         int minGroupSize = getMinGroupSize(course);
@@ -120,7 +123,6 @@ public class CourseEnrollResource extends Resource {
         return display(templateEngine.process("project-setup-2.ftl", locales, parameters));
     }
 
-    @SuppressWarnings("unchecked")
     private Response showProjectSetupPageStep2(@Context HttpServletRequest request,
                                                @PathParam("courseCode") String courseCode,
 											   @PathParam("editionCode") String editionCode,
@@ -128,7 +130,7 @@ public class CourseEnrollResource extends Resource {
 
         HttpSession session = request.getSession();
         CourseEdition course = courses.find(courseCode, editionCode);
-        Collection<User> members = (Collection<User>) session.getAttribute("projects.setup.members");
+        Collection<User> members = sessionUsers.get(session, "projects.setup.members");
 
         Map<String, Object> parameters = Maps.newHashMap();
         parameters.put("user", currentUser);
@@ -144,7 +146,6 @@ public class CourseEnrollResource extends Resource {
     }
 
     @POST
-    @SuppressWarnings("unchecked")
     public Response processProjectSetup(@Context HttpServletRequest request,
                                         @PathParam("courseCode") String courseCode,
 										@PathParam("editionCode") String editionCode,
@@ -172,12 +173,12 @@ public class CourseEnrollResource extends Resource {
                 }
             }
 
-            session.setAttribute("projects.setup.members", groupMembers);
+            sessionUsers.put(session, "projects.setup.members", groupMembers);
             return redirect(course.getURI().resolve("enroll?step=2"));
         }
 
         try {
-            Collection<User> members = (Collection<User>) session.getAttribute("projects.setup.members");
+            Collection<User> members = sessionUsers.get(session, "projects.setup.members");
             projectsBackend.setupProject(course, members);
 
             session.removeAttribute("projects.setup.course");
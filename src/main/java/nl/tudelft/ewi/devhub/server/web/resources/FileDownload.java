@@ -0,0 +1,157 @@
+package nl.tudelft.ewi.devhub.server.web.resources;
+
+import lombok.Value;
+
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import java.io.File;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.regex.Pattern;
+
+/**
+ * Builds responses for file downloads. Downloads are revalidated with an {@code ETag} and
+ * support a single byte range, so an interrupted download of a large attachment can be resumed.
+ * The file is transferred in chunks with {@link FileChannel#transferTo(long, long, WritableByteChannel)},
+ * so it is never held in memory as a whole.
+ *
+ * @author Jan-Willem Gmelig Meyling
+ */
+public class FileDownload {
+
+	private static final Pattern BYTE_RANGE = Pattern.compile("^bytes=(\\d+-\\d*|-\\d+)$");
+
+	private FileDownload() {
+	}
+
+	/**
+	 * Create the response for a download.
+	 *
+	 * @param request The request, used to evaluate the preconditions.
+	 * @param file The file to download.
+	 * @param contentHash Hash of the file contents, or {@code null} if it is unknown.
+	 * @param range Value of the {@code Range} header, may be {@code null}.
+	 * @param ifRange Value of the {@code If-Range} header, may be {@code null}.
+	 * @return The response.
+	 */
+	public static Response create(Request request, File file, String contentHash, String range, String ifRange) {
+		long length = file.length();
+		EntityTag entityTag = getEntityTag(file, contentHash);
+
+		Response.ResponseBuilder notModified = request.evaluatePreconditions(entityTag);
+		if (notModified != null) {
+			return notModified.build();
+		}
+
+		// Other range units and multiple ranges are ignored, the full file is sent instead
+		if (range == null || !BYTE_RANGE.matcher(range.trim()).matches()
+				|| (ifRange != null && !ifRange.equals(entityTag.toString()))) {
+			return Response.ok(transfer(file, 0, length), MediaType.APPLICATION_OCTET_STREAM)
+				.header(HttpHeaders.CONTENT_LENGTH, length)
+				.header("Accept-Ranges", "bytes")
+				.tag(entityTag)
+				.build();
+		}
+
+		ByteRange byteRange = ByteRange.parse(range, length);
+		if (byteRange == null) {
+			return Response.status(416)
+				.header("Content-Range", "bytes */" + length)
+				.tag(entityTag)
+				.build();
+		}
+
+		return Response.status(206)
+			.entity(transfer(file, byteRange.getStart(), byteRange.getLength()))
+			.type(MediaType.APPLICATION_OCTET_STREAM)
+			.header(HttpHeaders.CONTENT_LENGTH, byteRange.getLength())
+			.header("Content-Range", String.format("bytes %d-%d/%d", byteRange.getStart(), byteRange.getEnd(), length))
+			.header("Accept-Ranges", "bytes")
+			.tag(entityTag)
+			.build();
+	}
+
+	/**
+	 * A strong {@code ETag} is derived from the content hash. Files stored before content hashes
+	 * were recorded get a weak {@code ETag} from their size and modification time.
+	 */
+	static EntityTag getEntityTag(File file, String contentHash) {
+		if (contentHash != null) {
+			return new EntityTag(contentHash);
+		}
+		return new EntityTag(Long.toHexString(file.length()) + "-" + Long.toHexString(file.lastModified()), true);
+	}
+
+	private static StreamingOutput transfer(File file, long start, long length) {
+		return output -> {
+			try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+				WritableByteChannel target = Channels.newChannel(output);
+				long position = start;
+				long remaining = length;
+				while (remaining > 0) {
+					long transferred = channel.transferTo(position, remaining, target);
+					if (transferred <= 0) {
+						break;
+					}
+					position += transferred;
+					remaining -= transferred;
+				}
+			}
+			output.flush();
+		};
+	}
+
+	/**
+	 * A single satisfiable byte range.
+	 */
+	@Value
+	static class ByteRange {
+
+		long start;
+
+		long end;
+
+		long getLength() {
+			return end - start + 1;
+		}
+
+		/**
+		 * Parse a {@code Range} header with a single byte range, in the form {@code bytes=first-last},
+		 * {@code bytes=first-} or {@code bytes=-suffix}.
+		 *
+		 * @param range Value of the {@code Range} header.
+		 * @param length Length of the file.
+		 * @return The range, or {@code null} if it is not satisfiable.
+		 */
+		static ByteRange parse(String range, long length) {
+			String spec = range.trim().substring("bytes=".length());
+			int separator = spec.indexOf('-');
+			String first = spec.substring(0, separator);
+			String last = spec.substring(separator + 1);
+
+			try {
+				if (first.isEmpty()) {
+					// Suffix range: the last N bytes
+					long suffix = Long.parseLong(last);
+					return suffix == 0 || length == 0 ? null : new ByteRange(Math.max(0, length - suffix), length - 1);
+				}
+
+				long start = Long.parseLong(first);
+				long end = last.isEmpty() ? length - 1 : Math.min(Long.parseLong(last), length - 1);
+				return start > end ? null : new ByteRange(start, end);
+			}
+			catch (NumberFormatException e) {
+				// Positions that do not fit in a long are beyond the end of the file
+				return null;
+			}
+		}
+
+	}
+
+}
@@ -6,18 +6,19 @@ import com.google.inject.persist.UnitOfWork;
 import lombok.extern.slf4j.Slf4j;
 import nl.tudelft.ewi.build.jaxrs.models.BuildResult.Status;
 import nl.tudelft.ewi.devhub.server.backend.BuildsBackend;
+import nl.tudelft.ewi.devhub.server.backend.GitPushQueue;
 import nl.tudelft.ewi.devhub.server.backend.PullRequestBackend;
 import nl.tudelft.ewi.devhub.server.backend.RunnableInUnitOfWork;
 import nl.tudelft.ewi.devhub.server.backend.mail.BuildResultMailer;
+import nl.tudelft.ewi.devhub.server.backend.warnings.AbstractLineWarningGenerator;
 import nl.tudelft.ewi.devhub.server.backend.warnings.CheckstyleWarningGenerator;
-import nl.tudelft.ewi.devhub.server.backend.warnings.CheckstyleWarningGenerator.CheckStyleReport;
-import nl.tudelft.ewi.devhub.server.backend.warnings.CommitPushWarningGenerator;
+import nl.tudelft.ewi.devhub.server.backend.warnings.CommitPushWarningStage;
 import nl.tudelft.ewi.devhub.server.backend.warnings.FindBugsWarningGenerator;
-import nl.tudelft.ewi.devhub.server.backend.warnings.FindBugsWarningGenerator.FindBugsReport;
 import nl.tudelft.ewi.devhub.server.backend.warnings.PMDWarningGenerator;
-import nl.tudelft.ewi.devhub.server.backend.warnings.PMDWarningGenerator.PMDReport;
+import nl.tudelft.ewi.devhub.server.backend.warnings.ReportIngestionQueue;
 import nl.tudelft.ewi.devhub.server.backend.warnings.SuccessiveBuildFailureGenerator;
 import nl.tudelft.ewi.devhub.server.database.controllers.BuildResults;
+import nl.tudelft.ewi.devhub.server.database.controllers.CommitGraphs;
 import nl.tudelft.ewi.devhub.server.database.controllers.Commits;
 import nl.tudelft.ewi.devhub.server.database.controllers.PullRequests;
 import nl.tudelft.ewi.devhub.server.database.controllers.RepositoriesController;
@@ -25,15 +26,12 @@ import nl.tudelft.ewi.devhub.server.database.controllers.Warnings;
 import nl.tudelft.ewi.devhub.server.database.entities.BuildResult;
 import nl.tudelft.ewi.devhub.server.database.entities.Commit;
 import nl.tudelft.ewi.devhub.server.database.entities.RepositoryEntity;
-import nl.tudelft.ewi.devhub.server.database.entities.warnings.CheckstyleWarning;
-import nl.tudelft.ewi.devhub.server.database.entities.warnings.CommitWarning;
-import nl.tudelft.ewi.devhub.server.database.entities.warnings.FindbugsWarning;
-import nl.tudelft.ewi.devhub.server.database.entities.warnings.PMDWarning;
+import nl.tudelft.ewi.devhub.server.database.entities.warnings.LineWarning;
 import nl.tudelft.ewi.devhub.server.database.entities.warnings.SuccessiveBuildFailure;
-import nl.tudelft.ewi.devhub.server.util.CommitIterator;
 import nl.tudelft.ewi.devhub.server.web.filters.RequireAuthenticatedBuildServer;
 import nl.tudelft.ewi.devhub.server.web.models.GitPush;
 import nl.tudelft.ewi.git.models.BranchModel;
+import nl.tudelft.ewi.git.models.CommitModel;
 
 import com.google.common.base.Joiner;
 import com.google.common.collect.Lists;
@@ -54,13 +52,16 @@ import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
+import javax.ws.rs.ServiceUnavailableException;
 import javax.ws.rs.core.MediaType;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.Locale;
 import java.util.Set;
-import java.util.concurrent.ExecutorService;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import static java.net.URLDecoder.decode;
 
@@ -73,72 +74,76 @@ import static java.net.URLDecoder.decode;
 public class HooksResource extends Resource {
 
 	private final BuildResults buildResults;
+	private final BuildsBackend buildsBackend;
 	private final RepositoriesController repositoriesController;
 	private final BuildResultMailer mailer;
 	private final Commits commits;
 	private final Warnings warnings;
-	private final GitPushHandlerWorkerFactory gitPushHandlerWorkerFactory;
-	private final PMDWarningGenerator pmdWarningGenerator;
-	private final CheckstyleWarningGenerator checkstyleWarningGenerator;
-	private final FindBugsWarningGenerator findBugsWarningGenerator;
+	private final GitPushQueue gitPushQueue;
+	private final ReportIngestionQueue reportIngestionQueue;
 	private final SuccessiveBuildFailureGenerator successiveBuildFailureGenerator;
-	private final ExecutorService executor;
 
 	@Inject
 	public HooksResource(BuildResults buildResults,
+	                     BuildsBackend buildsBackend,
 	                     Commits commits,
 	                     Warnings warnings,
 	                     BuildResultMailer mailer,
-	                     ExecutorService executor,
-	                     PMDWarningGenerator pmdWarningGenerator,
-	                     GitPushHandlerWorkerFactory gitPushHandlerWorkerFactory,
+	                     GitPushQueue gitPushQueue,
+	                     ReportIngestionQueue reportIngestionQueue,
 	                     RepositoriesController repositoriesController,
-	                     FindBugsWarningGenerator findBugsWarningGenerator,
-	                     CheckstyleWarningGenerator checkstyleWarningGenerator,
 	                     SuccessiveBuildFailureGenerator successiveBuildFailureGenerator) {
 		this.mailer = mailer;
 		this.commits = commits;
 		this.warnings = warnings;
-		this.executor = executor;
 		this.buildResults = buildResults;
-		this.pmdWarningGenerator = pmdWarningGenerator;
-		this.gitPushHandlerWorkerFactory = gitPushHandlerWorkerFactory;
+		this.buildsBackend = buildsBackend;
+		this.gitPushQueue = gitPushQueue;
+		this.reportIngestionQueue = reportIngestionQueue;
 		this.repositoriesController = repositoriesController;
-		this.findBugsWarningGenerator = findBugsWarningGenerator;
-		this.checkstyleWarningGenerator = checkstyleWarningGenerator;
 		this.successiveBuildFailureGenerator = successiveBuildFailureGenerator;
 	}
 
 	/**
-	 * Git push hook implementation.
+	 * Git push hook implementation. The push is handed to the {@link GitPushQueue}.
 	 *
 	 * @param push GitPush request.
-	 * @see GitPushHandlerWorker#onGitPush(GitPush)
+	 * @throws ServiceUnavailableException If the {@code GitPushQueue} is at capacity.
+	 * @see GitPushHandler#handle(GitPush)
 	 */
 	@POST
 	@Path("git-push")
 	public void onGitPush(@Valid GitPush push) {
 		log.info("Received git-push event: {}", push);
-		GitPushHandlerWorker gitPushHandler = gitPushHandlerWorkerFactory.create(push);
-		executor.submit(gitPushHandler);
+		if (!gitPushQueue.offer(push)) {
+			throw new ServiceUnavailableException();
+		}
 	}
 
 	public static class GitPushHandlerWorker extends RunnableInUnitOfWork {
 
 		private final Provider<GitPushHandler> gitPushHandlerProvider;
+		private final CommitPushWarningStage commitPushWarningStage;
 		private final GitPush gitPush;
 
 		@Inject
-		public GitPushHandlerWorker(Provider<UnitOfWork> workProvider, Provider<GitPushHandler> gitPushHandlerProvider, @Assisted GitPush gitPush) {
+		public GitPushHandlerWorker(Provider<UnitOfWork> workProvider, Provider<GitPushHandler> gitPushHandlerProvider,
+		                            CommitPushWarningStage commitPushWarningStage, @Assisted GitPush gitPush) {
 			super(workProvider);
 			this.gitPushHandlerProvider = gitPushHandlerProvider;
+			this.commitPushWarningStage = commitPushWarningStage;
 			this.gitPush = gitPush;
 		}
 
 		@Override
-		@Transactional
 		protected void runInUnitOfWork() {
-			this.gitPushHandlerProvider.get().handle(gitPush);
+			// The push is handled in its own transaction, so the commits are visible to the warning generators
+			Set<Commit> commitsToBeBuilt = this.gitPushHandlerProvider.get().handle(gitPush);
+			if (!commitsToBeBuilt.isEmpty()) {
+				RepositoryEntity repositoryEntity = commitsToBeBuilt.iterator().next().getRepository();
+				log.info("Generating warnings for commits {}", commitsToBeBuilt);
+				commitPushWarningStage.generateWarnings(repositoryEntity, commitsToBeBuilt, gitPush);
+			}
 		}
 
 	}
@@ -150,53 +155,53 @@ public class HooksResource extends Resource {
 	public static class GitPushHandler {
 
 		private final Commits commits;
-		private final Warnings warnings;
+		private final CommitGraphs commitGraphs;
 		private final PullRequests pullRequests;
 		private final BuildsBackend buildBackend;
 		private final RepositoriesApi repositoriesApi;
 		private final PullRequestBackend pullRequestBackend;
 		private final RepositoriesController repositoriesController;
-		private final Set<CommitPushWarningGenerator> pushWarningGenerators;
 
 		@Inject
 		public GitPushHandler(
-			Warnings warnings,
-			Set<CommitPushWarningGenerator> pushWarningGenerators,
-			Commits commits, PullRequests pullRequests,
+			Commits commits, CommitGraphs commitGraphs,
+			PullRequests pullRequests,
 			BuildsBackend buildBackend,
 			RepositoriesApi repositoriesApi,
 			PullRequestBackend pullRequestBackend,
 			RepositoriesController repositoriesController
 		) {
-			this.warnings = warnings;
 			this.commits = commits;
+			this.commitGraphs = commitGraphs;
 			this.pullRequests = pullRequests;
 			this.buildBackend = buildBackend;
 			this.repositoriesApi = repositoriesApi;
 			this.pullRequestBackend = pullRequestBackend;
-			this.pushWarningGenerators = pushWarningGenerators;
 			this.repositoriesController = repositoriesController;
 		}
 
+		/**
+		 * Ensure the branch heads exist, build new commits and update the open pull requests.
+		 *
+		 * @param gitPush {@link GitPush} to handle.
+		 * @return The commits that are built, for which the push warnings should be generated.
+		 */
 		@Transactional
-		public void handle(GitPush gitPush) {
+		public Set<Commit> handle(GitPush gitPush) {
 			RepositoryApi repositoryApi = repositoriesApi.getRepository(gitPush.getRepository());
 			DetailedRepositoryModel repositoryModel = repositoryApi.getRepositoryModel();
 			RepositoryEntity repositoryEntity = repositoriesController.find(gitPush.getRepository());
 
-			Set<Commit> commitsToBeBuilt =
-				// For every branch
-				repositoryModel.getBranches().stream().sequential()
-					// Get the head
+			// Ensure the head commits for every branch exist in the database
+			Collection<Commit> branchHeads = commits.ensureExistsAll(repositoryEntity,
+				repositoryModel.getBranches().stream()
 					.map(BranchModel::getCommit)
-					// Ensure the head commit exists in the database
-					.map(commitModel -> commits.ensureExists(repositoryEntity, commitModel.getCommit()))
-					// Pick the first 3 unbuild commits using BFS
-					.flatMap(commit -> CommitIterator.stream(commit, Commit::hasNoBuildResult).limit(3))
-					// Limit the results
-					.limit(20)
-					// Get the unique commits
-					.collect(Collectors.toSet());
+					.map(CommitModel::getCommit)
+					.collect(Collectors.toCollection(LinkedHashSet::new))
+			).values();
+
+			// For every branch head pick the first 3 unbuild commits using BFS, and limit the results
+			Set<Commit> commitsToBeBuilt = commitGraphs.findUnbuiltAncestors(repositoryEntity, branchHeads, 3, 20);
 
 			log.info("Building commits {}", commitsToBeBuilt);
 			commitsToBeBuilt.stream()
@@ -206,33 +211,7 @@ public class HooksResource extends Resource {
 			pullRequests.findOpenPullRequests(repositoryEntity)
 				.forEach(pullRequest -> pullRequestBackend.updatePullRequest(repositoryApi, pullRequest));
 
-			log.info("Generating warnings for commits {}", commitsToBeBuilt);
-			commitsToBeBuilt.forEach(commit -> triggerWarnings(repositoryEntity, commit, gitPush));
-		}
-
-
-		protected void triggerWarnings(final RepositoryEntity repositoryEntity, final Commit commit, final GitPush gitPush) {
-			assert repositoryEntity != null;
-			assert commit != null;
-			assert gitPush != null;
-
-			Set<? extends CommitWarning> pushWarnings = pushWarningGenerators.stream().sequential()
-				.flatMap(generator -> {
-					try {
-						Set<? extends CommitWarning> commitWarningList = generator.generateWarnings(commit, gitPush);
-						return commitWarningList.stream();
-					}
-					catch (Exception e) {
-						log.warn("Failed to generate warnings with {} for {} ", generator, commit);
-						log.warn(e.getMessage(), e);
-						return Stream.empty();
-					}
-				})
-				.collect(Collectors.toSet());
-
-			Set<? extends CommitWarning> persistedWarnings = warnings.persist(repositoryEntity, pushWarnings);
-			log.info("Persisted {} of {} push warnings for {}", persistedWarnings.size(),
-				pushWarnings.size(), repositoryEntity);
+			return commitsToBeBuilt;
 		}
 
 	}
@@ -283,6 +262,8 @@ public class HooksResource extends Resource {
 			buildResults.persist(result);
 		}
 
+		buildsBackend.buildFinished(commit);
+
 		if (!result.getSuccess()) {
 			mailer.sendFailedBuildResult(Lists.newArrayList(Locale.ENGLISH), result);
 		}
@@ -297,64 +278,66 @@ public class HooksResource extends Resource {
 
 	}
 
+	/**
+	 * PMD report hook. The report is processed in the background by the {@link ReportIngestionQueue}.
+	 *
+	 * @throws ServiceUnavailableException If the {@code ReportIngestionQueue} is at capacity.
+	 */
 	@POST
 	@Path("pmd-result")
 	@RequireAuthenticatedBuildServer
 	@Consumes(MediaType.APPLICATION_XML)
-	@Transactional
 	public void onPmdResult(@QueryParam("repository") @NotEmpty String repository,
 							@QueryParam("commit") @NotEmpty String commitId,
-							final PMDReport report) throws UnsupportedEncodingException {
+							final InputStream report) throws IOException {
 
 		log.info("Retrieved PMD result for {} at {}", commitId, repository);
-		String repoName = decode(repository, "UTF-8");
-		RepositoryEntity repositoryEntity = repositoriesController.find(repoName);
-
-		Commit commit = commits.ensureExists(repositoryEntity, commitId);
-		Set<PMDWarning> pmdWarnings = pmdWarningGenerator.generateWarnings(commit, report);
-		Set<PMDWarning> persistedWarnings = warnings.persist(repositoryEntity, pmdWarnings);
-		log.info("Persisted {} of {} PMD warnings for {}", persistedWarnings.size(),
-				pmdWarnings.size(), repositoryEntity);
+		offerReport(PMDWarningGenerator.class, repository, commitId, report);
 	}
 
+	/**
+	 * Checkstyle report hook. The report is processed in the background by the {@link ReportIngestionQueue}.
+	 *
+	 * @throws ServiceUnavailableException If the {@code ReportIngestionQueue} is at capacity.
+	 */
 	@POST
 	@Path("checkstyle-result")
 	@RequireAuthenticatedBuildServer
 	@Consumes(MediaType.APPLICATION_XML)
-	@Transactional
 	public void onCheckstyleResult(@QueryParam("repository") @NotEmpty String repository,
 								   @QueryParam("commit") @NotEmpty String commitId,
-								   final CheckStyleReport report) throws UnsupportedEncodingException {
+								   final InputStream report) throws IOException {
 
 		log.info("Retrieved Checkstyle result for {} at {}", commitId, repository);
-		String repoName = decode(repository, "UTF-8");
-		RepositoryEntity repositoryEntity = repositoriesController.find(repoName);
-
-		Commit commit = commits.ensureExists(repositoryEntity, commitId);
-		Set<CheckstyleWarning> checkstyleWarnings = checkstyleWarningGenerator.generateWarnings(commit, report);
-		Set<CheckstyleWarning> persistedWarnings = warnings.persist(repositoryEntity, checkstyleWarnings);
-		log.info("Persisted {} of {} Checkstyle warnings for {}", persistedWarnings.size(),
-				checkstyleWarnings.size(), repositoryEntity);
+		offerReport(CheckstyleWarningGenerator.class, repository, commitId, report);
 	}
 
+	/**
+	 * FindBugs report hook. The report is processed in the background by the {@link ReportIngestionQueue}.
+	 *
+	 * @throws ServiceUnavailableException If the {@code ReportIngestionQueue} is at capacity.
+	 */
 	@POST
 	@Path("findbugs-result")
 	@RequireAuthenticatedBuildServer
 	@Consumes(MediaType.APPLICATION_XML)
-	@Transactional
 	public void onFindBugsResult(@QueryParam("repository") @NotEmpty String repository,
 								 @QueryParam("commit") @NotEmpty String commitId,
-								 final FindBugsReport report) throws UnsupportedEncodingException {
+								 final InputStream report) throws IOException {
 
 		log.info("Retrieved Findbugs result for {} at {}", commitId, repository);
+		offerReport(FindBugsWarningGenerator.class, repository, commitId, report);
+	}
+
+	private <F, T extends LineWarning> void offerReport(Class<? extends AbstractLineWarningGenerator<?, F, ?, T>> generatorType,
+	                                                    String repository, String commitId, InputStream report) throws IOException {
 		String repoName = decode(repository, "UTF-8");
-		RepositoryEntity repositoryEntity = repositoriesController.find(repoName);
+		// Fail fast for unknown repositories, before the report is spooled
+		repositoriesController.find(repoName);
 
-		Commit commit = commits.ensureExists(repositoryEntity, commitId);
-		Set<FindbugsWarning> findbugsWarnings = findBugsWarningGenerator.generateWarnings(commit, report);
-		Set<FindbugsWarning> persistedWarnings = warnings.persist(repositoryEntity, findbugsWarnings);
-		log.info("Persisted {} of {} FindBugs warnings for {}", persistedWarnings.size(),
-				findbugsWarnings.size(), repositoryEntity);
+		if (!reportIngestionQueue.offer(generatorType, repoName, commitId, report)) {
+			throw new ServiceUnavailableException();
+		}
 	}
 
 }
@@ -0,0 +1,102 @@
+package nl.tudelft.ewi.devhub.server.web.resources;
+
+import nl.tudelft.ewi.devhub.server.GitServerCache;
+import nl.tudelft.ewi.devhub.server.backend.BuildQueue;
+import nl.tudelft.ewi.devhub.server.backend.GitPushQueue;
+import nl.tudelft.ewi.devhub.server.backend.LdapAuthenticationProvider;
+import nl.tudelft.ewi.devhub.server.backend.StorageBackend;
+import nl.tudelft.ewi.devhub.server.backend.mail.MailBackendImpl;
+import nl.tudelft.ewi.devhub.server.backend.warnings.CommitPushWarningStage;
+import nl.tudelft.ewi.devhub.server.backend.warnings.ReportIngestionQueue;
+import nl.tudelft.ewi.devhub.server.database.entities.User;
+import nl.tudelft.ewi.devhub.server.metrics.RequestMetricsRegistry;
+import nl.tudelft.ewi.devhub.server.util.MarkDownParser;
+import nl.tudelft.ewi.devhub.server.web.errors.UnauthorizedException;
+import nl.tudelft.ewi.devhub.server.web.templating.TemplateEngine;
+
+import com.google.common.collect.Maps;
+import com.google.inject.Provider;
+import com.google.inject.name.Named;
+import com.google.inject.servlet.RequestScoped;
+
+import javax.inject.Inject;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import java.util.Map;
+
+/**
+ * Exposes the statistics of the caches, queues and requests of this Devhub instance to
+ * administrators.
+ *
+ * @author Jan-Willem Gmelig Meyling
+ */
+@RequestScoped
+@Path("metrics")
+@Produces(MediaType.APPLICATION_JSON)
+public class MetricsResource extends Resource {
+
+	private final User currentUser;
+	private final RequestMetricsRegistry requestMetricsRegistry;
+	private final Provider<GitServerCache> gitServerCache;
+	private final Provider<GitPushQueue> gitPushQueue;
+	private final Provider<BuildQueue> buildQueue;
+	private final Provider<CommitPushWarningStage> commitPushWarningStage;
+	private final Provider<ReportIngestionQueue> reportIngestionQueue;
+	private final Provider<MailBackendImpl> mailBackend;
+	private final Provider<LdapAuthenticationProvider> ldapAuthenticationProvider;
+	private final Provider<StorageBackend> storageBackend;
+	private final Provider<TemplateEngine> templateEngine;
+	private final Provider<MarkDownParser> markDownParser;
+
+	@Inject
+	MetricsResource(@Named("current.user") User currentUser,
+					RequestMetricsRegistry requestMetricsRegistry,
+					Provider<GitServerCache> gitServerCache,
+					Provider<GitPushQueue> gitPushQueue,
+					Provider<BuildQueue> buildQueue,
+					Provider<CommitPushWarningStage> commitPushWarningStage,
+					Provider<ReportIngestionQueue> reportIngestionQueue,
+					Provider<MailBackendImpl> mailBackend,
+					Provider<LdapAuthenticationProvider> ldapAuthenticationProvider,
+					Provider<StorageBackend> storageBackend,
+					Provider<TemplateEngine> templateEngine,
+					Provider<MarkDownParser> markDownParser) {
+		this.currentUser = currentUser;
+		this.requestMetricsRegistry = requestMetricsRegistry;
+		this.gitServerCache = gitServerCache;
+		this.gitPushQueue = gitPushQueue;
+		this.buildQueue = buildQueue;
+		this.commitPushWarningStage = commitPushWarningStage;
+		this.reportIngestionQueue = reportIngestionQueue;
+		this.mailBackend = mailBackend;
+		this.ldapAuthenticationProvider = ldapAuthenticationProvider;
+		this.storageBackend = storageBackend;
+		this.templateEngine = templateEngine;
+		this.markDownParser = markDownParser;
+	}
+
+	@GET
+	public Map<String, Object> getMetrics() {
+		if (!currentUser.isAdmin()) {
+			throw new UnauthorizedException();
+		}
+
+		Map<String, Object> metrics = Maps.newLinkedHashMap();
+		metrics.put("requests", requestMetricsRegistry.getStatistics());
+		metrics.put("slowRequests", requestMetricsRegistry.getSlowRequests());
+		metrics.put("gitServerCache", gitServerCache.get().getStatistics());
+		metrics.put("gitPushQueue", gitPushQueue.get().getStatistics());
+		metrics.put("buildQueue", buildQueue.get().getQueueSize());
+		metrics.put("warningGenerators", commitPushWarningStage.get().getTimings());
+		metrics.put("reportIngestionQueue", reportIngestionQueue.get().getStatistics());
+		metrics.put("mail", mailBackend.get().getStatistics());
+		metrics.put("ldap", ldapAuthenticationProvider.get().getStatistics());
+		metrics.put("storage", storageBackend.get().getStatistics());
+		metrics.put("templates", templateEngine.get().getTimings());
+		metrics.put("markdown", markDownParser.get().getStatistics());
+		return metrics;
+	}
+
+}
@@ -22,6 +22,7 @@ import nl.tudelft.ewi.devhub.server.database.entities.Assignment;
 import nl.tudelft.ewi.devhub.server.database.entities.Commit;
 import nl.tudelft.ewi.devhub.server.database.entities.CourseEdition;
 import nl.tudelft.ewi.devhub.server.database.entities.Delivery;
+import nl.tudelft.ewi.devhub.server.database.entities.DeliveryAttachment;
 import nl.tudelft.ewi.devhub.server.database.entities.Group;
 import nl.tudelft.ewi.devhub.server.database.entities.RepositoryEntity;
 import nl.tudelft.ewi.devhub.server.database.entities.User;
@@ -47,6 +48,7 @@ import javax.ws.rs.*;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
 import java.io.File;
 import java.io.IOException;
@@ -287,20 +289,29 @@ public class ProjectAssignmentsResource extends Resource {
 
     /**
      * Get a file from a delivery
-     * @param request the current HttpServletRequest
+     * @param request the current request
      * @param deliveryId deliveryId for the delivery
      * @param attachmentPath requested file
+     * @param range the requested byte range
+     * @param ifRange the entity tag for which the byte range is requested
      * @return the requested file
      */
     @GET
     @Path("{assignmentId : \\d+}/deliveries/{deliveryId : \\d+}/attachment/{path}")
-    public Response getAttachment(@Context HttpServletRequest request,
+    public Response getAttachment(@Context Request request,
                                   @PathParam("deliveryId") long deliveryId,
-                                  @PathParam("path") String attachmentPath) {
+                                  @PathParam("path") String attachmentPath,
+                                  @HeaderParam("Range") String range,
+                                  @HeaderParam("If-Range") String ifRange) {
 
         Delivery delivery = deliveries.find(group, deliveryId);
         File file = deliveriesBackend.getAttachment(delivery, group, attachmentPath);
-        return Response.ok(file, MediaType.APPLICATION_OCTET_STREAM).build();
+        String contentHash = delivery.getAttachments().stream()
+            .filter(attachment -> attachment.getPath().equals(attachmentPath))
+            .map(DeliveryAttachment::getContentHash)
+            .findAny().orElse(null);
+
+        return FileDownload.create(request, file, contentHash, range, ifRange);
     }
 
     @POST
@@ -3,6 +3,7 @@ package nl.tudelft.ewi.devhub.server.web.resources;
 import lombok.SneakyThrows;
 
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 import java.net.URI;
 import java.net.URLEncoder;
 
@@ -24,6 +25,11 @@ public class Resource {
 			.build();
 	}
 
+	public Response display(StreamingOutput html) {
+		return Response.ok(html)
+			.build();
+	}
+
 	@SneakyThrows
 	static String encode(String value) {
 		return URLEncoder.encode(value, "UTF-8");
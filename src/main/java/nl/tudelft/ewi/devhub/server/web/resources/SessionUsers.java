@@ -0,0 +1,56 @@
+package nl.tudelft.ewi.devhub.server.web.resources;
+
+import nl.tudelft.ewi.devhub.server.database.controllers.Users;
+import nl.tudelft.ewi.devhub.server.database.entities.User;
+
+import com.google.common.primitives.Longs;
+
+import javax.inject.Inject;
+import javax.servlet.http.HttpSession;
+import java.util.Collection;
+import java.util.stream.Collectors;
+
+/**
+ * The {@code SessionUsers} stores selections of users, such as the members of a group that is
+ * being set up, in the {@link HttpSession}. Only the user ids are stored, so the session can be
+ * serialized to an external session store and restored on another node.
+ */
+public class SessionUsers {
+
+	private final Users users;
+
+	@Inject
+	public SessionUsers(Users users) {
+		this.users = users;
+	}
+
+	/**
+	 * Store a selection of users in the session.
+	 *
+	 * @param session Session to store the selection in.
+	 * @param attribute Name of the session attribute.
+	 * @param selection Users to store.
+	 */
+	public void put(HttpSession session, String attribute, Collection<User> selection) {
+		long[] ids = Longs.toArray(selection.stream()
+			.map(User::getId)
+			.collect(Collectors.toList()));
+		session.setAttribute(attribute, ids);
+	}
+
+	/**
+	 * Retrieve a selection of users from the session.
+	 *
+	 * @param session Session to retrieve the selection from.
+	 * @param attribute Name of the session attribute.
+	 * @return The selected users ordered by net id, or {@code null} if there is no selection.
+	 */
+	public Collection<User> get(HttpSession session, String attribute) {
+		Object ids = session.getAttribute(attribute);
+		if (!(ids instanceof long[])) {
+			return null;
+		}
+		return users.listByIds(Longs.asList((long[]) ids));
+	}
+
+}
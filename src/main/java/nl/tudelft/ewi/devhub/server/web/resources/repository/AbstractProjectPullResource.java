@@ -279,7 +279,7 @@ public abstract class AbstractProjectPullResource extends AbstractIssueResource<
 		parameters.put("lineWarnings", new WarningResolver(lineWarnings));
 
 		List<Locale> locales = Collections.list(request.getLocales());
-		return display(templateEngine.process("project-pull-diff-view.ftl", locales, parameters));
+		return display(templateEngine.stream("project-pull-diff-view.ftl", locales, parameters));
 	}
 
 	private static DiffBlameModel getDiffBlameModelForPull(PullRequest pullRequest, RepositoryApi repository) {
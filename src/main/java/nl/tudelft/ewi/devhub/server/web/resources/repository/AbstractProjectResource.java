@@ -5,7 +5,6 @@ import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import com.google.inject.name.Named;
 import com.google.inject.persist.Transactional;
-import com.google.inject.servlet.SessionScoped;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
 import nl.tudelft.ewi.devhub.server.backend.BuildsBackend;
@@ -13,6 +12,7 @@ import nl.tudelft.ewi.devhub.server.backend.CommentBackend;
 import nl.tudelft.ewi.devhub.server.backend.mail.CommentMailer;
 import nl.tudelft.ewi.devhub.server.database.controllers.BuildResults;
 import nl.tudelft.ewi.devhub.server.database.controllers.CommitComments;
+import nl.tudelft.ewi.devhub.server.database.controllers.CommitCounters;
 import nl.tudelft.ewi.devhub.server.database.controllers.Commits;
 import nl.tudelft.ewi.devhub.server.database.controllers.Controller;
 import nl.tudelft.ewi.devhub.server.database.controllers.PullRequests;
@@ -31,6 +31,7 @@ import nl.tudelft.ewi.devhub.server.util.MarkDownParser;
 import nl.tudelft.ewi.devhub.server.web.errors.ApiError;
 import nl.tudelft.ewi.devhub.server.web.models.CommentResponse;
 import nl.tudelft.ewi.devhub.server.web.resources.Resource;
+import nl.tudelft.ewi.devhub.server.web.resources.SessionUsers;
 import nl.tudelft.ewi.devhub.server.web.resources.views.WarningResolver;
 import nl.tudelft.ewi.devhub.server.web.templating.TemplateEngine;
 import nl.tudelft.ewi.git.models.*;
@@ -58,8 +59,12 @@ import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 import javax.ws.rs.core.UriBuilder;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
@@ -87,11 +92,7 @@ public abstract class AbstractProjectResource<RepoType extends RepositoryEntity>
 	private final static int MAX_GROUP_SIZE = 20;
 	public static final String MASTER_BRANCH_NAME = "master";
 
-	@Data
-	@SessionScoped
-	public static class EditContributorsState {
-		private final Map<String, Collection<User>> selectedUsers = Maps.newHashMap();
-	}
+	private static final String SELECTED_CONTRIBUTORS_ATTRIBUTE = "contributors.edit.";
 
 	protected final TemplateEngine templateEngine;
 	protected final User currentUser;
@@ -104,8 +105,9 @@ public abstract class AbstractProjectResource<RepoType extends RepositoryEntity>
 	protected final CommentMailer commentMailer;
 	protected final Commits commits;
 	protected final Warnings warnings;
+	protected final CommitCounters commitCounters;
 	protected final Controller<? super RepoType> repositoriesController;
-	protected final EditContributorsState editContributorsState;
+	protected final SessionUsers sessionUsers;
 	protected final Users users;
 	protected MarkDownParser markDownParser;
 
@@ -148,8 +150,9 @@ public abstract class AbstractProjectResource<RepoType extends RepositoryEntity>
 							final CommentMailer commentMailer,
 							final Commits commits,
 							final Warnings warnings,
+							final CommitCounters commitCounters,
 						  	final Controller<? super RepoType> repositoriesController,
-						  	final EditContributorsState editContributorsState,
+						  	final SessionUsers sessionUsers,
 						  	final Users users,
 						  	final MarkDownParser markDownParser) {
 
@@ -164,8 +167,9 @@ public abstract class AbstractProjectResource<RepoType extends RepositoryEntity>
 		this.commentMailer = commentMailer;
 		this.commits = commits;
 		this.warnings = warnings;
+		this.commitCounters = commitCounters;
 		this.repositoriesController = repositoriesController;
-		this.editContributorsState = editContributorsState;
+		this.sessionUsers = sessionUsers;
 		this.users = users;
 		this.markDownParser = markDownParser;
 	}
@@ -179,6 +183,57 @@ public abstract class AbstractProjectResource<RepoType extends RepositoryEntity>
 		return parameters;
 	}
 
+	/**
+	 * Compute the {@code ETag} for a page of a commit. The tag is derived from the commit, the
+	 * current user and the comments, warnings and build result of the commit, so it can be
+	 * checked without contacting the git server.
+	 *
+	 * @param request The current request.
+	 * @param view Name of the view.
+	 * @param commitId Commit id of the commit.
+	 * @param path Path within the commit, may be empty.
+	 * @param versions Additional versions the page depends on.
+	 * @return The tag, or {@code null} if the commit id is not a full commit id.
+	 */
+	protected EntityTag getCommitPageTag(HttpServletRequest request, String view, String commitId, String path, long... versions) {
+		if (!CommitPageTag.isFullCommitId(commitId)) {
+			return null;
+		}
+
+		RepositoryEntity repositoryEntity = getRepositoryEntity();
+		CommitPageTag commitPageTag = CommitPageTag.of(view, commitId, path)
+			.renderedFor(currentUser, Collections.list(request.getLocales()))
+			.withSummary(commitCounters.getSummaries(repositoryEntity, Collections.singleton(commitId)).get(commitId));
+
+		for (long version : versions) {
+			commitPageTag.withVersion(version);
+		}
+		return commitPageTag.build();
+	}
+
+	/**
+	 * @param request The request, used to evaluate the preconditions.
+	 * @param entityTag The current tag of the page, may be {@code null}.
+	 * @return A {@code 304 Not Modified} response if the client has the current page, or {@code null}.
+	 */
+	protected Response notModified(Request request, EntityTag entityTag) {
+		if (entityTag == null) {
+			return null;
+		}
+
+		Response.ResponseBuilder notModified = request.evaluatePreconditions(entityTag);
+		return notModified == null ? null : notModified
+			.cacheControl(CommitPageTag.revalidate())
+			.build();
+	}
+
+	protected Response display(StreamingOutput html, EntityTag entityTag) {
+		return Response.ok(html)
+			.tag(entityTag)
+			.cacheControl(CommitPageTag.revalidate())
+			.build();
+	}
+
 	/**
 	 * Generates the parameters for the branch overview.
 	 * @param branchName Name of the branch
@@ -197,19 +252,14 @@ public abstract class AbstractProjectResource<RepoType extends RepositoryEntity>
 			CommitSubList commits = branchApi.retrieveCommitsInBranch((page - 1) * PAGE_SIZE, PAGE_SIZE);
 
 			Collection<String> commitIds = getCommitIds(commits);
-			List<Commit> commitEntities = commitIds.stream()
-				.map(commitId -> this.commits.ensureExists(repositoryEntity, commitId))
-				.collect(Collectors.toList());
-			Map<String, Commit> commitEntitiesByCommitId = Maps.uniqueIndex(commitEntities, Commit::getCommitId);
+			Map<String, Commit> commitEntitiesByCommitId = this.commits.ensureExistsAll(repositoryEntity, commitIds);
 
 			parameters.put("commits", commits);
 			parameters.put("branch", branch);
 			parameters.put("commitEntities", commitEntitiesByCommitId);
 			parameters.put("pagination", new Pagination(page, commits.getTotal()));
 
-			parameters.put("warnings", warnings.commitsWithWarningsFor(repositoryEntity, commitIds));
-			parameters.put("comments", comments.commentsFor(repositoryEntity, commitIds));
-			parameters.put("builds", buildResults.findBuildResults(repositoryEntity, commitIds));
+			parameters.put("summaries", commitCounters.getSummaries(repositoryEntity, commitIds));
 
 			pullRequests.findOpenPullRequest(repositoryEntity, branch.getName()).ifPresent(pullRequest ->
 					parameters.put("pullRequest", pullRequest));
@@ -309,8 +359,12 @@ public abstract class AbstractProjectResource<RepoType extends RepositoryEntity>
 										   @QueryParam("error") String error) throws IOException {
 
 		RepositoryEntity repositoryEntity = getRepositoryEntity();
-		Collection<User> members = this.editContributorsState.getSelectedUsers()
-			.computeIfAbsent(repositoryEntity.getRepositoryName(), c -> repositoryEntity.getCollaborators());
+		String attribute = SELECTED_CONTRIBUTORS_ATTRIBUTE + repositoryEntity.getRepositoryName();
+		Collection<User> members = sessionUsers.get(request.getSession(), attribute);
+		if (members == null) {
+			members = repositoryEntity.getCollaborators();
+			sessionUsers.put(request.getSession(), attribute, members);
+		}
 
 		Map<String, Object> parameters = getBaseParameters();
 		if (members != null && !members.isEmpty()) {
@@ -330,7 +384,8 @@ public abstract class AbstractProjectResource<RepoType extends RepositoryEntity>
 										   @QueryParam("error") String error) throws IOException {
 
 		RepositoryEntity repositoryEntity = getRepositoryEntity();
-		Collection<User> members = this.editContributorsState.getSelectedUsers().get(repositoryEntity.getRepositoryName());
+		Collection<User> members = sessionUsers.get(request.getSession(),
+			SELECTED_CONTRIBUTORS_ATTRIBUTE + repositoryEntity.getRepositoryName());
 
 		Map<String, Object> parameters = getBaseParameters();
 		parameters.put("members", members);
@@ -351,17 +406,18 @@ public abstract class AbstractProjectResource<RepoType extends RepositoryEntity>
 			editContributorsAllowedCheck();
 
 			RepositoryEntity repositoryEntity = getRepositoryEntity();
+			String attribute = SELECTED_CONTRIBUTORS_ATTRIBUTE + repositoryEntity.getRepositoryName();
 
 			if (step == 1) {
 				Collection<User> groupMembers = getGroupMembers(request);
 				validateCollaborators(groupMembers);
-				this.editContributorsState.getSelectedUsers().put(repositoryEntity.getRepositoryName(), groupMembers);
+				sessionUsers.put(request.getSession(), attribute, groupMembers);
 				return redirect(new URI(request.getRequestURI()).resolve("edit?step=2"));
 			}
 
-			Collection<User> members = this.editContributorsState.getSelectedUsers().get(repositoryEntity.getRepositoryName());
+			Collection<User> members = sessionUsers.get(request.getSession(), attribute);
 			updateCollaborators(members);
-			this.editContributorsState.getSelectedUsers().remove(repositoryEntity.getRepositoryName());
+			request.getSession().removeAttribute(attribute);
 			return redirect(new URI(request.getRequestURI()).resolve("../contributors"));
 		}
 		catch (ApiError e) {
@@ -419,8 +475,15 @@ public abstract class AbstractProjectResource<RepoType extends RepositoryEntity>
 	@Path("/commits/{commitId}/build")
 	@Transactional
 	public Response showCommitBuild(@Context HttpServletRequest request,
+									@Context Request httpRequest,
 									@PathParam("commitId") String commitId) throws IOException, ApiError {
 
+		EntityTag entityTag = getCommitPageTag(request, "build", commitId, CommitApi.EMPTY_PATH);
+		Response notModified = notModified(httpRequest, entityTag);
+		if (notModified != null) {
+			return notModified;
+		}
+
 		RepositoryEntity repositoryEntity = getRepositoryEntity();
 		RepositoryApi repository = repositoriesApi.getRepository(repositoryEntity.getRepositoryName());
 		CommitApi commit = repository.getCommit(commitId);
@@ -437,7 +500,7 @@ public abstract class AbstractProjectResource<RepoType extends RepositoryEntity>
 		}
 
 		List<Locale> locales = Collections.list(request.getLocales());
-		return display(templateEngine.process("project-commit-view.ftl", locales, parameters));
+		return display(templateEngine.stream("project-commit-view.ftl", locales, parameters), entityTag);
 	}
 
     @GET
@@ -458,9 +521,16 @@ public abstract class AbstractProjectResource<RepoType extends RepositoryEntity>
 	@Path("/commits/{commitId}/diff")
 	@Transactional
 	public Response showCommitChanges(@Context HttpServletRequest request,
+									  @Context Request httpRequest,
 									  @PathParam("commitId") String commitId)
 			throws IOException, ApiError {
 
+		EntityTag entityTag = getCommitPageTag(request, "diff", commitId, CommitApi.EMPTY_PATH);
+		Response notModified = notModified(httpRequest, entityTag);
+		if (notModified != null) {
+			return notModified;
+		}
+
 		RepositoryEntity repositoryEntity = getRepositoryEntity();
 		RepositoryApi repository = repositoriesApi.getRepository(repositoryEntity.getRepositoryName());
 		CommitApi commitApi = repository.getCommit(commitId);
@@ -487,16 +557,17 @@ public abstract class AbstractProjectResource<RepoType extends RepositoryEntity>
 		parameters.put("lineWarnings", new WarningResolver(lineWarnings));
 
     		List<Locale> locales = Collections.list(request.getLocales());
-		return display(templateEngine.process("project-diff-view.ftl", locales, parameters));
+		return display(templateEngine.stream("project-diff-view.ftl", locales, parameters), entityTag);
 	}
 
     @GET
 	@Path("/commits/{commitId}/tree")
 	@Transactional
 	public Response getTree(@Context HttpServletRequest request,
+							@Context Request httpRequest,
 							@PathParam("commitId") String commitId)
 					throws ApiError, IOException {
-		return getTree(request, commitId, CommitApi.EMPTY_PATH);
+		return getTree(request, httpRequest, commitId, CommitApi.EMPTY_PATH);
 	}
 
 	public static Comparator<String> FOLDER_TREE_COMPARATOR = (o1, o2) -> {
@@ -516,9 +587,16 @@ public abstract class AbstractProjectResource<RepoType extends RepositoryEntity>
 	@Path("/commits/{commitId}/tree/{path:.+}")
 	@Transactional
 	public Response getTree(@Context HttpServletRequest request,
+							@Context Request httpRequest,
 							@PathParam("commitId") String commitId,
 							@PathParam("path") String path) throws ApiError, IOException {
 
+		EntityTag entityTag = getCommitPageTag(request, "tree", commitId, path);
+		Response notModified = notModified(httpRequest, entityTag);
+		if (notModified != null) {
+			return notModified;
+		}
+
 		RepositoryEntity repositoryEntity = getRepositoryEntity();
 		RepositoryApi repository = repositoriesApi.getRepository(repositoryEntity.getRepositoryName());
 		Map<String, EntryType> entries = new TreeMap<>(FOLDER_TREE_COMPARATOR);
@@ -541,7 +619,7 @@ public abstract class AbstractProjectResource<RepoType extends RepositoryEntity>
 		}
 		
 		List<Locale> locales = Collections.list(request.getLocales());
-		return display(templateEngine.process("project-folder-view.ftl", locales, parameters));
+		return display(templateEngine.stream("project-folder-view.ftl", locales, parameters), entityTag);
 	}
 
 
@@ -551,13 +629,30 @@ public abstract class AbstractProjectResource<RepoType extends RepositoryEntity>
 	@Path("/commits/{commitId}/raw/{path:.+}")
 	@Transactional
 	public Response getRawFile(@Context HttpServletRequest request,
+							@Context Request httpRequest,
 							@PathParam("commitId") String commitId,
 							@PathParam("path") String path) throws ApiError, IOException {
 
 		RepositoryEntity repositoryEntity = getRepositoryEntity();
 		RepositoryApi repository = repositoriesApi.getRepository(repositoryEntity.getRepositoryName());
+
+		if (!CommitPageTag.isFullCommitId(commitId)) {
+			return Response.ok(repository.getCommit(commitId).showFile(path))
+					.header("Content-Type", MediaType.APPLICATION_OCTET_STREAM)
+					.build();
+		}
+
+		// The contents of a file in a commit never change, so the tag does not depend on any other state
+		EntityTag entityTag = CommitPageTag.of("raw", commitId, path).build();
+		Response.ResponseBuilder notModified = httpRequest.evaluatePreconditions(entityTag);
+		if (notModified != null) {
+			return notModified.header(HttpHeaders.CACHE_CONTROL, CommitPageTag.IMMUTABLE).build();
+		}
+
 		return Response.ok(repository.getCommit(commitId).showFile(path))
 				.header("Content-Type", MediaType.APPLICATION_OCTET_STREAM)
+				.header(HttpHeaders.CACHE_CONTROL, CommitPageTag.IMMUTABLE)
+				.tag(entityTag)
 				.build();
 	}
 
@@ -565,9 +660,18 @@ public abstract class AbstractProjectResource<RepoType extends RepositoryEntity>
 	@Path("/commits/{commitId}/blob/{path:.+}")
 	@Transactional
 	public Response getBlob(@Context HttpServletRequest request,
+                            @Context Request httpRequest,
                             @PathParam("commitId") String commitId,
                             @PathParam("path") String path) throws ApiError, IOException {
 
+		// Blame links to the comments on other commits, so any new comment in the repository may change the page
+		EntityTag entityTag = getCommitPageTag(request, "blob", commitId, path,
+			comments.getLatestCommentId(getRepositoryEntity()));
+		Response notModified = notModified(httpRequest, entityTag);
+		if (notModified != null) {
+			return notModified;
+		}
+
 		String folderPath = "";
 		String fileName = path;
 		if (path.contains("/")) {
@@ -586,6 +690,8 @@ public abstract class AbstractProjectResource<RepoType extends RepositoryEntity>
 		if (type == EntryType.BINARY) {
 			return Response.ok(commitApi.showFile(path))
 					.header("Content-Type", MediaType.APPLICATION_OCTET_STREAM)
+					.tag(entityTag)
+					.cacheControl(CommitPageTag.revalidate())
 					.build();
 		}
 
@@ -613,7 +719,7 @@ public abstract class AbstractProjectResource<RepoType extends RepositoryEntity>
 		parameters.put("lineWarnings", new WarningResolver(lineWarnings));
 
 		List<Locale> locales = Collections.list(request.getLocales());
-		return display(templateEngine.process("project-file-view.ftl", locales, parameters));
+		return display(templateEngine.stream("project-file-view.ftl", locales, parameters), entityTag);
 	}
 
 	@DELETE
@@ -0,0 +1,134 @@
+package nl.tudelft.ewi.devhub.server.web.resources.repository;
+
+import com.google.common.base.Charsets;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import nl.tudelft.ewi.devhub.server.database.controllers.CommitCounters.CommitSummary;
+import nl.tudelft.ewi.devhub.server.database.entities.BuildResult;
+import nl.tudelft.ewi.devhub.server.database.entities.User;
+
+import javax.ws.rs.core.CacheControl;
+import javax.ws.rs.core.EntityTag;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Builds the {@code ETag} for a page of a commit. The git contents of a commit never change,
+ * so a page only has to be rendered again when the comments, warnings or build result of the
+ * commit change, or when it is requested by another user or in another language.
+ *
+ * @author Jan-Willem Gmelig Meyling
+ */
+public class CommitPageTag {
+
+	private static final Pattern FULL_COMMIT_ID = Pattern.compile("^[0-9a-f]{40}$");
+
+	/**
+	 * Pages rendered by a previous deployment may have been rendered with other templates.
+	 */
+	private static final String DEPLOYMENT = Long.toHexString(System.currentTimeMillis());
+
+	/**
+	 * {@code Cache-Control} for the raw files of a commit, which never change.
+	 */
+	public static final String IMMUTABLE = "private, max-age=31536000, immutable";
+
+	private final Hasher hasher;
+
+	private CommitPageTag(String view, String commitId, String path) {
+		this.hasher = Hashing.sha1().newHasher()
+			.putString(DEPLOYMENT, Charsets.UTF_8)
+			.putString(view, Charsets.UTF_8)
+			.putString(commitId, Charsets.UTF_8)
+			.putString(path, Charsets.UTF_8);
+	}
+
+	/**
+	 * Start a tag for a page of a commit.
+	 *
+	 * @param view Name of the view.
+	 * @param commitId Commit id of the commit.
+	 * @param path Path within the commit, may be empty.
+	 * @return The tag.
+	 */
+	public static CommitPageTag of(String view, String commitId, String path) {
+		return new CommitPageTag(view, commitId, path);
+	}
+
+	/**
+	 * Branch names and abbreviated commit ids may point to another commit later on, so only
+	 * pages for full commit ids can be validated with an {@code ETag}.
+	 *
+	 * @param commitId The commit id from the request.
+	 * @return True if the commit id is a full commit id.
+	 */
+	public static boolean isFullCommitId(String commitId) {
+		return FULL_COMMIT_ID.matcher(commitId).matches();
+	}
+
+	/**
+	 * @param user The user the page is rendered for.
+	 * @param locales The locales the page is rendered in.
+	 * @return This tag.
+	 */
+	public CommitPageTag renderedFor(User user, List<Locale> locales) {
+		hasher.putLong(user.getId());
+		locales.forEach(locale -> hasher.putString(locale.toLanguageTag(), Charsets.UTF_8));
+		return this;
+	}
+
+	/**
+	 * @param summary The build result and counters of the commit, or {@code null} if the
+	 *                commit is not in the database yet.
+	 * @return This tag.
+	 */
+	public CommitPageTag withSummary(CommitSummary summary) {
+		if (summary == null) {
+			hasher.putBoolean(false);
+			return this;
+		}
+
+		hasher.putBoolean(true)
+			.putInt(summary.getWarnings())
+			.putInt(summary.getComments());
+
+		BuildResult buildResult = summary.getBuildResult();
+		if (buildResult != null) {
+			// The length of the log stands in for the log, which is too large to hash on every request
+			hasher.putString(String.valueOf(buildResult.getSuccess()), Charsets.UTF_8)
+				.putInt(summary.getBuildLogLength());
+		}
+		return this;
+	}
+
+	/**
+	 * @param version An additional version the page depends on.
+	 * @return This tag.
+	 */
+	public CommitPageTag withVersion(long version) {
+		hasher.putLong(version);
+		return this;
+	}
+
+	/**
+	 * @return A weak {@code ETag}, as pages are equivalent but not byte for byte identical
+	 * 		between renders.
+	 */
+	public EntityTag build() {
+		return new EntityTag(hasher.hash().toString(), true);
+	}
+
+	/**
+	 * Pages of a commit depend on the current user, and should be revalidated before reuse.
+	 *
+	 * @return Cache control for a page of a commit.
+	 */
+	public static CacheControl revalidate() {
+		CacheControl cacheControl = new CacheControl();
+		cacheControl.setPrivate(true);
+		cacheControl.setNoCache(true);
+		return cacheControl;
+	}
+
+}
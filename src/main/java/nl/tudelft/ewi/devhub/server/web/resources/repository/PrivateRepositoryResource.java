@@ -11,6 +11,7 @@ import nl.tudelft.ewi.devhub.server.backend.CommentBackend;
 import nl.tudelft.ewi.devhub.server.backend.mail.CommentMailer;
 import nl.tudelft.ewi.devhub.server.database.controllers.BuildResults;
 import nl.tudelft.ewi.devhub.server.database.controllers.CommitComments;
+import nl.tudelft.ewi.devhub.server.database.controllers.CommitCounters;
 import nl.tudelft.ewi.devhub.server.database.controllers.Commits;
 import nl.tudelft.ewi.devhub.server.database.controllers.PrivateRepositories;
 import nl.tudelft.ewi.devhub.server.database.controllers.PullRequests;
@@ -19,6 +20,7 @@ import nl.tudelft.ewi.devhub.server.database.controllers.Warnings;
 import nl.tudelft.ewi.devhub.server.database.entities.PrivateRepository;
 import nl.tudelft.ewi.devhub.server.database.entities.User;
 import nl.tudelft.ewi.devhub.server.util.MarkDownParser;
+import nl.tudelft.ewi.devhub.server.web.resources.SessionUsers;
 import nl.tudelft.ewi.devhub.server.web.templating.TemplateEngine;
 import nl.tudelft.ewi.git.models.RepositoryModel;
 import nl.tudelft.ewi.git.models.RepositoryModel.Level;
@@ -50,10 +52,10 @@ public class PrivateRepositoryResource extends AbstractProjectResource<PrivateRe
 									 CommentBackend commentBackend, BuildResults buildResults, PullRequests pullRequests,
 									 RepositoriesApi repositoriesApi, BuildsBackend buildBackend, CommitComments comments,
 									 CommentMailer commentMailer, Commits commits, Warnings warnings,
-									 PrivateRepositories privateRepositories, EditContributorsState editContributorsState,
+									 CommitCounters commitCounters, PrivateRepositories privateRepositories, SessionUsers sessionUsers,
 									 Users users, MarkDownParser markDownParser) {
 		super(templateEngine, currentUser, commentBackend, buildResults, pullRequests, repositoriesApi, buildBackend,
-			comments, commentMailer, commits, warnings, privateRepositories, editContributorsState, users, markDownParser);
+			comments, commentMailer, commits, warnings, commitCounters, privateRepositories, sessionUsers, users, markDownParser);
 		this.privateRepositories = privateRepositories;
 	}
 
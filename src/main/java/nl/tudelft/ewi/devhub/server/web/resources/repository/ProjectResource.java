@@ -6,6 +6,7 @@ import nl.tudelft.ewi.devhub.server.backend.CommentBackend;
 import nl.tudelft.ewi.devhub.server.backend.mail.CommentMailer;
 import nl.tudelft.ewi.devhub.server.database.controllers.BuildResults;
 import nl.tudelft.ewi.devhub.server.database.controllers.CommitComments;
+import nl.tudelft.ewi.devhub.server.database.controllers.CommitCounters;
 import nl.tudelft.ewi.devhub.server.database.controllers.Commits;
 import nl.tudelft.ewi.devhub.server.database.controllers.Groups;
 import nl.tudelft.ewi.devhub.server.database.controllers.PullRequests;
@@ -19,6 +20,7 @@ import nl.tudelft.ewi.devhub.server.database.entities.User;
 import nl.tudelft.ewi.devhub.server.util.MarkDownParser;
 import nl.tudelft.ewi.devhub.server.web.errors.ApiError;
 import nl.tudelft.ewi.devhub.server.web.resources.Resource;
+import nl.tudelft.ewi.devhub.server.web.resources.SessionUsers;
 import nl.tudelft.ewi.devhub.server.web.templating.TemplateEngine;
 
 import com.google.common.collect.Maps;
@@ -54,10 +56,10 @@ public class ProjectResource extends AbstractProjectResource<GroupRepository> {
 						   final @Named("current.group") Group group, CommentBackend commentBackend,
 						   BuildResults buildResults, PullRequests pullRequests, RepositoriesApi repositoriesApi, BuildsBackend buildBackend,
 						   CommitComments comments, CommentMailer commentMailer, Commits commits, Warnings warnings,
-						   RepositoriesController repositoriesController, EditContributorsState editContributorsState,
+						   CommitCounters commitCounters, RepositoriesController repositoriesController, SessionUsers sessionUsers,
 						   Users users, Groups groups, MarkDownParser markDownParser) {
 		super(templateEngine, currentUser, commentBackend, buildResults, pullRequests, repositoriesApi, buildBackend,
-			comments, commentMailer, commits, warnings, repositoriesController, editContributorsState, users, markDownParser);
+			comments, commentMailer, commits, warnings, commitCounters, repositoriesController, sessionUsers, users, markDownParser);
 		this.group = group;
 		this.groups = groups;
 	}
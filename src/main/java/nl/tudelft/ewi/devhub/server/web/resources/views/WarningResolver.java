@@ -1,25 +1,32 @@
 package nl.tudelft.ewi.devhub.server.web.resources.views;
 
-import lombok.Data;
+import lombok.Getter;
 import nl.tudelft.ewi.devhub.server.database.entities.warnings.LineWarning;
+import nl.tudelft.ewi.devhub.server.util.SourceIndex;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
+ * The {@code WarningResolver} is used in the templates to find the warnings for a line.
+ *
  * @author Jan-Willem Gmelig Meyling
  */
-@Data
 public class WarningResolver {
 
+    @Getter
     private final List<LineWarning> warnings;
 
+    private final SourceIndex<LineWarning> index;
+
+    public WarningResolver(final List<LineWarning> warnings) {
+        this.warnings = warnings;
+        this.index = new SourceIndex<>(warnings, LineWarning::getSource);
+    }
+
     public List<LineWarning> retrieveWarnings(final String commitId,
                                               final String fileName,
                                               final Integer lineNumber) {
-        return warnings.stream()
-				.filter(warning -> warning.getSource().equals(commitId, fileName, lineNumber))
-				.collect(Collectors.toList());
+        return index.get(commitId, fileName, lineNumber);
     }
 
 }
@@ -0,0 +1,43 @@
+package nl.tudelft.ewi.devhub.server.web.session;
+
+import nl.tudelft.ewi.devhub.server.Config;
+
+import org.eclipse.jetty.server.SessionIdManager;
+import org.eclipse.jetty.server.SessionManager;
+import org.eclipse.jetty.server.session.HashSessionIdManager;
+import org.eclipse.jetty.server.session.HashSessionManager;
+
+/**
+ * The {@code InMemorySessionStore} keeps the sessions in the memory of this node. Sessions are
+ * lost when the node restarts and cannot be shared with other nodes.
+ *
+ * @author Jan-Willem Gmelig Meyling
+ */
+public class InMemorySessionStore implements SessionStore {
+
+	private final Config config;
+	private final HashSessionIdManager sessionIdManager;
+
+	public InMemorySessionStore(Config config) {
+		this.config = config;
+		this.sessionIdManager = new HashSessionIdManager();
+	}
+
+	@Override
+	public SessionIdManager getSessionIdManager() {
+		return sessionIdManager;
+	}
+
+	@Override
+	public SessionManager createSessionManager() {
+		HashSessionManager sessionManager = new HashSessionManager();
+		sessionManager.setMaxInactiveInterval(config.getSessionTimeout());
+		return sessionManager;
+	}
+
+	@Override
+	public void close() {
+		// Nothing to release
+	}
+
+}
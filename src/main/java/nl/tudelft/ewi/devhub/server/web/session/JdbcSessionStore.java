@@ -0,0 +1,92 @@
+package nl.tudelft.ewi.devhub.server.web.session;
+
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import nl.tudelft.ewi.devhub.server.Config;
+import nl.tudelft.ewi.devhub.server.database.PersistenceConfiguration;
+
+import com.mchange.v2.c3p0.ComboPooledDataSource;
+
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.SessionIdManager;
+import org.eclipse.jetty.server.SessionManager;
+import org.eclipse.jetty.server.session.JDBCSessionIdManager;
+import org.eclipse.jetty.server.session.JDBCSessionManager;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.util.Properties;
+
+/**
+ * The {@code JdbcSessionStore} stores the sessions in the DevHub database, so that several nodes
+ * behind a load balancer can share sessions and a node can be restarted without logging out its
+ * users. Jetty creates the session tables on startup if they do not exist yet.
+ *
+ * @author Jan-Willem Gmelig Meyling
+ */
+@Slf4j
+public class JdbcSessionStore implements SessionStore {
+
+	private static final int MAX_POOL_SIZE = 10;
+
+	private final Config config;
+	private final ComboPooledDataSource dataSource;
+	private final JDBCSessionIdManager sessionIdManager;
+
+	public JdbcSessionStore(Server server, Config config) throws IOException {
+		this.config = config;
+		this.dataSource = createDataSource(PersistenceConfiguration.load("default"));
+
+		String workerName = getWorkerName(config);
+		this.sessionIdManager = new JDBCSessionIdManager(server);
+		this.sessionIdManager.setWorkerName(workerName);
+		this.sessionIdManager.setDatasource(dataSource);
+		this.sessionIdManager.setScavengeInterval(config.getSessionScavengeInterval());
+
+		log.info("Storing sessions in {} as node {}", dataSource.getJdbcUrl(), workerName);
+	}
+
+	@SneakyThrows
+	private static ComboPooledDataSource createDataSource(Properties properties) {
+		ComboPooledDataSource dataSource = new ComboPooledDataSource();
+		dataSource.setDriverClass(properties.getProperty("hibernate.connection.driver_class"));
+		dataSource.setJdbcUrl(properties.getProperty("javax.persistence.jdbc.url"));
+		dataSource.setUser(properties.getProperty("javax.persistence.jdbc.user"));
+		dataSource.setPassword(properties.getProperty("javax.persistence.jdbc.password"));
+		dataSource.setMinPoolSize(1);
+		dataSource.setMaxPoolSize(MAX_POOL_SIZE);
+		return dataSource;
+	}
+
+	/**
+	 * The worker name is appended to the session ids, and is used to detect sessions that were
+	 * modified by another node. It must be unique per node and must not contain dots.
+	 */
+	private static String getWorkerName(Config config) throws IOException {
+		String node = config.getSessionNode();
+		if (node == null) {
+			node = InetAddress.getLocalHost().getHostName();
+		}
+		return node.replaceAll("[^A-Za-z0-9]", "");
+	}
+
+	@Override
+	public SessionIdManager getSessionIdManager() {
+		return sessionIdManager;
+	}
+
+	@Override
+	public SessionManager createSessionManager() {
+		JDBCSessionManager sessionManager = new JDBCSessionManager();
+		sessionManager.setSessionIdManager(sessionIdManager);
+		sessionManager.setMaxInactiveInterval(config.getSessionTimeout());
+		sessionManager.setSaveInterval(config.getSessionSaveInterval());
+		return sessionManager;
+	}
+
+	@Override
+	public void close() {
+		dataSource.close();
+	}
+
+}
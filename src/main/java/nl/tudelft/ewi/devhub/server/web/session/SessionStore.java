@@ -0,0 +1,52 @@
+package nl.tudelft.ewi.devhub.server.web.session;
+
+import nl.tudelft.ewi.devhub.server.Config;
+
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.SessionIdManager;
+import org.eclipse.jetty.server.SessionManager;
+
+import java.io.IOException;
+
+/**
+ * A {@code SessionStore} provides the Jetty session managers for the DevHub server. Sessions are
+ * either kept in the memory of a single node, or in a store that is shared between nodes.
+ * Session attributes must be {@link java.io.Serializable serializable} to support the latter.
+ *
+ * @author Jan-Willem Gmelig Meyling
+ */
+public interface SessionStore extends AutoCloseable {
+
+	/**
+	 * @return The {@link SessionIdManager} for the server.
+	 */
+	SessionIdManager getSessionIdManager();
+
+	/**
+	 * @return A new {@link SessionManager} for a context.
+	 */
+	SessionManager createSessionManager();
+
+	@Override
+	void close();
+
+	/**
+	 * Create the session store as configured by {@link Config#getSessionStore()}.
+	 *
+	 * @param server The server to create the session store for.
+	 * @param config The configuration.
+	 * @return The {@code SessionStore}.
+	 * @throws IOException If the persistence configuration could not be loaded.
+	 */
+	static SessionStore create(Server server, Config config) throws IOException {
+		switch (config.getSessionStore().toLowerCase()) {
+			case "memory":
+				return new InMemorySessionStore(config);
+			case "jdbc":
+				return new JdbcSessionStore(server, config);
+			default:
+				throw new IllegalArgumentException("Unknown session store: " + config.getSessionStore());
+		}
+	}
+
+}
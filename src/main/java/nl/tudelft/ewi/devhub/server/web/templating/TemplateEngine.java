@@ -1,53 +1,122 @@
 package nl.tudelft.ewi.devhub.server.web.templating;
 
 import com.google.common.base.Charsets;
-import com.google.common.collect.ImmutableMap;
-import com.google.common.collect.ImmutableMap.Builder;
+import com.google.common.collect.Maps;
 import freemarker.cache.FileTemplateLoader;
+import freemarker.cache.StrongCacheStorage;
 import freemarker.template.*;
 import lombok.SneakyThrows;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import nl.tudelft.ewi.devhub.server.Config;
 import nl.tudelft.ewi.devhub.server.util.MarkDownParser;
+import nl.tudelft.ewi.devhub.server.web.assets.AssetManifest;
 
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
 import java.io.Reader;
 import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import javax.inject.Inject;
 import javax.inject.Named;
+import javax.inject.Singleton;
+import javax.ws.rs.core.StreamingOutput;
 
+/**
+ * The {@code TemplateEngine} renders the FreeMarker templates. Unless {@code templates.reload} is
+ * enabled, every template is compiled once at startup and is never checked for modifications.
+ * Templates can either be rendered to a {@code String}, or streamed to the response with
+ * {@link #stream(String, List, Map)}, so large pages are not buffered on the heap.
+ */
+@Slf4j
+@Singleton
 public class TemplateEngine {
 
+	private static final String TEMPLATE_EXTENSION = ".ftl";
+
 	private final Configuration conf;
 	private final TranslatorFactory translatorFactory;
 	private final MarkDownParser markDownParser;
-
+	private final ConcurrentMap<String, RenderTimer> timers;
 
 	@Inject
 	@SneakyThrows
 	public TemplateEngine(
 		@Named("directory.templates") final File templatesDirectory,
 		TranslatorFactory translatorFactory,
-		MarkDownParser markDownParser
+		MarkDownParser markDownParser,
+		AssetManifest assetManifest,
+		Config config
 	) {
 		this.translatorFactory = translatorFactory;
 		this.markDownParser = markDownParser;
+		this.timers = Maps.newConcurrentMap();
 		this.conf = new Configuration() {
 			{
 				setDirectoryForTemplateLoading(templatesDirectory);
 				setDefaultEncoding(Charsets.UTF_8.displayName());
 				setTemplateExceptionHandler(TemplateExceptionHandler.RETHROW_HANDLER);
 				setTagSyntax(Configuration.SQUARE_BRACKET_TAG_SYNTAX);
+				setSharedVariable("assets", assetManifest);
 				setTemplateLoader(new FileTemplateLoader(templatesDirectory) {
 					public Reader getReader(Object templateSource, String encoding) throws IOException {
 						return new WrappedReader(super.getReader(templateSource, encoding), "[#escape x as x?html]", "[/#escape]");
 					}
 				});
+
+				if (!config.isTemplateReloadingEnabled()) {
+					setCacheStorage(new StrongCacheStorage());
+					setTemplateUpdateDelay(Integer.MAX_VALUE);
+				}
 			}
 		};
+
+		if (!config.isTemplateReloadingEnabled()) {
+			precompile(templatesDirectory);
+		}
+	}
+
+	/**
+	 * Compile every template in the templates directory, so syntax errors surface at startup
+	 * and the first requests do not pay for the compilation.
+	 *
+	 * @param templatesDirectory Directory with the templates.
+	 * @throws IOException If a template could not be compiled.
+	 */
+	private void precompile(File templatesDirectory) throws IOException {
+		if (!templatesDirectory.isDirectory()) {
+			log.warn("Templates directory {} does not exist", templatesDirectory);
+			return;
+		}
+
+		long start = System.nanoTime();
+		Path root = templatesDirectory.toPath();
+		List<String> templates;
+		try (Stream<Path> paths = Files.walk(root)) {
+			templates = paths.filter(path -> path.toString().endsWith(TEMPLATE_EXTENSION))
+				.map(path -> root.relativize(path).toString().replace(File.separatorChar, '/'))
+				.collect(Collectors.toList());
+		}
+
+		for (String template : templates) {
+			conf.getTemplate(template);
+		}
+
+		log.info("Compiled {} templates in {} ms", templates.size(),
+			TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
 	}
 
 	public String process(String template, List<Locale> locales) throws IOException {
@@ -55,24 +124,149 @@ public class TemplateEngine {
 	}
 
 	public String process(String template, List<Locale> locales, Map<String, ?> parameters) throws IOException {
-		Translator translator = translatorFactory.create(locales);
-		
-		try {
-			Builder<String, Object> builder = ImmutableMap.<String, Object> builder();
-			builder.put("i18n", translator);
-			builder.put("MarkDownParser", markDownParser);
+		StringWriter out = new StringWriter();
+		render(template, conf.getTemplate(template), new DataModel(locales, parameters), out);
+		return out.toString();
+	}
 
-			if (parameters != null) {
-				builder.putAll(parameters);
-			}
-			
-			StringWriter out = new StringWriter();
-			conf.getTemplate(template).process(builder.build(), out);
-			return out.toString();
+	/**
+	 * Render a template directly to the response. The template is resolved eagerly, so a missing
+	 * template fails before the response is committed. Errors while rendering truncate the page.
+	 *
+	 * @param template Name of the template.
+	 * @param locales Locales for the {@link Translator}.
+	 * @param parameters Parameters for the template.
+	 * @return A {@code StreamingOutput} that renders the template as UTF-8.
+	 * @throws IOException If the template could not be found or compiled.
+	 */
+	public StreamingOutput stream(String template, List<Locale> locales, Map<String, ?> parameters) throws IOException {
+		Template compiled = conf.getTemplate(template);
+		DataModel dataModel = new DataModel(locales, parameters);
+
+		return output -> {
+			Writer writer = new BufferedWriter(new OutputStreamWriter(output, Charsets.UTF_8));
+			render(template, compiled, dataModel, writer);
+			writer.flush();
+		};
+	}
+
+	private void render(String name, Template template, DataModel dataModel, Writer out) throws IOException {
+		RenderTimer timer = timers.computeIfAbsent(name, key -> new RenderTimer());
+		long start = System.nanoTime();
+
+		try {
+			template.process(dataModel, out);
 		}
 		catch (TemplateException e) {
+			timer.failures.incrementAndGet();
 			throw new IOException(e);
 		}
+		catch (IOException | RuntimeException e) {
+			timer.failures.incrementAndGet();
+			throw e;
+		}
+		finally {
+			timer.record(System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * @return Render time statistics per template.
+	 */
+	public Map<String, RenderTiming> getTimings() {
+		Map<String, RenderTiming> timings = Maps.newTreeMap();
+		timers.forEach((name, timer) -> timings.put(name, timer.snapshot()));
+		return timings;
+	}
+
+	/**
+	 * The root data model for a template. Values are looked up in the parameters directly and
+	 * wrapped on first access, instead of copying the parameters into a new map for every page.
+	 */
+	private class DataModel implements TemplateHashModel {
+
+		private final List<Locale> locales;
+		private final Map<String, ?> parameters;
+		private final Map<String, TemplateModel> wrapped;
+		private Translator translator;
+
+		DataModel(List<Locale> locales, Map<String, ?> parameters) {
+			this.locales = locales;
+			this.parameters = parameters;
+			this.wrapped = Maps.newHashMap();
+		}
+
+		@Override
+		public TemplateModel get(String key) throws TemplateModelException {
+			TemplateModel model = wrapped.get(key);
+			if (model == null) {
+				model = conf.getObjectWrapper().wrap(lookup(key));
+				wrapped.put(key, model);
+			}
+			return model;
+		}
+
+		private Object lookup(String key) {
+			switch (key) {
+				case "i18n":
+					if (translator == null) {
+						translator = translatorFactory.create(locales);
+					}
+					return translator;
+				case "MarkDownParser":
+					return markDownParser;
+				default:
+					return parameters == null ? null : parameters.get(key);
+			}
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return false;
+		}
+
+	}
+
+	private static class RenderTimer {
+
+		private final AtomicLong invocations = new AtomicLong();
+		private final AtomicLong failures = new AtomicLong();
+		private final AtomicLong totalTime = new AtomicLong();
+		private final AtomicLong maxTime = new AtomicLong();
+
+		void record(long nanos) {
+			invocations.incrementAndGet();
+			totalTime.addAndGet(nanos);
+			maxTime.accumulateAndGet(nanos, Math::max);
+		}
+
+		RenderTiming snapshot() {
+			long count = invocations.get();
+			return new RenderTiming(
+				count,
+				failures.get(),
+				count == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalTime.get() / count),
+				TimeUnit.NANOSECONDS.toMillis(maxTime.get())
+			);
+		}
+
+	}
+
+	/**
+	 * Snapshot of the render time statistics for a template. For streamed templates the
+	 * render time includes writing the page to the client.
+	 */
+	@Value
+	public static class RenderTiming {
+
+		long invocations;
+
+		long failures;
+
+		long averageTimeMillis;
+
+		long maxTimeMillis;
+
 	}
 
-}
\ No newline at end of file
+}
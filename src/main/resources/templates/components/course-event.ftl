@@ -0,0 +1,67 @@
+[#macro render courseEvent]
+		  <li data-event-id="${courseEvent.id?c}" [#if courseEvent.id % 2 == 1]class="timeline-inverted"[/#if]>
+			  <div class="timeline-badge">
+				  <a><i class="fa fa-circle [#if courseEvent.id % 2 == 1]invert[/#if]" id=""></i></a>
+			  </div>
+			  <div class="timeline-panel">
+				  <div class="timeline-body">
+              [#assign event = courseEvent.event]
+              [#switch courseEvent.type.name()]
+                [#case "DELIVERY"]
+                  ${event.createdUser.name}
+								  delivered [#if event.commit?? && event.commit?has_content]${event.commit.commitId} for[/#if]
+								  <a href="${event.getURI()}../../">
+                  ${event.assignment.name}
+								  </a>
+                  [#break]
+                [#case "COMMIT"]
+                  <span>
+                  ${event.author?substring(0, event.author?index_of("<"))} pushed
+                  <a href="${event.getURI()}diff">
+                    <span class="label label-default">${event.commitId?substring(0,7)?upper_case }</span>
+                  </a>
+                  to <a href="${event.getURI()}diff">${event.repository.repositoryName}</a></span>
+                  [#assign buildResult = event.buildResult![]]
+                  [#if buildResult?? && buildResult?has_content && buildResult.hasFinished()]
+                    [#if buildResult.hasSucceeded()]
+										  <a href="${event.getURI()}build">
+											  <span class="octicon octicon-check text-success"></span>
+										  </a>
+                    [#else]
+										  <a href="${event.getURI()}build">
+											  <span class="octicon octicon-x text-danger"></span>
+										  </a>
+                    [/#if]
+                  [/#if]
+                  [#break]
+                [#case "COMMIT_COMMENT"]
+								  <blockquote style="display:inline-block;" class="commit-comment">
+								  <p style="font-size: 0.8em;">${event.content}</p>
+								  <footer>
+                  ${event.user.name} at
+									  <a href="${event.commit.getURI()}diff"><span class="label label-default">${event.commit.commitId?substring(0,7)?upper_case }</span></a>
+								  </footer>
+								  </blockquote>
+                  [#break]
+                [#case "PULL_REQUEST"]
+								  Pull request opened for branch <a href="${event.getURI()}">${event.branchName}</a>
+                  [#break]
+                [#case "ISSUE_COMMENT"]
+								  <blockquote style="display:inline-block;">
+									  <p style="font-size: 0.8em;">${event.content}</p>
+									  <footer>
+                    ${event.user.name} at
+										  <a href="${event.issue.getURI()}"><span class="label label-default">[#if event.issue.branchName??]${event.issue.branchName}[#else]#${event.issue.issueId?c}[/#if]</span></a>
+									  </footer>
+								  </blockquote>
+                  [#break]
+                [#default]
+								  <span>${courseEvent.type}</span>
+              [/#switch]
+				  </div>
+				  <div class="timeline-footer">
+					  <p class="text-right">${event.getTimestamp()}</p>
+				  </div>
+			  </div>
+		  </li>
+[/#macro]
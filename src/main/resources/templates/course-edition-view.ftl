@@ -76,6 +76,9 @@
                     <a href="${course.getURI()}assignments/create" title="Add new assignment" class="btn btn-link btn-xs pull-right">
                         <span class="glyphicon glyphicon-plus" aria-hidden="true"></span>
                     </a>
+                    <a href="${course.getURI()}assignments/download" title="Download grades" class="btn btn-link btn-xs pull-right">
+                        <span class="glyphicon glyphicon-floppy-save" aria-hidden="true"></span>
+                    </a>
                 </div>
                 <table class="table">
                     <thead>
@@ -211,8 +214,8 @@
 
 </div>
 [@macros.renderScripts ]
-<script src="/static/vendor/angular/angular.min.js"></script>
-<script src="/static/vendor/angular-bootstrap/ui-bootstrap.min.js"></script>
+<script src="${assets.url("vendor/angular/angular.min.js")}"></script>
+<script src="${assets.url("vendor/angular-bootstrap/ui-bootstrap.min.js")}"></script>
 
 <script type="text/javascript">
 	angular.module('devhub', ['ui.bootstrap']);
@@ -117,8 +117,8 @@
 
 </div>
 [@macros.renderScripts ]
-<script src="/static/vendor/angular/angular.min.js"></script>
-<script src="/static/vendor/angular-bootstrap/ui-bootstrap.min.js"></script>
+<script src="${assets.url("vendor/angular/angular.min.js")}"></script>
+<script src="${assets.url("vendor/angular-bootstrap/ui-bootstrap.min.js")}"></script>
 
 <script type="text/javascript">
 	angular.module('devhub', ['ui.bootstrap']);
@@ -3,7 +3,7 @@
 
 [@macros.renderHeader i18n.translate("assignments.title") ]
 <style type="text/css">
-    <link rel="stylesheet" href="/static/vendor/angular-chart/dist/angular-chart.min.css">
+    <link rel="stylesheet" href="${assets.url("vendor/angular-chart/dist/angular-chart.min.css")}">
     body > .angular-bootstrap-contextmenu.dropdown {
         width: 300px !important;
     }
@@ -145,14 +145,14 @@
 
 </div>
 [@macros.renderScripts]
-<script src="/static/vendor/angular/angular.min.js"></script>
-<script src="/static/vendor/angular-bootstrap/ui-bootstrap.min.js"></script>
-<script src="/static/vendor/angular-xeditable/dist/js/xeditable.min.js"></script>
-<script src="/static/vendor/angular-bootstrap-contextmenu/contextMenu.js"></script>
-<script src="/static/vendor/jstat/dist/jstat.min.js"></script>
-<script src="/static/vendor/Chartjs/Chart.min.js"></script>
-<script src="/static/vendor/angular-chart/dist/angular-chart.js"></script>
-<script src="/static/js/assignment-rubrics.js"></script>
+<script src="${assets.url("vendor/angular/angular.min.js")}"></script>
+<script src="${assets.url("vendor/angular-bootstrap/ui-bootstrap.min.js")}"></script>
+<script src="${assets.url("vendor/angular-xeditable/dist/js/xeditable.min.js")}"></script>
+<script src="${assets.url("vendor/angular-bootstrap-contextmenu/contextMenu.js")}"></script>
+<script src="${assets.url("vendor/jstat/dist/jstat.min.js")}"></script>
+<script src="${assets.url("vendor/Chartjs/Chart.min.js")}"></script>
+<script src="${assets.url("vendor/angular-chart/dist/angular-chart.js")}"></script>
+<script src="${assets.url("js/assignment-rubrics.js")}"></script>
 
 [/@macros.renderScripts]
 [@macros.renderFooter /]
@@ -160,10 +160,10 @@
 
 </div>
 [@macros.renderScripts]
-<script src="/static/js/deliveries-filter.js"></script>
-<script src="/static/js/toggle-view.js"></script>
-<script src="/static/vendor/angular/angular.min.js"></script>
-<script src="/static/vendor/angular-bootstrap/ui-bootstrap.min.js"></script>
+<script src="${assets.url("js/deliveries-filter.js")}"></script>
+<script src="${assets.url("js/toggle-view.js")}"></script>
+<script src="${assets.url("vendor/angular/angular.min.js")}"></script>
+<script src="${assets.url("vendor/angular-bootstrap/ui-bootstrap.min.js")}"></script>
 
 <script type="text/javascript">
     angular.module('devhub', ['ui.bootstrap']);
@@ -111,7 +111,7 @@
 </div>
 
 [#if !assignment??]
-<script src="/static/vendor/angular/angular.js"></script>
+<script src="${assets.url("vendor/angular/angular.js")}"></script>
 <script>
     var module = angular.module("devhub", []);
     module.controller("rubricController", function($scope, $http) {
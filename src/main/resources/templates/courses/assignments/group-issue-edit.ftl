@@ -3,7 +3,7 @@
 [#import "../../components/commit-row.ftl" as commitRow]
 
 [@macros.renderHeader i18n.translate("section.projects") ]
-<link rel="stylesheet" href="/static/vendor/multiselect/multiple-select.css">
+<link rel="stylesheet" href="${assets.url("vendor/multiselect/multiple-select.css")}">
 [/@macros.renderHeader]
 [@macros.renderMenu i18n user /]
 <div class="container">
@@ -114,7 +114,7 @@
     </div>
 </div>
 [@macros.renderScripts ]
-	<script src="/static/vendor/multiselect/multiple-select.js"></script>
+	<script src="${assets.url("vendor/multiselect/multiple-select.js")}"></script>
 	<script type="text/javascript">
 	$(function() {
 		$('#labels').multipleSelect({
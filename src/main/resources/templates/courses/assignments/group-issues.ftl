@@ -146,7 +146,7 @@
 	</div>
 </div>
 [@macros.renderScripts ]
-	<script src="/static/vendor/jscolor/jscolor.min.js"></script>
+	<script src="${assets.url("vendor/jscolor/jscolor.min.js")}"></script>
 	<script type="text/javascript">
 		deleteLabel = function(id){
 			$.ajax({
@@ -0,0 +1,4 @@
+[#import "../components/course-event.ftl" as courseEventComponent]
+[#list events as courseEvent]
+  [@courseEventComponent.render courseEvent /]
+[/#list]
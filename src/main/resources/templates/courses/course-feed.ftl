@@ -1,8 +1,8 @@
 [#import "../macros.ftl" as macros]
-[#import "../components/commit-row.ftl" as commitRow]
+[#import "../components/course-event.ftl" as courseEventComponent]
 
 [@macros.renderHeader i18n.translate("assignments.title") ]
-<link rel="stylesheet" href="/static/css/timeline.css">
+<link rel="stylesheet" href="${assets.url("css/timeline.css")}">
 [/@macros.renderHeader]
 [@macros.renderMenu i18n user /]
 
@@ -39,80 +39,38 @@
 
 
 	  <ul class="timeline">
-      [#list events as event]
-		  <li [#if event_index % 2 == 1]class="timeline-inverted"[/#if]>
-			  <div class="timeline-badge">
-				  <a><i class="fa fa-circle [#if event_index % 2 == 1]invert[/#if]" id=""></i></a>
-			  </div>
-			  <div class="timeline-panel">
-				  <div class="timeline-body">
-              [#switch event.class.simpleName]
-                [#case "Delivery"]
-                  ${event.createdUser.name}
-								  delivered [#if event.commit?? && event.commit?has_content]${event.commit.commitId} for[/#if]
-								  <a href="${event.getURI()}../../">
-                  ${event.assignment.name}
-								  </a>
-                  [#break]
-                [#case "Commit"]
-                  <span>
-                  ${event.author?substring(0, event.author?index_of("<"))} pushed
-                  <a href="${event.getURI()}diff">
-                    <span class="label label-default">${event.commitId?substring(0,7)?upper_case }</span>
-                  </a>
-                  to <a href="${event.getURI()}diff">${event.repository.repositoryName}</a></span>
-                  [#assign buildResult = event.buildResult![]]
-                  [#if buildResult?? && buildResult?has_content && buildResult.hasFinished()]
-                    [#if buildResult.hasSucceeded()]
-										  <a href="${event.getURI()}build">
-											  <span class="octicon octicon-check text-success"></span>
-										  </a>
-                    [#else]
-										  <a href="${event.getURI()}build">
-											  <span class="octicon octicon-x text-danger"></span>
-										  </a>
-                    [/#if]
-                  [/#if]
-                  [#break]
-                [#case "CommitComment"]
-								  <blockquote style="display:inline-block;" class="commit-comment">
-								  <p style="font-size: 0.8em;">${event.content}</p>
-								  <footer>
-                  ${event.user.name} at
-									  <a href="${event.commit.getURI()}diff"><span class="label label-default">${event.commit.commitId?substring(0,7)?upper_case }</span></a>
-								  </footer>
-								  </blockquote>
-                  [#break]
-                [#case "PullRequest"]
-								  Pull request opened for branch <a href="${event.getURI()}">${event.branchName}</a>
-                  [#break]
-                [#case "PullRequestComment"]
-								  <blockquote style="display:inline-block;">
-									  <p style="font-size: 0.8em;">${event.content}</p>
-									  <footer>
-                    ${event.user.name} at
-										  <a href="${event.pullRequest.getURI()}diff"><span class="label label-default">${event.pullRequest.branchName}</span></a>
-									  </footer>
-								  </blockquote>
-                  [#break]
-                [#default]
-								  <span>${event.class.simpleName}</span>
-              [/#switch]
-				  </div>
-				  <div class="timeline-footer">
-					  <p class="text-right">${event.getTimestamp()}</p>
-				  </div>
-			  </div>
-		  </li>
+      [#list events as courseEvent]
+        [@courseEventComponent.render courseEvent /]
       [/#list]
     </ul>
+  [#if events?size == limit]
+	<ul class="pager">
+		<li class="next"><a href="?before=${events?last.id?c}&limit=${limit}">Older events &rarr;</a></li>
+	</ul>
+  [/#if]
 </div>
 [@macros.renderScripts]
-<script src="/static/vendor/angular/angular.min.js"></script>
-<script src="/static/vendor/angular-bootstrap/ui-bootstrap.min.js"></script>
+<script src="${assets.url("vendor/angular/angular.min.js")}"></script>
+<script src="${assets.url("vendor/angular-bootstrap/ui-bootstrap.min.js")}"></script>
 
 <script type="text/javascript">
 	angular.module('devhub', ['ui.bootstrap']);
 </script>
+[#if firstPage && polling]
+<script type="text/javascript">
+	(function poll() {
+		var after = $('.timeline > li:first').data('event-id') || 0;
+		$.get('feed/events', { after: after }, function(html, status, xhr) {
+			if (xhr.status === 200) {
+				$('.timeline').prepend(html);
+			}
+			var retryAfter = parseInt(xhr.getResponseHeader('Retry-After'), 10) || 10;
+			setTimeout(poll, retryAfter * 1000);
+		}).fail(function() {
+			setTimeout(poll, 10000);
+		});
+	})();
+</script>
+[/#if]
 [/@macros.renderScripts]
 [@macros.renderFooter /]
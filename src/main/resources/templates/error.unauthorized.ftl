@@ -5,7 +5,7 @@
 [/#if]
 		<div class="container">
 			<div style="width: 760px; margin-left: auto; margin-right: auto; margin-top: 96px;">
-				<img style="float: left;" src="/static/img/unauthorized.png">
+				<img style="float: left;" src="${assets.url("img/unauthorized.png")}">
 				<div style="float: left; margin-top: 45px;">
                     <h1>${i18n.translate("error.unauthorized.title")}</h1>
                     <h2>${i18n.translate("error.unauthorized.subtitle")}</h2>
@@ -8,7 +8,7 @@
 		<title>DevHub</title>
 [/#if]
 		<meta name="viewport" content="width=device-width, initial-scale=1.0">
-		<link rel="stylesheet" href="/static/css/devhub.css">
+		<link rel="stylesheet" href="${assets.url("css/devhub.css")}">
 		[#nested/]
 		<!--[if lt IE 9]>
 			<script src="https://oss.maxcdn.com/libs/html5shiv/3.7.0/html5shiv.js"></script>
@@ -29,7 +29,7 @@
 						<span class="icon-bar"></span>
 					</button>
 					<a class="navbar-brand logo-text" href="/">
-						<img class="logo-image" src="/static/img/logo.png"> DEVHUB
+						<img class="logo-image" src="${assets.url("img/logo.png")}"> DEVHUB
 					</a>
 				</div>
 				<div class="collapse navbar-collapse nav-collapse" id="bs-example-navbar-collapse-1">
@@ -195,12 +195,12 @@
 [/#macro]
 
 [#macro renderScripts]
-	<script src="/static/vendor/jquery/jquery.min.js"></script>
-	<script src="/static/vendor/bootstrap/js/bootstrap.min.js"></script>
-	<script src="/static/vendor/twemoji/twemoji.min.js"></script>
-	<script src="/static/vendor/jquery-textcomplete/dist/jquery.textcomplete.js"></script>
-	<script src="/static/js/validation.js"></script>
-    <script src="/static/js/main.js"></script>
+	<script src="${assets.url("vendor/jquery/jquery.min.js")}"></script>
+	<script src="${assets.url("vendor/bootstrap/js/bootstrap.min.js")}"></script>
+	<script src="${assets.url("vendor/twemoji/twemoji.min.js")}"></script>
+	<script src="${assets.url("vendor/jquery-textcomplete/dist/jquery.textcomplete.js")}"></script>
+	<script src="${assets.url("js/validation.js")}"></script>
+    <script src="${assets.url("js/main.js")}"></script>
 	[#nested/]
 [/#macro]
 
@@ -62,7 +62,7 @@
 [@macros.renderScripts /]
 
 [#if highlight?? && highlight.isHighlight() ]
-	<script src="/static/vendor/highlightjs/highlight.pack.js"></script>
+	<script src="${assets.url("vendor/highlightjs/highlight.pack.js")}"></script>
 [/#if]
 	<script>
 		$(document).ready(function() {
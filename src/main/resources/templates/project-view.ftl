@@ -135,21 +135,18 @@
                 [#if repository?? && repository?has_content]
                     [#if commits?? && commits?has_content]
                         [#list commits.commits as commit]
-                            [#assign buildResult = builds[commit.commit]![]]
+                            [#assign summary = summaries[commit.commit]![]]
+                            [#assign buildResult = (summary.buildResult)![]]
                             [#assign commitEntity = commitEntities[commit.commit]![]]
                             [@commitRow.render group![] buildResult commit.commit "${repositoryEntity.getURI()}commits/${commit.commit}/diff"]
                                 <span class="pull-right">
-                                  [#if comments??]
-                                      [#assign numComments = comments[commit.commit]!0]
-                                      [#if numComments > 0]
-                                            <div><i class="glyphicon glyphicon-comment"></i> ${numComments}</div>
-                                      [/#if]
+                                  [#assign numComments = (summary.comments)!0]
+                                  [#if numComments > 0]
+                                        <div><i class="glyphicon glyphicon-comment"></i> ${numComments}</div>
                                   [/#if]
-                                  [#if warnings??]
-                                      [#assign numWarnings = warnings[commit.commit]!0]
-                                      [#if numWarnings > 0]
-                                            <div class="text-warning"><i class="glyphicon glyphicon-warning-sign"></i> ${numWarnings}</div>
-                                      [/#if]
+                                  [#assign numWarnings = (summary.warnings)!0]
+                                  [#if numWarnings > 0]
+                                        <div class="text-warning"><i class="glyphicon glyphicon-warning-sign"></i> ${numWarnings}</div>
                                   [/#if]
                                 </span>
                                 <div class="comment">${commit.getMessage()} [@listTags repository commit.getCommit() /]</div>
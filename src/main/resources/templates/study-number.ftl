@@ -3,7 +3,7 @@
 		<div class="container">
 			<div class="row login-panel">
 				<div class="col-md-6 col-md-offset-3">
-					<h2><img class="logo-image" src="/static/img/logo.png"> DEVHUB</h2>
+					<h2><img class="logo-image" src="${assets.url("img/logo.png")}"> DEVHUB</h2>
 [#if error?? && error?has_content]
 					<div class="alert alert-danger">
 						${i18n.translate(error)}
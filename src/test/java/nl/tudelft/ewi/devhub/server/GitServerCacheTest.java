@@ -0,0 +1,140 @@
+package nl.tudelft.ewi.devhub.server;
+
+import com.google.common.collect.ImmutableList;
+import nl.tudelft.ewi.git.models.DiffModel;
+import nl.tudelft.ewi.git.web.api.BranchApi;
+import nl.tudelft.ewi.git.web.api.CommitApi;
+import nl.tudelft.ewi.git.web.api.RepositoriesApi;
+import nl.tudelft.ewi.git.web.api.RepositoryApi;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.io.File;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class GitServerCacheTest {
+
+	private static final String REPOSITORY_NAME = "courses/ti1705/group-1";
+	private static final String COMMIT_ID = "a8e5c2e0b5b8d6e3f9d4a6c1b2e7f3a9d0c4b1e5";
+	private static final String MASTER = "master";
+
+	@Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Mock private RepositoriesApi repositoriesApi;
+	@Mock private RepositoryApi repositoryApi;
+	@Mock private CommitApi commitApi;
+	@Mock private BranchApi branchApi;
+
+	private RepositoriesApi cachedRepositoriesApi;
+
+	@Before
+	public void setUp() {
+		when(repositoriesApi.getRepository(REPOSITORY_NAME)).thenReturn(repositoryApi);
+		cachedRepositoriesApi = new GitServerCache(1024 * 1024, null, 0).decorate(repositoriesApi);
+	}
+
+	@Test
+	public void testDiffIsCachedForCommitId() {
+		DiffModel diffModel = new DiffModel();
+		when(repositoryApi.getCommit(COMMIT_ID)).thenReturn(commitApi);
+		when(commitApi.diff()).thenReturn(diffModel);
+
+		assertSame(diffModel, cachedRepositoriesApi.getRepository(REPOSITORY_NAME).getCommit(COMMIT_ID).diff());
+		assertSame(diffModel, cachedRepositoriesApi.getRepository(REPOSITORY_NAME).getCommit(COMMIT_ID).diff());
+		verify(commitApi, times(1)).diff();
+	}
+
+	@Test
+	public void testDiffIsNotCachedForRefName() {
+		DiffModel diffModel = new DiffModel();
+		when(repositoryApi.getCommit(MASTER)).thenReturn(commitApi);
+		when(commitApi.diff()).thenReturn(diffModel);
+
+		cachedRepositoriesApi.getRepository(REPOSITORY_NAME).getCommit(MASTER).diff();
+		cachedRepositoriesApi.getRepository(REPOSITORY_NAME).getCommit(MASTER).diff();
+		verify(commitApi, times(2)).diff();
+	}
+
+	@Test
+	public void testBranchIsPassedThrough() {
+		when(repositoryApi.getBranch(MASTER)).thenReturn(branchApi);
+
+		assertSame(branchApi, cachedRepositoriesApi.getRepository(REPOSITORY_NAME).getBranch(MASTER));
+	}
+
+	@Test
+	public void testStatisticsCountHits() {
+		when(repositoryApi.getCommit(COMMIT_ID)).thenReturn(commitApi);
+		when(commitApi.diff()).thenReturn(new DiffModel());
+
+		GitServerCache gitServerCache = new GitServerCache(1024 * 1024, null, 0);
+		RepositoryApi cachedRepositoryApi = gitServerCache.decorate(repositoriesApi).getRepository(REPOSITORY_NAME);
+		cachedRepositoryApi.getCommit(COMMIT_ID).diff();
+		cachedRepositoryApi.getCommit(COMMIT_ID).diff();
+
+		GitServerCache.Statistics statistics = gitServerCache.getStatistics();
+		assertEquals(1, statistics.getEntries());
+		assertEquals(2, statistics.getRequests());
+		assertEquals(0.5, statistics.getHitRate(), 0.001);
+	}
+
+	@Test
+	public void testDiskFolderIsClearedAtStartup() throws Exception {
+		File folder = temporaryFolder.getRoot();
+		File stale = temporaryFolder.newFile("stale.json");
+
+		new GitServerCache(1024 * 1024, folder, 1024 * 1024);
+		assertFalse(stale.exists());
+	}
+
+	@Test
+	public void testEvictedObjectIsReadFromDisk() {
+		when(repositoryApi.getCommit(COMMIT_ID)).thenReturn(commitApi);
+		when(commitApi.diff()).thenReturn(new DiffModel());
+
+		GitServerCache gitServerCache = new GitServerCache(1, temporaryFolder.getRoot(), 1024 * 1024);
+		RepositoryApi cachedRepositoryApi = gitServerCache.decorate(repositoriesApi).getRepository(REPOSITORY_NAME);
+		cachedRepositoryApi.getCommit(COMMIT_ID).diff();
+		cachedRepositoryApi.getCommit(COMMIT_ID).diff();
+
+		verify(commitApi, times(1)).diff();
+		GitServerCache.Statistics statistics = gitServerCache.getStatistics();
+		assertEquals(1, statistics.getDiskWrites());
+		assertEquals(1, statistics.getDiskHits());
+		assertTrue(statistics.getDiskBytes() > 0);
+	}
+
+	@Test
+	public void testDiskFolderIsBounded() {
+		when(repositoryApi.getCommit(COMMIT_ID)).thenReturn(commitApi);
+		when(commitApi.diff()).thenReturn(new DiffModel());
+
+		GitServerCache gitServerCache = new GitServerCache(1, temporaryFolder.getRoot(), 0);
+		gitServerCache.decorate(repositoriesApi).getRepository(REPOSITORY_NAME).getCommit(COMMIT_ID).diff();
+
+		GitServerCache.Statistics statistics = gitServerCache.getStatistics();
+		assertEquals(1, statistics.getDiskWrites());
+		assertEquals(0, statistics.getDiskBytes());
+		assertEquals(0, temporaryFolder.getRoot().list().length);
+	}
+
+	@Test
+	public void testWeightGrowsWithContent() {
+		assertTrue(GitServerCache.weigh(ImmutableList.of("a", "b", "c")) > GitServerCache.weigh(ImmutableList.of("a")));
+		assertTrue(GitServerCache.weigh("abcdef") > GitServerCache.weigh("abc"));
+	}
+
+}
@@ -0,0 +1,69 @@
+package nl.tudelft.ewi.devhub.server.backend;
+
+import com.google.common.collect.Sets;
+import com.google.inject.Inject;
+import lombok.Getter;
+import nl.tudelft.ewi.devhub.server.database.controllers.CourseEditions;
+import nl.tudelft.ewi.devhub.server.database.controllers.Groups;
+import nl.tudelft.ewi.devhub.server.database.controllers.TestDatabaseModule;
+import nl.tudelft.ewi.devhub.server.database.controllers.Users;
+import nl.tudelft.ewi.devhub.server.database.entities.CourseEdition;
+import nl.tudelft.ewi.devhub.server.database.entities.Group;
+import nl.tudelft.ewi.devhub.server.database.entities.User;
+import org.jukito.JukitoRunner;
+import org.jukito.UseModules;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(JukitoRunner.class)
+@UseModules(TestDatabaseModule.class)
+public class AuthorizationCacheTest extends PersistedBackendTest {
+
+	@Inject private AuthorizationCache authorizationCache;
+	@Inject @Getter private CourseEditions courses;
+	@Inject @Getter private Users users;
+	@Inject @Getter private Groups groups;
+
+	@Test
+	public void testMemberOfOwnGroup() {
+		CourseEdition courseEdition = createCourseEdition();
+		User member = createUser();
+		User other = createUser();
+		Group group = createGroup(courseEdition, member);
+		Group otherGroup = createGroup(courseEdition, other);
+
+		assertTrue(authorizationCache.get(member).isMemberOf(group));
+		assertFalse(authorizationCache.get(member).isMemberOf(otherGroup));
+		assertFalse(authorizationCache.get(member).isAssisting(courseEdition));
+	}
+
+	@Test
+	public void testMembershipChangeInvalidates() {
+		CourseEdition courseEdition = createCourseEdition();
+		User member = createUser();
+		User newMember = createUser();
+		Group group = createGroup(courseEdition, member);
+		assertFalse(authorizationCache.get(newMember).isMemberOf(group));
+
+		group.setMembers(Sets.newHashSet(member, newMember));
+		groups.merge(group);
+
+		assertTrue(authorizationCache.get(newMember).isMemberOf(group));
+	}
+
+	@Test
+	public void testAssistantChangeInvalidates() {
+		CourseEdition courseEdition = createCourseEdition();
+		User assistant = createUser();
+		assertFalse(authorizationCache.get(assistant).isAssisting(courseEdition));
+
+		courseEdition.setAssistants(Sets.newHashSet(assistant));
+		courses.merge(courseEdition);
+
+		assertTrue(authorizationCache.get(assistant).isAssisting(courseEdition));
+	}
+
+}
@@ -4,10 +4,11 @@ package nl.tudelft.ewi.devhub.server.backend;
 import nl.tudelft.ewi.build.client.BuildServerBackend;
 import nl.tudelft.ewi.build.jaxrs.models.BuildRequest;
 import nl.tudelft.ewi.devhub.server.Config;
-import nl.tudelft.ewi.devhub.server.backend.BuildsBackend.BuildSubmitter;
 import nl.tudelft.ewi.devhub.server.database.controllers.BuildResults;
 import nl.tudelft.ewi.devhub.server.database.controllers.BuildServers;
 import nl.tudelft.ewi.devhub.server.database.entities.BuildServer;
+import nl.tudelft.ewi.devhub.server.database.entities.Commit;
+import nl.tudelft.ewi.devhub.server.database.entities.PrivateRepository;
 import nl.tudelft.ewi.devhub.server.web.errors.ApiError;
 
 import com.google.common.collect.Lists;
@@ -22,11 +23,10 @@ import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.MockitoJUnitRunner;
 
-import java.util.concurrent.Executors;
-
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -37,27 +37,45 @@ public class BuildsBackendTest {
 	@Mock BuildResults buildResults;
 	@Mock	BuildServers buildServers;
 	@Mock BuildServerBackend buildBackend;
+	@Mock BuildServerBackend otherBuildBackend;
 	@Mock RepositoriesApi repositoriesApi;
-	private static BuildServer buildServer = createBuildServer();
+	private static BuildServer buildServer = createBuildServer(1l, "buildname");
+	private static BuildServer otherBuildServer = createBuildServer(2l, "otherbuildname");
+	private BuildQueue buildQueue;
 	private BuildsBackend buildsBackend;
 
-	private static BuildServer createBuildServer() {
+	private static BuildServer createBuildServer(long id, String name) {
 		BuildServer buildServer = new BuildServer();
-		buildServer.setId(1l);
+		buildServer.setId(id);
 		buildServer.setHost("host");
-		buildServer.setName("buildname");
+		buildServer.setName(name);
 		buildServer.setSecret("secret");
 		return buildServer;
 	}
 
+	private static Commit createCommit(String commitId) {
+		PrivateRepository repository = new PrivateRepository();
+		repository.setId(1l);
+		repository.setRepositoryName("repository");
+
+		Commit commit = new Commit();
+		commit.setRepository(repository);
+		commit.setCommitId(commitId);
+		return commit;
+	}
+
 	@Before
 	public void setupBuildServers() {
 		when(buildServers.listAll()).thenReturn(Lists.newArrayList(buildServer));
 		when(buildServers.findByCredentials("buildname", "secret")).thenReturn(buildServer);
 		when(buildServers.findById(1l)).thenReturn(buildServer);
 		when(buildBackend.offerBuildRequest(Mockito.any(BuildRequest.class))).thenReturn(true);
-		buildsBackend = new BuildsBackend(buildServers,
-			new ValueProvider<BuildSubmitter>(new MockedBuildSubmitter()), buildResults, repositoriesApi, config, Executors.newSingleThreadExecutor());
+		when(config.getBuildQueueDispatchers()).thenReturn(2);
+		when(config.getBuildQueueMaxBackoff()).thenReturn(60l);
+		when(config.getBuildQueueLease()).thenReturn(3600l);
+		buildQueue = new MockedBuildQueue();
+		buildQueue.start();
+		buildsBackend = new BuildsBackend(buildServers, buildQueue, buildResults, repositoriesApi, config);
 	}
 
 
@@ -86,31 +104,82 @@ public class BuildsBackendTest {
 	}
 	
 	@Test
-	public void testOfferBuild() throws InterruptedException {
+	public void testOfferBuild() {
 		BuildRequest buildRequest = new BuildRequest();
-		buildsBackend.offerBuild(buildRequest);
-		Thread.sleep(100);
-		verify(buildBackend).offerBuildRequest(buildRequest);
+		buildsBackend.offerBuild(createCommit("a"), buildRequest);
+		verify(buildBackend, timeout(1000)).offerBuildRequest(buildRequest);
 	}
-	
+
+	@Test
+	public void testRetryAfterBackoff() {
+		BuildRequest buildRequest = new BuildRequest();
+		when(buildBackend.offerBuildRequest(buildRequest)).thenReturn(false, true);
+		buildsBackend.offerBuild(createCommit("a"), buildRequest);
+		verify(buildBackend, timeout(5000).times(2)).offerBuildRequest(buildRequest);
+		assertEquals(0, buildQueue.getQueueSize());
+	}
+
+	@Test
+	public void testDispatchToLeastLoadedBuildServer() {
+		when(buildServers.listAll()).thenReturn(Lists.newArrayList(buildServer, otherBuildServer));
+		when(otherBuildBackend.offerBuildRequest(Mockito.any(BuildRequest.class))).thenReturn(true);
+		buildQueue.invalidateBuildServers();
+
+		buildsBackend.offerBuild(createCommit("a"), new BuildRequest());
+		buildsBackend.offerBuild(createCommit("b"), new BuildRequest());
+		verify(buildBackend, timeout(1000).times(1)).offerBuildRequest(Mockito.any(BuildRequest.class));
+		verify(otherBuildBackend, timeout(1000).times(1)).offerBuildRequest(Mockito.any(BuildRequest.class));
+	}
+
+	@Test
+	public void testFinishedBuildReleasesBuildServer() throws InterruptedException {
+		Commit commit = createCommit("a");
+		buildsBackend.offerBuild(commit, new BuildRequest());
+		awaitRunningBuilds(1);
+
+		buildQueue.finished(commit);
+		assertEquals(0, buildQueue.getRunningBuilds());
+	}
+
+	@Test
+	public void testExpiredLeaseReleasesBuildServer() throws InterruptedException {
+		buildsBackend.shutdown();
+		when(config.getBuildQueueLease()).thenReturn(0l);
+		buildQueue = new MockedBuildQueue();
+		buildQueue.start();
+		buildsBackend = new BuildsBackend(buildServers, buildQueue, buildResults, repositoriesApi, config);
+
+		buildsBackend.offerBuild(createCommit("a"), new BuildRequest());
+		verify(buildBackend, timeout(1000)).offerBuildRequest(Mockito.any(BuildRequest.class));
+		awaitRunningBuilds(0);
+	}
+
+	private void awaitRunningBuilds(int expected) throws InterruptedException {
+		for (int i = 0; i < 100 && buildQueue.getRunningBuilds() != expected; i++) {
+			Thread.sleep(10);
+		}
+		assertEquals(expected, buildQueue.getRunningBuilds());
+	}
+
 	@After
-	public void shutdown() throws InterruptedException {
+	public void shutdown() {
 		buildsBackend.shutdown();
 	}
 
-	class MockedBuildSubmitter extends BuildSubmitter {
-	
-		MockedBuildSubmitter() {
-			super(new ValueProvider<BuildServers>(buildServers),
-					new ValueProvider<UnitOfWork>(mock(UnitOfWork.class)));
+	class MockedBuildQueue extends BuildQueue {
+
+		MockedBuildQueue() {
+			super(config, new ValueProvider<UnitOfWork>(mock(UnitOfWork.class)),
+				new ValueProvider<BuildServers>(buildServers), new ValueProvider<BuildResults>(buildResults),
+				repositoriesApi, null);
 		}
-		
+
 		@Override
 		protected BuildServerBackend createBuildServerBackend(String host,
 				String name, String secret) {
-			return buildBackend;
+			return name.equals(otherBuildServer.getName()) ? otherBuildBackend : buildBackend;
 		}
-		
+
 	}
-	
+
 }
@@ -0,0 +1,100 @@
+package nl.tudelft.ewi.devhub.server.backend;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.SetMultimap;
+import nl.tudelft.ewi.devhub.server.Config;
+import nl.tudelft.ewi.devhub.server.database.controllers.CourseEvents;
+import nl.tudelft.ewi.devhub.server.database.entities.CourseEdition;
+import nl.tudelft.ewi.devhub.server.database.entities.CourseEvent;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author Jan-Willem Gmelig Meyling
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class CourseEventFeedTest {
+
+    private static final int LIMIT = 10;
+
+    @Mock private Config config;
+    @Mock private CourseEvents courseEvents;
+
+    private CourseEdition courseEdition;
+    private CourseEdition otherCourseEdition;
+    private CourseEventFeed courseEventFeed;
+    private AtomicLong sequence;
+
+    @Before
+    public void setUp() {
+        courseEdition = new CourseEdition();
+        courseEdition.setId(1);
+        otherCourseEdition = new CourseEdition();
+        otherCourseEdition.setId(2);
+        when(config.isCourseFeedPollingEnabled()).thenReturn(true);
+        courseEventFeed = new CourseEventFeed(config, new ValueProvider<>(courseEvents));
+        sequence = new AtomicLong(100);
+    }
+
+    @Test
+    public void testExistingEventsAreReturnedAfterStartup() {
+        when(courseEvents.getMaximumId()).thenReturn(99L);
+
+        courseEventFeed.getEventsAfter(courseEdition, 90, LIMIT);
+        verify(courseEvents).getEventsAfter(courseEdition, 90, 100, LIMIT);
+    }
+
+    @Test
+    public void testPendingEventsAreHeldBack() {
+        SetMultimap<Long, Long> pending = persist(courseEdition);
+        persist(courseEdition);
+
+        courseEventFeed.getEventsAfter(courseEdition, 90, LIMIT);
+        verify(courseEvents).getEventsAfter(courseEdition, 90, 100, LIMIT);
+
+        courseEventFeed.release(pending);
+        courseEventFeed.getEventsAfter(courseEdition, 90, LIMIT);
+        verify(courseEvents).getEventsAfter(courseEdition, 90, 101, LIMIT);
+    }
+
+    @Test
+    public void testReleasedEventsAreReturned() {
+        courseEventFeed.release(persist(courseEdition));
+
+        courseEventFeed.getEventsAfter(courseEdition, 90, LIMIT);
+        verify(courseEvents).getEventsAfter(courseEdition, 90, 101, LIMIT);
+        verify(courseEvents, never()).getMaximumId();
+    }
+
+    @Test
+    public void testPendingEventsOfOtherCourseEditionAreIgnored() {
+        persist(otherCourseEdition);
+
+        courseEventFeed.getEventsAfter(courseEdition, 90, LIMIT);
+        verify(courseEvents).getEventsAfter(courseEdition, 90, 101, LIMIT);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testPollingRequiresSingleNode() {
+        when(config.isCourseFeedPollingEnabled()).thenReturn(false);
+        new CourseEventFeed(config, new ValueProvider<>(courseEvents))
+            .getEventsAfter(courseEdition, 90, LIMIT);
+    }
+
+    private SetMultimap<Long, Long> persist(CourseEdition courseEdition) {
+        CourseEvent event = new CourseEvent();
+        event.setCourseEdition(courseEdition);
+        return courseEventFeed.persist(ImmutableList.of(event), persisted ->
+            persisted.setId(sequence.getAndIncrement()));
+    }
+
+}
@@ -1,5 +1,6 @@
 package nl.tudelft.ewi.devhub.server.backend;
 
+import nl.tudelft.ewi.devhub.server.backend.StorageBackend.StoredFile;
 import nl.tudelft.ewi.devhub.server.database.controllers.Deliveries;
 import nl.tudelft.ewi.devhub.server.database.entities.Assignment;
 import nl.tudelft.ewi.devhub.server.database.entities.Course;
@@ -47,6 +48,7 @@ public class DeliveriesBackendTest extends BackendTest {
 			.join("my", "fancy", "path").concat(File.separator);
 
 	private static final String FULL_PATH_NAME = pathName + fileName;
+	private static final String CONTENT_HASH = "e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855";
 
 	@Mock
 	private User currentUser;
@@ -110,7 +112,7 @@ public class DeliveriesBackendTest extends BackendTest {
 		when(group.getCourseEdition()).thenReturn(courseEdition);
 		when(group.getMembers()).thenReturn(groupMembers);
 		
-		when(storageBackend.store(anyString(), eq(fileName), eq(in))).thenReturn(FULL_PATH_NAME);
+		when(storageBackend.store(anyString(), eq(fileName), eq(in))).thenReturn(new StoredFile(FULL_PATH_NAME, CONTENT_HASH, 0));
 		when(storageBackend.getFile(eq(FULL_PATH_NAME))).thenReturn(file);
 		
 		when(attachment.getPath()).thenReturn(FULL_PATH_NAME);
@@ -0,0 +1,105 @@
+package nl.tudelft.ewi.devhub.server.backend;
+
+import com.google.inject.persist.UnitOfWork;
+import nl.tudelft.ewi.devhub.server.Config;
+import nl.tudelft.ewi.devhub.server.backend.warnings.CommitPushWarningStage;
+import nl.tudelft.ewi.devhub.server.web.models.GitPush;
+import nl.tudelft.ewi.devhub.server.web.resources.HooksResource.GitPushHandler;
+import nl.tudelft.ewi.devhub.server.web.resources.HooksResource.GitPushHandlerWorker;
+import nl.tudelft.ewi.devhub.server.web.resources.HooksResource.GitPushHandlerWorkerFactory;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class GitPushQueueTest {
+
+	private static final GitPush PUSH_A = new GitPush("a");
+	private static final GitPush PUSH_B = new GitPush("b");
+	private static final GitPush PUSH_C = new GitPush("c");
+
+	@Mock Config config;
+	@Mock UnitOfWork unitOfWork;
+	@Mock GitPushHandler gitPushHandler;
+	@Mock GitPushHandlerWorkerFactory gitPushHandlerWorkerFactory;
+	@Mock CommitPushWarningStage commitPushWarningStage;
+
+	private CountDownLatch started;
+	private CountDownLatch proceed;
+	private GitPushQueue gitPushQueue;
+
+	@Before
+	public void setUp() {
+		started = new CountDownLatch(1);
+		proceed = new CountDownLatch(1);
+
+		when(config.getGitPushWorkers()).thenReturn(1);
+		when(config.getGitPushQueueSize()).thenReturn(2);
+		when(gitPushHandlerWorkerFactory.create(any())).thenAnswer(invocation ->
+			new GitPushHandlerWorker(new ValueProvider<>(unitOfWork), new ValueProvider<>(gitPushHandler),
+				commitPushWarningStage, (GitPush) invocation.getArguments()[0]));
+		doAnswer(invocation -> {
+			started.countDown();
+			proceed.await();
+			return Collections.emptySet();
+		}).when(gitPushHandler).handle(any());
+
+		gitPushQueue = new GitPushQueue(config, gitPushHandlerWorkerFactory);
+	}
+
+	@Test
+	public void testCoalescePushesForSameRepository() throws InterruptedException {
+		assertTrue(gitPushQueue.offer(PUSH_A));
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+
+		assertTrue(gitPushQueue.offer(PUSH_A));
+		assertTrue(gitPushQueue.offer(PUSH_A));
+		assertTrue(gitPushQueue.offer(PUSH_B));
+		assertEquals(2, gitPushQueue.getStatistics().getQueueDepth());
+		assertEquals(1, gitPushQueue.getStatistics().getCoalesced());
+
+		proceed.countDown();
+		awaitProcessed(3);
+
+		verify(gitPushHandler, times(2)).handle(PUSH_A);
+		verify(gitPushHandler, times(1)).handle(PUSH_B);
+	}
+
+	@Test
+	public void testRejectWhenAtCapacity() throws InterruptedException {
+		assertTrue(gitPushQueue.offer(PUSH_A));
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+
+		assertTrue(gitPushQueue.offer(PUSH_B));
+		assertTrue(gitPushQueue.offer(PUSH_C));
+		assertFalse(gitPushQueue.offer(new GitPush("d")));
+		assertEquals(1, gitPushQueue.getStatistics().getRejected());
+
+		proceed.countDown();
+		awaitProcessed(3);
+	}
+
+	private void awaitProcessed(long expected) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5);
+		while (gitPushQueue.getStatistics().getProcessed() < expected && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertEquals(expected, gitPushQueue.getStatistics().getProcessed());
+	}
+
+}
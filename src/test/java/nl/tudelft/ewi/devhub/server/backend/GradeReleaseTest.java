@@ -0,0 +1,238 @@
+package nl.tudelft.ewi.devhub.server.backend;
+
+import nl.tudelft.ewi.devhub.server.backend.GradeRelease.Progress;
+import nl.tudelft.ewi.devhub.server.backend.GradeRelease.ReleaseState;
+import nl.tudelft.ewi.devhub.server.backend.mail.MailBackend;
+import nl.tudelft.ewi.devhub.server.backend.mail.MailBackend.Mail;
+import nl.tudelft.ewi.devhub.server.backend.mail.ReviewMailer;
+import nl.tudelft.ewi.devhub.server.database.controllers.Assignments;
+import nl.tudelft.ewi.devhub.server.database.controllers.Deliveries;
+import nl.tudelft.ewi.devhub.server.database.controllers.Users;
+import nl.tudelft.ewi.devhub.server.database.entities.Assignment;
+import nl.tudelft.ewi.devhub.server.database.entities.Assignment.AssignmentId;
+import nl.tudelft.ewi.devhub.server.database.entities.CourseEdition;
+import nl.tudelft.ewi.devhub.server.database.entities.Delivery;
+import nl.tudelft.ewi.devhub.server.database.entities.Delivery.Review;
+import nl.tudelft.ewi.devhub.server.database.entities.Delivery.State;
+import nl.tudelft.ewi.devhub.server.database.entities.Group;
+import nl.tudelft.ewi.devhub.server.database.entities.User;
+import nl.tudelft.ewi.devhub.server.database.entities.rubrics.Characteristic;
+import nl.tudelft.ewi.devhub.server.database.entities.rubrics.GradingStrategy;
+import nl.tudelft.ewi.devhub.server.database.entities.rubrics.Mastery;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.inject.persist.UnitOfWork;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import javax.persistence.EntityManager;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class GradeReleaseTest {
+
+	private static final long COURSE_EDITION_ID = 1L;
+	private static final long ASSIGNMENT_ID = 2L;
+	private static final long USER_ID = 3L;
+	private static final List<Locale> LOCALES = ImmutableList.of(Locale.ENGLISH);
+
+	@Mock private UnitOfWork unitOfWork;
+	@Mock private EntityManager entityManager;
+	@Mock private Assignments assignments;
+	@Mock private Deliveries deliveries;
+	@Mock private Users users;
+	@Mock private ReviewMailer reviewMailer;
+	@Mock private MailBackend mailBackend;
+	@Mock private ExecutorService executor;
+	@Mock private Assignment assignment;
+	@Mock private GradingStrategy gradingStrategy;
+	@Mock private Characteristic characteristic;
+	@Mock private Mastery mastery;
+
+	private User releasedBy;
+	private GradeRelease gradeRelease;
+
+	@Before
+	public void setUp() {
+		CourseEdition courseEdition = new CourseEdition();
+		courseEdition.setId(COURSE_EDITION_ID);
+		when(assignment.getCourseEdition()).thenReturn(courseEdition);
+		when(assignment.getAssignmentId()).thenReturn(ASSIGNMENT_ID);
+
+		releasedBy = new User();
+		releasedBy.setId(USER_ID);
+
+		gradeRelease = new GradeRelease(new ValueProvider<>(unitOfWork), new ValueProvider<>(entityManager),
+			new ValueProvider<>(assignments), new ValueProvider<>(deliveries), new ValueProvider<>(users),
+			new ValueProvider<>(reviewMailer), new ValueProvider<>(mailBackend), executor);
+	}
+
+	@Test
+	public void testDeliveriesAreReleasedInChunks() {
+		int count = 2 * GradeRelease.CHUNK_SIZE + 20;
+		List<Long> deliveryIds = LongStream.rangeClosed(1, count).boxed().collect(Collectors.toList());
+		prepareRelease(deliveryIds);
+
+		gradeRelease.release(assignment, releasedBy, LOCALES);
+		runSubmittedJob();
+
+		@SuppressWarnings("unchecked")
+		ArgumentCaptor<Collection<Long>> chunks = ArgumentCaptor.forClass(Collection.class);
+		verify(deliveries, times(3)).listForGrading(chunks.capture());
+		assertEquals(deliveryIds.subList(0, GradeRelease.CHUNK_SIZE), chunks.getAllValues().get(0));
+		assertEquals(deliveryIds.subList(GradeRelease.CHUNK_SIZE, 2 * GradeRelease.CHUNK_SIZE), chunks.getAllValues().get(1));
+		assertEquals(deliveryIds.subList(2 * GradeRelease.CHUNK_SIZE, count), chunks.getAllValues().get(2));
+		verify(entityManager, times(3)).clear();
+
+		Progress progress = gradeRelease.getProgress(assignment).get();
+		assertEquals(ReleaseState.FINISHED, progress.getState());
+		assertEquals(count, progress.getTotal());
+		assertEquals(count, progress.getProcessed());
+	}
+
+	@Test
+	public void testPreviousReviewIsCopied() {
+		Delivery delivery = createDelivery(1L, 1L);
+		Delivery previous = createDelivery(2L, 1L);
+		User reviewer = new User();
+		reviewer.setId(USER_ID + 1);
+		Review previousReview = new Review();
+		previousReview.setGrade(8.0);
+		previousReview.setState(State.APPROVED);
+		previousReview.setReviewUser(reviewer);
+		previousReview.setCommentary("Well done");
+		previous.setReview(previousReview);
+
+		prepareRelease(ImmutableList.of(1L));
+		prepareChunk(delivery);
+		when(deliveries.getDeliveries(assignment, ImmutableList.of(1L))).thenReturn(ImmutableList.of(previous));
+
+		gradeRelease.release(assignment, releasedBy, LOCALES);
+		runSubmittedJob();
+
+		Review review = delivery.getReview();
+		assertEquals(8.0, review.getGrade(), 1e-9);
+		assertEquals("Well done", review.getCommentary());
+		assertSame(reviewer, review.getReviewUser());
+		verify(reviewMailer, never()).createReviewMails(any(), anyList());
+		verify(mailBackend).sendMails(Collections.emptyList());
+	}
+
+	@Test
+	public void testReviewMailsAreQueued() {
+		Delivery delivery = createDelivery(1L, 1L);
+		Mail mail = new Mail("student@example.com", "Review", "Your grade has been released");
+
+		prepareRelease(ImmutableList.of(1L));
+		prepareChunk(delivery);
+		when(reviewMailer.createReviewMails(delivery, LOCALES)).thenReturn(ImmutableList.of(mail));
+
+		gradeRelease.release(assignment, releasedBy, LOCALES);
+		runSubmittedJob();
+
+		assertEquals(6.0, delivery.getReview().getGrade(), 1e-9);
+		assertEquals(State.APPROVED, delivery.getReview().getState());
+		verify(mailBackend).sendMails(ImmutableList.of(mail));
+	}
+
+	@Test
+	public void testConcurrentReleaseIsRefused() {
+		prepareRelease(Collections.emptyList());
+
+		Progress first = gradeRelease.release(assignment, releasedBy, LOCALES);
+		gradeRelease.release(assignment, releasedBy, LOCALES);
+
+		assertEquals(ReleaseState.QUEUED, first.getState());
+		runSubmittedJob();
+
+		gradeRelease.release(assignment, releasedBy, LOCALES);
+		verify(executor, times(2)).submit(any(Runnable.class));
+	}
+
+	@Test
+	public void testProgressIsReported() {
+		Delivery released = createDelivery(1L, 1L);
+		Delivery skipped = new Delivery();
+		skipped.setDeliveryId(2L);
+		skipped.setGroup(createGroup(2L));
+		skipped.setRubrics(Collections.emptyMap());
+		Review review = new Review();
+		review.setState(State.APPROVED);
+		released.setReview(review);
+
+		assertFalse(gradeRelease.getProgress(assignment).isPresent());
+		prepareRelease(ImmutableList.of(1L, 2L));
+		when(deliveries.listForGrading(ImmutableList.of(1L, 2L))).thenReturn(ImmutableList.of(released, skipped));
+		when(gradingStrategy.createGrade(released)).thenReturn(6.0);
+		when(gradingStrategy.createState(released)).thenReturn(State.APPROVED);
+
+		assertEquals(ReleaseState.QUEUED, gradeRelease.release(assignment, releasedBy, LOCALES).getState());
+		runSubmittedJob();
+
+		Progress progress = gradeRelease.getProgress(assignment).get();
+		assertEquals(ReleaseState.FINISHED, progress.getState());
+		assertEquals(2, progress.getTotal());
+		assertEquals(2, progress.getProcessed());
+		assertEquals(1, progress.getReleased());
+		assertEquals(1, progress.getSkipped());
+	}
+
+	private void prepareRelease(List<Long> deliveryIds) {
+		AssignmentId assignmentId = new AssignmentId(COURSE_EDITION_ID, ASSIGNMENT_ID);
+		when(assignments.find(assignmentId)).thenReturn(assignment);
+		when(deliveries.getLastDeliveryIds(assignment)).thenReturn(deliveryIds);
+		if (!deliveryIds.isEmpty()) {
+			when(assignment.getGradingStrategy()).thenReturn(gradingStrategy);
+			when(users.find(USER_ID)).thenReturn(releasedBy);
+		}
+	}
+
+	private void prepareChunk(Delivery delivery) {
+		when(deliveries.listForGrading(ImmutableList.of(delivery.getDeliveryId()))).thenReturn(ImmutableList.of(delivery));
+		when(gradingStrategy.createGrade(delivery)).thenReturn(6.0);
+		when(gradingStrategy.createState(delivery)).thenReturn(State.APPROVED);
+	}
+
+	private void runSubmittedJob() {
+		ArgumentCaptor<Runnable> job = ArgumentCaptor.forClass(Runnable.class);
+		verify(executor).submit(job.capture());
+		job.getValue().run();
+	}
+
+	private Delivery createDelivery(long deliveryId, long groupNumber) {
+		Delivery delivery = new Delivery();
+		delivery.setDeliveryId(deliveryId);
+		delivery.setGroup(createGroup(groupNumber));
+		delivery.setRubrics(ImmutableMap.of(characteristic, mastery));
+		return delivery;
+	}
+
+	private static Group createGroup(long groupNumber) {
+		Group group = new Group();
+		group.setGroupNumber(groupNumber);
+		return group;
+	}
+
+}
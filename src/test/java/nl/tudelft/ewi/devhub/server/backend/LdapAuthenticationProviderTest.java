@@ -0,0 +1,125 @@
+package nl.tudelft.ewi.devhub.server.backend;
+
+import nl.tudelft.ewi.devhub.server.Config;
+import nl.tudelft.ewi.devhub.server.backend.AuthenticationProvider.AuthenticationSession;
+import nl.tudelft.ewi.devhub.server.backend.AuthenticationProvider.InvalidCredentialsException;
+import nl.tudelft.ewi.devhub.server.database.entities.User;
+
+import com.unboundid.ldap.listener.InMemoryDirectoryServer;
+import com.unboundid.ldap.listener.InMemoryDirectoryServerConfig;
+import com.unboundid.ldap.listener.InMemoryListenerConfig;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+/**
+ * Authenticates against an in-process LDAP server.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class LdapAuthenticationProviderTest {
+
+	private static final String BASE_DN = "dc=devhub,dc=nl";
+	private static final String PEOPLE_DN = "ou=people," + BASE_DN;
+
+	@Mock private Config config;
+	@Mock private BasicAuthenticationProvider basicAuthenticationProvider;
+
+	private InMemoryDirectoryServer server;
+	private LdapAuthenticationProvider provider;
+
+	@Before
+	public void setUp() throws Exception {
+		InMemoryDirectoryServerConfig serverConfig = new InMemoryDirectoryServerConfig(BASE_DN);
+		serverConfig.setListenerConfigs(InMemoryListenerConfig.createLDAPConfig("default", 0));
+		server = new InMemoryDirectoryServer(serverConfig);
+		server.add("dn: " + BASE_DN, "objectClass: top", "objectClass: domain", "dc: devhub");
+		server.add("dn: " + PEOPLE_DN, "objectClass: top", "objectClass: organizationalUnit", "ou: people");
+		addUser("jstudent", "Jane Student");
+		addUser("jdoe", "John Doe");
+		server.startListening();
+
+		when(config.getLDAPHost()).thenReturn("localhost");
+		when(config.getLDAPPort()).thenReturn(server.getListenPort());
+		when(config.isLDAPSSL()).thenReturn(false);
+		when(config.isActiveDirectory()).thenReturn(false);
+		when(config.getLDAPPrimaryDomain()).thenReturn(PEOPLE_DN);
+		when(config.getLDAPPoolSize()).thenReturn(2);
+		when(config.getLDAPPoolTimeout()).thenReturn(1L);
+		when(config.getLDAPBindCacheTtl()).thenReturn(300L);
+		when(basicAuthenticationProvider.authenticate(anyString(), anyString()))
+			.thenThrow(new InvalidCredentialsException());
+
+		provider = new LdapAuthenticationProvider(config, basicAuthenticationProvider,
+			new LdapConnectionPool(config), new CredentialCache(config));
+	}
+
+	private void addUser(String netId, String name) throws Exception {
+		server.add("dn: uid=" + netId + "," + PEOPLE_DN,
+			"objectClass: top", "objectClass: person", "objectClass: organizationalPerson",
+			"objectClass: inetOrgPerson", "uid: " + netId, "cn: " + name, "sn: " + name,
+			"displayName: " + name, "mail: " + netId + "@devhub.nl", "userPassword: secret");
+	}
+
+	@After
+	public void tearDown() {
+		server.shutDown(true);
+	}
+
+	@Test
+	public void testFetchOnBoundConnection() throws Exception {
+		User user = new User();
+		try (AuthenticationSession session = provider.authenticate("jstudent", "secret")) {
+			session.fetch(user);
+		}
+
+		assertEquals("Jane Student", user.getName());
+		assertEquals("jstudent@devhub.nl", user.getEmail());
+		assertEquals(1, provider.getStatistics().getLdapBinds());
+		assertEquals(1, provider.getStatistics().getConnectionPool().getIdle());
+	}
+
+	@Test(expected = InvalidCredentialsException.class)
+	public void testInvalidCredentials() throws Exception {
+		try {
+			provider.authenticate("jstudent", "wrong");
+		}
+		finally {
+			assertEquals(0, provider.getStatistics().getConnectionPool().getActive());
+			assertEquals(1, provider.getStatistics().getFailures());
+		}
+	}
+
+	@Test
+	public void testRepeatedLoginIsCached() throws Exception {
+		provider.authenticate("jstudent", "secret").close();
+		provider.authenticate("jstudent", "secret").close();
+
+		assertEquals(1, provider.getStatistics().getLdapBinds());
+		assertEquals(1, provider.getStatistics().getCacheHits());
+		assertEquals(2, provider.getStatistics().getLatencies().getCount());
+	}
+
+	@Test(expected = InvalidCredentialsException.class)
+	public void testCachedLoginWithOtherPassword() throws Exception {
+		provider.authenticate("jstudent", "secret").close();
+		provider.authenticate("jstudent", "wrong");
+	}
+
+	@Test
+	public void testConnectionIsReused() throws Exception {
+		provider.authenticate("jstudent", "secret").close();
+		provider.authenticate("jdoe", "secret").close();
+
+		LdapConnectionPool.Statistics statistics = provider.getStatistics().getConnectionPool();
+		assertEquals(1, statistics.getCreated());
+		assertEquals(1, statistics.getReused());
+	}
+
+}
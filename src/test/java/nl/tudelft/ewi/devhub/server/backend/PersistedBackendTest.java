@@ -7,8 +7,10 @@ import nl.tudelft.ewi.devhub.server.database.entities.CourseEdition;
 import nl.tudelft.ewi.devhub.server.database.entities.Group;
 import nl.tudelft.ewi.devhub.server.database.entities.GroupRepository;
 import nl.tudelft.ewi.devhub.server.database.entities.User;
+import nl.tudelft.ewi.devhub.server.metrics.QueryBudget;
 
 import com.google.common.collect.Sets;
+import org.junit.Rule;
 
 import java.util.Arrays;
 
@@ -17,6 +19,8 @@ import java.util.Arrays;
  */
 public abstract class PersistedBackendTest extends BackendTest {
 
+	@Rule public QueryBudget queryBudget = new QueryBudget();
+
 	protected abstract CourseEditions getCourses();
 
 	protected abstract Users getUsers();
@@ -0,0 +1,134 @@
+package nl.tudelft.ewi.devhub.server.backend;
+
+import nl.tudelft.ewi.devhub.server.Config;
+import nl.tudelft.ewi.devhub.server.backend.StorageBackend.StoredFile;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class StorageBackendTest {
+
+    private static final String FIRST_FOLDER = "ti1705/1516/1/1";
+    private static final String SECOND_FOLDER = "ti1705/1516/1/2";
+    private static final String FILE_NAME = "report.pdf";
+    private static final String CONTENTS = "Final report";
+
+    @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private StorageBackend storageBackend;
+
+    @Before
+    public void setUp() {
+        Config config = mock(Config.class);
+        when(config.getStorageFolder()).thenReturn(temporaryFolder.getRoot());
+        storageBackend = new StorageBackend(config);
+    }
+
+    @Test
+    public void testSameContentsAreStoredInOneBlob() throws IOException {
+        StoredFile first = storageBackend.store(FIRST_FOLDER, FILE_NAME, contents(CONTENTS));
+        StoredFile second = storageBackend.store(SECOND_FOLDER, FILE_NAME, contents(CONTENTS));
+
+        assertEquals(first.getContentHash(), second.getContentHash());
+        assertEquals(1, countBlobs());
+        assertEquals(1, storageBackend.getStatistics().getDeduplicated());
+        assertTrue(Files.isSameFile(
+            storageBackend.getFile(first.getPath()).toPath(),
+            storageBackend.getFile(second.getPath()).toPath()));
+    }
+
+    @Test
+    public void testBlobIsKeptWhileLinked() throws IOException {
+        StoredFile first = storageBackend.store(FIRST_FOLDER, FILE_NAME, contents(CONTENTS));
+        StoredFile second = storageBackend.store(SECOND_FOLDER, FILE_NAME, contents(CONTENTS));
+
+        storageBackend.remove(FIRST_FOLDER, FILE_NAME, first.getContentHash());
+
+        assertEquals(1, countBlobs());
+        assertEquals(CONTENTS, read(second));
+    }
+
+    @Test
+    public void testBlobIsRemovedWithLastLink() throws IOException {
+        StoredFile first = storageBackend.store(FIRST_FOLDER, FILE_NAME, contents(CONTENTS));
+        StoredFile second = storageBackend.store(SECOND_FOLDER, FILE_NAME, contents(CONTENTS));
+
+        storageBackend.remove(FIRST_FOLDER, FILE_NAME, first.getContentHash());
+        storageBackend.remove(SECOND_FOLDER, FILE_NAME, second.getContentHash());
+
+        assertEquals(0, countBlobs());
+    }
+
+    @Test
+    public void testBlobIsRemovedWithoutHash() throws IOException {
+        storageBackend.store(FIRST_FOLDER, FILE_NAME, contents(CONTENTS));
+        storageBackend.remove(FIRST_FOLDER, FILE_NAME);
+
+        assertEquals(0, countBlobs());
+    }
+
+    @Test
+    public void testOverwriteRemovesPreviousBlob() throws IOException {
+        storageBackend.store(FIRST_FOLDER, FILE_NAME, contents(CONTENTS));
+        StoredFile overwritten = storageBackend.store(FIRST_FOLDER, FILE_NAME, contents("Revised report"));
+
+        assertEquals(1, countBlobs());
+        assertEquals("Revised report", read(overwritten));
+    }
+
+    @Test
+    public void testOverwriteKeepsBlobLinkedElsewhere() throws IOException {
+        storageBackend.store(FIRST_FOLDER, FILE_NAME, contents(CONTENTS));
+        StoredFile second = storageBackend.store(SECOND_FOLDER, FILE_NAME, contents(CONTENTS));
+        storageBackend.store(FIRST_FOLDER, FILE_NAME, contents("Revised report"));
+
+        assertEquals(2, countBlobs());
+        assertEquals(CONTENTS, read(second));
+    }
+
+    @Test
+    public void testRemovedFileIsDeleted() throws IOException {
+        StoredFile first = storageBackend.store(FIRST_FOLDER, FILE_NAME, contents(CONTENTS));
+        File file = storageBackend.getFile(first.getPath());
+
+        storageBackend.remove(FIRST_FOLDER, FILE_NAME, first.getContentHash());
+        assertFalse(file.exists());
+    }
+
+    private static InputStream contents(String contents) {
+        return new ByteArrayInputStream(contents.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String read(StoredFile storedFile) throws IOException {
+        byte[] bytes = Files.readAllBytes(storageBackend.getFile(storedFile.getPath()).toPath());
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private long countBlobs() throws IOException {
+        File blobs = new File(temporaryFolder.getRoot(), ".blobs");
+        if (!blobs.exists()) {
+            return 0;
+        }
+        try (Stream<Path> files = Files.walk(blobs.toPath())) {
+            return files.filter(Files::isRegularFile).count();
+        }
+    }
+
+}
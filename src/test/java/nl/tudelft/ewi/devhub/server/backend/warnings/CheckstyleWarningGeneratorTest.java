@@ -27,8 +27,11 @@ import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.hamcrest.Matchers.contains;
 import static org.junit.Assert.assertThat;
@@ -95,6 +98,18 @@ public class CheckstyleWarningGeneratorTest {
         }
     }
 
+    @Test
+    public void testStreamingParse() throws IOException {
+        CheckstyleWarning expected = expectedWarning(EXPECTED_PATH, 27, "First sentence should end with a period.", "warning");
+        try(InputStream inputStream = CheckstyleWarningGeneratorTest.class.getResourceAsStream("/checkstyle-result.xml");
+            Stream<CheckstyleWarningGenerator.CheckStyleFile> files = checkstyleWarningGenerator.readFiles(inputStream)) {
+            Set<CheckstyleWarning> warnings = files
+                .flatMap(file -> checkstyleWarningGenerator.generateWarningsForFile(commit, file).stream())
+                .collect(Collectors.toSet());
+            assertThat(warnings, contains(expected));
+        }
+    }
+
     protected CheckstyleWarning expectedWarning(String path, int lineNumber, String message, String severity) {
         final Source bSource = new Source();
         bSource.setSourceLineNumber(lineNumber);
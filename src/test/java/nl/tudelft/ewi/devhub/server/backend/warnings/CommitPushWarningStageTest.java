@@ -0,0 +1,80 @@
+package nl.tudelft.ewi.devhub.server.backend.warnings;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.inject.persist.UnitOfWork;
+import nl.tudelft.ewi.devhub.server.Config;
+import nl.tudelft.ewi.devhub.server.database.controllers.Commits;
+import nl.tudelft.ewi.devhub.server.database.controllers.Warnings;
+import nl.tudelft.ewi.devhub.server.database.entities.Commit;
+import nl.tudelft.ewi.devhub.server.database.entities.GroupRepository;
+import nl.tudelft.ewi.devhub.server.database.entities.warnings.CommitWarning;
+import nl.tudelft.ewi.devhub.server.web.models.GitPush;
+import nl.tudelft.ewi.git.web.api.CommitApi;
+import nl.tudelft.ewi.git.web.api.RepositoriesApi;
+import nl.tudelft.ewi.git.web.api.RepositoryApi;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.util.Collections;
+import java.util.Optional;
+
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class CommitPushWarningStageTest {
+
+    private static final String REPOSITORY_NAME = "courses/ti1705/group-1";
+    private static final String COMMIT_ID = "0123456789abcdef0123456789abcdef01234567";
+
+    @Mock private Config config;
+    @Mock private UnitOfWork unitOfWork;
+    @Mock private Commits commits;
+    @Mock private Warnings warnings;
+    @Mock private RepositoriesApi repositoriesApi;
+    @Mock private RepositoryApi repositoryApi;
+    @Mock private CommitApi commitApi;
+    @Mock private CommitPushWarningGenerator<CommitWarning> generator;
+
+    private GroupRepository repository;
+    private Commit commit;
+    private GitPush gitPush;
+    private CommitPushWarningStage stage;
+
+    @Before
+    public void setUp() {
+        repository = new GroupRepository();
+        repository.setRepositoryName(REPOSITORY_NAME);
+        commit = new Commit();
+        commit.setRepository(repository);
+        commit.setCommitId(COMMIT_ID);
+        gitPush = new GitPush();
+
+        when(config.getWarningGeneratorWorkers()).thenReturn(2);
+        when(config.getWarningGeneratorTimeout()).thenReturn(10L);
+        when(repositoriesApi.getRepository(REPOSITORY_NAME)).thenReturn(repositoryApi);
+        when(repositoryApi.getCommit(COMMIT_ID)).thenReturn(commitApi);
+        when(commits.retrieve(repository, COMMIT_ID)).thenReturn(Optional.of(commit));
+
+        stage = new CommitPushWarningStage(config, () -> unitOfWork,
+            () -> ImmutableSet.<CommitPushWarningGenerator> of(generator), () -> commits, () -> warnings,
+            repositoriesApi);
+    }
+
+    @Test
+    public void testGeneratorReceivesCommitApi() {
+        stage.generateWarnings(repository, Collections.singleton(commit), gitPush);
+        verify(generator).generateWarnings(commit, gitPush, commitApi);
+    }
+
+    @Test
+    public void testNothingIsPrefetched() {
+        stage.generateWarnings(repository, Collections.singleton(commit), gitPush);
+        verifyZeroInteractions(commitApi);
+    }
+
+}
@@ -28,8 +28,11 @@ import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.hamcrest.Matchers.contains;
 import static org.junit.Assert.assertThat;
@@ -101,6 +104,19 @@ public class FindBugsWarningGeneratorTest {
         }
     }
 
+    @Test
+    public void testStreamingParse() throws IOException {
+        FindbugsWarning expected = expectedWarning(EXPECTED_PATH, 47,
+            "Null pointer dereference of nullsy in nl.tudelft.jpacman.board.DirectionTest.testThatNullHasToString()", 1);
+        try(InputStream inputStream = FindBugsWarningGeneratorTest.class.getResourceAsStream("/findbugsXml.xml");
+            Stream<FindBugsWarningGenerator.FindBugsFile> files = findBugsWarningGenerator.readFiles(inputStream)) {
+            Set<FindbugsWarning> warnings = files
+                .flatMap(file -> findBugsWarningGenerator.generateWarningsForFile(commit, file).stream())
+                .collect(Collectors.toSet());
+            assertThat(warnings, contains(expected));
+        }
+    }
+
     protected FindbugsWarning expectedWarning(String path, int lineNumber, String message, Integer priority) {
         final Source bSource = new Source();
         bSource.setSourceLineNumber(lineNumber);
@@ -27,8 +27,11 @@ import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.hamcrest.Matchers.hasItems;
 import static org.junit.Assert.assertThat;
@@ -98,6 +101,21 @@ public class PMDWarningGeneratorTest {
         }
     }
 
+    @Test
+    public void testStreamingParse() throws IOException {
+        PMDWarning a = expectedWarning(EXPECTED_PATH, 31, "JUnitTestContainsTooManyAsserts",
+                "\nJUnit tests should not contain more than 1 assert(s).\n", 3);
+        PMDWarning b = expectedWarning(EXPECTED_PATH, 36, "UnnecessaryBooleanAssertion",
+                "\nassertTrue(true) or similar statements are unnecessary\n", 3);
+        try(InputStream inputStream = PMDWarningGeneratorTest.class.getResourceAsStream("/pmd.xml");
+            Stream<PMDWarningGenerator.PMDFile> files = pmdWarningGenerator.readFiles(inputStream)) {
+            Set<PMDWarning> warnings = files
+                .flatMap(file -> pmdWarningGenerator.generateWarningsForFile(commit, file).stream())
+                .collect(Collectors.toSet());
+            assertThat(warnings, hasItems(a, b));
+        }
+    }
+
     protected PMDWarning expectedWarning(String path, int lineNumber, String rule, String message, Integer priority) {
         final Source bSource = new Source();
         bSource.setSourceLineNumber(lineNumber);
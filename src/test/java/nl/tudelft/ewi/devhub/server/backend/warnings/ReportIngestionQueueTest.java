@@ -0,0 +1,118 @@
+package nl.tudelft.ewi.devhub.server.backend.warnings;
+
+import nl.tudelft.ewi.devhub.server.Config;
+import nl.tudelft.ewi.devhub.server.backend.warnings.PMDWarningGenerator.PMDFile;
+import nl.tudelft.ewi.devhub.server.database.controllers.Commits;
+import nl.tudelft.ewi.devhub.server.database.controllers.RepositoriesController;
+import nl.tudelft.ewi.devhub.server.database.controllers.Warnings;
+import nl.tudelft.ewi.devhub.server.database.entities.Commit;
+import nl.tudelft.ewi.devhub.server.database.entities.RepositoryEntity;
+import nl.tudelft.ewi.devhub.server.database.entities.warnings.PMDWarning;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.inject.Injector;
+import com.google.inject.persist.UnitOfWork;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import javax.persistence.EntityManager;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author Jan-Willem Gmelig Meyling
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class ReportIngestionQueueTest {
+
+    private static final String REPOSITORY_NAME = "courses/ti1705/group-1";
+    private static final String COMMIT_ID = "234345345345";
+
+    @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Mock private Config config;
+    @Mock private Injector injector;
+    @Mock private UnitOfWork unitOfWork;
+    @Mock private EntityManager entityManager;
+    @Mock private RepositoriesController repositoriesController;
+    @Mock private Commits commits;
+    @Mock private Warnings warnings;
+    @Mock private PMDWarningGenerator generator;
+    @Mock private RepositoryEntity repositoryEntity;
+    @Mock private Commit commit;
+
+    private ReportIngestionQueue reportIngestionQueue;
+    private Path report;
+
+    @Before
+    public void setUp() throws IOException {
+        when(config.getReportIngestionWorkers()).thenReturn(1);
+        when(config.getReportIngestionQueueSize()).thenReturn(1);
+        reportIngestionQueue = new ReportIngestionQueue(config, injector, () -> unitOfWork,
+            () -> entityManager, () -> repositoriesController, () -> commits, () -> warnings);
+
+        report = temporaryFolder.newFile("pmd.xml").toPath();
+        when(injector.getInstance(PMDWarningGenerator.class)).thenReturn(generator);
+        when(repositoriesController.find(REPOSITORY_NAME)).thenReturn(repositoryEntity);
+    }
+
+    @Test
+    public void testGeneratorIsResolvedInUnitOfWork() throws IOException {
+        PMDFile file = new PMDFile();
+        Set<PMDWarning> generated = ImmutableSet.of(new PMDWarning());
+        when(generator.readFiles(any(InputStream.class))).thenReturn(Stream.of(file));
+        when(commits.retrieve(repositoryEntity, COMMIT_ID)).thenReturn(Optional.of(commit));
+        when(commit.getRepository()).thenReturn(repositoryEntity);
+        when(generator.generateWarningsForFile(commit, file)).thenReturn(generated);
+        when(warnings.persist(repositoryEntity, generated)).thenReturn(generated);
+
+        reportIngestionQueue.process(PMDWarningGenerator.class, REPOSITORY_NAME, COMMIT_ID, report);
+
+        InOrder inOrder = inOrder(unitOfWork, injector, entityManager);
+        inOrder.verify(unitOfWork).begin();
+        inOrder.verify(injector).getInstance(PMDWarningGenerator.class);
+        inOrder.verify(entityManager).clear();
+        inOrder.verify(unitOfWork).end();
+        verify(commits).ensureExists(repositoryEntity, COMMIT_ID);
+
+        ReportIngestionQueue.Statistics statistics = reportIngestionQueue.getStatistics();
+        assertEquals(1, statistics.getProcessed());
+        assertEquals(0, statistics.getFailed());
+        assertEquals(1, statistics.getFiles());
+        assertEquals(1, statistics.getPersistedWarnings());
+        assertFalse(Files.exists(report));
+    }
+
+    @Test
+    public void testFailedReportEndsUnitOfWork() throws IOException {
+        when(generator.readFiles(any(InputStream.class))).thenThrow(new IOException("Malformed report"));
+
+        reportIngestionQueue.process(PMDWarningGenerator.class, REPOSITORY_NAME, COMMIT_ID, report);
+
+        verify(unitOfWork).end();
+        ReportIngestionQueue.Statistics statistics = reportIngestionQueue.getStatistics();
+        assertEquals(1, statistics.getProcessed());
+        assertEquals(1, statistics.getFailed());
+        assertFalse(Files.exists(report));
+    }
+
+}
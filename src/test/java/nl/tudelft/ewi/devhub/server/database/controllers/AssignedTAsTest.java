@@ -91,5 +91,4 @@ public class AssignedTAsTest extends PersistedBackendTest {
         );
     }
 
-
 }
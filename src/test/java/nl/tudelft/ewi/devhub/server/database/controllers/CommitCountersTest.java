@@ -0,0 +1,149 @@
+package nl.tudelft.ewi.devhub.server.database.controllers;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.inject.Inject;
+import lombok.Getter;
+import nl.tudelft.ewi.devhub.server.backend.PersistedBackendTest;
+import nl.tudelft.ewi.devhub.server.database.controllers.CommitCounters.CommitSummary;
+import nl.tudelft.ewi.devhub.server.database.embeddables.Source;
+import nl.tudelft.ewi.devhub.server.database.entities.BuildResult;
+import nl.tudelft.ewi.devhub.server.database.entities.Commit;
+import nl.tudelft.ewi.devhub.server.database.entities.Group;
+import nl.tudelft.ewi.devhub.server.database.entities.RepositoryEntity;
+import nl.tudelft.ewi.devhub.server.database.entities.User;
+import nl.tudelft.ewi.devhub.server.database.entities.comments.CommitComment;
+import nl.tudelft.ewi.devhub.server.database.entities.warnings.CheckstyleWarning;
+import nl.tudelft.ewi.devhub.server.database.entities.warnings.LargeCommitWarning;
+import nl.tudelft.ewi.git.models.DiffModel;
+import nl.tudelft.ewi.git.web.api.CommitApi;
+import nl.tudelft.ewi.git.web.api.RepositoriesApi;
+import nl.tudelft.ewi.git.web.api.RepositoryApi;
+import org.assertj.core.util.Lists;
+import org.jukito.JukitoRunner;
+import org.jukito.UseModules;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.when;
+
+@RunWith(JukitoRunner.class)
+@UseModules(TestDatabaseModule.class)
+public class CommitCountersTest extends PersistedBackendTest {
+
+	@Rule public MockitoRule mockitoRule = MockitoJUnit.rule();
+
+	@Inject private CommitCounters commitCounters;
+	@Inject private CommitComments commitComments;
+	@Inject private BuildResults buildResults;
+	@Inject private Warnings warnings;
+	@Inject private Commits commits;
+	@Inject @Getter private CourseEditions courses;
+	@Inject @Getter private Users users;
+	@Inject @Getter private Groups groups;
+
+	@Inject RepositoriesApi repositoriesApi;
+	@Mock RepositoryApi repositoryApi;
+	@Mock CommitApi commitApi;
+	DiffModel diffModel = new DiffModel();
+
+	private static final String COMMIT_ID = "06bd8721495e682eb63b5a8781e70ad02a97874b";
+	private static final String OTHER_COMMIT_ID = "8e4d6c7e1f0c8a6b5d4e3f2a1b0c9d8e7f6a5b4c";
+
+	private User user;
+	private RepositoryEntity repository;
+	private Commit commit;
+	private Commit otherCommit;
+
+	@Before
+	public void before() {
+		when(repositoriesApi.getRepository(Mockito.anyString())).thenReturn(repositoryApi);
+		when(repositoryApi.getCommit(Mockito.anyString())).thenReturn(commitApi);
+		when(commitApi.diff()).thenReturn(diffModel);
+		diffModel.setDiffs(Lists.newArrayList());
+
+		user = createUser();
+		Group group = createGroup(createCourseEdition(), user);
+		repository = group.getRepository();
+		commit = commits.ensureExists(repository, COMMIT_ID);
+		otherCommit = commits.ensureExists(repository, OTHER_COMMIT_ID);
+	}
+
+	@Test
+	public void testSummaryForNewCommit() {
+		CommitSummary summary = getSummary(commit);
+		assertEquals(COMMIT_ID, summary.getCommitId());
+		assertNull(summary.getBuildResult());
+		assertEquals(0, summary.getWarnings());
+		assertEquals(0, summary.getComments());
+	}
+
+	@Test
+	public void testSummaryContainsBuildResult() {
+		BuildResult buildResult = BuildResult.newBuildResult(commit);
+		buildResults.persist(buildResult);
+		assertEquals(buildResult, getSummary(commit).getBuildResult());
+	}
+
+	@Test
+	public void testCommentIsCounted() {
+		CommitComment comment = new CommitComment();
+		comment.setCommit(commit);
+		comment.setContent("This is a comment");
+		comment.setUser(user);
+		commitComments.persist(comment);
+
+		assertEquals(1, getSummary(commit).getComments());
+		assertEquals(0, getSummary(otherCommit).getComments());
+	}
+
+	@Test
+	public void testWarningsAreCountedOnce() {
+		LargeCommitWarning warning = new LargeCommitWarning();
+		warning.setCommit(commit);
+		warnings.persist(repository, ImmutableSet.of(warning));
+
+		LargeCommitWarning duplicate = new LargeCommitWarning();
+		duplicate.setCommit(commit);
+		warnings.persist(repository, ImmutableSet.of(duplicate));
+
+		assertEquals(1, getSummary(commit).getWarnings());
+	}
+
+	@Test
+	public void testLineWarningIsCountedForSourceCommit() {
+		CheckstyleWarning introduced = createCheckstyleWarning(commit, commit, 1);
+		CheckstyleWarning inherited = createCheckstyleWarning(otherCommit, commit, 2);
+		warnings.persist(repository, ImmutableSet.of(introduced, inherited));
+
+		assertEquals(1, getSummary(commit).getWarnings());
+		assertEquals(0, getSummary(otherCommit).getWarnings());
+	}
+
+	private CheckstyleWarning createCheckstyleWarning(Commit commit, Commit sourceCommit, int line) {
+		CheckstyleWarning warning = new CheckstyleWarning();
+		warning.setCommit(commit);
+		warning.setMessage("Line is longer than 120 characters");
+		warning.setSeverity("warning");
+		warning.setSource(new Source(sourceCommit, line, "src/main/java/Main.java"));
+		return warning;
+	}
+
+	private CommitSummary getSummary(Commit commit) {
+		Map<String, CommitSummary> summaries =
+			commitCounters.getSummaries(repository, Arrays.asList(COMMIT_ID, OTHER_COMMIT_ID));
+		assertEquals(2, summaries.size());
+		return summaries.get(commit.getCommitId());
+	}
+
+}
@@ -0,0 +1,151 @@
+package nl.tudelft.ewi.devhub.server.database.controllers;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.inject.AbstractModule;
+import lombok.Getter;
+import nl.tudelft.ewi.devhub.server.backend.PersistedBackendTest;
+import nl.tudelft.ewi.devhub.server.database.entities.BuildResult;
+import nl.tudelft.ewi.devhub.server.database.entities.Commit;
+import nl.tudelft.ewi.devhub.server.database.entities.RepositoryEntity;
+import nl.tudelft.ewi.devhub.server.util.CommitGraph;
+import nl.tudelft.ewi.git.models.DetailedCommitModel;
+import nl.tudelft.ewi.git.models.DiffModel;
+import nl.tudelft.ewi.git.web.api.CommitApi;
+import nl.tudelft.ewi.git.web.api.RepositoriesApi;
+import nl.tudelft.ewi.git.web.api.RepositoryApi;
+import org.assertj.core.util.Lists;
+import org.hamcrest.Matchers;
+import org.jukito.JukitoRunner;
+import org.jukito.UseModules;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+
+import javax.inject.Inject;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Jan-Willem Gmelig Meyling
+ */
+@RunWith(JukitoRunner.class)
+@UseModules({TestDatabaseModule.class, CommitGraphsTest.CommitGraphsTestModule.class})
+public class CommitGraphsTest extends PersistedBackendTest {
+
+	private static RepositoriesApi repositories = Mockito.mock(RepositoriesApi.class);
+	private static RepositoryApi repository = Mockito.mock(RepositoryApi.class);
+	private static CommitApi commitApi = Mockito.mock(CommitApi.class);
+	private static DiffModel diffModel = new DiffModel();
+	private static DetailedCommitModel commitModel = new DetailedCommitModel();
+
+	@BeforeClass
+	public static void before() {
+		Mockito.when(repositories.getRepository(Mockito.anyString())).thenReturn(repository);
+		Mockito.when(repository.getCommit(Mockito.anyString())).thenReturn(commitApi);
+		Mockito.when(commitApi.get()).thenReturn(commitModel);
+		diffModel.setDiffs(Lists.newArrayList());
+		Mockito.when(commitApi.diff()).thenReturn(diffModel);
+	}
+
+	public static class CommitGraphsTestModule extends AbstractModule {
+
+		@Override
+		protected void configure() {
+			bind(RepositoriesApi.class).toInstance(repositories);
+		}
+
+	}
+
+	@Inject @Getter private Groups groups;
+	@Inject @Getter private CourseEditions courses;
+	@Inject @Getter private Users users;
+	@Inject private Commits commits;
+	@Inject private CommitGraphs commitGraphs;
+	@Inject private BuildResults buildResults;
+
+	private RepositoryEntity repositoryEntity;
+	private Commit a, b, c, d;
+
+	@Before
+	public void setup() {
+		repositoryEntity = createGroup(createCourseEdition(), createUser()).getRepository();
+		a = createCommit();
+		b = createCommit(a);
+		c = createCommit(b);
+		d = createCommit(c);
+	}
+
+	@Test
+	public void testGenerations() {
+		Map<String, Integer> generations = commitGraphs.getGenerations(repositoryEntity,
+			Arrays.asList(a.getCommitId(), b.getCommitId(), c.getCommitId(), d.getCommitId()));
+
+		assertEquals(ImmutableMap.of(a.getCommitId(), 1, b.getCommitId(), 2, c.getCommitId(), 3, d.getCommitId(), 4),
+			generations);
+	}
+
+	@Test
+	public void testGenerationsWithinBatch() {
+		commitModel.setParents(new String[] { d.getCommitId() });
+		String e = UUID.randomUUID().toString();
+		String f = UUID.randomUUID().toString();
+		commits.ensureExistsAll(repositoryEntity, Arrays.asList(e, f));
+
+		assertEquals(ImmutableMap.of(e, 5, f, 5), commitGraphs.getGenerations(repositoryEntity, Arrays.asList(e, f)));
+	}
+
+	@Test
+	public void testFindUnbuiltAncestors() {
+		assertThat(commitGraphs.findUnbuiltAncestors(repositoryEntity, Collections.singleton(d), 3, 20),
+			Matchers.contains(d, c, b));
+	}
+
+	@Test
+	public void testFindUnbuiltAncestorsStopsAtBuiltCommit() {
+		buildResults.persist(BuildResult.newBuildResult(b));
+
+		assertThat(commitGraphs.findUnbuiltAncestors(repositoryEntity, Collections.singleton(d), 3, 20),
+			Matchers.contains(d, c));
+	}
+
+	@Test
+	public void testFindUnbuiltAncestorsLimit() {
+		assertThat(commitGraphs.findUnbuiltAncestors(repositoryEntity, Arrays.asList(d, c), 3, 2),
+			Matchers.contains(d, c));
+	}
+
+	@Test
+	public void testGraphIsLoadedBelowHeads() {
+		CommitGraph graph = commitGraphs.loadGraph(repositoryEntity, Collections.singleton(2));
+
+		assertTrue(graph.contains(a.getCommitId()));
+		assertTrue(graph.contains(b.getCommitId()));
+		assertFalse(graph.contains(c.getCommitId()));
+		assertFalse(graph.contains(d.getCommitId()));
+	}
+
+	@Test
+	public void testGraphIsLoadedForEveryHead() {
+		CommitGraph graph = commitGraphs.loadGraph(repositoryEntity, Arrays.asList(4, 1));
+
+		assertTrue(graph.contains(a.getCommitId()));
+		assertTrue(graph.contains(d.getCommitId()));
+	}
+
+	protected Commit createCommit(Commit... parents) {
+		commitModel.setParents(Arrays.stream(parents)
+			.map(Commit::getCommitId)
+			.toArray(String[]::new));
+		return commits.ensureExists(repositoryEntity, UUID.randomUUID().toString());
+	}
+
+}
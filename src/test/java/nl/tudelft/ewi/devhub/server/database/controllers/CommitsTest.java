@@ -30,7 +30,9 @@ import org.mockito.Mockito;
 
 import javax.inject.Inject;
 import javax.persistence.EntityManager;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import static org.junit.Assert.assertEquals;
@@ -113,6 +115,21 @@ public class CommitsTest extends PersistedBackendTest {
 		assertThat(b.getParents(), Matchers.contains(a));
 	}
 
+	@Test
+	public void testEnsureExistsAllWithParent() {
+		Commit a = createCommit(group.getRepository());
+		commit.setParents(new String[] { a.getCommitId() });
+		String b = UUID.randomUUID().toString();
+		String c = UUID.randomUUID().toString();
+
+		Map<String, Commit> result = commits.ensureExistsAll(group.getRepository(), Arrays.asList(b, c, a.getCommitId()));
+		assertThat(result.keySet(), Matchers.contains(b, c, a.getCommitId()));
+		assertEquals(a, result.get(a.getCommitId()));
+		assertThat(result.get(b).getParents(), Matchers.contains(a));
+		assertThat(result.get(c).getParents(), Matchers.contains(a));
+		assertTrue(commits.exists(group.getRepository(), b));
+		assertTrue(commits.exists(group.getRepository(), c));
+	}
 
 	@Transactional
 	@Test
@@ -0,0 +1,150 @@
+package nl.tudelft.ewi.devhub.server.database.controllers;
+
+import com.google.inject.AbstractModule;
+import lombok.Getter;
+import nl.tudelft.ewi.devhub.server.backend.PersistedBackendTest;
+import nl.tudelft.ewi.devhub.server.database.entities.Commit;
+import nl.tudelft.ewi.devhub.server.database.entities.CourseEdition;
+import nl.tudelft.ewi.devhub.server.database.entities.CourseEvent;
+import nl.tudelft.ewi.devhub.server.database.entities.Event;
+import nl.tudelft.ewi.devhub.server.database.entities.RepositoryEntity;
+import nl.tudelft.ewi.devhub.server.metrics.QueryBudget.Limit;
+import nl.tudelft.ewi.git.models.DetailedCommitModel;
+import nl.tudelft.ewi.git.models.DiffModel;
+import nl.tudelft.ewi.git.web.api.CommitApi;
+import nl.tudelft.ewi.git.web.api.RepositoriesApi;
+import nl.tudelft.ewi.git.web.api.RepositoryApi;
+import org.assertj.core.util.Lists;
+import org.jukito.JukitoRunner;
+import org.jukito.UseModules;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+
+import javax.inject.Inject;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Jan-Willem Gmelig Meyling
+ */
+@RunWith(JukitoRunner.class)
+@UseModules({TestDatabaseModule.class, CourseEventsTest.CourseEventsTestModule.class})
+public class CourseEventsTest extends PersistedBackendTest {
+
+	private static RepositoriesApi repositories = Mockito.mock(RepositoriesApi.class);
+	private static RepositoryApi repository = Mockito.mock(RepositoryApi.class);
+	private static CommitApi commitApi = Mockito.mock(CommitApi.class);
+	private static DiffModel diffModel = new DiffModel();
+	private static DetailedCommitModel commitModel = new DetailedCommitModel();
+
+	@BeforeClass
+	public static void before() {
+		Mockito.when(repositories.getRepository(Mockito.anyString())).thenReturn(repository);
+		Mockito.when(repository.getCommit(Mockito.anyString())).thenReturn(commitApi);
+		Mockito.when(commitApi.get()).thenReturn(commitModel);
+		diffModel.setDiffs(Lists.newArrayList());
+		Mockito.when(commitApi.diff()).thenReturn(diffModel);
+		commitModel.setParents(new String[0]);
+	}
+
+	public static class CourseEventsTestModule extends AbstractModule {
+
+		@Override
+		protected void configure() {
+			bind(RepositoriesApi.class).toInstance(repositories);
+		}
+
+	}
+
+	@Inject @Getter private Groups groups;
+	@Inject @Getter private CourseEditions courses;
+	@Inject @Getter private Users users;
+	@Inject private Commits commits;
+	@Inject private RepositoriesController repositoriesController;
+	@Inject private CourseEvents courseEvents;
+
+	private CourseEdition courseEdition;
+	private RepositoryEntity repositoryEntity;
+
+	@Before
+	public void setup() {
+		courseEdition = createCourseEdition();
+		repositoryEntity = createGroup(courseEdition, createUser()).getRepository();
+	}
+
+	@Test
+	public void testCommitsAreAppended() {
+		Commit commit = createCommit();
+
+		List<CourseEvent> events = courseEvents.getEvents(courseEdition, null, 10);
+		assertEquals(1, events.size());
+		assertEquals(CourseEvent.Type.COMMIT, events.get(0).getType());
+		assertEquals(commit, events.get(0).getEvent());
+	}
+
+	@Test
+	public void testPagesDoNotOverlap() {
+		for (int i = 0; i < 5; i++) {
+			createCommit();
+		}
+
+		List<CourseEvent> first = courseEvents.getEvents(courseEdition, null, 3);
+		List<CourseEvent> second = courseEvents.getEvents(courseEdition, first.get(first.size() - 1), 3);
+
+		assertEquals(3, first.size());
+		assertEquals(2, second.size());
+		assertTrue(second.stream().noneMatch(first::contains));
+	}
+
+	@Test
+	@Limit(statements = 2)
+	public void testEventsAreFetchedWithPage() throws Exception {
+		for (int i = 0; i < 5; i++) {
+			createCommit();
+		}
+
+		List<Event> events = queryBudget.measure("course events", () ->
+			courseEvents.getEvents(courseEdition, null, 10).stream()
+				.map(CourseEvent::getEvent)
+				.collect(Collectors.toList()));
+		assertEquals(5, events.size());
+	}
+
+	@Test
+	public void testGetEventsAfter() {
+		createCommit();
+		long newest = courseEvents.getEvents(courseEdition, null, 1).get(0).getId();
+		Commit commit = createCommit();
+
+		List<Event> events = courseEvents.getEventsAfter(courseEdition, newest, Long.MAX_VALUE, 10).stream()
+			.map(CourseEvent::getEvent)
+			.collect(Collectors.toList());
+		assertEquals(Lists.newArrayList(commit), events);
+	}
+
+	@Test
+	public void testEventsOfDeletedRepositoryAreRemoved() {
+		createCommit();
+		RepositoryEntity otherRepository = createGroup(courseEdition, createUser()).getRepository();
+		Commit remaining = commits.ensureExists(otherRepository, UUID.randomUUID().toString());
+
+		repositoriesController.delete(repositoryEntity);
+
+		List<Event> events = courseEvents.getEvents(courseEdition, null, 10).stream()
+			.map(CourseEvent::getEvent)
+			.collect(Collectors.toList());
+		assertEquals(Lists.newArrayList(remaining), events);
+	}
+
+	protected Commit createCommit() {
+		return commits.ensureExists(repositoryEntity, UUID.randomUUID().toString());
+	}
+
+}
@@ -0,0 +1,128 @@
+package nl.tudelft.ewi.devhub.server.database.controllers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Getter;
+import nl.tudelft.ewi.devhub.server.backend.PersistedBackendTest;
+import nl.tudelft.ewi.devhub.server.database.entities.Assignment;
+import nl.tudelft.ewi.devhub.server.database.entities.CourseEdition;
+import nl.tudelft.ewi.devhub.server.database.entities.Delivery;
+import nl.tudelft.ewi.devhub.server.database.entities.Group;
+import nl.tudelft.ewi.devhub.server.database.entities.User;
+import org.assertj.core.util.Lists;
+import org.assertj.core.util.Sets;
+import org.jukito.JukitoRunner;
+import org.jukito.UseModules;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import javax.inject.Inject;
+import javax.persistence.EntityManager;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Jan-Willem Gmelig Meyling
+ */
+@RunWith(JukitoRunner.class)
+@UseModules(TestDatabaseModule.class)
+public class DeliveriesTest extends PersistedBackendTest {
+
+    @Inject @Getter private Groups groups;
+    @Inject @Getter private CourseEditions courses;
+    @Inject @Getter private Users users;
+    @Inject Assignments assignments;
+    @Inject Deliveries deliveries;
+    @Inject ObjectMapper objectMapper;
+    @Inject EntityManager entityManager;
+    Assignment assignment;
+    Group firstGroup;
+    Group secondGroup;
+    User student;
+
+    @Before
+    public void setUp() throws Exception {
+        CourseEdition courseEdition = courses.listActiveCourses().get(0);
+
+        student = createUser();
+        firstGroup = createGroup(courseEdition, student);
+        secondGroup = createGroup(courseEdition, createUser());
+
+        assignment = objectMapper.readValue(
+            AssignmentsTest.class.getResourceAsStream("/assignment-with-tasks.json"),
+            Assignment.class
+        );
+        assignment.setCourseEdition(courseEdition);
+        assignments.persist(assignment);
+        assignments.refresh(assignment);
+    }
+
+    private Delivery createDelivery(User user, Group group) {
+        Delivery delivery = new Delivery();
+        delivery.setAssignment(assignment);
+        delivery.setGroup(group);
+        delivery.setCreatedUser(user);
+        delivery.setStudents(Sets.newHashSet(Lists.newArrayList(user)));
+        deliveries.persist(delivery);
+        deliveries.refresh(delivery);
+        return delivery;
+    }
+
+    @Test
+    public void getLastDeliveryIdsReturnsMostRecentDeliveryPerGroup() {
+        createDelivery(student, firstGroup);
+        Delivery resubmission = createDelivery(student, firstGroup);
+        Delivery other = createDelivery(secondGroup.getMembers().iterator().next(), secondGroup);
+
+        List<Long> expected = firstGroup.getGroupNumber() < secondGroup.getGroupNumber()
+            ? Lists.newArrayList(resubmission.getDeliveryId(), other.getDeliveryId())
+            : Lists.newArrayList(other.getDeliveryId(), resubmission.getDeliveryId());
+        assertEquals(expected, deliveries.getLastDeliveryIds(assignment));
+    }
+
+    @Test
+    public void getLastDeliveriesReturnsMostRecentDelivery() {
+        createDelivery(student, firstGroup);
+        Delivery resubmission = createDelivery(student, firstGroup);
+        assertThat(deliveries.getLastDeliveries(assignment), contains(resubmission));
+    }
+
+    @Test
+    public void streamLastGradesByStudentTest() {
+        createDelivery(student, firstGroup);
+        Delivery resubmission = createDelivery(student, firstGroup);
+        try (Stream<Deliveries.StudentGrade> grades = deliveries.streamLastGradesByStudent(assignment)) {
+            assertThat(
+                grades.map(Deliveries.StudentGrade::getDeliveryId).collect(Collectors.toList()),
+                contains(resubmission.getDeliveryId())
+            );
+        }
+    }
+
+    @Test
+    public void listForGradingFetchesGroup() {
+        Delivery delivery = createDelivery(student, firstGroup);
+        entityManager.clear();
+
+        List<Delivery> graded = deliveries.listForGrading(Collections.singleton(delivery.getDeliveryId()));
+        assertThat(graded, contains(delivery));
+        assertTrue(entityManager.getEntityManagerFactory().getPersistenceUnitUtil()
+            .isLoaded(graded.get(0), "group"));
+        assertThat(graded.get(0).getGroup().getMembers(), containsInAnyOrder(student));
+    }
+
+    @Test
+    public void listForGradingWithoutIds() {
+        assertThat(deliveries.listForGrading(Collections.emptyList()), empty());
+    }
+
+}
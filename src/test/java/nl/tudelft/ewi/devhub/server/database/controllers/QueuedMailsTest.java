@@ -0,0 +1,114 @@
+package nl.tudelft.ewi.devhub.server.database.controllers;
+
+import nl.tudelft.ewi.devhub.server.database.entities.QueuedMail;
+
+import org.jukito.JukitoRunner;
+import org.jukito.UseModules;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import javax.inject.Inject;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(JukitoRunner.class)
+@UseModules(TestDatabaseModule.class)
+public class QueuedMailsTest {
+
+	private static final long MINUTE = TimeUnit.MINUTES.toMillis(1);
+
+	@Inject
+	private QueuedMails queuedMails;
+
+	@Test
+	public void testOnlyDueAddresseesAreListed() {
+		Date now = new Date();
+		String due = queue(new Date(now.getTime() - MINUTE)).getAddressee();
+		String pending = queue(new Date(now.getTime() + MINUTE)).getAddressee();
+
+		List<String> addressees = queuedMails.listDueAddressees(now, Integer.MAX_VALUE);
+		assertTrue(addressees.contains(due));
+		assertFalse(addressees.contains(pending));
+	}
+
+	@Test
+	public void testClaimCombinesMailsForAddressee() {
+		Date now = new Date();
+		QueuedMail first = queue(new Date(now.getTime() - MINUTE));
+		QueuedMail second = queue(first.getAddressee(), new Date(now.getTime() + MINUTE));
+
+		List<QueuedMail> claimed = queuedMails.claim(first.getAddressee(), "sender", now,
+			new Date(now.getTime() + MINUTE));
+		assertEquals(2, claimed.size());
+		assertEquals(first.getId(), claimed.get(0).getId());
+		assertEquals(second.getId(), claimed.get(1).getId());
+	}
+
+	@Test
+	public void testClaimedMailsAreNotClaimedTwice() {
+		Date now = new Date();
+		String addressee = queue(new Date(now.getTime() - MINUTE)).getAddressee();
+		Date leaseUntil = new Date(now.getTime() + MINUTE);
+
+		assertEquals(1, queuedMails.claim(addressee, "sender", now, leaseUntil).size());
+		assertTrue(queuedMails.claim(addressee, "other-sender", now, leaseUntil).isEmpty());
+		assertFalse(queuedMails.listDueAddressees(now, Integer.MAX_VALUE).contains(addressee));
+	}
+
+	@Test
+	public void testExpiredClaimIsReleased() {
+		Date now = new Date();
+		String addressee = queue(new Date(now.getTime() - MINUTE)).getAddressee();
+
+		queuedMails.claim(addressee, "sender", now, new Date(now.getTime() + MINUTE));
+		Date later = new Date(now.getTime() + 2 * MINUTE);
+		assertEquals(1, queuedMails.claim(addressee, "other-sender", later, new Date(later.getTime() + MINUTE)).size());
+	}
+
+	@Test
+	public void testDeliveredMailsAreRemoved() {
+		Date now = new Date();
+		QueuedMail mail = queue(new Date(now.getTime() - MINUTE));
+		long queued = queuedMails.countQueued();
+
+		List<QueuedMail> claimed = queuedMails.claim(mail.getAddressee(), "sender", now,
+			new Date(now.getTime() + MINUTE));
+		queuedMails.delivered(claimed);
+		assertEquals(queued - 1, queuedMails.countQueued());
+	}
+
+	@Test
+	public void testFailedMailsAreRetried() {
+		Date now = new Date();
+		String addressee = queue(new Date(now.getTime() - MINUTE)).getAddressee();
+
+		List<QueuedMail> claimed = queuedMails.claim(addressee, "sender", now, new Date(now.getTime() + MINUTE));
+		Date retryAt = new Date(now.getTime() + 5 * MINUTE);
+		queuedMails.failed(claimed, retryAt);
+
+		assertFalse(queuedMails.listDueAddressees(now, Integer.MAX_VALUE).contains(addressee));
+		assertTrue(queuedMails.listDueAddressees(retryAt, Integer.MAX_VALUE).contains(addressee));
+	}
+
+	private QueuedMail queue(Date sendAfter) {
+		return queue(UUID.randomUUID() + "@devhub.nl", sendAfter);
+	}
+
+	private QueuedMail queue(String addressee, Date sendAfter) {
+		QueuedMail mail = new QueuedMail();
+		mail.setAddressee(addressee);
+		mail.setSubject("Subject");
+		mail.setContent("Content");
+		mail.setCreated(new Date());
+		mail.setSendAfter(sendAfter);
+		queuedMails.persist(mail);
+		return mail;
+	}
+
+}
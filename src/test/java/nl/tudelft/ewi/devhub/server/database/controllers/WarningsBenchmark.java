@@ -0,0 +1,229 @@
+package nl.tudelft.ewi.devhub.server.database.controllers;
+
+import com.google.common.collect.Lists;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.persist.PersistService;
+import com.google.inject.persist.UnitOfWork;
+import com.mysema.query.jpa.JPASubQuery;
+import com.mysema.query.jpa.impl.JPAQuery;
+import nl.tudelft.ewi.devhub.server.backend.PersistedBackendTest;
+import nl.tudelft.ewi.devhub.server.database.entities.RepositoryEntity;
+import nl.tudelft.ewi.devhub.server.database.entities.warnings.CommitWarning;
+import nl.tudelft.ewi.devhub.server.database.entities.warnings.WarningScope;
+import nl.tudelft.ewi.git.web.api.RepositoriesApi;
+import org.hibernate.Session;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import javax.persistence.EntityManager;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static nl.tudelft.ewi.devhub.server.database.entities.warnings.QCommitWarning.commitWarning;
+import static nl.tudelft.ewi.devhub.server.database.entities.warnings.QLineWarning.lineWarning;
+
+/**
+ * Benchmark for the {@link Warnings} queries of a page of commits, against the H2 test
+ * database seeded with a realistic volume of Checkstyle warnings. Most line warnings are
+ * inherited from earlier commits. Compares the scope based queries with the former
+ * {@code NOT IN} subqueries over the line warnings. Run with {@link #main(String[])} from
+ * the test classpath.
+ *
+ * @author Jan-Willem Gmelig Meyling
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class WarningsBenchmark extends PersistedBackendTest {
+
+	private static final int PAGE_SIZE = 25;
+
+	@Param({"500"})
+	public int commits;
+
+	@Param({"200"})
+	public int warningsPerCommit;
+
+	private Injector injector;
+	private UnitOfWork unitOfWork;
+	private EntityManager entityManager;
+	private Warnings warnings;
+	private RepositoryEntity repository;
+	private List<String> page;
+
+	@Setup
+	public void setUp() {
+		RepositoriesApi repositoriesApi = Mockito.mock(RepositoriesApi.class);
+		injector = Guice.createInjector(new TestDatabaseModule(),
+			binder -> binder.bind(RepositoriesApi.class).toInstance(repositoriesApi));
+		unitOfWork = injector.getInstance(UnitOfWork.class);
+		unitOfWork.begin();
+
+		entityManager = injector.getInstance(EntityManager.class);
+		warnings = injector.getInstance(Warnings.class);
+		repository = createGroup(createCourseEdition(), createUser()).getRepository();
+
+		List<String> commitIds = seed();
+		page = commitIds.subList(commitIds.size() - PAGE_SIZE, commitIds.size());
+		entityManager.clear();
+	}
+
+	@TearDown
+	public void tearDown() {
+		unitOfWork.end();
+		injector.getInstance(PersistService.class).stop();
+	}
+
+	@Benchmark
+	public Map<String, Long> commitsWithWarningsFor() {
+		return warnings.commitsWithWarningsFor(repository, page);
+	}
+
+	@Benchmark
+	public Map<String, Long> commitsWithWarningsForNotIn() {
+		return new JPAQuery(entityManager).from(commitWarning)
+			.where(commitWarning.repository.eq(repository)
+				.and(commitWarning.commit.commitId.in(page))
+				.and(commitWarning.notIn(new JPASubQuery().from(lineWarning)
+					.where(lineWarning.repository.eq(repository)
+						.and(lineWarning.commit.commitId.in(page))
+						.and(lineWarning.source.sourceCommit.commitId.ne(lineWarning.commit.commitId)))
+					.list(lineWarning))))
+			.groupBy(commitWarning.commit.commitId)
+			.map(commitWarning.commit.commitId, commitWarning.id.count());
+	}
+
+	@Benchmark
+	public List<CommitWarning> getWarningsFor() {
+		List<CommitWarning> result = warnings.getWarningsFor(repository, page);
+		entityManager.clear();
+		return result;
+	}
+
+	@Benchmark
+	public List<CommitWarning> getWarningsForNotIn() {
+		List<CommitWarning> result = new JPAQuery(entityManager).from(commitWarning)
+			.where(commitWarning.repository.eq(repository)
+				.and(commitWarning.commit.commitId.in(page))
+				.and(commitWarning.notIn(new JPASubQuery().from(lineWarning)
+					.where(lineWarning.repository.eq(repository)
+						.and(lineWarning.commit.commitId.in(page)))
+					.list(lineWarning))))
+			.list(commitWarning);
+		entityManager.clear();
+		return result;
+	}
+
+	/**
+	 * Insert the commits and warnings with JDBC batches, as persisting this volume
+	 * through the entity manager would dominate the benchmark setup.
+	 *
+	 * @return The seeded commit ids, in commit order.
+	 */
+	private List<String> seed() {
+		Random random = new Random(42);
+		List<String> commitIds = Lists.newArrayList();
+		for (int i = 0; i < commits; i++) {
+			commitIds.add(String.format("%040x", i));
+		}
+
+		entityManager.getTransaction().begin();
+		entityManager.unwrap(Session.class).doWork(connection -> {
+			try (PreparedStatement statement = connection.prepareStatement(
+					"insert into commit (repository_id, commit_id, pushed) values (?, ?, ?)")) {
+				for (String commitId : commitIds) {
+					statement.setLong(1, repository.getId());
+					statement.setString(2, commitId);
+					statement.setTimestamp(3, new Timestamp(System.currentTimeMillis()));
+					statement.addBatch();
+				}
+				statement.executeBatch();
+			}
+
+			try (PreparedStatement statement = connection.prepareStatement(
+					"insert into group_warning (warning_type, repository_id, commit_id, source_commit_id, " +
+					"source_line_number, source_file_path, message, severity, file_name, scope) " +
+					"values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+				for (int i = 0; i < commitIds.size(); i++) {
+					String commitId = commitIds.get(i);
+					for (int j = 0; j < warningsPerCommit; j++) {
+						statement.setLong(2, repository.getId());
+						statement.setString(3, commitId);
+
+						if (j % 20 == 0) {
+							statement.setString(1, "large-file");
+							statement.setString(4, null);
+							statement.setObject(5, null);
+							statement.setString(6, null);
+							statement.setString(7, null);
+							statement.setString(8, null);
+							statement.setString(9, "File" + j + ".java");
+							statement.setString(10, WarningScope.COMMIT.name());
+						}
+						else {
+							boolean inherited = i > 0 && random.nextInt(5) != 0;
+							String sourceCommitId = inherited ? commitIds.get(random.nextInt(i)) : commitId;
+							statement.setString(1, "checkstyle");
+							statement.setString(4, sourceCommitId);
+							statement.setInt(5, random.nextInt(500) + 1);
+							statement.setString(6, "src/main/java/File" + random.nextInt(50) + ".java");
+							statement.setString(7, "Line is longer than 120 characters");
+							statement.setString(8, "warning");
+							statement.setString(9, null);
+							statement.setString(10, (inherited ? WarningScope.LINE_INHERITED : WarningScope.LINE_INTRODUCED).name());
+						}
+						statement.addBatch();
+					}
+					statement.executeBatch();
+				}
+			}
+		});
+		entityManager.getTransaction().commit();
+		return commitIds;
+	}
+
+	@Override
+	protected CourseEditions getCourses() {
+		return injector.getInstance(CourseEditions.class);
+	}
+
+	@Override
+	protected Users getUsers() {
+		return injector.getInstance(Users.class);
+	}
+
+	@Override
+	protected Groups getGroups() {
+		return injector.getInstance(Groups.class);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+			.include(WarningsBenchmark.class.getSimpleName())
+			.build())
+			.run();
+	}
+
+}
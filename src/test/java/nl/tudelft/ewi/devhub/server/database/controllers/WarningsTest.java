@@ -0,0 +1,103 @@
+package nl.tudelft.ewi.devhub.server.database.controllers;
+
+import com.google.inject.Inject;
+import lombok.Getter;
+import nl.tudelft.ewi.devhub.server.backend.PersistedBackendTest;
+import nl.tudelft.ewi.devhub.server.database.embeddables.Source;
+import nl.tudelft.ewi.devhub.server.database.entities.Commit;
+import nl.tudelft.ewi.devhub.server.database.entities.RepositoryEntity;
+import nl.tudelft.ewi.devhub.server.database.entities.warnings.CheckstyleWarning;
+import nl.tudelft.ewi.devhub.server.database.entities.warnings.LargeCommitWarning;
+import nl.tudelft.ewi.git.models.DiffModel;
+import nl.tudelft.ewi.git.web.api.CommitApi;
+import nl.tudelft.ewi.git.web.api.RepositoriesApi;
+import nl.tudelft.ewi.git.web.api.RepositoryApi;
+import org.assertj.core.util.Lists;
+import org.jukito.JukitoRunner;
+import org.jukito.UseModules;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.when;
+
+@RunWith(JukitoRunner.class)
+@UseModules(TestDatabaseModule.class)
+public class WarningsTest extends PersistedBackendTest {
+
+	@Rule public MockitoRule mockitoRule = MockitoJUnit.rule();
+
+	@Inject private Warnings warnings;
+	@Inject private Commits commits;
+	@Inject @Getter private CourseEditions courses;
+	@Inject @Getter private Users users;
+	@Inject @Getter private Groups groups;
+
+	@Inject RepositoriesApi repositoriesApi;
+	@Mock RepositoryApi repositoryApi;
+	@Mock CommitApi commitApi;
+	DiffModel diffModel = new DiffModel();
+
+	private static final String COMMIT_ID = "06bd8721495e682eb63b5a8781e70ad02a97874b";
+
+	private RepositoryEntity repository;
+	private Commit commit;
+
+	@Before
+	public void before() {
+		when(repositoriesApi.getRepository(Mockito.anyString())).thenReturn(repositoryApi);
+		when(repositoryApi.getCommit(Mockito.anyString())).thenReturn(commitApi);
+		when(commitApi.diff()).thenReturn(diffModel);
+		diffModel.setDiffs(Lists.newArrayList());
+
+		repository = createGroup(createCourseEdition(), createUser()).getRepository();
+		commit = commits.ensureExists(repository, COMMIT_ID);
+	}
+
+	@Test
+	public void testPersistFiltersExistingWarnings() {
+		Set<CheckstyleWarning> first = createCheckstyleWarnings(0, 100);
+		assertEquals(100, warnings.persist(repository, first).size());
+
+		Set<CheckstyleWarning> second = createCheckstyleWarnings(50, 150);
+		Set<CheckstyleWarning> persisted = warnings.persist(repository, second);
+		assertEquals(createCheckstyleWarnings(100, 150), persisted);
+		assertEquals(150, warnings.getLineWarningsFor(repository, COMMIT_ID).size());
+	}
+
+	@Test
+	public void testPersistAssignsIds() {
+		Set<CheckstyleWarning> persisted = warnings.persist(repository, createCheckstyleWarnings(0, 60));
+		assertEquals(60, persisted.stream().map(CheckstyleWarning::getId).distinct().count());
+		assertTrue(persisted.stream().allMatch(warning -> warning.getId() > 0));
+	}
+
+	@Test
+	public void testPersistEmptySet() {
+		assertTrue(warnings.persist(repository, Collections.<LargeCommitWarning> emptySet()).isEmpty());
+	}
+
+	private Set<CheckstyleWarning> createCheckstyleWarnings(int fromLine, int toLine) {
+		return IntStream.range(fromLine, toLine).mapToObj(line -> {
+			CheckstyleWarning warning = new CheckstyleWarning();
+			warning.setCommit(commit);
+			warning.setMessage("Line is longer than 120 characters");
+			warning.setSeverity("warning");
+			warning.setSource(new Source(commit, line, "src/main/java/Main.java"));
+			return warning;
+		}).collect(Collectors.toSet());
+	}
+
+}
@@ -0,0 +1,147 @@
+package nl.tudelft.ewi.devhub.server.metrics;
+
+import com.google.common.collect.Lists;
+import nl.tudelft.ewi.devhub.server.metrics.RequestMetrics.Summary;
+import org.junit.rules.TestRule;
+import org.junit.runner.Description;
+import org.junit.runners.model.Statement;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Fails a test when a request makes more statements, entity loads or git calls than the
+ * {@link Limit} declared on the test method. Tests without a {@code Limit} are not checked.
+ *
+ * Backend tests {@link #measure(String, Callable) measure} the code that serves a page on the
+ * test thread. Web tests use a rule {@link #forServer(Supplier) for the server}, which checks
+ * every request the server completed while the test ran.
+ *
+ * @author Jan-Willem Gmelig Meyling
+ */
+public class QueryBudget implements TestRule {
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@Target(ElementType.METHOD)
+	public @interface Limit {
+
+		int statements() default Integer.MAX_VALUE;
+
+		int entityLoads() default Integer.MAX_VALUE;
+
+		int remoteCalls() default Integer.MAX_VALUE;
+
+	}
+
+	/**
+	 * Time in seconds to wait for the requests of a test to be recorded.
+	 */
+	private static final long IDLE_TIMEOUT = 10;
+
+	private final Supplier<RequestMetricsRegistry> registry;
+
+	private Limit limit;
+
+	public QueryBudget() {
+		this(null);
+	}
+
+	private QueryBudget(Supplier<RequestMetricsRegistry> registry) {
+		this.registry = registry;
+	}
+
+	/**
+	 * @param registry Supplies the {@link RequestMetricsRegistry} of the server under test.
+	 * @return A rule that checks the requests completed by the server.
+	 */
+	public static QueryBudget forServer(Supplier<RequestMetricsRegistry> registry) {
+		return new QueryBudget(registry);
+	}
+
+	@Override
+	public Statement apply(Statement base, Description description) {
+		Limit declared = description.getAnnotation(Limit.class);
+		if (declared == null) {
+			return base;
+		}
+
+		return new Statement() {
+			@Override
+			public void evaluate() throws Throwable {
+				limit = declared;
+				long marker = registry == null ? 0 : registry.get().getMarker();
+				try {
+					base.evaluate();
+				}
+				finally {
+					limit = null;
+				}
+
+				if (registry != null) {
+					// Requests are recorded after their response is written, so the last
+					// request of a test may not have been recorded yet.
+					RequestMetricsRegistry requestMetricsRegistry = registry.get();
+					if (!requestMetricsRegistry.awaitIdle(IDLE_TIMEOUT, TimeUnit.SECONDS)) {
+						throw new AssertionError("Requests were still in progress " + IDLE_TIMEOUT + " seconds after the test");
+					}
+					for (Summary summary : requestMetricsRegistry.getRecordedSince(marker)) {
+						check(declared, summary);
+					}
+				}
+			}
+		};
+	}
+
+	/**
+	 * Measure a unit of work, for example the queries that render a page, on the current thread.
+	 *
+	 * @param name Name of the unit of work.
+	 * @param work The work to measure.
+	 * @param <T> Type of the result.
+	 * @return The result of the work.
+	 * @throws Exception If the work failed.
+	 * @throws AssertionError If the work exceeded the {@link Limit} of the test.
+	 */
+	public <T> T measure(String name, Callable<T> work) throws Exception {
+		RequestMetrics.start(name);
+		T result;
+		Summary summary;
+		try {
+			result = work.call();
+		}
+		finally {
+			summary = RequestMetrics.stop();
+		}
+
+		if (limit != null) {
+			check(limit, summary);
+		}
+		return result;
+	}
+
+	protected static void check(Limit limit, Summary summary) {
+		List<String> exceeded = Lists.newArrayList();
+		if (summary.getStatements() > limit.statements()) {
+			exceeded.add(String.format("%d statements (limit %d)", summary.getStatements(), limit.statements()));
+		}
+		if (summary.getEntityLoads() > limit.entityLoads()) {
+			exceeded.add(String.format("%d entity loads (limit %d)", summary.getEntityLoads(), limit.entityLoads()));
+		}
+		if (summary.getRemoteCalls() > limit.remoteCalls()) {
+			exceeded.add(String.format("%d git calls (limit %d)", summary.getRemoteCalls(), limit.remoteCalls()));
+		}
+
+		if (!exceeded.isEmpty()) {
+			throw new AssertionError(String.format("%s made %s. Repeated statements: %s, entity loads: %s, git calls: %s",
+				summary.getName(), String.join(", ", exceeded), summary.getRepeatedStatements(),
+				summary.getEntityLoadsByType(), summary.getRemoteCallsByOperation()));
+		}
+	}
+
+}
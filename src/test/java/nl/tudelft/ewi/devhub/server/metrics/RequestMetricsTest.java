@@ -0,0 +1,121 @@
+package nl.tudelft.ewi.devhub.server.metrics;
+
+import com.google.common.collect.ImmutableMap;
+import nl.tudelft.ewi.devhub.server.Config;
+import nl.tudelft.ewi.devhub.server.metrics.QueryBudget.Limit;
+import nl.tudelft.ewi.devhub.server.metrics.RequestMetrics.Summary;
+import nl.tudelft.ewi.git.models.DetailedCommitModel;
+import nl.tudelft.ewi.git.web.api.CommitApi;
+import nl.tudelft.ewi.git.web.api.RepositoriesApi;
+import nl.tudelft.ewi.git.web.api.RepositoryApi;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class RequestMetricsTest {
+
+	private static final String SELECT_USER = "select * from users where id = ?";
+
+	@Rule public QueryBudget queryBudget = new QueryBudget();
+
+	@After
+	public void tearDown() {
+		RequestMetrics.stop();
+	}
+
+	@Test
+	public void testRepeatedStatementsAreReported() {
+		RequestMetrics.start("GET /courses");
+		RequestMetrics.statement(SELECT_USER);
+		RequestMetrics.statement(SELECT_USER);
+		RequestMetrics.statement("select * from courses");
+		RequestMetrics.entityLoad("User");
+		Summary summary = RequestMetrics.stop();
+
+		assertEquals(3, summary.getStatements());
+		assertEquals(1, summary.getEntityLoads());
+		assertEquals(ImmutableMap.of(SELECT_USER, 2), summary.getRepeatedStatements());
+	}
+
+	@Test
+	public void testStatementsOutsideRequestAreIgnored() {
+		RequestMetrics.statement(SELECT_USER);
+		RequestMetrics.start("GET /courses");
+		assertEquals(0, RequestMetrics.stop().getStatements());
+	}
+
+	@Test
+	public void testGitCallsAreCounted() {
+		RepositoriesApi repositories = mock(RepositoriesApi.class);
+		RepositoryApi repository = mock(RepositoryApi.class);
+		CommitApi commitApi = mock(CommitApi.class);
+		when(repositories.getRepository("repository")).thenReturn(repository);
+		when(repository.getCommit("commit")).thenReturn(commitApi);
+		when(commitApi.get()).thenReturn(new DetailedCommitModel());
+
+		RepositoriesApi decorated = RemoteCallCounter.decorate(RepositoriesApi.class, repositories);
+		RequestMetrics.start("GET /commit");
+		decorated.getRepository("repository").getCommit("commit").get();
+		Summary summary = RequestMetrics.stop();
+
+		assertEquals(1, summary.getRemoteCalls());
+		assertEquals(ImmutableMap.of("CommitApi.get", 1), summary.getRemoteCallsByOperation());
+	}
+
+	@Test
+	@Limit(statements = 2)
+	public void testWithinBudget() throws Exception {
+		queryBudget.measure("page", () -> {
+			RequestMetrics.statement(SELECT_USER);
+			RequestMetrics.statement(SELECT_USER);
+			return null;
+		});
+	}
+
+	@Test(expected = AssertionError.class)
+	@Limit(statements = 1)
+	public void testExceedingBudgetFails() throws Exception {
+		queryBudget.measure("page", () -> {
+			RequestMetrics.statement(SELECT_USER);
+			RequestMetrics.statement(SELECT_USER);
+			return null;
+		});
+	}
+
+	@Test
+	public void testRegistryKeepsRequestsSinceMarker() {
+		RequestMetricsRegistry registry = new RequestMetricsRegistry(new Config());
+		registry.started();
+		registry.record(RequestMetrics.start("GET /first").summarize());
+		long marker = registry.getMarker();
+		registry.started();
+		registry.record(RequestMetrics.start("GET /second").summarize());
+
+		assertEquals(1, registry.getRecordedSince(marker).size());
+		assertEquals("GET /second", registry.getRecordedSince(marker).get(0).getName());
+		assertEquals(2, registry.getStatistics().getRequests());
+	}
+
+	@Test
+	public void testRegistryAwaitsRequestsInProgress() throws Exception {
+		RequestMetricsRegistry registry = new RequestMetricsRegistry(new Config());
+		registry.started();
+		assertFalse(registry.awaitIdle(10, TimeUnit.MILLISECONDS));
+
+		Thread request = new Thread(() -> registry.record(RequestMetrics.start("GET /courses").summarize()));
+		request.start();
+
+		assertTrue(registry.awaitIdle(10, TimeUnit.SECONDS));
+		assertEquals(1, registry.getStatistics().getRequests());
+		request.join();
+	}
+
+}
@@ -0,0 +1,80 @@
+package nl.tudelft.ewi.devhub.server.util;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import nl.tudelft.ewi.git.models.EntryType;
+import nl.tudelft.ewi.git.web.api.CommitApi;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author Jan-Willem Gmelig Meyling
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class CommitTreeTest {
+
+    @Mock private CommitApi commitApi;
+
+    @Test
+    public void testEveryFolderIsListedOnce() {
+        when(commitApi.showTree(CommitApi.EMPTY_PATH)).thenReturn(ImmutableMap.of(
+            "README", EntryType.TEXT,
+            "src/", EntryType.FOLDER,
+            "docs/", EntryType.FOLDER));
+        when(commitApi.showTree("src/")).thenReturn(ImmutableMap.of("Main.java", EntryType.TEXT));
+        when(commitApi.showTree("docs/")).thenReturn(ImmutableMap.of("index.md", EntryType.TEXT));
+
+        CommitTree tree = CommitTree.list(commitApi, CommitApi.EMPTY_PATH);
+        tree.getEntries("src/");
+        tree.getEntries("src/");
+
+        assertEquals(ImmutableSet.of("", "src/", "docs/"), tree.getFolders());
+        assertEquals(ImmutableMap.of("Main.java", EntryType.TEXT), tree.getEntries("src/"));
+        verify(commitApi, times(1)).showTree(CommitApi.EMPTY_PATH);
+        verify(commitApi, times(1)).showTree("src/");
+        verify(commitApi, times(1)).showTree("docs/");
+        verifyNoMoreInteractions(commitApi);
+    }
+
+    @Test
+    public void testParentsAreListedBeforeChildren() {
+        when(commitApi.showTree(CommitApi.EMPTY_PATH)).thenReturn(ImmutableMap.of("src/", EntryType.FOLDER));
+        when(commitApi.showTree("src/")).thenReturn(ImmutableMap.of("main/", EntryType.FOLDER));
+        when(commitApi.showTree("src/main/")).thenReturn(ImmutableMap.of("Main.java", EntryType.TEXT));
+
+        CommitTree tree = CommitTree.list(commitApi, CommitApi.EMPTY_PATH);
+        assertEquals("[, src/, src/main/]", tree.getFolders().toString());
+    }
+
+    @Test
+    public void testBasePathIsResolved() {
+        when(commitApi.showTree("src")).thenReturn(ImmutableMap.of("main/", EntryType.FOLDER));
+        when(commitApi.showTree("src/main/")).thenReturn(ImmutableMap.of("Main.java", EntryType.TEXT));
+
+        CommitTree tree = CommitTree.list(commitApi, "src");
+        assertEquals("src", tree.getPath(CommitApi.EMPTY_PATH));
+        assertEquals("src/main/", tree.getPath("main/"));
+        assertEquals(ImmutableMap.of("Main.java", EntryType.TEXT), tree.getEntries("main/"));
+    }
+
+    @Test
+    public void testMissingFolderIsEmpty() {
+        when(commitApi.showTree(CommitApi.EMPTY_PATH)).thenReturn(null);
+
+        CommitTree tree = CommitTree.list(commitApi, CommitApi.EMPTY_PATH);
+        assertEquals(Collections.emptyMap(), tree.getEntries(CommitApi.EMPTY_PATH));
+        assertTrue(tree.getEntries("unknown/").isEmpty());
+    }
+
+}
@@ -58,4 +58,14 @@ public class MarkDownParserTest {
 
 		assertEquals(expectedHtml, markDownParser.markdownToHtml(codeBlock));
 	}
-}
\ No newline at end of file
+
+	@Test
+	public void testRenderedHtmlIsCached() {
+		String md = "*Cached*";
+		long hits = markDownParser.getStatistics().hitCount();
+
+		String html = markDownParser.markdownToHtml(md);
+		assertEquals(html, markDownParser.markdownToHtml(md));
+		assertEquals(hits + 1, markDownParser.getStatistics().hitCount());
+	}
+}
@@ -0,0 +1,60 @@
+package nl.tudelft.ewi.devhub.server.util;
+
+import com.google.common.collect.ImmutableList;
+import nl.tudelft.ewi.devhub.server.database.embeddables.Source;
+import nl.tudelft.ewi.devhub.server.database.entities.Commit;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class SourceIndexTest {
+
+	private static final Commit COMMIT_A = createCommit("a");
+	private static final Commit COMMIT_B = createCommit("b");
+
+	private static Commit createCommit(String commitId) {
+		Commit commit = new Commit();
+		commit.setCommitId(commitId);
+		return commit;
+	}
+
+	private final Source first = new Source(COMMIT_A, 1, "README.md");
+	private final Source second = new Source(COMMIT_A, 1, "README.md");
+	private final Source otherLine = new Source(COMMIT_A, 2, "README.md");
+	private final Source otherCommit = new Source(COMMIT_B, 1, "README.md");
+
+	private final SourceIndex<Source> index = new SourceIndex<>(
+		ImmutableList.of(first, otherLine, second, otherCommit), source -> source);
+
+	@Test
+	public void testValuesForLineInOrder() {
+		List<Source> values = index.get("a", "README.md", 1);
+		assertEquals(2, values.size());
+		assertSame(first, values.get(0));
+		assertSame(second, values.get(1));
+	}
+
+	@Test
+	public void testValuesForOtherLineAndCommit() {
+		assertEquals(Collections.singletonList(otherLine), index.get("a", "README.md", 2));
+		assertEquals(Collections.singletonList(otherCommit), index.get("b", "README.md", 1));
+	}
+
+	@Test
+	public void testNoValues() {
+		assertTrue(index.get("c", "README.md", 1).isEmpty());
+		assertTrue(index.get("a", "pom.xml", 1).isEmpty());
+		assertTrue(index.get("a", "README.md", 3).isEmpty());
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testValuesAreUnmodifiable() {
+		index.get("a", "README.md", 1).clear();
+	}
+
+}
@@ -0,0 +1,71 @@
+package nl.tudelft.ewi.devhub.server.web.assets;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.Files;
+import org.eclipse.jetty.server.Request;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.File;
+import java.io.IOException;
+
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class AssetHandlerTest {
+
+	private static final String STYLESHEET = "css/devhub.css";
+
+	@Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Mock private Request baseRequest;
+	@Mock private HttpServletRequest request;
+	@Mock private HttpServletResponse response;
+
+	private AssetHandler assetHandler;
+
+	@Before
+	public void setUp() throws IOException {
+		write(STYLESHEET);
+		assetHandler = new AssetHandler(new AssetManifest(temporaryFolder.getRoot(), ImmutableMap.of()));
+
+		when(request.getMethod()).thenReturn("GET");
+		when(request.getDateHeader("If-Modified-Since")).thenReturn(Long.MAX_VALUE);
+	}
+
+	@Test
+	public void testNotModifiedVariesOnEncoding() throws IOException {
+		write(STYLESHEET + ".gz");
+
+		assetHandler.handle("/" + STYLESHEET, baseRequest, request, response);
+
+		verify(response).setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+		verify(response).setHeader("Vary", "Accept-Encoding");
+	}
+
+	@Test
+	public void testNotModifiedWithoutVariant() throws IOException {
+		assetHandler.handle("/" + STYLESHEET, baseRequest, request, response);
+
+		verify(response).setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+		verify(response, never()).setHeader(eq("Vary"), eq("Accept-Encoding"));
+	}
+
+	private void write(String path) throws IOException {
+		File file = new File(temporaryFolder.getRoot(), path);
+		Files.createParentDirs(file);
+		Files.write("body { color: black; }", file, Charsets.UTF_8);
+	}
+
+}
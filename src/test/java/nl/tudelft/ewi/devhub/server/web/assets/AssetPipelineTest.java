@@ -0,0 +1,90 @@
+package nl.tudelft.ewi.devhub.server.web.assets;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Strings;
+import com.google.common.io.Files;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class AssetPipelineTest {
+
+	private static final String STYLESHEET = "css/devhub.css";
+
+	@Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private File source;
+	private File target;
+
+	@Before
+	public void setUp() throws IOException {
+		source = temporaryFolder.newFolder("static");
+		target = new File(temporaryFolder.getRoot(), "assets");
+		write(STYLESHEET, Strings.repeat("body { color: black; }\n", 100));
+		write("less/devhub.less", "@color: black;");
+	}
+
+	@Test
+	public void testFingerprint() {
+		assertEquals("css/devhub.0123456789ab.css", AssetPipeline.fingerprint(STYLESHEET, "0123456789abcdef"));
+	}
+
+	@Test
+	public void testFingerprintWithoutExtension() {
+		assertEquals("LICENSE.0123456789ab", AssetPipeline.fingerprint("LICENSE", "0123456789abcdef"));
+	}
+
+	@Test
+	public void testFilesAreFingerprinted() throws IOException {
+		Properties manifest = new AssetPipeline(source, target).run();
+		String fingerprinted = manifest.getProperty(STYLESHEET);
+
+		assertTrue(new File(target, fingerprinted).isFile());
+		assertTrue(new File(target, STYLESHEET).isFile());
+	}
+
+	@Test
+	public void testTextFilesAreCompressed() throws IOException {
+		Properties manifest = new AssetPipeline(source, target).run();
+		assertTrue(new File(target, manifest.getProperty(STYLESHEET) + ".gz").isFile());
+	}
+
+	@Test
+	public void testSourcesAreExcluded() throws IOException {
+		Properties manifest = new AssetPipeline(source, target).run();
+		assertFalse(manifest.containsKey("less/devhub.less"));
+	}
+
+	@Test
+	public void testManifestResolvesUrls() throws IOException {
+		Properties manifest = new AssetPipeline(source, target).run();
+		AssetManifest assetManifest = AssetManifest.load(target);
+
+		assertEquals("/static/" + manifest.getProperty(STYLESHEET), assetManifest.url(STYLESHEET));
+		assertTrue(assetManifest.isFingerprinted(manifest.getProperty(STYLESHEET)));
+		assertEquals("/static/js/unknown.js", assetManifest.url("js/unknown.js"));
+	}
+
+	@Test
+	public void testAcceptEncoding() {
+		assertTrue(AssetHandler.accepts("gzip, deflate, br", "br"));
+		assertFalse(AssetHandler.accepts("gzip;q=0, deflate", "gzip"));
+		assertFalse(AssetHandler.accepts(null, "gzip"));
+	}
+
+	private void write(String path, String contents) throws IOException {
+		File file = new File(source, path);
+		Files.createParentDirs(file);
+		Files.write(contents, file, Charsets.UTF_8);
+	}
+
+}
@@ -0,0 +1,91 @@
+package nl.tudelft.ewi.devhub.server.web.resources;
+
+import nl.tudelft.ewi.devhub.server.backend.GradeRelease;
+import nl.tudelft.ewi.devhub.server.database.controllers.Assignments;
+import nl.tudelft.ewi.devhub.server.database.controllers.CourseEditions;
+import nl.tudelft.ewi.devhub.server.database.entities.Assignment;
+import nl.tudelft.ewi.devhub.server.database.entities.CourseEdition;
+import nl.tudelft.ewi.devhub.server.database.entities.User;
+import nl.tudelft.ewi.devhub.server.database.entities.rubrics.Task;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import javax.servlet.http.HttpServletRequest;
+import java.net.URI;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author Jan-Willem Gmelig Meyling
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class AssignmentsResourceTest {
+
+    private static final String COURSE_CODE = "ti1705";
+    private static final String EDITION_CODE = "1516";
+    private static final long ASSIGNMENT_ID = 1L;
+    private static final List<Locale> LOCALES = ImmutableList.of(Locale.ENGLISH);
+
+    @Mock private CourseEditions courses;
+    @Mock private Assignments assignmentsDAO;
+    @Mock private GradeRelease gradeRelease;
+    @Mock private User currentUser;
+    @Mock private HttpServletRequest request;
+    @Mock private CourseEdition courseEdition;
+    @Mock private Task task;
+
+    @InjectMocks private AssignmentsResource resource;
+
+    private Assignment assignment;
+
+    @Before
+    public void setUp() {
+        assignment = new Assignment();
+        assignment.setTasks(Lists.newArrayList(task));
+
+        when(courses.find(COURSE_CODE, EDITION_CODE)).thenReturn(courseEdition);
+        when(courseEdition.getURI()).thenReturn(URI.create("/courses/" + COURSE_CODE + "/" + EDITION_CODE + "/"));
+        when(currentUser.isAdmin()).thenReturn(true);
+        when(assignmentsDAO.find(courseEdition, ASSIGNMENT_ID)).thenReturn(assignment);
+    }
+
+    @Test
+    public void testEditWithGradesReleasedStartsRelease() {
+        when(request.getLocales()).thenReturn(Collections.enumeration(LOCALES));
+
+        edit(AssignmentsResource.CHECKBOX_CHECKED_VALUE);
+
+        verify(gradeRelease).release(assignment, currentUser, LOCALES);
+        verify(assignmentsDAO).merge(assignment);
+        assertTrue(assignment.isGradesReleased());
+    }
+
+    @Test
+    public void testEditOfReleasedAssignmentDoesNotReleaseAgain() {
+        assignment.setGradesReleased(true);
+
+        edit(AssignmentsResource.CHECKBOX_CHECKED_VALUE);
+
+        verify(gradeRelease, never()).release(any(), any(), any());
+    }
+
+    private void edit(String release) {
+        resource.editAssignment(COURSE_CODE, EDITION_CODE, ASSIGNMENT_ID, "Assignment", "Summary", null, release);
+    }
+
+}
@@ -0,0 +1,49 @@
+package nl.tudelft.ewi.devhub.server.web.resources;
+
+import nl.tudelft.ewi.devhub.server.web.resources.FileDownload.ByteRange;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class FileDownloadTest {
+
+	private static final long LENGTH = 1000;
+
+	@Test
+	public void testClosedRange() {
+		assertEquals(new ByteRange(0, 499), ByteRange.parse("bytes=0-499", LENGTH));
+	}
+
+	@Test
+	public void testOpenRange() {
+		assertEquals(new ByteRange(500, 999), ByteRange.parse("bytes=500-", LENGTH));
+	}
+
+	@Test
+	public void testSuffixRange() {
+		assertEquals(new ByteRange(900, 999), ByteRange.parse("bytes=-100", LENGTH));
+	}
+
+	@Test
+	public void testSuffixLongerThanFile() {
+		assertEquals(new ByteRange(0, 999), ByteRange.parse("bytes=-5000", LENGTH));
+	}
+
+	@Test
+	public void testEndBeyondFileIsTruncated() {
+		assertEquals(new ByteRange(990, 999), ByteRange.parse("bytes=990-5000", LENGTH));
+	}
+
+	@Test
+	public void testStartBeyondFileIsNotSatisfiable() {
+		assertNull(ByteRange.parse("bytes=1000-", LENGTH));
+	}
+
+	@Test
+	public void testEmptySuffixIsNotSatisfiable() {
+		assertNull(ByteRange.parse("bytes=-0", LENGTH));
+	}
+
+}
@@ -0,0 +1,73 @@
+package nl.tudelft.ewi.devhub.server.web.resources;
+
+import nl.tudelft.ewi.devhub.server.database.controllers.Users;
+import nl.tudelft.ewi.devhub.server.database.entities.User;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import javax.servlet.http.HttpSession;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class SessionUsersTest {
+
+	private static final String ATTRIBUTE = "projects.setup.members";
+
+	@Mock private Users users;
+	@Mock private HttpSession session;
+
+	private SessionUsers sessionUsers;
+	private User first;
+	private User second;
+
+	@Before
+	public void setUp() {
+		sessionUsers = new SessionUsers(users);
+		first = createUser(1L);
+		second = createUser(2L);
+	}
+
+	@Test
+	public void testStoresUserIds() {
+		sessionUsers.put(session, ATTRIBUTE, ImmutableList.of(first, second));
+
+		ArgumentCaptor<Object> captor = ArgumentCaptor.forClass(Object.class);
+		verify(session).setAttribute(eq(ATTRIBUTE), captor.capture());
+		assertArrayEquals(new long[] { 1L, 2L }, (long[]) captor.getValue());
+	}
+
+	@Test
+	public void testResolvesUserIds() {
+		List<User> expected = ImmutableList.of(first, second);
+		when(session.getAttribute(ATTRIBUTE)).thenReturn(new long[] { 1L, 2L });
+		when(users.listByIds(Arrays.asList(1L, 2L))).thenReturn(expected);
+
+		assertEquals(expected, sessionUsers.get(session, ATTRIBUTE));
+	}
+
+	@Test
+	public void testMissingSelection() {
+		assertNull(sessionUsers.get(session, ATTRIBUTE));
+	}
+
+	private static User createUser(long id) {
+		User user = new User();
+		user.setId(id);
+		return user;
+	}
+
+}
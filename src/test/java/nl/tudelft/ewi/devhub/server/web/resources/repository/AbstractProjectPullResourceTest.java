@@ -1,6 +1,7 @@
 package nl.tudelft.ewi.devhub.server.web.resources.repository;
 
 import com.google.inject.Inject;
+import nl.tudelft.ewi.devhub.server.Config;
 import nl.tudelft.ewi.devhub.server.backend.mail.CommentMailer;
 import nl.tudelft.ewi.devhub.server.database.controllers.IssueComments;
 import nl.tudelft.ewi.devhub.server.database.controllers.PullRequests;
@@ -65,7 +66,7 @@ public class AbstractProjectPullResourceTest {
 
         projectPullResource = spy(new ProjectPullResource(templateEngine, currentUser, group, null,
                 null, pullRequests, null, repositoriesApi, commentMailer, null,
-                pullRequestComments, null, null, new MarkDownParser(new PegDownProcessor()), null));
+                pullRequestComments, null, null, new MarkDownParser(PegDownProcessor::new, new Config()), null));
 
         when(pullRequestComment.getTimestamp()).thenReturn(commentDate);
         when(currentUser.getName()).thenReturn(REPOSITORY_NAME);
@@ -0,0 +1,83 @@
+package nl.tudelft.ewi.devhub.server.web.resources.repository;
+
+import nl.tudelft.ewi.devhub.server.database.controllers.CommitCounters.CommitSummary;
+import nl.tudelft.ewi.devhub.server.database.entities.BuildResult;
+import nl.tudelft.ewi.devhub.server.database.entities.User;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.ws.rs.core.EntityTag;
+import java.util.Collections;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CommitPageTagTest {
+
+	private static final String COMMIT_ID = "65191cfaca61fe538612122151a7297e34f01178";
+
+	private User user;
+
+	@Before
+	public void setUp() {
+		user = new User();
+		user.setId(1);
+	}
+
+	@Test
+	public void testSameStateHasSameTag() {
+		assertEquals(tag(new CommitSummary(COMMIT_ID, null, 0, 1, 2)), tag(new CommitSummary(COMMIT_ID, null, 0, 1, 2)));
+	}
+
+	@Test
+	public void testTagIsWeak() {
+		assertTrue(tag(null).isWeak());
+	}
+
+	@Test
+	public void testNewCommentChangesTag() {
+		assertNotEquals(tag(new CommitSummary(COMMIT_ID, null, 0, 1, 2)), tag(new CommitSummary(COMMIT_ID, null, 0, 1, 3)));
+	}
+
+	@Test
+	public void testRebuildChangesTag() {
+		BuildResult buildResult = new BuildResult();
+		buildResult.setSuccess(false);
+
+		assertNotEquals(tag(new CommitSummary(COMMIT_ID, buildResult, 120, 1, 2)),
+			tag(new CommitSummary(COMMIT_ID, buildResult, 140, 1, 2)));
+	}
+
+	@Test
+	public void testOtherUserChangesTag() {
+		User other = new User();
+		other.setId(2);
+
+		assertNotEquals(tag(null), CommitPageTag.of("diff", COMMIT_ID, "")
+			.renderedFor(other, Collections.singletonList(Locale.ENGLISH))
+			.withSummary(null)
+			.build());
+	}
+
+	@Test
+	public void testFullCommitId() {
+		assertTrue(CommitPageTag.isFullCommitId(COMMIT_ID));
+	}
+
+	@Test
+	public void testBranchNameIsNoFullCommitId() {
+		assertFalse(CommitPageTag.isFullCommitId("master"));
+	}
+
+	private EntityTag tag(CommitSummary summary) {
+		return CommitPageTag.of("diff", COMMIT_ID, "")
+			.renderedFor(user, Collections.singletonList(Locale.ENGLISH))
+			.withSummary(summary)
+			.build();
+	}
+
+}
@@ -0,0 +1,123 @@
+package nl.tudelft.ewi.devhub.server.web.resources.views;
+
+import com.google.common.collect.Lists;
+import nl.tudelft.ewi.devhub.server.database.embeddables.Source;
+import nl.tudelft.ewi.devhub.server.database.entities.Commit;
+import nl.tudelft.ewi.devhub.server.database.entities.warnings.CheckstyleWarning;
+import nl.tudelft.ewi.devhub.server.database.entities.warnings.LineWarning;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Benchmark for rendering the warnings of a large diff: a warning lookup is performed for
+ * every line of every file. Compares the indexed {@link WarningResolver} with a linear scan
+ * over the warnings. Run with {@link #main(String[])} from the test classpath.
+ *
+ * @author Jan-Willem Gmelig Meyling
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class WarningResolverBenchmark {
+
+	private static final String COMMIT_ID = "a8e5c2e0b5b8d6e3f9d4a6c1b2e7f3a9d0c4b1e5";
+
+	@Param({"1", "10"})
+	public int files;
+
+	@Param({"2000"})
+	public int linesPerFile;
+
+	@Param({"300"})
+	public int warningsPerFile;
+
+	private List<LineWarning> warnings;
+	private WarningResolver warningResolver;
+
+	@Setup
+	public void setUp() {
+		Random random = new Random(42);
+		Commit commit = new Commit();
+		commit.setCommitId(COMMIT_ID);
+		warnings = Lists.newArrayList();
+
+		for (int file = 0; file < files; file++) {
+			for (int i = 0; i < warningsPerFile; i++) {
+				CheckstyleWarning warning = new CheckstyleWarning();
+				warning.setCommit(commit);
+				warning.setMessage("Warning " + i);
+				warning.setSource(new Source(commit, random.nextInt(linesPerFile) + 1, filePath(file)));
+				warnings.add(warning);
+			}
+		}
+
+		warningResolver = new WarningResolver(warnings);
+	}
+
+	@Benchmark
+	public void indexed(Blackhole blackhole) {
+		for (int file = 0; file < files; file++) {
+			String filePath = filePath(file);
+			for (int line = 1; line <= linesPerFile; line++) {
+				blackhole.consume(warningResolver.retrieveWarnings(COMMIT_ID, filePath, line));
+			}
+		}
+	}
+
+	@Benchmark
+	public void constructAndIndexed(Blackhole blackhole) {
+		WarningResolver warningResolver = new WarningResolver(warnings);
+		for (int file = 0; file < files; file++) {
+			String filePath = filePath(file);
+			for (int line = 1; line <= linesPerFile; line++) {
+				blackhole.consume(warningResolver.retrieveWarnings(COMMIT_ID, filePath, line));
+			}
+		}
+	}
+
+	@Benchmark
+	public void linearScan(Blackhole blackhole) {
+		for (int file = 0; file < files; file++) {
+			String filePath = filePath(file);
+			for (int line = 1; line <= linesPerFile; line++) {
+				final Integer lineNumber = line;
+				blackhole.consume(warnings.stream()
+					.filter(warning -> warning.getSource().equals(COMMIT_ID, filePath, lineNumber))
+					.collect(Collectors.toList()));
+			}
+		}
+	}
+
+	private static String filePath(int file) {
+		return "src/main/java/nl/tudelft/ewi/devhub/File" + file + ".java";
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+			.include(WarningResolverBenchmark.class.getSimpleName())
+			.build())
+			.run();
+	}
+
+}
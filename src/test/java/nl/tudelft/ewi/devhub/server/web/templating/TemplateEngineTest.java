@@ -0,0 +1,62 @@
+package nl.tudelft.ewi.devhub.server.web.templating;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.Files;
+import nl.tudelft.ewi.devhub.server.Config;
+import nl.tudelft.ewi.devhub.server.util.MarkDownParser;
+import nl.tudelft.ewi.devhub.server.web.assets.AssetManifest;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.pegdown.PegDownProcessor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+public class TemplateEngineTest {
+
+	private static final List<Locale> LOCALES = Collections.singletonList(Locale.ENGLISH);
+	private static final Map<String, Object> PARAMETERS = ImmutableMap.of("name", "<b>Devhub</b>");
+	private static final String EXPECTED = "Hello &lt;b&gt;Devhub&lt;/b&gt;!";
+
+	@Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private TemplateEngine templateEngine;
+
+	@Before
+	public void setUp() throws IOException {
+		File templates = temporaryFolder.newFolder("templates");
+		Files.write("Hello ${name}!", new File(templates, "hello.ftl"), Charsets.UTF_8);
+		templateEngine = new TemplateEngine(templates, new TranslatorFactory("i18n.devhub"),
+			new MarkDownParser(PegDownProcessor::new, new Config()), AssetManifest.load(temporaryFolder.getRoot()), new Config());
+	}
+
+	@Test
+	public void testProcessEscapesParameters() throws IOException {
+		assertEquals(EXPECTED, templateEngine.process("hello.ftl", LOCALES, PARAMETERS));
+	}
+
+	@Test
+	public void testStreamWritesToOutput() throws IOException {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		templateEngine.stream("hello.ftl", LOCALES, PARAMETERS).write(output);
+		assertEquals(EXPECTED, new String(output.toByteArray(), Charsets.UTF_8));
+	}
+
+	@Test
+	public void testRenderTimesAreRecorded() throws IOException {
+		templateEngine.process("hello.ftl", LOCALES, PARAMETERS);
+		templateEngine.process("hello.ftl", LOCALES, PARAMETERS);
+		assertEquals(2, templateEngine.getTimings().get("hello.ftl").getInvocations());
+	}
+
+}
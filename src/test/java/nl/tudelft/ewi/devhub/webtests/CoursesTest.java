@@ -1,5 +1,6 @@
 package nl.tudelft.ewi.devhub.webtests;
 
+import nl.tudelft.ewi.devhub.server.metrics.QueryBudget.Limit;
 import nl.tudelft.ewi.devhub.webtests.utils.WebTest;
 
 import nl.tudelft.ewi.devhub.webtests.views.CourseEditionView;
@@ -73,6 +74,18 @@ public class CoursesTest extends WebTest {
 				.get(0).click();
 	}
 
+	/**
+	 * Opening the courses page, including the login, stays within a fixed number of
+	 * statements. A statement per course or group shows up as a failure here.
+	 */
+	@Test
+	@Limit(statements = 50)
+	public void testCoursesPageWithinQueryBudget() {
+		openLoginScreen()
+				.login(NET_ID, PASSWORD)
+				.toCoursesView();
+	}
+
 	@Test
 	public void testListAssistingProjects() {
 		CoursesView view = openLoginScreen()
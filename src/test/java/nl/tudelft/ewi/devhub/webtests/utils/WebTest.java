@@ -1,6 +1,8 @@
 package nl.tudelft.ewi.devhub.webtests.utils;
 
 import nl.tudelft.ewi.devhub.server.Config;
+import nl.tudelft.ewi.devhub.server.metrics.QueryBudget;
+import nl.tudelft.ewi.devhub.server.metrics.RequestMetricsRegistry;
 import nl.tudelft.ewi.devhub.webtests.rules.DriverResource;
 import nl.tudelft.ewi.devhub.webtests.rules.ServerResource;
 import nl.tudelft.ewi.devhub.webtests.views.AuthenticatedView;
@@ -9,6 +11,7 @@ import nl.tudelft.ewi.devhub.webtests.views.LoginView;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.ClassRule;
+import org.junit.Rule;
 import org.junit.rules.RuleChain;
 import org.openqa.selenium.WebDriver;
 
@@ -30,6 +33,7 @@ public abstract class WebTest {
 	public static ServerResource serverResource = new ServerResource();
 	public static DriverResource driverResource = new DriverResource();
 	@ClassRule public static RuleChain ruleChain = RuleChain.outerRule(serverResource).around(driverResource);
+	@Rule public QueryBudget queryBudget = QueryBudget.forServer(() -> serverResource.getServer().getInstance(RequestMetricsRegistry.class));
 
 	@Inject private Config config;
 